@@ -0,0 +1,112 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.security.KeyStore;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * Contexts and key stores shared by the benchmarks.
+ * <p>
+ * The key stores are those used by the unit tests of the library.
+ *
+ * @author Carl Harris
+ */
+class BenchmarkFixtures {
+
+  static final String PASSWORD = "changeit";
+
+  static final String RESOURCE_PATH = "classpath:org/soulwing/ssl/";
+
+  /**
+   * Creates a builder for a server context with a credential, peer trust,
+   * and typical protocol and cipher suite rules.
+   * @return context builder
+   */
+  static SSLContextBuilder newServerContextBuilder() {
+    return SSLContextBuilderFactory.newBuilder()
+        .protocol("TLS")
+        .includeProtocols("TLSv1\\.[23]")
+        .excludeCipherSuites(".*_CBC_.*", ".*_NULL_.*", ".*_anon_.*")
+        .credential()
+          .type("JKS")
+          .location(RESOURCE_PATH + "server-credential.jks")
+          .password(PASSWORD)
+          .end()
+        .peerTrust()
+          .type("JKS")
+          .location(RESOURCE_PATH + "client-certificate.jks")
+          .password(PASSWORD)
+          .end();
+  }
+
+  /**
+   * Creates a plain JSSE server context equivalent to the one produced by
+   * {@link #newServerContextBuilder()}, without the protocol and cipher suite
+   * rules.
+   * @return initialized SSL context
+   * @throws Exception if the context cannot be created
+   */
+  static SSLContext newJdkServerContext() throws Exception {
+    return newJdkContext(loadKeyStore("JKS", "server-credential.jks"),
+        loadKeyStore("JKS", "client-certificate.jks"));
+  }
+
+  /**
+   * Creates and initializes a plain JSSE context.
+   * @param keyStore credential key store
+   * @param trustStore peer trust store
+   * @return initialized SSL context
+   * @throws Exception if the context cannot be created
+   */
+  static SSLContext newJdkContext(KeyStore keyStore, KeyStore trustStore)
+      throws Exception {
+    final KeyManagerFactory kmf = KeyManagerFactory.getInstance(
+        KeyManagerFactory.getDefaultAlgorithm());
+    kmf.init(keyStore, PASSWORD.toCharArray());
+    final TrustManagerFactory tmf = TrustManagerFactory.getInstance(
+        TrustManagerFactory.getDefaultAlgorithm());
+    tmf.init(trustStore);
+    final SSLContext context = SSLContext.getInstance("TLS");
+    context.init(kmf.getKeyManagers(), tmf.getTrustManagers(), null);
+    return context;
+  }
+
+  /**
+   * Creates a factory for one of the benchmark key stores.
+   * @param type key store type
+   * @param name resource name of the key store
+   * @return key store factory
+   */
+  static KeyStoreFactory newKeyStoreFactory(String type, String name) {
+    final KeyStoreFactory factory = new KeyStoreFactory();
+    factory.setType(type);
+    factory.setLocation(RESOURCE_PATH + name);
+    factory.setPassword(PASSWORD);
+    return factory;
+  }
+
+  static KeyStore loadKeyStore(String type, String name) {
+    return newKeyStoreFactory(type, name).newKeyStore();
+  }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.security.KeyStore;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link KeyStoreFactory#newKeyStore()} for each supported kind of
+ * key store, with and without the key store cache.
+ *
+ * @author Carl Harris
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class KeyStoreFactoryBenchmark {
+
+  @Param({ "JKS:server-credential.jks", "PKCS12:keystore.p12",
+      "PEM:server-credential.pem" })
+  public String keyStore;
+
+  private KeyStoreFactory factory;
+  private KeyStoreFactory cachedFactory;
+
+  @Setup
+  public void setUp() {
+    final String[] typeAndName = keyStore.split(":");
+    factory = BenchmarkFixtures.newKeyStoreFactory(
+        typeAndName[0], typeAndName[1]);
+    cachedFactory = BenchmarkFixtures.newKeyStoreFactory(
+        typeAndName[0], typeAndName[1]);
+    cachedFactory.setCached(true);
+  }
+
+  @Benchmark
+  public KeyStore newKeyStore() {
+    return factory.newKeyStore();
+  }
+
+  @Benchmark
+  public KeyStore newKeyStoreCached() {
+    return cachedFactory.newKeyStore();
+  }
+
+}
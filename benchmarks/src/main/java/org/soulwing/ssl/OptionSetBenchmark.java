@@ -0,0 +1,86 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link OptionSet#enabledOptions(String[], String[])} for typical
+ * cipher suite rules against the cipher suites supported by the JRE.
+ * <p>
+ * The {@code resolve} benchmark passes fresh copies of the supported and
+ * default arrays (as happens when they are obtained from an
+ * {@link SSLParameters} object), so that the rules are applied every time.
+ * The {@code resolveRepeated} benchmark passes the same arrays each time.
+ *
+ * @author Carl Harris
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OptionSetBenchmark {
+
+  private final OptionSet optionSet = new OptionSet();
+
+  private String[] supportedCipherSuites;
+  private String[] defaultCipherSuites;
+
+  @Setup
+  public void setUp() throws Exception {
+    final SSLContext context = SSLContext.getDefault();
+    supportedCipherSuites =
+        context.getSupportedSSLParameters().getCipherSuites();
+    defaultCipherSuites =
+        context.getDefaultSSLParameters().getCipherSuites();
+    optionSet.includeOptions("TLS_AES_.*", "TLS_CHACHA20_.*",
+        "TLS_ECDHE_ECDSA_.*", "TLS_ECDHE_RSA_.*", "TLS_DHE_RSA_.*");
+    optionSet.excludeOptions(".*_CBC_.*", ".*_NULL_.*", ".*_anon_.*",
+        ".*_RC4_.*", ".*_3DES_.*", ".*_SHA", "TLS_EMPTY_RENEGOTIATION_INFO_SCSV");
+  }
+
+  @Benchmark
+  public String[] resolve() {
+    return optionSet.enabledOptions(supportedCipherSuites.clone(),
+        defaultCipherSuites.clone());
+  }
+
+  @Benchmark
+  public String[] resolveRepeated() {
+    return optionSet.enabledOptions(supportedCipherSuites,
+        defaultCipherSuites);
+  }
+
+}
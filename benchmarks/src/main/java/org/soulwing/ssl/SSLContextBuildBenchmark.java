@@ -0,0 +1,73 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.security.KeyStore;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of {@link SSLContextBuilder#build()} for a context with
+ * a credential and peer trust, compared with initializing a plain JSSE
+ * context from the same (already loaded) key stores.
+ *
+ * @author Carl Harris
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SSLContextBuildBenchmark {
+
+  private SSLContextBuilder builder;
+  private KeyStore keyStore;
+  private KeyStore trustStore;
+
+  @Setup
+  public void setUp() {
+    builder = BenchmarkFixtures.newServerContextBuilder();
+    keyStore = BenchmarkFixtures.loadKeyStore("JKS", "server-credential.jks");
+    trustStore = BenchmarkFixtures.loadKeyStore("JKS", "client-certificate.jks");
+  }
+
+  @Benchmark
+  public SSLContext build() {
+    return builder.build();
+  }
+
+  @Benchmark
+  public SSLContext buildJdk() throws Exception {
+    return BenchmarkFixtures.newJdkContext(keyStore, trustStore);
+  }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of {@link SSLContext#createSSLEngine()} for a
+ * context produced by the builder, compared with a plain JSSE context, using
+ * one thread and as many threads as there are available processors.
+ *
+ * @author Carl Harris
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SSLEngineBenchmark {
+
+  private static final String PEER_HOST = "server.example.com";
+
+  private static final int PEER_PORT = 443;
+
+  private SSLContext context;
+  private SSLContext jdkContext;
+
+  @Setup
+  public void setUp() throws Exception {
+    context = BenchmarkFixtures.newServerContextBuilder().build();
+    jdkContext = BenchmarkFixtures.newJdkServerContext();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public SSLEngine createEngine() {
+    return context.createSSLEngine();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public SSLEngine createEngineMultiThreaded() {
+    return context.createSSLEngine();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public SSLEngine createEngineForPeer() {
+    return context.createSSLEngine(PEER_HOST, PEER_PORT);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public SSLEngine createJdkEngine() {
+    return jdkContext.createSSLEngine();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public SSLEngine createJdkEngineMultiThreaded() {
+    return jdkContext.createSSLEngine();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public SSLEngine createJdkEngineForPeer() {
+    return jdkContext.createSSLEngine(PEER_HOST, PEER_PORT);
+  }
+
+}
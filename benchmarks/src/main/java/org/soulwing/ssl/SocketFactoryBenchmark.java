@@ -0,0 +1,85 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the overhead of creating (unconnected) sockets using the socket
+ * factory of a context produced by the builder, compared with the socket
+ * factory of a plain JSSE context.
+ *
+ * @author Carl Harris
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SocketFactoryBenchmark {
+
+  private SSLContext context;
+  private SSLSocketFactory socketFactory;
+  private SSLSocketFactory jdkSocketFactory;
+
+  @Setup
+  public void setUp() throws Exception {
+    context = BenchmarkFixtures.newServerContextBuilder().build();
+    socketFactory = context.getSocketFactory();
+    jdkSocketFactory = BenchmarkFixtures.newJdkServerContext()
+        .getSocketFactory();
+  }
+
+  @Benchmark
+  public SSLSocketFactory getSocketFactory() {
+    return context.getSocketFactory();
+  }
+
+  @Benchmark
+  public Socket createSocket() throws IOException {
+    try (Socket socket = socketFactory.createSocket()) {
+      return socket;
+    }
+  }
+
+  @Benchmark
+  public Socket createJdkSocket() throws IOException {
+    try (Socket socket = jdkSocketFactory.createSocket()) {
+      return socket;
+    }
+  }
+
+}
@@ -0,0 +1,352 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.net.Socket;
+import java.security.AlgorithmConstraints;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+import javax.net.ssl.ExtendedSSLSession;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.X509ExtendedKeyManager;
+
+/**
+ * An {@link X509ExtendedKeyManager} that memoizes the aliases chosen by its
+ * delegate, or that always chooses a given alias.
+ * <p>
+ * A chosen alias is memoized under a key that consists of the direction
+ * (client or server), the requested key types, the set of acceptable
+ * issuers, (for a server) the host name requested by the client via the
+ * server name indication extension, and the constraints of the handshake
+ * that the JDK's key managers consider when choosing: the protocol, the
+ * signature algorithms supported by the peer, and the algorithm
+ * constraints of the socket or engine. A memoized alias is discarded when
+ * its certificate expires. When the delegate chooses no alias, nothing is
+ * memoized, so that the delegate is consulted again for the next request.
+ * The memo holds at most a fixed number of selections, evicting the least
+ * recently used selection when full.
+ * <p>
+ * When an alias is given, it is chosen for any request for which the
+ * delegate reports it among the aliases of a requested key type, without
+ * letting the delegate choose. The alias reported by the delegate is the
+ * one that is chosen; for the {@code PKIX} key manager, this is the given
+ * alias prefixed with the indexes the key manager uses to identify an
+ * entry (e.g. {@code 1.0.alias}).
+ * <p>
+ * An instance is intended to be created for each key store that is loaded;
+ * when used with a {@link ReloadingX509KeyManager}, a new instance (and
+ * thus an empty memo) replaces the old one whenever the key store is
+ * reloaded.
+ *
+ * @author Carl Harris
+ */
+class CachingX509KeyManager extends X509ExtendedKeyManager {
+
+  static final int MAX_SIZE = 256;
+
+  private final X509ExtendedKeyManager delegate;
+  private final String alias;
+  private final LongSupplier clock;
+  private final Map<Key, Selection> selections;
+
+  /**
+   * Constructs a new instance.
+   * @param delegate key manager that chooses aliases on a memo miss, and
+   *    that supplies keys and certificates
+   * @param alias alias to choose or {@code null} to let the delegate choose
+   */
+  CachingX509KeyManager(X509ExtendedKeyManager delegate, String alias) {
+    this(delegate, alias, System::currentTimeMillis);
+  }
+
+  CachingX509KeyManager(X509ExtendedKeyManager delegate, String alias,
+      LongSupplier clock) {
+    this.delegate = delegate;
+    this.alias = alias;
+    this.clock = clock;
+    this.selections = new LinkedHashMap<Key, Selection>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Selection> eldest) {
+        return size() > MAX_SIZE;
+      }
+    };
+  }
+
+  /**
+   * Gets the number of memoized selections.
+   * @return number of selections
+   */
+  synchronized int size() {
+    return selections.size();
+  }
+
+  @Override
+  public String[] getClientAliases(String keyType, Principal[] issuers) {
+    return delegate.getClientAliases(keyType, issuers);
+  }
+
+  @Override
+  public String chooseClientAlias(String[] keyTypes, Principal[] issuers,
+      Socket socket) {
+    final Key key = new Key(false, keyTypes, issuers, socket);
+    String chosen = lookup(key);
+    if (chosen == null) {
+      chosen = alias != null ?
+          chooseAlias(false, keyTypes) :
+          delegate.chooseClientAlias(keyTypes, issuers, socket);
+      store(key, chosen);
+    }
+    return chosen;
+  }
+
+  @Override
+  public String chooseEngineClientAlias(String[] keyTypes,
+      Principal[] issuers, SSLEngine engine) {
+    final Key key = new Key(false, keyTypes, issuers, engine);
+    String chosen = lookup(key);
+    if (chosen == null) {
+      chosen = alias != null ?
+          chooseAlias(false, keyTypes) :
+          delegate.chooseEngineClientAlias(keyTypes, issuers, engine);
+      store(key, chosen);
+    }
+    return chosen;
+  }
+
+  @Override
+  public String[] getServerAliases(String keyType, Principal[] issuers) {
+    return delegate.getServerAliases(keyType, issuers);
+  }
+
+  @Override
+  public String chooseServerAlias(String keyType, Principal[] issuers,
+      Socket socket) {
+    final Key key = new Key(true, new String[] { keyType }, issuers, socket);
+    String chosen = lookup(key);
+    if (chosen == null) {
+      chosen = alias != null ?
+          chooseAlias(true, keyType) :
+          delegate.chooseServerAlias(keyType, issuers, socket);
+      store(key, chosen);
+    }
+    return chosen;
+  }
+
+  @Override
+  public String chooseEngineServerAlias(String keyType, Principal[] issuers,
+      SSLEngine engine) {
+    final Key key = new Key(true, new String[] { keyType }, issuers, engine);
+    String chosen = lookup(key);
+    if (chosen == null) {
+      chosen = alias != null ?
+          chooseAlias(true, keyType) :
+          delegate.chooseEngineServerAlias(keyType, issuers, engine);
+      store(key, chosen);
+    }
+    return chosen;
+  }
+
+  @Override
+  public X509Certificate[] getCertificateChain(String alias) {
+    return delegate.getCertificateChain(alias);
+  }
+
+  @Override
+  public PrivateKey getPrivateKey(String alias) {
+    return delegate.getPrivateKey(alias);
+  }
+
+  /**
+   * Chooses the given alias, as reported by the delegate, for any of a
+   * set of key types.
+   * @param server whether a server alias is to be chosen
+   * @param keyTypes requested key types
+   * @return alias reported by the delegate or {@code null} if the delegate
+   *    does not report the given alias for any of {@code keyTypes}
+   */
+  private String chooseAlias(boolean server, String... keyTypes) {
+    if (keyTypes == null) return null;
+    for (final String keyType : keyTypes) {
+      if (keyType == null) continue;
+      final String[] aliases = server ?
+          delegate.getServerAliases(keyType, null) :
+          delegate.getClientAliases(keyType, null);
+      if (aliases == null) continue;
+      for (final String candidate : aliases) {
+        if (isAlias(candidate)) return candidate;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Tests whether an alias reported by the delegate is the given alias,
+   * either as-is or in the form {@code uid.index.alias} used by the
+   * {@code PKIX} key manager.
+   * @param candidate the alias to test
+   * @return {@code true} if {@code candidate} identifies the given alias
+   */
+  private boolean isAlias(String candidate) {
+    if (candidate.equals(alias)) return true;
+    final String[] parts = candidate.split("\\.", 3);
+    return parts.length == 3 && parts[2].equals(alias)
+        && isNumber(parts[0]) && isNumber(parts[1]);
+  }
+
+  private static boolean isNumber(String s) {
+    if (s.isEmpty()) return false;
+    for (int i = 0; i < s.length(); i++) {
+      if (!Character.isDigit(s.charAt(i))) return false;
+    }
+    return true;
+  }
+
+  private synchronized String lookup(Key key) {
+    final Selection selection = selections.get(key);
+    if (selection == null) return null;
+    if (clock.getAsLong() >= selection.expiresAt) {
+      selections.remove(key);
+      return null;
+    }
+    return selection.alias;
+  }
+
+  private void store(Key key, String alias) {
+    if (alias == null) return;
+    long expiresAt = Long.MAX_VALUE;
+    final X509Certificate[] chain = delegate.getCertificateChain(alias);
+    if (chain != null && chain.length > 0) {
+      expiresAt = chain[0].getNotAfter().getTime();
+    }
+    final Selection selection = new Selection(alias, expiresAt);
+    synchronized (this) {
+      selections.put(key, selection);
+    }
+  }
+
+  /**
+   * A key for a memoized selection.
+   */
+  private static class Key {
+
+    private final boolean server;
+    private final List<String> keyTypes;
+    private final Set<Principal> issuers;
+    private final String hostName;
+    private final String protocol;
+    private final List<String> peerSignatureAlgorithms;
+    private final AlgorithmConstraints constraints;
+
+    Key(boolean server, String[] keyTypes, Principal[] issuers,
+        Socket socket) {
+      this(server, keyTypes, issuers,
+          socket instanceof SSLSocket ?
+              ((SSLSocket) socket).getHandshakeSession() : null,
+          socket instanceof SSLSocket ?
+              ((SSLSocket) socket).getSSLParameters() : null);
+    }
+
+    Key(boolean server, String[] keyTypes, Principal[] issuers,
+        SSLEngine engine) {
+      this(server, keyTypes, issuers,
+          engine != null ? engine.getHandshakeSession() : null,
+          engine != null ? engine.getSSLParameters() : null);
+    }
+
+    private Key(boolean server, String[] keyTypes, Principal[] issuers,
+        SSLSession session, SSLParameters parameters) {
+      this.server = server;
+      this.keyTypes = keyTypes != null ?
+          Arrays.asList(keyTypes) : Collections.<String>emptyList();
+      this.issuers = issuers != null && issuers.length > 0 ?
+          new HashSet<>(Arrays.asList(issuers)) :
+          Collections.<Principal>emptySet();
+      final String hostName =
+          server ? HostnameMatcher.requestedHostName(session) : null;
+      this.hostName = hostName != null ?
+          HostnameMatcher.normalize(hostName) : null;
+      this.protocol = session != null ? session.getProtocol() : null;
+      this.peerSignatureAlgorithms =
+          session instanceof ExtendedSSLSession ?
+              Arrays.asList(((ExtendedSSLSession) session)
+                  .getPeerSupportedSignatureAlgorithms()) :
+              Collections.<String>emptyList();
+      this.constraints =
+          parameters != null ? parameters.getAlgorithmConstraints() : null;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) return true;
+      if (!(obj instanceof Key)) return false;
+      final Key that = (Key) obj;
+      return this.server == that.server
+          && this.keyTypes.equals(that.keyTypes)
+          && this.issuers.equals(that.issuers)
+          && Objects.equals(this.hostName, that.hostName)
+          && Objects.equals(this.protocol, that.protocol)
+          && this.peerSignatureAlgorithms.equals(
+              that.peerSignatureAlgorithms)
+          && this.constraints == that.constraints;
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = server ? 1 : 0;
+      hash = 31 * hash + keyTypes.hashCode();
+      hash = 31 * hash + issuers.hashCode();
+      hash = 31 * hash + Objects.hashCode(hostName);
+      hash = 31 * hash + Objects.hashCode(protocol);
+      hash = 31 * hash + peerSignatureAlgorithms.hashCode();
+      hash = 31 * hash + System.identityHashCode(constraints);
+      return hash;
+    }
+
+  }
+
+  /**
+   * A memoized alias and the time at which it expires.
+   */
+  private static class Selection {
+
+    private final String alias;
+    private final long expiresAt;
+
+    Selection(String alias, long expiresAt) {
+      this.alias = alias;
+      this.expiresAt = expiresAt;
+    }
+
+  }
+
+}
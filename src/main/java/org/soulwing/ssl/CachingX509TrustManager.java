@@ -0,0 +1,274 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.net.Socket;
+import java.security.KeyStore;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import javax.net.ssl.ExtendedSSLSession;
+import javax.net.ssl.SNIServerName;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.X509ExtendedTrustManager;
+
+/**
+ * An {@link X509ExtendedTrustManager} that caches successful validations
+ * of peer certificate chains by its delegate.
+ * <p>
+ * A validation result is keyed by the direction of the check (client or
+ * server), the authentication type, and a digest of the encoded chain. When
+ * the check is made for a socket or engine whose parameters specify an
+ * endpoint identification algorithm, the key also includes the algorithm,
+ * the peer host, and the requested server names, so that a cached result
+ * never bypasses endpoint identification for a different peer.
+ * <p>
+ * A cached result expires when any certificate in the chain expires, or
+ * when the configured time to live has elapsed, whichever is earlier.
+ * The cache holds at most a fixed number of results, evicting the least
+ * recently used result when full. Failed validations are never cached.
+ * <p>
+ * When the trust manager is registered with a {@link KeyStoreMonitor} for
+ * the trust store, the cache is cleared whenever the trust store changes.
+ *
+ * @author Carl Harris
+ */
+class CachingX509TrustManager extends X509ExtendedTrustManager
+    implements KeyStoreMonitor.Listener {
+
+  private final X509ExtendedTrustManager delegate;
+  private final long timeToLive;
+  private final LongSupplier clock;
+  private final Map<String, Long> results;
+
+  private long generation;
+
+  /**
+   * Constructs a new instance.
+   * @param delegate trust manager that validates chains on a cache miss
+   * @param maxSize maximum number of cached results
+   * @param timeToLive maximum time for which a result is cached
+   * @param unit unit for {@code timeToLive}
+   */
+  CachingX509TrustManager(X509ExtendedTrustManager delegate, int maxSize,
+      long timeToLive, TimeUnit unit) {
+    this(delegate, maxSize, timeToLive, unit, System::currentTimeMillis);
+  }
+
+  CachingX509TrustManager(X509ExtendedTrustManager delegate,
+      final int maxSize, long timeToLive, TimeUnit unit, LongSupplier clock) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("cache size must be positive");
+    }
+    if (timeToLive <= 0) {
+      throw new IllegalArgumentException("time to live must be positive");
+    }
+    this.delegate = delegate;
+    this.timeToLive = unit.toMillis(timeToLive);
+    this.clock = clock;
+    this.results = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  @Override
+  public void keyStoreChanged(KeyStore keyStore) {
+    invalidate();
+  }
+
+  /**
+   * Removes all cached results.
+   */
+  public synchronized void invalidate() {
+    generation++;
+    results.clear();
+  }
+
+  /**
+   * Gets the number of cached results.
+   * @return number of results
+   */
+  synchronized int size() {
+    return results.size();
+  }
+
+  @Override
+  public void checkClientTrusted(X509Certificate[] chain, String authType,
+      Socket socket) throws CertificateException {
+    final String key = key("client", chain, authType, socket);
+    final long generation = lookup(key);
+    if (generation < 0) return;
+    delegate.checkClientTrusted(chain, authType, socket);
+    store(key, chain, generation);
+  }
+
+  @Override
+  public void checkServerTrusted(X509Certificate[] chain, String authType,
+      Socket socket) throws CertificateException {
+    final String key = key("server", chain, authType, socket);
+    final long generation = lookup(key);
+    if (generation < 0) return;
+    delegate.checkServerTrusted(chain, authType, socket);
+    store(key, chain, generation);
+  }
+
+  @Override
+  public void checkClientTrusted(X509Certificate[] chain, String authType,
+      SSLEngine engine) throws CertificateException {
+    final String key = key("client", chain, authType, engine);
+    final long generation = lookup(key);
+    if (generation < 0) return;
+    delegate.checkClientTrusted(chain, authType, engine);
+    store(key, chain, generation);
+  }
+
+  @Override
+  public void checkServerTrusted(X509Certificate[] chain, String authType,
+      SSLEngine engine) throws CertificateException {
+    final String key = key("server", chain, authType, engine);
+    final long generation = lookup(key);
+    if (generation < 0) return;
+    delegate.checkServerTrusted(chain, authType, engine);
+    store(key, chain, generation);
+  }
+
+  @Override
+  public void checkClientTrusted(X509Certificate[] chain, String authType)
+      throws CertificateException {
+    final String key = key("client", chain, authType, null, null);
+    final long generation = lookup(key);
+    if (generation < 0) return;
+    delegate.checkClientTrusted(chain, authType);
+    store(key, chain, generation);
+  }
+
+  @Override
+  public void checkServerTrusted(X509Certificate[] chain, String authType)
+      throws CertificateException {
+    final String key = key("server", chain, authType, null, null);
+    final long generation = lookup(key);
+    if (generation < 0) return;
+    delegate.checkServerTrusted(chain, authType);
+    store(key, chain, generation);
+  }
+
+  @Override
+  public X509Certificate[] getAcceptedIssuers() {
+    return delegate.getAcceptedIssuers();
+  }
+
+  /**
+   * Looks up a cached result.
+   * @param key result key (may be {@code null} if the chain cannot be
+   *    cached)
+   * @return -1 if a valid result is cached, otherwise the current
+   *    generation of the cache
+   */
+  private synchronized long lookup(String key) {
+    if (key == null) return generation;
+    final Long expiry = results.get(key);
+    if (expiry == null) return generation;
+    if (expiry > clock.getAsLong()) return -1;
+    results.remove(key);
+    return generation;
+  }
+
+  /**
+   * Stores a successful result, unless the cache has been invalidated
+   * since the result was looked up.
+   * @param key result key (may be {@code null} if the chain cannot be
+   *    cached)
+   * @param chain the validated chain
+   * @param generation generation of the cache at lookup
+   */
+  private void store(String key, X509Certificate[] chain, long generation) {
+    if (key == null) return;
+    final long now = clock.getAsLong();
+    long expiry = now + timeToLive;
+    for (final X509Certificate certificate : chain) {
+      expiry = Math.min(expiry, certificate.getNotAfter().getTime());
+    }
+    if (expiry <= now) return;
+    synchronized (this) {
+      if (generation == this.generation) {
+        results.put(key, expiry);
+      }
+    }
+  }
+
+  private static String key(String direction, X509Certificate[] chain,
+      String authType, Socket socket) {
+    if (!(socket instanceof SSLSocket)) {
+      return key(direction, chain, authType, null, null);
+    }
+    final SSLSocket sslSocket = (SSLSocket) socket;
+    return key(direction, chain, authType, sslSocket.getSSLParameters(),
+        sslSocket.getHandshakeSession());
+  }
+
+  private static String key(String direction, X509Certificate[] chain,
+      String authType, SSLEngine engine) {
+    if (engine == null) {
+      return key(direction, chain, authType, null, null);
+    }
+    return key(direction, chain, authType, engine.getSSLParameters(),
+        engine.getHandshakeSession());
+  }
+
+  private static String key(String direction, X509Certificate[] chain,
+      String authType, SSLParameters parameters, SSLSession session) {
+    if (chain == null || chain.length == 0) return null;
+    try {
+      final Fingerprint fingerprint = new Fingerprint()
+          .add(direction)
+          .add(authType);
+      for (final X509Certificate certificate : chain) {
+        fingerprint.add(certificate.getEncoded());
+      }
+      final String algorithm = parameters != null ?
+          parameters.getEndpointIdentificationAlgorithm() : null;
+      fingerprint.add(algorithm);
+      if (algorithm != null) {
+        if (session == null) return null;
+        fingerprint.add(session.getPeerHost());
+        if (session instanceof ExtendedSSLSession) {
+          for (final SNIServerName name :
+              ((ExtendedSSLSession) session).getRequestedServerNames()) {
+            fingerprint.add(name.getType()).add(name.getEncoded());
+          }
+        }
+      }
+      return fingerprint.compute();
+    }
+    catch (CertificateException ex) {
+      return null;
+    }
+  }
+
+}
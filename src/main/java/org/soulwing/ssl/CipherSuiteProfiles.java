@@ -0,0 +1,290 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.lang.management.ManagementFactory;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import org.soulwing.ssl.SSLContextBuilder.CipherSuiteProfile;
+
+/**
+ * Utility methods that apply a {@link CipherSuiteProfile} to a list of
+ * cipher suites.
+ * <p>
+ * Whether AES-GCM or ChaCha20-Poly1305 is preferred depends on whether AES
+ * is fast on the host. By default, this is determined by asking the
+ * HotSpot VM whether it uses the processor's AES instructions (falling
+ * back to a guess based on the processor architecture on other VMs).
+ * Alternatively, it may be determined by a short benchmark of the two
+ * ciphers, which is run at most once.
+ *
+ * @author Carl Harris
+ */
+class CipherSuiteProfiles {
+
+  private static final String SCSV_SUFFIX = "_SCSV";
+
+  private static final String TLS_PREFIX = "TLS_";
+  private static final String SSL_PREFIX = "SSL_";
+  private static final String WITH = "_WITH_";
+
+  private static final int BENCHMARK_DATA_SIZE = 16384;
+  private static final long BENCHMARK_NANOS = 25000000;
+
+  private static final List<String> AES_ARCHITECTURES = Arrays.asList(
+      "amd64", "x86_64", "aarch64", "ppc64le", "s390x");
+
+  private CipherSuiteProfiles() {
+  }
+
+  /**
+   * Applies a profile to a list of cipher suites.
+   * @param profile the profile to apply
+   * @param cipherSuites the cipher suites, in order of preference
+   * @param benchmark whether to benchmark the AEAD ciphers, rather than
+   *    asking the VM whether it uses AES instructions
+   * @return the cipher suites allowed by {@code profile} in the order that
+   *    it prefers, followed by any signaling cipher suite values
+   */
+  public static String[] apply(CipherSuiteProfile profile,
+      String[] cipherSuites, boolean benchmark) {
+    return order(profile, cipherSuites,
+        benchmark ? Benchmark.AES_PREFERRED : Detection.AES_PREFERRED);
+  }
+
+  /**
+   * Applies a profile to a list of cipher suites.
+   * @param profile the profile to apply
+   * @param cipherSuites the cipher suites, in order of preference
+   * @param aesPreferred whether AES-GCM is preferred to ChaCha20-Poly1305
+   * @return the cipher suites allowed by {@code profile} in the order that
+   *    it prefers, followed by any signaling cipher suite values
+   */
+  static String[] order(CipherSuiteProfile profile, String[] cipherSuites,
+      boolean aesPreferred) {
+    final List<Suite> suites = new ArrayList<>();
+    final List<String> signals = new ArrayList<>();
+    for (final String name : cipherSuites) {
+      if (name.endsWith(SCSV_SUFFIX)) {
+        signals.add(name);
+        continue;
+      }
+      final Suite suite = new Suite(name, aesPreferred);
+      if (isAllowed(profile, suite)) {
+        suites.add(suite);
+      }
+    }
+    // a stable sort, so that ties retain their original order
+    Collections.sort(suites, comparator(profile));
+    final List<String> result = new ArrayList<>(suites.size());
+    for (final Suite suite : suites) {
+      result.add(suite.name);
+    }
+    result.addAll(signals);
+    return result.toArray(new String[result.size()]);
+  }
+
+  private static boolean isAllowed(CipherSuiteProfile profile, Suite suite) {
+    switch (profile) {
+      case THROUGHPUT:
+        return suite.aead && suite.forwardSecret;
+      case LOW_LATENCY:
+        return suite.aead && (suite.tls13 || suite.ellipticCurve);
+      default:
+        return true;
+    }
+  }
+
+  private static Comparator<Suite> comparator(CipherSuiteProfile profile) {
+    switch (profile) {
+      case THROUGHPUT:
+        return (a, b) -> compare(
+            a.cipherRank - b.cipherRank,
+            a.keySize - b.keySize,
+            a.exchangeRank - b.exchangeRank);
+      case LOW_LATENCY:
+        return (a, b) -> compare(
+            a.exchangeRank - b.exchangeRank,
+            a.cipherRank - b.cipherRank);
+      default:
+        return (a, b) -> compare(
+            a.tier() - b.tier(),
+            a.cipherRank - b.cipherRank);
+    }
+  }
+
+  private static int compare(int... differences) {
+    for (final int difference : differences) {
+      if (difference != 0) return difference;
+    }
+    return 0;
+  }
+
+  /**
+   * The attributes of a cipher suite that are relevant to a profile, as
+   * inferred from its standard name.
+   */
+  private static class Suite {
+
+    final String name;
+    final boolean tls13;
+    final boolean aead;
+    final boolean forwardSecret;
+    final boolean ellipticCurve;
+    final int cipherRank;
+    final int exchangeRank;
+    final int keySize;
+
+    Suite(String name, boolean aesPreferred) {
+      this.name = name;
+      final String s = name.toUpperCase(Locale.ENGLISH);
+      final int with = s.indexOf(WITH);
+      final String exchange;
+      final String cipher;
+      if (with != -1) {
+        final int prefix = s.startsWith(TLS_PREFIX)
+            || s.startsWith(SSL_PREFIX) ? 4 : 0;
+        exchange = s.substring(prefix, with);
+        cipher = s.substring(with + WITH.length());
+        tls13 = false;
+      }
+      else {
+        exchange = "";
+        cipher = s.startsWith(TLS_PREFIX) ? s.substring(4) : s;
+        tls13 = true;
+      }
+      final boolean gcm = cipher.contains("_GCM");
+      final boolean chacha = cipher.startsWith("CHACHA20_POLY1305");
+      aead = gcm || chacha || cipher.contains("_CCM");
+      forwardSecret = tls13 || exchange.startsWith("ECDHE_")
+          || exchange.startsWith("DHE_");
+      ellipticCurve = exchange.startsWith("ECDHE_");
+      cipherRank = gcm && cipher.startsWith("AES") ?
+          (aesPreferred ? 0 : 1) :
+          chacha ? (aesPreferred ? 1 : 0) : aead ? 2 : 3;
+      exchangeRank = tls13 ? 0 :
+          exchange.equals("ECDHE_ECDSA") ? 1 :
+          exchange.startsWith("ECDHE_") ? 2 :
+          exchange.startsWith("DHE_") ? 3 : 4;
+      keySize = cipher.contains("_256") ? 256 : 128;
+    }
+
+    int tier() {
+      if (forwardSecret) return aead ? 0 : 1;
+      return aead ? 2 : 3;
+    }
+
+  }
+
+  /**
+   * Determines whether AES is preferred by asking the VM whether it uses
+   * the processor's AES instructions.
+   */
+  private static class Detection {
+
+    static final boolean AES_PREFERRED = isAesPreferred();
+
+    private static boolean isAesPreferred() {
+      try {
+        final HotSpotDiagnosticMXBean bean = ManagementFactory
+            .getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+        if (bean != null) {
+          return Boolean.parseBoolean(bean.getVMOption("UseAES").getValue());
+        }
+      }
+      catch (RuntimeException | LinkageError ex) {
+        assert true;  // not HotSpot; fall back to a guess
+      }
+      return AES_ARCHITECTURES.contains(
+          System.getProperty("os.arch", "").toLowerCase(Locale.ENGLISH));
+    }
+
+  }
+
+  /**
+   * Determines whether AES is preferred by comparing the time needed to
+   * encrypt a buffer using AES-GCM and ChaCha20-Poly1305.
+   * <p>
+   * The two ciphers are run alternately for a fixed period and the best
+   * time for each is compared. Since this is done while the just-in-time
+   * compiler is still warming up, the result is only a rough guide.
+   */
+  private static class Benchmark {
+
+    static final boolean AES_PREFERRED = isAesPreferred();
+
+    private static boolean isAesPreferred() {
+      try {
+        final Cipher aes = Cipher.getInstance("AES/GCM/NoPadding");
+        final Cipher chacha = Cipher.getInstance("ChaCha20-Poly1305");
+        final SecretKeySpec aesKey = new SecretKeySpec(new byte[16], "AES");
+        final SecretKeySpec chachaKey =
+            new SecretKeySpec(new byte[32], "ChaCha20");
+        final byte[] data = new byte[BENCHMARK_DATA_SIZE];
+        final byte[] nonce = new byte[12];
+        long bestAes = Long.MAX_VALUE;
+        long bestChaCha = Long.MAX_VALUE;
+        final long deadline = System.nanoTime() + BENCHMARK_NANOS;
+        while (System.nanoTime() < deadline) {
+          long start = System.nanoTime();
+          increment(nonce);
+          aes.init(Cipher.ENCRYPT_MODE, aesKey,
+              new GCMParameterSpec(128, nonce));
+          aes.doFinal(data);
+          bestAes = Math.min(bestAes, System.nanoTime() - start);
+
+          start = System.nanoTime();
+          chacha.init(Cipher.ENCRYPT_MODE, chachaKey,
+              new IvParameterSpec(nonce));
+          chacha.doFinal(data);
+          bestChaCha = Math.min(bestChaCha, System.nanoTime() - start);
+        }
+        return bestAes <= bestChaCha;
+      }
+      catch (NoSuchAlgorithmException ex) {
+        return true;    // no ChaCha20, so no ChaCha20 cipher suites
+      }
+      catch (GeneralSecurityException ex) {
+        return Detection.AES_PREFERRED;
+      }
+    }
+
+    private static void increment(byte[] nonce) {
+      for (int i = nonce.length - 1; i >= 0; i--) {
+        if (++nonce[i] != 0) return;
+      }
+    }
+
+  }
+
+}
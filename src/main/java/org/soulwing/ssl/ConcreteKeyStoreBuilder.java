@@ -97,6 +97,18 @@ class ConcreteKeyStoreBuilder implements KeyStoreBuilder {
     return this;
   }
 
+  @Override
+  public KeyStoreBuilder keyLocation(String location) {
+    factory.setKeyLocation(location);
+    return this;
+  }
+
+  @Override
+  public KeyStoreBuilder cached() {
+    factory.setCached(true);
+    return this;
+  }
+
   @Override
   public KeyStore build() throws SSLRuntimeException {
     return factory.newKeyStore();
@@ -18,10 +18,14 @@
  */
 package org.soulwing.ssl;
 
+import java.net.MalformedURLException;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
-import java.security.KeyStore;
 import java.security.Provider;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A concrete {@link KeyStoreBuilder} implementation.
@@ -31,13 +35,29 @@ import java.security.Provider;
 class ConcreteKeyStoreSubBuilder implements KeyStoreSubBuilder {
 
   interface EndHandler {
-    SSLContextBuilder handleEnd(KeyStore keyStore, char[] password);
+    /**
+     * Handles the end of the sub-builder.
+     * @param source source of the key store that was configured
+     * @param password key store password
+     * @param crlStore store of the CRLs that were configured (or
+     *    {@code null} if none were configured)
+     * @return the calling builder
+     */
+    SSLContextBuilder handleEnd(KeyStoreSource source, char[] password,
+        CrlStore crlStore);
   }
 
   private final KeyStoreFactory factory = new KeyStoreFactory();
 
   private final EndHandler endHandler;
 
+  private final List<URL> crlLocations = new ArrayList<>();
+
+  private boolean rejectStaleCrls;
+
+  private long reloadInterval;
+  private TimeUnit reloadIntervalUnit;
+
   public ConcreteKeyStoreSubBuilder(EndHandler endHandler) {
     this.endHandler = endHandler;
   }
@@ -102,9 +122,81 @@ class ConcreteKeyStoreSubBuilder implements KeyStoreSubBuilder {
     return this;
   }
 
+  @Override
+  public KeyStoreSubBuilder keyLocation(String location) {
+    factory.setKeyLocation(location);
+    return this;
+  }
+
+  @Override
+  public KeyStoreSubBuilder cached() {
+    factory.setCached(true);
+    return this;
+  }
+
+  @Override
+  public KeyStoreSubBuilder reloadOnChange(long pollInterval, TimeUnit unit) {
+    if (pollInterval <= 0) {
+      throw new IllegalArgumentException("poll interval must be positive");
+    }
+    this.reloadInterval = pollInterval;
+    this.reloadIntervalUnit = unit;
+    return this;
+  }
+
+  @Override
+  public KeyStoreSubBuilder crlLocation(String location) {
+    try {
+      return crlLocation(location, ResourceAccessor.getResource(location));
+    }
+    catch (URISyntaxException | MalformedURLException ex) {
+      throw new SSLRuntimeException(ex);
+    }
+  }
+
+  @Override
+  public KeyStoreSubBuilder crlLocation(URI location) {
+    try {
+      return crlLocation(location.toString(),
+          ResourceAccessor.getResource(location));
+    }
+    catch (MalformedURLException ex) {
+      throw new SSLRuntimeException(ex);
+    }
+  }
+
+  @Override
+  public KeyStoreSubBuilder crlLocation(String location,
+      Class<?> relativeToClass) {
+    return crlLocation(location,
+        ResourceAccessor.getResource(location, relativeToClass));
+  }
+
+  private KeyStoreSubBuilder crlLocation(String location, URL url) {
+    if (url == null) {
+      throw new SSLRuntimeException(
+          "cannot resolve location: '" + location + "'");
+    }
+    crlLocations.add(url);
+    return this;
+  }
+
+  @Override
+  public KeyStoreSubBuilder rejectStaleCrls() {
+    this.rejectStaleCrls = true;
+    return this;
+  }
+
   @Override
   public SSLContextBuilder end() {
-    return endHandler.handleEnd(factory.newKeyStore(), factory.getPassword());
+    final KeyStoreSource source = reloadIntervalUnit != null ?
+        KeyStoreSource.of(factory, reloadInterval, reloadIntervalUnit) :
+        KeyStoreSource.of(factory);
+    final CrlStore crlStore = crlLocations.isEmpty() ? null :
+        new CrlStore(crlLocations, reloadIntervalUnit != null ?
+            reloadIntervalUnit.toMillis(reloadInterval) : 0,
+            rejectStaleCrls);
+    return endHandler.handleEnd(source, factory.getPassword(), crlStore);
   }
 
 }
@@ -18,19 +18,25 @@
  */
 package org.soulwing.ssl;
 
+import java.net.URI;
+import java.security.KeyManagementException;
 import java.security.KeyStore;
-import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.Provider;
 import java.security.SecureRandom;
-import java.security.UnrecoverableKeyException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509ExtendedKeyManager;
+import javax.net.ssl.X509ExtendedTrustManager;
 
 /**
  * A concrete {@link SSLContextBuilder}.
@@ -42,13 +48,36 @@ class ConcreteSSLContextBuilder implements SSLContextBuilder {
   private final SSLParametersConfiguration parameters =
       new SSLParametersConfiguration();
 
+  private final SSLSessionContextConfiguration serverSessions =
+      new SSLSessionContextConfiguration();
+
+  private final SSLSessionContextConfiguration clientSessions =
+      new SSLSessionContextConfiguration();
+
   private String protocol = "TLS";
   private String providerName;
   private Provider provider;
-  private KeyStore keyStore;
+  private KeyStoreSource keyStoreSource;
   private char[] keyPassword;
-  private KeyStore trustStore;
+  private KeyStoreSource trustStoreSource;
+  private CrlStore crlStore;
   private SecureRandom secureRandom;
+  private SSLMetrics metrics;
+  private int peerTrustCacheSize;
+  private long peerTrustCacheTimeToLive;
+  private TimeUnit peerTrustCacheTimeToLiveUnit;
+  private boolean peerTrustIndex;
+  private boolean credentialIndex;
+  private boolean credentialSelectionCache;
+  private String credentialAlias;
+  private int ocspCacheSize;
+  private long ocspTimeout;
+  private TimeUnit ocspTimeoutUnit;
+  private URI ocspResponder;
+  private int staplingCacheSize;
+  private long staplingCacheLifetime;
+  private TimeUnit staplingCacheLifetimeUnit;
+  private long staplingTimeout;
 
   @Override
   public SSLContextBuilder protocol(String protocol) {
@@ -116,6 +145,18 @@ class ConcreteSSLContextBuilder implements SSLContextBuilder {
     return this;
   }
 
+  @Override
+  public SSLContextBuilder cipherSuiteProfile(CipherSuiteProfile profile) {
+    return cipherSuiteProfile(profile, false);
+  }
+
+  @Override
+  public SSLContextBuilder cipherSuiteProfile(CipherSuiteProfile profile,
+      boolean benchmark) {
+    parameters.setCipherSuiteProfile(profile, benchmark);
+    return this;
+  }
+
   @Override
   public SSLContextBuilder clientAuthentication(ClientAuthentication type) {
     switch (type) {
@@ -140,7 +181,7 @@ class ConcreteSSLContextBuilder implements SSLContextBuilder {
 
   @Override
   public SSLContextBuilder credential(KeyStore keyStore, char[] password) {
-    this.keyStore = keyStore;
+    this.keyStoreSource = KeyStoreSource.of(keyStore);
     this.keyPassword = password;
     return this;
   }
@@ -155,8 +196,9 @@ class ConcreteSSLContextBuilder implements SSLContextBuilder {
   public KeyStoreSubBuilder credential() {
     return new ConcreteKeyStoreSubBuilder(new ConcreteKeyStoreSubBuilder.EndHandler() {
       @Override
-      public SSLContextBuilder handleEnd(KeyStore keyStore, char[] password) {
-        ConcreteSSLContextBuilder.this.keyStore = keyStore;
+      public SSLContextBuilder handleEnd(KeyStoreSource source,
+          char[] password, CrlStore crlStore) {
+        ConcreteSSLContextBuilder.this.keyStoreSource = source;
         ConcreteSSLContextBuilder.this.keyPassword = password;
         return ConcreteSSLContextBuilder.this;
       }
@@ -168,8 +210,9 @@ class ConcreteSSLContextBuilder implements SSLContextBuilder {
     this.keyPassword = keyPassword;
     return new ConcreteKeyStoreSubBuilder(new ConcreteKeyStoreSubBuilder.EndHandler() {
       @Override
-      public SSLContextBuilder handleEnd(KeyStore keyStore, char[] password) {
-        ConcreteSSLContextBuilder.this.keyStore = keyStore;
+      public SSLContextBuilder handleEnd(KeyStoreSource source,
+          char[] password, CrlStore crlStore) {
+        ConcreteSSLContextBuilder.this.keyStoreSource = source;
         return ConcreteSSLContextBuilder.this;
       }
     });
@@ -182,7 +225,8 @@ class ConcreteSSLContextBuilder implements SSLContextBuilder {
 
   @Override
   public SSLContextBuilder peerTrust(KeyStore trustStore) {
-    this.trustStore = trustStore;
+    this.trustStoreSource = KeyStoreSource.of(trustStore);
+    this.crlStore = null;
     return this;
   }
 
@@ -190,25 +234,147 @@ class ConcreteSSLContextBuilder implements SSLContextBuilder {
   public KeyStoreSubBuilder peerTrust() {
     return new ConcreteKeyStoreSubBuilder(new ConcreteKeyStoreSubBuilder.EndHandler() {
         @Override
-        public SSLContextBuilder handleEnd(KeyStore trustStore, char[] password) {
-          ConcreteSSLContextBuilder.this.trustStore = trustStore;
+        public SSLContextBuilder handleEnd(KeyStoreSource source,
+            char[] password, CrlStore crlStore) {
+          ConcreteSSLContextBuilder.this.trustStoreSource = source;
+          ConcreteSSLContextBuilder.this.crlStore = crlStore;
           return ConcreteSSLContextBuilder.this;
         }
     });
   }
 
+  @Override
+  public SSLContextBuilder peerTrustCache(int maxSize, long timeToLive,
+      TimeUnit unit) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("cache size must be positive");
+    }
+    if (timeToLive <= 0) {
+      throw new IllegalArgumentException("time to live must be positive");
+    }
+    this.peerTrustCacheSize = maxSize;
+    this.peerTrustCacheTimeToLive = timeToLive;
+    this.peerTrustCacheTimeToLiveUnit = unit;
+    return this;
+  }
+
+  @Override
+  public SSLContextBuilder credentialIndex() {
+    this.credentialIndex = true;
+    return this;
+  }
+
+  @Override
+  public SSLContextBuilder credentialSelectionCache() {
+    this.credentialSelectionCache = true;
+    return this;
+  }
+
+  @Override
+  public SSLContextBuilder credentialAlias(String alias) {
+    this.credentialAlias = alias;
+    return this;
+  }
+
+  @Override
+  public SSLContextBuilder ocspRevocationCheck(int maxSize, long timeout,
+      TimeUnit unit) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("cache size must be positive");
+    }
+    if (timeout <= 0) {
+      throw new IllegalArgumentException("timeout must be positive");
+    }
+    this.ocspCacheSize = maxSize;
+    this.ocspTimeout = timeout;
+    this.ocspTimeoutUnit = unit;
+    return this;
+  }
+
+  @Override
+  public SSLContextBuilder ocspResponder(URI responder) {
+    this.ocspResponder = responder;
+    return this;
+  }
+
+  @Override
+  public SSLContextBuilder ocspStapling(int cacheSize, long cacheLifetime,
+      TimeUnit unit) {
+    if (cacheSize <= 0) {
+      throw new IllegalArgumentException("cache size must be positive");
+    }
+    if (cacheLifetime <= 0) {
+      throw new IllegalArgumentException("cache lifetime must be positive");
+    }
+    this.staplingCacheSize = cacheSize;
+    this.staplingCacheLifetime = cacheLifetime;
+    this.staplingCacheLifetimeUnit = unit;
+    return this;
+  }
+
+  @Override
+  public SSLContextBuilder ocspStaplingTimeout(long timeout, TimeUnit unit) {
+    if (timeout <= 0) {
+      throw new IllegalArgumentException("timeout must be positive");
+    }
+    this.staplingTimeout = unit.toMillis(timeout);
+    return this;
+  }
+
+  @Override
+  public SSLContextBuilder peerTrustIndex() {
+    this.peerTrustIndex = true;
+    return this;
+  }
+
+  @Override
+  public SSLContextBuilder serverSessionCacheSize(int size) {
+    serverSessions.setSessionCacheSize(size);
+    return this;
+  }
+
+  @Override
+  public SSLContextBuilder serverSessionTimeout(int seconds) {
+    serverSessions.setSessionTimeout(seconds);
+    return this;
+  }
+
+  @Override
+  public SSLContextBuilder clientSessionCacheSize(int size) {
+    clientSessions.setSessionCacheSize(size);
+    return this;
+  }
+
+  @Override
+  public SSLContextBuilder clientSessionTimeout(int seconds) {
+    clientSessions.setSessionTimeout(seconds);
+    return this;
+  }
+
   @Override
   public SSLContextBuilder secureRandom(SecureRandom secureRandom) {
     this.secureRandom = secureRandom;
     return this;
   }
 
+  @Override
+  public SSLContextBuilder metrics(SSLMetrics metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+
+  @Override
   public SSLContext build() throws SSLRuntimeException {
+    final SSLEventRecorder.ContextBuild recording =
+        SSLEventRecorder.getInstance().beginContextBuild("eager");
+    boolean success = false;
     try {
-      SSLContext context = newSSLContext();
-      SSLContextWrapper wrapper = new SSLContextWrapper(context, parameters);
-      wrapper.init(createKeyManagers(), createTrustManagers(), secureRandom);
-      return wrapper;
+      final SSLContext delegate = newSSLContext();
+      final SSLContext context = newSSLContextWrapper(delegate,
+          createKeyManagers(recording), createTrustManagers(recording));
+      prefetchStaples(delegate);
+      success = true;
+      return context;
     }
     catch (RuntimeException ex) {
       throw ex;
@@ -216,6 +382,158 @@ class ConcreteSSLContextBuilder implements SSLContextBuilder {
     catch (Exception ex) {
       throw new SSLRuntimeException(ex);
     }
+    finally {
+      recording.end(protocol, getProviderName(), success);
+    }
+  }
+
+  @Override
+  public SSLContext buildLazily() throws SSLRuntimeException {
+    final SSLContext context;
+    try {
+      context = newSSLContext();
+    }
+    catch (RuntimeException ex) {
+      throw ex;
+    }
+    catch (Exception ex) {
+      throw new SSLRuntimeException(ex);
+    }
+    return new SSLContextWrapper(context, parameters,
+        new DelegatingSSLContextSpi.Initializer() {
+          @Override
+          public void initialize(SSLContext delegate) throws Exception {
+            final SSLEventRecorder.ContextBuild recording =
+                SSLEventRecorder.getInstance().beginContextBuild("lazy");
+            boolean success = false;
+            try {
+              delegate.init(createKeyManagers(recording),
+                  createTrustManagers(recording), secureRandom);
+              serverSessions.apply(delegate.getServerSessionContext());
+              clientSessions.apply(delegate.getClientSessionContext());
+              prefetchStaples(delegate);
+              success = true;
+            }
+            finally {
+              recording.end(protocol, getProviderName(), success);
+            }
+          }
+        }, metrics);
+  }
+
+  @Override
+  public CompletableFuture<SSLContext> buildAsync(Executor executor) {
+    final SSLEventRecorder.ContextBuild recording =
+        SSLEventRecorder.getInstance().beginContextBuild("async");
+    final CompletableFuture<SSLContext> context =
+        supplyAsync(this::newSSLContext, executor);
+    final CompletableFuture<KeyManager[]> keyManagers =
+        supplyAsync(() -> createKeyManagers(recording), executor);
+    final CompletableFuture<TrustManager[]> trustManagers =
+        supplyAsync(() -> createTrustManagers(recording), executor);
+    return CompletableFuture.allOf(context, keyManagers, trustManagers)
+        .thenApply(v -> {
+          final SSLContext wrapper = newSSLContextWrapper(context.join(),
+              keyManagers.join(), trustManagers.join());
+          prefetchStaples(context.join());
+          return wrapper;
+        })
+        .whenComplete((c, ex) ->
+            recording.end(protocol, getProviderName(), ex == null));
+  }
+
+  private static <T> CompletableFuture<T> supplyAsync(
+      final Callable<T> task, Executor executor) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return task.call();
+      }
+      catch (RuntimeException ex) {
+        throw ex;
+      }
+      catch (Exception ex) {
+        throw new SSLRuntimeException(ex);
+      }
+    }, executor);
+  }
+
+  private SSLContext newSSLContextWrapper(SSLContext context,
+      KeyManager[] keyManagers, TrustManager[] trustManagers) {
+    SSLContextWrapper wrapper =
+        new SSLContextWrapper(context, parameters, null, metrics);
+    try {
+      wrapper.init(keyManagers, trustManagers, secureRandom);
+    }
+    catch (KeyManagementException ex) {
+      throw new SSLRuntimeException(ex);
+    }
+    serverSessions.apply(wrapper.getServerSessionContext());
+    clientSessions.apply(wrapper.getClientSessionContext());
+    return wrapper;
+  }
+
+  /**
+   * Fetches OCSP staples for the certificates in the credential key store,
+   * if stapling is configured.
+   * @param delegate the initialized context (not its wrapper, so that the
+   *    prefetch handshakes are not included in metrics)
+   */
+  private void prefetchStaples(SSLContext delegate) {
+    final OcspStapling stapling = newOcspStapling();
+    if (stapling == null || keyStoreSource == null) return;
+    stapling.prefetch(delegate, keyStoreSource.getKeyStore());
+  }
+
+  private OcspStapling newOcspStapling() {
+    if (staplingCacheLifetimeUnit == null) return null;
+    return new OcspStapling(staplingCacheSize,
+        Math.max(1, staplingCacheLifetimeUnit.toSeconds(staplingCacheLifetime)),
+        staplingTimeout, ocspResponder);
+  }
+
+  /**
+   * Computes a fingerprint of the configuration of this builder.
+   * <p>
+   * Key and trust stores contribute their content rather than their
+   * identity, so builders that loaded the same stores independently
+   * produce the same fingerprint. A provider object and a secure random
+   * source contribute only their identity.
+   * @return fingerprint
+   */
+  String fingerprint() {
+    final Fingerprint fingerprint = new Fingerprint()
+        .add(protocol)
+        .add(providerName)
+        .addIdentity(provider)
+        .addIdentity(secureRandom)
+        .addIdentity(metrics);
+    parameters.addTo(fingerprint);
+    fingerprint.add(peerTrustCacheSize)
+        .add(peerTrustCacheTimeToLiveUnit != null ?
+            peerTrustCacheTimeToLive + " " + peerTrustCacheTimeToLiveUnit :
+            null)
+        .add(peerTrustIndex)
+        .add(credentialIndex)
+        .add(credentialSelectionCache)
+        .add(credentialAlias)
+        .add(ocspCacheSize)
+        .add(ocspTimeoutUnit != null ?
+            ocspTimeout + " " + ocspTimeoutUnit : null)
+        .add(ocspResponder != null ? ocspResponder.toString() : null);
+    final OcspStapling stapling = newOcspStapling();
+    if (stapling != null) {
+      stapling.addTo(fingerprint);
+    }
+    if (crlStore != null) {
+      crlStore.addTo(fingerprint);
+    }
+    serverSessions.addTo(fingerprint);
+    clientSessions.addTo(fingerprint);
+    return fingerprint
+        .add(keyStoreSource, keyPassword)
+        .add(keyPassword)
+        .add(trustStoreSource, null)
+        .compute();
   }
 
   private SSLContext newSSLContext()
@@ -223,6 +541,15 @@ class ConcreteSSLContextBuilder implements SSLContextBuilder {
     if (protocol == null) {
       throw new SSLRuntimeException("protocol is required");
     }
+    final OcspStapling stapling = newOcspStapling();
+    if (stapling == null) return getSSLContextInstance();
+    try (OcspStapling.AppliedProperties properties = stapling.apply()) {
+      return getSSLContextInstance();
+    }
+  }
+
+  private SSLContext getSSLContextInstance()
+      throws NoSuchAlgorithmException, NoSuchProviderException {
     if (provider != null) {
       return SSLContext.getInstance(protocol, provider);
     }
@@ -233,26 +560,149 @@ class ConcreteSSLContextBuilder implements SSLContextBuilder {
     return SSLContext.getInstance(protocol);
   }
 
-  private KeyManager[] createKeyManagers()
-      throws NoSuchAlgorithmException, KeyStoreException,
-      UnrecoverableKeyException {
-    if (keyStore == null) return null;
+  private String getProviderName() {
+    return provider != null ? provider.getName() : providerName;
+  }
+
+  private KeyManager[] createKeyManagers(
+      SSLEventRecorder.ContextBuild recording) throws Exception {
+    final long start = System.nanoTime();
+    try {
+      return createKeyManagers();
+    }
+    finally {
+      recording.keyManagerTime(System.nanoTime() - start);
+    }
+  }
+
+  private TrustManager[] createTrustManagers(
+      SSLEventRecorder.ContextBuild recording) throws Exception {
+    final long start = System.nanoTime();
+    try {
+      return createTrustManagers();
+    }
+    finally {
+      recording.trustManagerTime(System.nanoTime() - start);
+    }
+  }
+
+  private KeyManager[] createKeyManagers() throws Exception {
+    if (keyStoreSource == null) return null;
     if (keyPassword == null) {
       throw new SSLRuntimeException("key password is required");
     }
+    final KeyStoreMonitor monitor = keyStoreSource.getMonitor();
+    if (monitor != null) {
+      return new KeyManager[] {
+          new ReloadingX509KeyManager(monitor, keyPassword,
+              this::newKeyManager)
+      };
+    }
+    if (credentialIndex || credentialSelectionCache
+        || credentialAlias != null) {
+      return new KeyManager[] {
+          newKeyManager(keyStoreSource.getKeyStore(), keyPassword)
+      };
+    }
     final KeyManagerFactory kmf = KeyManagerFactory.getInstance(
         KeyManagerFactory.getDefaultAlgorithm());
-    kmf.init(keyStore, keyPassword);
+    kmf.init(keyStoreSource.getKeyStore(), keyPassword);
     return kmf.getKeyManagers();
   }
 
-  private TrustManager[] createTrustManagers()
-      throws NoSuchAlgorithmException, KeyStoreException {
-    if (trustStore == null) return null;
-    final TrustManagerFactory tmf = TrustManagerFactory.getInstance(
-        TrustManagerFactory.getDefaultAlgorithm());
-    tmf.init(trustStore);
-    return tmf.getTrustManagers();
+  private X509ExtendedKeyManager newKeyManager(KeyStore keyStore,
+      char[] keyPassword) throws Exception {
+    final X509ExtendedKeyManager keyManager = credentialIndex ?
+        new IndexedX509KeyManager(keyStore, keyPassword) :
+        ReloadingX509KeyManager.newKeyManager(keyStore, keyPassword);
+    if (credentialAlias == null && !credentialSelectionCache) {
+      return keyManager;
+    }
+    return new CachingX509KeyManager(keyManager, credentialAlias);
+  }
+
+  private TrustManager[] createTrustManagers() throws Exception {
+    if (trustStoreSource == null) return null;
+    final KeyStoreMonitor monitor = trustStoreSource.getMonitor();
+    if (monitor != null) {
+      final X509ExtendedTrustManager trustManager = peerTrustIndex ?
+          new ReloadingX509TrustManager(monitor,
+              IndexedX509TrustManager::new) :
+          new ReloadingX509TrustManager(monitor);
+      return new TrustManager[] { decorate(trustManager, monitor) };
+    }
+    final TrustManager[] trustManagers;
+    if (peerTrustIndex) {
+      trustManagers = new TrustManager[] {
+          new IndexedX509TrustManager(trustStoreSource.getKeyStore())
+      };
+    }
+    else {
+      final TrustManagerFactory tmf = TrustManagerFactory.getInstance(
+          TrustManagerFactory.getDefaultAlgorithm());
+      tmf.init(trustStoreSource.getKeyStore());
+      trustManagers = tmf.getTrustManagers();
+    }
+    for (int i = 0; i < trustManagers.length; i++) {
+      if (trustManagers[i] instanceof X509ExtendedTrustManager) {
+        trustManagers[i] = decorate(
+            (X509ExtendedTrustManager) trustManagers[i], null);
+      }
+    }
+    return trustManagers;
+  }
+
+  /**
+   * Wraps a trust manager with the configured validation cache and
+   * revocation checks, registering the wrappers with the trust store
+   * monitor (if any).
+   * <p>
+   * Revocation checks wrap the validation cache, so that a cached
+   * validation never hides a revocation.
+   */
+  private X509ExtendedTrustManager decorate(
+      X509ExtendedTrustManager trustManager, KeyStoreMonitor monitor)
+      throws Exception {
+    X509ExtendedTrustManager result = trustManager;
+    if (peerTrustCacheTimeToLiveUnit != null) {
+      final CachingX509TrustManager cachingTrustManager =
+          newCachingTrustManager(result);
+      if (monitor != null) {
+        monitor.addListener(cachingTrustManager);
+      }
+      result = cachingTrustManager;
+    }
+    if (crlStore != null) {
+      crlStore.load();
+      final CrlX509TrustManager crlTrustManager = new CrlX509TrustManager(
+          result, crlStore, monitor != null ?
+              monitor.getKeyStore() : trustStoreSource.getKeyStore());
+      if (monitor != null) {
+        monitor.addListener(crlTrustManager);
+      }
+      result = crlTrustManager;
+    }
+    if (ocspTimeoutUnit != null) {
+      final OcspX509TrustManager ocspTrustManager = new OcspX509TrustManager(
+          result, newOcspResponseCache(), monitor != null ?
+              monitor.getKeyStore() : trustStoreSource.getKeyStore());
+      if (monitor != null) {
+        monitor.addListener(ocspTrustManager);
+      }
+      result = ocspTrustManager;
+    }
+    return result;
+  }
+
+  private OcspResponseCache newOcspResponseCache() {
+    return new OcspResponseCache(new OcspClient(ocspResponder,
+        (int) ocspTimeoutUnit.toMillis(ocspTimeout)), ocspCacheSize);
+  }
+
+  private CachingX509TrustManager newCachingTrustManager(
+      X509ExtendedTrustManager trustManager) {
+    return new CachingX509TrustManager(trustManager, peerTrustCacheSize,
+        peerTrustCacheTimeToLive, peerTrustCacheTimeToLiveUnit);
   }
 
 }
@@ -0,0 +1,644 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.math.BigInteger;
+import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.cert.CRL;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509CRL;
+import java.security.cert.X509CRLEntry;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.security.auth.x500.X500Principal;
+
+/**
+ * A store of certificate revocation lists (CRLs) loaded from local files,
+ * indexed for fast revocation checks.
+ * <p>
+ * Each location is either a file containing one or more CRLs (DER or PEM
+ * encoded) or a directory, in which case every regular file in the
+ * directory is loaded. Each CRL is parsed once, and its revoked serial
+ * numbers are packed into a sorted array of fixed-width values, so that
+ * a revocation check is a binary search that allocates nothing, and a CRL
+ * with hundreds of thousands of entries occupies little more than the
+ * space of its serial numbers.
+ * <p>
+ * The signature of a CRL is verified using the public key of the issuer's
+ * certificate when a certificate of that issuer is first checked. The
+ * outcome is remembered for each key, so that a certificate of another
+ * issuer with the same name (as during a CA key rollover) does not disable
+ * a CRL that was verified using a different key. When more than one CRL is
+ * loaded for the same issuer, the one with the latest {@code thisUpdate}
+ * time whose signature can be verified is used, so that a corrupt or forged
+ * file cannot displace a valid CRL. A certificate whose issuer has CRLs in
+ * the store, none of which can be verified using the issuer's key, is
+ * rejected, because its revocation status cannot be determined.
+ * <p>
+ * A CRL whose {@code nextUpdate} time has passed is stale. By default, a
+ * warning is logged and the stale CRL continues to be used; optionally, the
+ * store rejects a certificate whose revocation status can be determined
+ * only from a stale CRL, as does the JDK's PKIX revocation checker. Delta
+ * CRLs and entries
+ * of indirect CRLs that name another certificate issuer are not supported,
+ * and are ignored.
+ * <p>
+ * Reloading is incremental: a file whose modification time and size are
+ * unchanged is not read, and a file whose content is unchanged is not
+ * parsed again.
+ *
+ * @author Carl Harris
+ */
+class CrlStore {
+
+  private static final Logger logger =
+      Logger.getLogger(CrlStore.class.getName());
+
+  /** object identifier of the delta CRL indicator extension */
+  private static final String DELTA_CRL_INDICATOR = "2.5.29.27";
+
+  private static ScheduledExecutorService executor;
+
+  private final List<URL> locations;
+  private final long pollInterval;
+  private final boolean rejectStale;
+  private final Map<Object, Source> sources = new HashMap<>();
+
+  /** CRLs of each issuer, most recent first */
+  private volatile Map<X500Principal, List<SerialIndex>> index =
+      Collections.emptyMap();
+
+  private boolean loaded;
+
+  /**
+   * Constructs a new instance.
+   * @param locations locations of CRL files or directories
+   * @param pollInterval interval in milliseconds at which the locations are
+   *    checked for changes, or zero if they should not be checked
+   * @param rejectStale whether a certificate should be rejected when the
+   *    CRL of its issuer is stale
+   */
+  CrlStore(List<URL> locations, long pollInterval, boolean rejectStale) {
+    this.locations = new ArrayList<>(locations);
+    this.pollInterval = pollInterval;
+    this.rejectStale = rejectStale;
+  }
+
+  /**
+   * Loads the CRLs, if they have not already been loaded, and starts
+   * checking for changes, if configured to do so.
+   * @throws IOException if a location cannot be read
+   * @throws GeneralSecurityException if a file named as a location does
+   *    not contain CRLs
+   */
+  public synchronized void load() throws IOException,
+      GeneralSecurityException {
+    if (loaded) return;
+    reload();
+    loaded = true;
+    if (pollInterval > 0) {
+      final Poller poller = new Poller(this);
+      poller.future = executor().scheduleWithFixedDelay(poller,
+          pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Reloads the CRLs from files and directories that have changed since
+   * they were last loaded.
+   * @return {@code true} if any CRL was added, changed, or removed
+   * @throws IOException if a location cannot be read
+   * @throws GeneralSecurityException if a file named as a location does
+   *    not contain CRLs
+   */
+  public synchronized boolean reload() throws IOException,
+      GeneralSecurityException {
+    final Map<Object, Source> current = new LinkedHashMap<>();
+    boolean changed = false;
+    for (final URL location : locations) {
+      final Path path = FileState.toPath(location);
+      if (path != null && Files.isDirectory(path)) {
+        for (final Path file : filesIn(path)) {
+          changed |= refresh(file, file.toUri().toURL(), file, true, current);
+        }
+      }
+      else {
+        changed |= refresh(path != null ? path : location.toString(),
+            location, path, false, current);
+      }
+    }
+    changed |= !current.keySet().equals(sources.keySet());
+    sources.clear();
+    sources.putAll(current);
+    if (changed) {
+      index = merge(sources.values());
+    }
+    return changed;
+  }
+
+  /**
+   * Gets the number of issuers for which a CRL is loaded.
+   * @return number of issuers
+   */
+  public int size() {
+    return index.size();
+  }
+
+  /**
+   * Gets the issuers whose most recent CRL (ignoring any whose signature
+   * has been found invalid and never verified) is stale.
+   * @return set of issuers
+   */
+  public Set<X500Principal> getStaleIssuers() {
+    final long now = System.currentTimeMillis();
+    final Set<X500Principal> issuers = new HashSet<>();
+    for (final List<SerialIndex> crls : index.values()) {
+      for (final SerialIndex crl : crls) {
+        if (crl.isRejected()) continue;
+        if (crl.isStale(now)) {
+          issuers.add(crl.getIssuer());
+        }
+        break;
+      }
+    }
+    return issuers;
+  }
+
+  /**
+   * Checks whether a certificate has been revoked, using the most recent
+   * CRL of its issuer whose signature can be verified.
+   * @param certificate the subject certificate
+   * @param issuer certificate of its issuer (may be {@code null} if not
+   *    known)
+   * @throws CertificateException if a CRL shows that the certificate has
+   *    been revoked, if there are CRLs of its issuer but none of them can
+   *    be verified (or the issuer is not known), or if this store rejects
+   *    stale CRLs and the CRL is stale
+   */
+  public void check(X509Certificate certificate, X509Certificate issuer)
+      throws CertificateException {
+    final List<SerialIndex> crls =
+        index.get(certificate.getIssuerX500Principal());
+    if (crls == null) return;
+    if (issuer != null) {
+      final PublicKey key = issuer.getPublicKey();
+      for (final SerialIndex crl : crls) {
+        if (!crl.verify(key)) continue;
+        checkCurrent(crl, certificate);
+        if (crl.contains(certificate.getSerialNumber())) {
+          throw new CertificateException("certificate "
+              + certificate.getSerialNumber().toString(16) + " issued by "
+              + crl.getIssuer() + " has been revoked");
+        }
+        return;
+      }
+    }
+    throw new CertificateException("revocation status of certificate "
+        + certificate.getSerialNumber().toString(16) + " issued by "
+        + certificate.getIssuerX500Principal() + " cannot be determined: "
+        + (issuer != null ? "no CRL of the issuer can be verified"
+            : "the certificate of the issuer is not known"));
+  }
+
+  private void checkCurrent(SerialIndex crl, X509Certificate certificate)
+      throws CertificateException {
+    if (!crl.isStale(System.currentTimeMillis())) return;
+    if (crl.markStaleReported()) {
+      logger.warning("CRL issued by " + crl.getIssuer()
+          + " is stale; its next update was due at "
+          + new Date(crl.getNextUpdate()));
+    }
+    if (rejectStale) {
+      throw new CertificateException("revocation status of certificate "
+          + certificate.getSerialNumber().toString(16) + " issued by "
+          + crl.getIssuer() + " cannot be determined: the CRL is stale");
+    }
+  }
+
+  /**
+   * Adds the CRL locations to a fingerprint.
+   * @param fingerprint the subject fingerprint
+   */
+  void addTo(Fingerprint fingerprint) {
+    final List<String> names = new ArrayList<>();
+    for (final URL location : locations) {
+      names.add(location.toString());
+    }
+    fingerprint.add(names).add(Long.toString(pollInterval)).add(rejectStale);
+  }
+
+  /**
+   * Refreshes the CRLs loaded from a single file or URL.
+   * @param key key of the source
+   * @param location location of the source
+   * @param path file system path of the source (or {@code null})
+   * @param lenient whether a file that does not contain CRLs should be
+   *    ignored rather than reported
+   * @param current map to which the refreshed source is added
+   * @return {@code true} if the CRLs changed
+   */
+  private boolean refresh(Object key, URL location, Path path,
+      boolean lenient, Map<Object, Source> current)
+      throws IOException, GeneralSecurityException {
+    final Source previous = sources.get(key);
+    final FileState fileState = FileState.stableOrNull(FileState.of(path));
+    if (previous != null && fileState != null
+        && fileState.equals(previous.fileState)) {
+      current.put(key, previous);
+      return false;
+    }
+    final byte[] content = ResourceAccessor.getResourceAsBytes(location);
+    final byte[] digest = KeyStoreCache.digest(content);
+    if (previous != null && Arrays.equals(digest, previous.digest)) {
+      current.put(key, new Source(fileState, digest, previous.crls));
+      return false;
+    }
+    List<SerialIndex> crls;
+    try {
+      crls = parse(content);
+    }
+    catch (GeneralSecurityException ex) {
+      if (!lenient) throw ex;
+      logger.log(Level.WARNING, "ignoring " + location
+          + ", which does not contain CRLs: " + ex);
+      crls = Collections.emptyList();
+    }
+    current.put(key, new Source(fileState, digest, crls));
+    return true;
+  }
+
+  private static List<Path> filesIn(Path directory) throws IOException {
+    final List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream =
+        Files.newDirectoryStream(directory)) {
+      for (final Path file : stream) {
+        if (Files.isRegularFile(file) && !Files.isHidden(file)) {
+          files.add(file);
+        }
+      }
+    }
+    Collections.sort(files);
+    return files;
+  }
+
+  private static List<SerialIndex> parse(byte[] content)
+      throws GeneralSecurityException {
+    final Collection<? extends CRL> crls =
+        CertificateFactory.getInstance("X.509")
+            .generateCRLs(new ByteArrayInputStream(content));
+    if (crls.isEmpty()) {
+      throw new GeneralSecurityException("no CRLs found");
+    }
+    final List<SerialIndex> indexes = new ArrayList<>(crls.size());
+    for (final CRL crl : crls) {
+      final X509CRL x509 = (X509CRL) crl;
+      if (x509.getExtensionValue(DELTA_CRL_INDICATOR) != null) {
+        logger.fine("ignoring delta CRL issued by "
+            + x509.getIssuerX500Principal());
+        continue;
+      }
+      indexes.add(SerialIndex.of(x509));
+    }
+    return indexes;
+  }
+
+  private static Map<X500Principal, List<SerialIndex>> merge(
+      Collection<Source> sources) {
+    final Map<X500Principal, List<SerialIndex>> index = new HashMap<>();
+    for (final Source source : sources) {
+      for (final SerialIndex crl : source.crls) {
+        List<SerialIndex> crls = index.get(crl.getIssuer());
+        if (crls == null) {
+          crls = new ArrayList<>(1);
+          index.put(crl.getIssuer(), crls);
+        }
+        crls.add(crl);
+      }
+    }
+    for (final List<SerialIndex> crls : index.values()) {
+      crls.sort((a, b) -> Long.compare(b.getThisUpdate(), a.getThisUpdate()));
+    }
+    return index;
+  }
+
+  private static synchronized ScheduledExecutorService executor() {
+    if (executor == null) {
+      final ScheduledThreadPoolExecutor pool =
+          new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "crl-store-monitor");
+            thread.setDaemon(true);
+            return thread;
+          });
+      pool.setRemoveOnCancelPolicy(true);
+      executor = pool;
+    }
+    return executor;
+  }
+
+  /**
+   * The CRLs loaded from a single file or URL.
+   */
+  private static class Source {
+
+    final FileState fileState;
+    final byte[] digest;
+    final List<SerialIndex> crls;
+
+    Source(FileState fileState, byte[] digest, List<SerialIndex> crls) {
+      this.fileState = fileState;
+      this.digest = digest;
+      this.crls = crls;
+    }
+
+  }
+
+  /**
+   * A task that periodically reloads a store; the store is weakly
+   * referenced, and the task cancels itself when the store is no longer
+   * reachable.
+   */
+  private static class Poller implements Runnable {
+
+    private final WeakReference<CrlStore> store;
+
+    volatile ScheduledFuture<?> future;
+
+    Poller(CrlStore store) {
+      this.store = new WeakReference<>(store);
+    }
+
+    @Override
+    public void run() {
+      final CrlStore store = this.store.get();
+      if (store == null) {
+        future.cancel(false);
+        return;
+      }
+      try {
+        store.reload();
+      }
+      catch (Exception ex) {
+        logger.log(Level.WARNING, "cannot reload CRLs: " + ex, ex);
+      }
+    }
+
+  }
+
+  /**
+   * The revoked serial numbers of a single CRL, sorted and packed into a
+   * byte array of fixed-width two's complement values.
+   */
+  static class SerialIndex {
+
+    /** maximum number of keys remembered as failing to verify a CRL */
+    private static final int MAX_FAILED_KEYS = 8;
+
+    private final X500Principal issuer;
+    private final long thisUpdate;
+    private final long nextUpdate;
+    private final byte[] serials;
+    private final int width;
+
+    private final Set<PublicKey> failedKeys = Collections.newSetFromMap(
+        new LinkedHashMap<PublicKey, Boolean>() {
+          @Override
+          protected boolean removeEldestEntry(
+              Map.Entry<PublicKey, Boolean> eldest) {
+            return size() > MAX_FAILED_KEYS;
+          }
+        });
+
+    private byte[] unverified;
+    private PublicKey verifiedKey;
+    private boolean staleReported;
+
+    /**
+     * Constructs a new instance.
+     * @param issuer issuer of the CRL
+     * @param thisUpdate time at which the CRL was issued
+     * @param nextUpdate time by which the next CRL will be issued, or zero
+     *    if the CRL does not say
+     * @param serialNumbers distinct revoked serial numbers
+     * @param encoded encoding of the CRL, whose signature is to be verified
+     *    on first use (or {@code null} if it need not be verified)
+     */
+    SerialIndex(X500Principal issuer, long thisUpdate, long nextUpdate,
+        Collection<BigInteger> serialNumbers, byte[] encoded) {
+      this.issuer = issuer;
+      this.thisUpdate = thisUpdate;
+      this.nextUpdate = nextUpdate;
+      final BigInteger[] sorted =
+          serialNumbers.toArray(new BigInteger[serialNumbers.size()]);
+      Arrays.sort(sorted);
+      int width = 1;
+      for (final BigInteger serialNumber : sorted) {
+        width = Math.max(width, serialNumber.bitLength() / 8 + 1);
+      }
+      this.width = width;
+      this.serials = new byte[sorted.length * width];
+      for (int i = 0; i < sorted.length; i++) {
+        pack(sorted[i], serials, i * width, width);
+      }
+      this.unverified = encoded;
+    }
+
+    /**
+     * Creates an index of the revoked serial numbers of a CRL.
+     * @param crl the subject CRL
+     * @return index
+     * @throws GeneralSecurityException if the CRL cannot be encoded
+     */
+    static SerialIndex of(X509CRL crl) throws GeneralSecurityException {
+      final X500Principal issuer = crl.getIssuerX500Principal();
+      final Set<? extends X509CRLEntry> entries =
+          crl.getRevokedCertificates();
+      final Set<BigInteger> serialNumbers = new HashSet<>();
+      if (entries != null) {
+        for (final X509CRLEntry entry : entries) {
+          final X500Principal entryIssuer = entry.getCertificateIssuer();
+          if (entryIssuer != null && !entryIssuer.equals(issuer)) continue;
+          serialNumbers.add(entry.getSerialNumber());
+        }
+      }
+      return new SerialIndex(issuer, crl.getThisUpdate().getTime(),
+          crl.getNextUpdate() != null ? crl.getNextUpdate().getTime() : 0,
+          serialNumbers, crl.getEncoded());
+    }
+
+    public X500Principal getIssuer() {
+      return issuer;
+    }
+
+    public long getThisUpdate() {
+      return thisUpdate;
+    }
+
+    public long getNextUpdate() {
+      return nextUpdate;
+    }
+
+    /**
+     * Tests whether the next update of the CRL was due before a given time.
+     * @param now the time of interest
+     * @return {@code true} if the CRL is stale at {@code now}
+     */
+    public boolean isStale(long now) {
+      return nextUpdate != 0 && now > nextUpdate;
+    }
+
+    /**
+     * Tests whether the signature of the CRL has failed to verify using
+     * some key, and has not been verified using any other key.
+     * @return {@code true} if the CRL has been rejected
+     */
+    public synchronized boolean isRejected() {
+      return unverified != null && !failedKeys.isEmpty();
+    }
+
+    /**
+     * Records that the staleness of this CRL has been reported.
+     * @return {@code true} if it had not already been reported
+     */
+    synchronized boolean markStaleReported() {
+      if (staleReported) return false;
+      staleReported = true;
+      return true;
+    }
+
+    /**
+     * Gets the number of revoked serial numbers.
+     * @return number of serial numbers
+     */
+    public int size() {
+      return serials.length / width;
+    }
+
+    /**
+     * Tests whether a serial number has been revoked.
+     * @param serialNumber the subject serial number
+     * @return {@code true} if {@code serialNumber} is in this index
+     */
+    public boolean contains(BigInteger serialNumber) {
+      if (serialNumber.bitLength() / 8 + 1 > width) return false;
+      final byte[] key = new byte[width];
+      pack(serialNumber, key, 0, width);
+      int low = 0;
+      int high = size() - 1;
+      while (low <= high) {
+        final int mid = (low + high) >>> 1;
+        final int c = compare(serials, mid * width, key, width);
+        if (c < 0) {
+          low = mid + 1;
+        }
+        else if (c > 0) {
+          high = mid - 1;
+        }
+        else {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Verifies the signature of the CRL using a given key.
+     * <p>
+     * Once the signature has been verified, the encoding of the CRL is
+     * discarded, since no other key can verify the same signature. A key
+     * that fails to verify the signature is remembered (up to a small
+     * limit), so that it is not used to verify the signature again.
+     * @param key public key of the issuer
+     * @return {@code true} if the signature has been verified using
+     *    {@code key}
+     */
+    synchronized boolean verify(PublicKey key) {
+      if (unverified == null) {
+        return verifiedKey == null || verifiedKey.equals(key);
+      }
+      if (failedKeys.contains(key)) return false;
+      try {
+        ((X509CRL) CertificateFactory.getInstance("X.509")
+            .generateCRL(new ByteArrayInputStream(unverified)))
+            .verify(key);
+        verifiedKey = key;
+        unverified = null;
+        failedKeys.clear();
+        return true;
+      }
+      catch (GeneralSecurityException ex) {
+        logger.log(Level.WARNING, "ignoring CRL issued by " + this.issuer
+            + " whose signature cannot be verified: " + ex);
+        failedKeys.add(key);
+        return false;
+      }
+    }
+
+    /**
+     * Writes a serial number as a sign-extended two's complement value.
+     */
+    private static void pack(BigInteger serialNumber, byte[] dest,
+        int offset, int width) {
+      final byte[] bytes = serialNumber.toByteArray();
+      final int padding = width - bytes.length;
+      Arrays.fill(dest, offset, offset + padding,
+          serialNumber.signum() < 0 ? (byte) 0xff : 0);
+      System.arraycopy(bytes, 0, dest, offset + padding, bytes.length);
+    }
+
+    /**
+     * Compares fixed-width two's complement values; the first byte is
+     * signed and the rest are unsigned.
+     */
+    private static int compare(byte[] a, int offset, byte[] b, int width) {
+      int c = Byte.compare(a[offset], b[0]);
+      for (int i = 1; c == 0 && i < width; i++) {
+        c = Integer.compare(a[offset + i] & 0xff, b[i] & 0xff);
+      }
+      return c;
+    }
+
+  }
+
+}
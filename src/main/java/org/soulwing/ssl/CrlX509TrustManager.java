@@ -0,0 +1,158 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.net.Socket;
+import java.security.KeyStore;
+import java.security.GeneralSecurityException;
+import java.security.KeyStoreException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.Map;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedTrustManager;
+import javax.security.auth.x500.X500Principal;
+
+/**
+ * An {@link X509ExtendedTrustManager} that checks the revocation status of
+ * the certificates in a peer's certificate chain using a {@link CrlStore},
+ * after its delegate has validated the chain.
+ * <p>
+ * Every certificate in the chain that is not self-issued is checked. The
+ * issuer of a certificate is the next certificate in the chain, if it has
+ * the expected subject, or otherwise the trusted certificate whose subject
+ * is the issuer of the certificate (and, if there are several, whose key
+ * verifies the signature of the certificate). A certificate whose issuer
+ * has no CRL in the store is accepted; one whose issuer has CRLs, none of
+ * which can be verified, is rejected.
+ * <p>
+ * When the trust manager is registered with a {@link KeyStoreMonitor} for
+ * the trust store, the trusted certificates used to find issuers are
+ * replaced whenever the trust store changes.
+ *
+ * @author Carl Harris
+ */
+class CrlX509TrustManager extends X509ExtendedTrustManager
+    implements KeyStoreMonitor.Listener {
+
+  private final X509ExtendedTrustManager delegate;
+  private final CrlStore crlStore;
+
+  private volatile Map<X500Principal, List<X509Certificate>> issuers;
+
+  /**
+   * Constructs a new instance.
+   * @param delegate trust manager that validates peer certificate chains
+   * @param crlStore store of CRLs
+   * @param trustStore trust store containing the trusted certificates
+   * @throws KeyStoreException if the trust store cannot be read
+   */
+  CrlX509TrustManager(X509ExtendedTrustManager delegate, CrlStore crlStore,
+      KeyStore trustStore) throws KeyStoreException {
+    this.delegate = delegate;
+    this.crlStore = crlStore;
+    this.issuers = OcspX509TrustManager.index(trustStore);
+  }
+
+  @Override
+  public void keyStoreChanged(KeyStore keyStore) throws Exception {
+    issuers = OcspX509TrustManager.index(keyStore);
+  }
+
+  @Override
+  public void checkClientTrusted(X509Certificate[] chain, String authType,
+      Socket socket) throws CertificateException {
+    delegate.checkClientTrusted(chain, authType, socket);
+    checkRevocation(chain);
+  }
+
+  @Override
+  public void checkServerTrusted(X509Certificate[] chain, String authType,
+      Socket socket) throws CertificateException {
+    delegate.checkServerTrusted(chain, authType, socket);
+    checkRevocation(chain);
+  }
+
+  @Override
+  public void checkClientTrusted(X509Certificate[] chain, String authType,
+      SSLEngine engine) throws CertificateException {
+    delegate.checkClientTrusted(chain, authType, engine);
+    checkRevocation(chain);
+  }
+
+  @Override
+  public void checkServerTrusted(X509Certificate[] chain, String authType,
+      SSLEngine engine) throws CertificateException {
+    delegate.checkServerTrusted(chain, authType, engine);
+    checkRevocation(chain);
+  }
+
+  @Override
+  public void checkClientTrusted(X509Certificate[] chain, String authType)
+      throws CertificateException {
+    delegate.checkClientTrusted(chain, authType);
+    checkRevocation(chain);
+  }
+
+  @Override
+  public void checkServerTrusted(X509Certificate[] chain, String authType)
+      throws CertificateException {
+    delegate.checkServerTrusted(chain, authType);
+    checkRevocation(chain);
+  }
+
+  @Override
+  public X509Certificate[] getAcceptedIssuers() {
+    return delegate.getAcceptedIssuers();
+  }
+
+  private void checkRevocation(X509Certificate[] chain)
+      throws CertificateException {
+    for (int i = 0; i < chain.length; i++) {
+      final X509Certificate certificate = chain[i];
+      final X500Principal issuer = certificate.getIssuerX500Principal();
+      if (issuer.equals(certificate.getSubjectX500Principal())) continue;
+      crlStore.check(certificate, issuerOf(chain, i));
+    }
+  }
+
+  private X509Certificate issuerOf(X509Certificate[] chain, int index) {
+    final X500Principal issuer = chain[index].getIssuerX500Principal();
+    if (index + 1 < chain.length
+        && chain[index + 1].getSubjectX500Principal().equals(issuer)) {
+      return chain[index + 1];
+    }
+    final List<X509Certificate> candidates = issuers.get(issuer);
+    if (candidates == null) return null;
+    if (candidates.size() == 1) return candidates.get(0);
+    for (final X509Certificate candidate : candidates) {
+      try {
+        chain[index].verify(candidate.getPublicKey());
+        return candidate;
+      }
+      catch (GeneralSecurityException ex) {
+        assert true;  // try the next candidate
+      }
+    }
+    return null;
+  }
+
+}
@@ -20,8 +20,11 @@ package org.soulwing.ssl;
 
 import java.security.KeyManagementException;
 import java.security.SecureRandom;
+import java.util.Collections;
 
 import javax.net.ssl.KeyManager;
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SNIServerName;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLContextSpi;
 import javax.net.ssl.SSLEngine;
@@ -33,61 +36,148 @@ import javax.net.ssl.TrustManager;
 
 /**
  * An {@link SSLContextSpi} that delegates to an {@link SSLContext}.
+ * <p>
+ * A context may be given an {@link Initializer} that initializes the
+ * delegate on first use; i.e. when a socket factory, engine, or session
+ * context is first requested. Initialization is performed once, by the
+ * first thread that needs it, while other threads wait. If initialization
+ * fails, the exception is thrown to the caller that requested the context's
+ * service, and initialization is attempted again on next use.
  *
  * @author Carl Harris
  */
 class DelegatingSSLContextSpi extends SSLContextSpi {
 
+  /**
+   * A deferred initialization of a delegate context.
+   */
+  interface Initializer {
+
+    /**
+     * Initializes the delegate context.
+     * @param delegate the context to initialize
+     * @throws Exception if the context cannot be initialized
+     */
+    void initialize(SSLContext delegate) throws Exception;
+
+  }
+
   private final SSLContext delegate;
 
   private final SSLParametersConfiguration parameters;
 
+  private final SSLMetrics metrics;
+
+  private volatile Initializer initializer;
+  private volatile SSLParameters effectiveParameters;
+  private volatile SSLSocketFactory socketFactory;
+  private volatile SSLServerSocketFactory serverSocketFactory;
+
   DelegatingSSLContextSpi(SSLContext delegate,
       SSLParametersConfiguration parameters) {
+    this(delegate, parameters, null);
+  }
+
+  DelegatingSSLContextSpi(SSLContext delegate,
+      SSLParametersConfiguration parameters, Initializer initializer) {
+    this(delegate, parameters, initializer, null);
+  }
+
+  DelegatingSSLContextSpi(SSLContext delegate,
+      SSLParametersConfiguration parameters, Initializer initializer,
+      SSLMetrics metrics) {
     this.delegate = delegate;
     this.parameters = parameters;
+    this.initializer = initializer;
+    this.metrics = metrics;
   }
 
   @Override
-  protected void engineInit(KeyManager[] keyManagers,
+  protected synchronized void engineInit(KeyManager[] keyManagers,
       TrustManager[] trustManagers, SecureRandom secureRandom)
       throws KeyManagementException {
     delegate.init(keyManagers, trustManagers, secureRandom);
+    delegateInitialized();
+  }
+
+  /**
+   * Initializes this context on first use, if it has an initializer.
+   * @throws SSLRuntimeException if the initializer throws a checked
+   *    exception
+   */
+  private void initializeIfNecessary() throws SSLRuntimeException {
+    if (initializer == null) return;
+    synchronized (this) {
+      final Initializer initializer = this.initializer;
+      if (initializer == null) return;
+      try {
+        initializer.initialize(delegate);
+      }
+      catch (RuntimeException ex) {
+        throw ex;
+      }
+      catch (Exception ex) {
+        throw new SSLRuntimeException(ex);
+      }
+      delegateInitialized();
+    }
+  }
+
+  private void delegateInitialized() {
+    final SSLParameters parameters = this.parameters.createParameters(
+        delegate.getSupportedSSLParameters(),
+        delegate.getDefaultSSLParameters());
+    socketFactory = new SSLSocketFactoryWrapper(
+        delegate.getSocketFactory(), parameters, metrics);
+    serverSocketFactory = new SSLServerSocketFactoryWrapper(
+        delegate.getServerSocketFactory(), parameters, metrics);
+    effectiveParameters = parameters;
+    initializer = null;
   }
 
   @Override
   protected SSLSocketFactory engineGetSocketFactory() {
-    return new SSLSocketFactoryWrapper(delegate.getSocketFactory(),
-        getParameters());
+    assertInitialized();
+    return socketFactory;
   }
 
   @Override
   protected SSLServerSocketFactory engineGetServerSocketFactory() {
-    return new SSLServerSocketFactoryWrapper(delegate.getServerSocketFactory(),
-        getParameters());
+    assertInitialized();
+    return serverSocketFactory;
   }
 
   @Override
   protected SSLEngine engineCreateSSLEngine() {
+    initializeIfNecessary();
     final SSLEngine engine = delegate.createSSLEngine();
     engine.setSSLParameters(getParameters());
-    return engine;
+    return metered(engine);
   }
 
   @Override
-  protected SSLEngine engineCreateSSLEngine(String s, int i) {
-    final SSLEngine engine = delegate.createSSLEngine();
-    engine.setSSLParameters(getParameters());
-    return engine;
+  protected SSLEngine engineCreateSSLEngine(String host, int port) {
+    initializeIfNecessary();
+    final SSLEngine engine = delegate.createSSLEngine(host, port);
+    engine.setSSLParameters(getParameters(host));
+    return metered(engine);
+  }
+
+  private SSLEngine metered(SSLEngine engine) {
+    final HandshakeObserver observer = HandshakeObserver.create(metrics);
+    if (observer == null) return engine;
+    return new MeteredSSLEngine(engine, observer);
   }
 
   @Override
   protected SSLSessionContext engineGetServerSessionContext() {
+    initializeIfNecessary();
     return delegate.getServerSessionContext();
   }
 
   @Override
   protected SSLSessionContext engineGetClientSessionContext() {
+    initializeIfNecessary();
     return delegate.getClientSessionContext();
   }
 
@@ -101,10 +191,88 @@ class DelegatingSSLContextSpi extends SSLContextSpi {
     return delegate.getSupportedSSLParameters();
   }
 
+  /**
+   * Gets the effective parameters for this context.
+   * <p>
+   * The parameters are computed once when the context is initialized. The
+   * returned object is shared and must not be modified; sockets and engines
+   * copy its contents when it is applied to them.
+   *
+   * @return effective SSL parameters
+   * @throws IllegalStateException if the context has not been initialized
+   */
   private SSLParameters getParameters() {
-    return parameters.createParameters(
-        delegate.getSupportedSSLParameters(),
-        delegate.getDefaultSSLParameters());
+    assertInitialized();
+    return effectiveParameters;
+  }
+
+  /**
+   * Gets the effective parameters for a connection to a given peer.
+   * <p>
+   * If the peer host is a name suitable for use in the TLS server name
+   * indication extension, the returned parameters are a copy of the
+   * effective parameters for this context that specifies it as the server
+   * name; otherwise the effective parameters are returned as-is.
+   *
+   * @param peerHost host name of the peer (may be {@code null})
+   * @return SSL parameters for the given peer
+   */
+  private SSLParameters getParameters(String peerHost) {
+    final SSLParameters parameters = getParameters();
+    final SNIServerName serverName = serverName(peerHost);
+    if (serverName == null) return parameters;
+
+    final SSLParameters peerParameters = copyOf(parameters);
+    peerParameters.setServerNames(
+        Collections.singletonList(serverName));
+    return peerParameters;
+  }
+
+  private static SSLParameters copyOf(SSLParameters parameters) {
+    final SSLParameters copy = new SSLParameters(
+        parameters.getCipherSuites(), parameters.getProtocols());
+    if (parameters.getNeedClientAuth()) {
+      copy.setNeedClientAuth(true);
+    }
+    else {
+      copy.setWantClientAuth(parameters.getWantClientAuth());
+    }
+    copy.setAlgorithmConstraints(parameters.getAlgorithmConstraints());
+    copy.setEndpointIdentificationAlgorithm(
+        parameters.getEndpointIdentificationAlgorithm());
+    copy.setServerNames(parameters.getServerNames());
+    copy.setSNIMatchers(parameters.getSNIMatchers());
+    copy.setUseCipherSuitesOrder(parameters.getUseCipherSuitesOrder());
+    return copy;
+  }
+
+  private static SNIServerName serverName(String host) {
+    // SNI requires a fully qualified DNS name; IP literals are not allowed
+    if (host == null || host.indexOf('.') == -1 || host.endsWith(".")
+        || host.indexOf(':') != -1 || isIPv4Literal(host)) {
+      return null;
+    }
+    try {
+      return new SNIHostName(host);
+    }
+    catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  private static boolean isIPv4Literal(String host) {
+    for (int i = 0, max = host.length(); i < max; i++) {
+      final char c = host.charAt(i);
+      if (c != '.' && (c < '0' || c > '9')) return false;
+    }
+    return true;
+  }
+
+  private void assertInitialized() {
+    initializeIfNecessary();
+    if (effectiveParameters == null) {
+      throw new IllegalStateException("SSLContext is not initialized");
+    }
   }
 
 }
@@ -0,0 +1,229 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Minimal support for reading and writing the DER encoded values used in
+ * certificate extensions and OCSP messages.
+ *
+ * @author Carl Harris
+ */
+class Der {
+
+  static final int INTEGER = 0x02;
+  static final int BIT_STRING = 0x03;
+  static final int OCTET_STRING = 0x04;
+  static final int NULL = 0x05;
+  static final int OBJECT_IDENTIFIER = 0x06;
+  static final int ENUMERATED = 0x0a;
+  static final int GENERALIZED_TIME = 0x18;
+  static final int SEQUENCE = 0x30;
+
+  private static final String GENERALIZED_TIME_FORMAT = "yyyyMMddHHmmss";
+
+  private Der() {
+  }
+
+  /**
+   * Gets the tag for a context-specific value.
+   * @param number tag number
+   * @param constructed {@code true} if the value is constructed (i.e. it is
+   *    explicitly tagged or is an implicitly tagged sequence)
+   * @return tag
+   */
+  static int contextTag(int number, boolean constructed) {
+    return (constructed ? 0xa0 : 0x80) | number;
+  }
+
+  /**
+   * Encodes a value.
+   * @param tag tag of the value
+   * @param contents contents of the value, which are concatenated
+   * @return encoded value
+   */
+  static byte[] encode(int tag, byte[]... contents) {
+    int length = 0;
+    for (final byte[] content : contents) {
+      length += content.length;
+    }
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(length + 6);
+    out.write(tag);
+    if (length < 0x80) {
+      out.write(length);
+    }
+    else {
+      int count = 0;
+      for (int n = length; n != 0; n >>>= 8) {
+        count++;
+      }
+      out.write(0x80 | count);
+      for (int i = count - 1; i >= 0; i--) {
+        out.write(length >>> (8 * i));
+      }
+    }
+    for (final byte[] content : contents) {
+      out.write(content, 0, content.length);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Parses the contents of a {@code GeneralizedTime} value.
+   * @param content contents of the value
+   * @return time in milliseconds since the epoch
+   * @throws IllegalArgumentException if the value is not in the UTC form
+   *    required by DER
+   */
+  static long parseGeneralizedTime(byte[] content) {
+    final String s = new String(content, StandardCharsets.US_ASCII);
+    if (s.length() < 15 || !s.endsWith("Z")) {
+      throw new IllegalArgumentException("invalid time: " + s);
+    }
+    final SimpleDateFormat format =
+        new SimpleDateFormat(GENERALIZED_TIME_FORMAT, Locale.ENGLISH);
+    format.setTimeZone(TimeZone.getTimeZone("UTC"));
+    format.setLenient(false);
+    try {
+      long time = format.parse(s.substring(0, 14)).getTime();
+      if (s.length() > 16 && s.charAt(14) == '.') {
+        final String fraction = (s.substring(15, s.length() - 1) + "00")
+            .substring(0, 3);
+        time += Integer.parseInt(fraction);
+      }
+      return time;
+    }
+    catch (ParseException | NumberFormatException ex) {
+      throw new IllegalArgumentException("invalid time: " + s, ex);
+    }
+  }
+
+  /**
+   * A reader for a sequence of DER encoded values.
+   */
+  static class Reader {
+
+    private final byte[] data;
+    private int position;
+
+    Reader(byte[] data) {
+      this.data = data;
+    }
+
+    /**
+     * Tests whether another value remains to be read.
+     * @return {@code true} if another value remains
+     */
+    boolean hasNext() {
+      return position < data.length;
+    }
+
+    /**
+     * Gets the tag of the next value without reading it.
+     * @return tag or -1 if no value remains
+     */
+    int peek() {
+      return hasNext() ? data[position] & 0xff : -1;
+    }
+
+    /**
+     * Reads the next value, which must have the given tag.
+     * @param tag expected tag
+     * @return content of the value
+     * @throws IllegalArgumentException if the next value does not have the
+     *    expected tag or is malformed
+     */
+    byte[] read(int tag) {
+      final int length = header(tag);
+      final byte[] content =
+          Arrays.copyOfRange(data, position, position + length);
+      position += length;
+      return content;
+    }
+
+    /**
+     * Reads the next value, which must have the given tag, including its
+     * tag and length.
+     * @param tag expected tag
+     * @return encoding of the value
+     * @throws IllegalArgumentException if the next value does not have the
+     *    expected tag or is malformed
+     */
+    byte[] readEncoded(int tag) {
+      final int start = position;
+      final int length = header(tag);
+      position += length;
+      return Arrays.copyOfRange(data, start, position);
+    }
+
+    /**
+     * Skips the next value, whatever its tag.
+     * @throws IllegalArgumentException if the next value is malformed
+     */
+    void skip() {
+      final int length = header(peek());
+      position += length;
+    }
+
+    /**
+     * Reads the tag and length of the next value.
+     * @param tag expected tag
+     * @return length of the content that follows
+     */
+    private int header(int tag) {
+      if (next() != tag) {
+        throw new IllegalArgumentException("unexpected tag");
+      }
+      int length = next();
+      if (length > 0x80) {
+        final int count = length & 0x7f;
+        if (count > 3) {
+          throw new IllegalArgumentException("length too large");
+        }
+        length = 0;
+        for (int i = 0; i < count; i++) {
+          length = (length << 8) | next();
+        }
+      }
+      else if (length == 0x80) {
+        throw new IllegalArgumentException("indefinite length");
+      }
+      if (length > data.length - position) {
+        throw new IllegalArgumentException("truncated value");
+      }
+      return length;
+    }
+
+    private int next() {
+      if (position >= data.length) {
+        throw new IllegalArgumentException("truncated value");
+      }
+      return data[position++] & 0xff;
+    }
+
+  }
+
+}
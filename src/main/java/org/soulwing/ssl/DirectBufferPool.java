@@ -0,0 +1,131 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of direct byte buffers, organized in size classes.
+ * <p>
+ * The capacity of every pooled buffer is a multiple of {@link #SIZE_CLASS};
+ * a request is satisfied by a buffer of the smallest class that is large
+ * enough. Released buffers are retained, most recently released first,
+ * until the total capacity of the retained buffers would exceed a limit;
+ * beyond that, released buffers are left to the garbage collector.
+ * Requests larger than the largest size class are satisfied by buffers
+ * that are never retained.
+ *
+ * @author Carl Harris
+ */
+class DirectBufferPool {
+
+  /** granularity of buffer capacities */
+  static final int SIZE_CLASS = 4096;
+
+  /** number of size classes */
+  static final int CLASS_COUNT = 32;
+
+  /** default limit on the total capacity of retained buffers */
+  static final long DEFAULT_MAX_RETAINED = 64L * 1024 * 1024;
+
+  private static final DirectBufferPool DEFAULT =
+      new DirectBufferPool(DEFAULT_MAX_RETAINED);
+
+  private final ConcurrentLinkedDeque<ByteBuffer>[] classes;
+  private final long maxRetained;
+  private final AtomicLong retained = new AtomicLong();
+  private final AtomicLong allocations = new AtomicLong();
+
+  /**
+   * Constructs a new instance.
+   * @param maxRetained limit on the total capacity of retained buffers
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  DirectBufferPool(long maxRetained) {
+    this.maxRetained = maxRetained;
+    this.classes = new ConcurrentLinkedDeque[CLASS_COUNT + 1];
+    for (int i = 1; i < classes.length; i++) {
+      classes[i] = new ConcurrentLinkedDeque<>();
+    }
+  }
+
+  /**
+   * Gets the pool shared by all drivers that do not specify one.
+   * @return pool
+   */
+  static DirectBufferPool getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Acquires a cleared buffer.
+   * @param minCapacity minimum capacity of the buffer
+   * @return buffer whose capacity is at least {@code minCapacity}
+   */
+  public ByteBuffer acquire(int minCapacity) {
+    final int index = Math.max(1, (minCapacity + SIZE_CLASS - 1) / SIZE_CLASS);
+    if (index < classes.length) {
+      final ByteBuffer buffer = classes[index].pollFirst();
+      if (buffer != null) {
+        retained.addAndGet(-buffer.capacity());
+        buffer.clear();
+        return buffer;
+      }
+    }
+    allocations.incrementAndGet();
+    return ByteBuffer.allocateDirect(index * SIZE_CLASS);
+  }
+
+  /**
+   * Releases a buffer to the pool. The caller must not use the buffer
+   * after releasing it.
+   * @param buffer the buffer to release (may be {@code null})
+   */
+  public void release(ByteBuffer buffer) {
+    if (buffer == null || !buffer.isDirect()) return;
+    final int capacity = buffer.capacity();
+    final int index = capacity / SIZE_CLASS;
+    if (capacity % SIZE_CLASS != 0 || index >= classes.length) return;
+    if (retained.addAndGet(capacity) > maxRetained) {
+      retained.addAndGet(-capacity);
+      return;
+    }
+    buffer.clear();
+    classes[index].offerFirst(buffer);
+  }
+
+  /**
+   * Gets the total capacity of the buffers retained by this pool.
+   * @return number of bytes
+   */
+  public long getRetainedBytes() {
+    return retained.get();
+  }
+
+  /**
+   * Gets the number of buffers that this pool has allocated.
+   * @return number of allocations
+   */
+  public long getAllocationCount() {
+    return allocations.get();
+  }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The state of a file as seen by the file system, after resolving symbolic
+ * links.
+ * <p>
+ * It is used to avoid reading and digesting file content when the file
+ * evidently has not changed. Because file systems record modification times
+ * at limited resolution, a state observed shortly after the file was
+ * modified is not considered {@linkplain #isStable() stable}; a subsequent
+ * modification of the same size might not change the recorded time.
+ *
+ * @author Carl Harris
+ */
+class FileState {
+
+  /** Interval after modification during which a state is not stable */
+  static final long STABLE_INTERVAL = 2000;
+
+  private final Path realPath;
+  private final long lastModified;
+  private final long size;
+  private final long observed;
+
+  private FileState(Path realPath, long lastModified, long size) {
+    this.realPath = realPath;
+    this.lastModified = lastModified;
+    this.size = size;
+    this.observed = System.currentTimeMillis();
+  }
+
+  /**
+   * Gets the current state of a file.
+   * @param path path to the file or {@code null}
+   * @return file state or {@code null} if {@code path} is {@code null}
+   * @throws IOException if the file cannot be accessed
+   */
+  public static FileState of(Path path) throws IOException {
+    if (path == null) return null;
+    final Path realPath = path.toRealPath();
+    return new FileState(realPath,
+        Files.getLastModifiedTime(realPath).toMillis(),
+        Files.size(realPath));
+  }
+
+  /**
+   * Gets the file system path for a location.
+   * @param location the subject location
+   * @return path or {@code null} if {@code location} is not a {@code file:}
+   *    URL
+   */
+  public static Path toPath(URL location) {
+    if (!"file".equals(location.getProtocol())) return null;
+    try {
+      return Paths.get(location.toURI());
+    }
+    catch (URISyntaxException | IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Determines whether this state was observed long enough after the file
+   * was last modified that it can be used to recognize subsequent changes.
+   * @return {@code true} if this state is stable
+   */
+  public boolean isStable() {
+    return observed - lastModified > STABLE_INTERVAL;
+  }
+
+  /**
+   * Gets this state if it is stable.
+   * @param state the subject state (may be {@code null})
+   * @return {@code state} if it is stable, otherwise {@code null}
+   */
+  public static FileState stableOrNull(FileState state) {
+    return state != null && state.isStable() ? state : null;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) return true;
+    if (!(obj instanceof FileState)) return false;
+    final FileState that = (FileState) obj;
+    return this.realPath.equals(that.realPath)
+        && this.lastModified == that.lastModified
+        && this.size == that.size;
+  }
+
+  @Override
+  public int hashCode() {
+    return realPath.hashCode() + 31 * (int) (lastModified ^ size);
+  }
+
+}
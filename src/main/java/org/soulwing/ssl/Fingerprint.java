@@ -0,0 +1,255 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.Certificate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A builder for a stable fingerprint of some configuration.
+ * <p>
+ * Each value is added with a type tag and (for variable length values) a
+ * length prefix, so that distinct sequences of values produce distinct
+ * input to the digest.
+ *
+ * @author Carl Harris
+ */
+class Fingerprint {
+
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+
+  private static final Map<IdentityReference, Long> identities =
+      new HashMap<>();
+
+  private static final ReferenceQueue<Object> identityQueue =
+      new ReferenceQueue<>();
+
+  private static long lastIdentity;
+
+  private final MessageDigest digest;
+
+  Fingerprint() {
+    try {
+      digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+    }
+    catch (NoSuchAlgorithmException ex) {
+      throw new SSLRuntimeException(ex);
+    }
+  }
+
+  public Fingerprint add(String value) {
+    if (value == null) return addNull();
+    return add('s', value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public Fingerprint add(char[] value) {
+    if (value == null) return addNull();
+    return add('c', new String(value).getBytes(StandardCharsets.UTF_8));
+  }
+
+  public Fingerprint add(byte[] value) {
+    if (value == null) return addNull();
+    return add('b', value);
+  }
+
+  public Fingerprint add(Boolean value) {
+    if (value == null) return addNull();
+    digest.update((byte) (value ? 'T' : 'F'));
+    return this;
+  }
+
+  public Fingerprint add(Integer value) {
+    if (value == null) return addNull();
+    return add(value.toString());
+  }
+
+  public Fingerprint add(Iterable<String> values) {
+    digest.update((byte) '[');
+    for (final String value : values) {
+      add(value);
+    }
+    digest.update((byte) ']');
+    return this;
+  }
+
+  /**
+   * Adds the content of a key store: the type and, for each entry in alias
+   * order, its alias, kind, and the encoding of each certificate. For a
+   * private key entry, the encoding of the key is also added if it can be
+   * recovered using the given password.
+   * @param keyStore the subject key store (may be {@code null})
+   * @param password password for private keys (may be {@code null})
+   * @return this fingerprint
+   */
+  public Fingerprint add(KeyStore keyStore, char[] password) {
+    if (keyStore == null) return addNull();
+    try {
+      add(keyStore.getType());
+      final List<String> aliases = Collections.list(keyStore.aliases());
+      Collections.sort(aliases);
+      for (final String alias : aliases) {
+        add(alias);
+        if (keyStore.isKeyEntry(alias)) {
+          add("key");
+          final Certificate[] chain = keyStore.getCertificateChain(alias);
+          if (chain != null) {
+            for (final Certificate certificate : chain) {
+              add(certificate.getEncoded());
+            }
+          }
+          add(keyEncoding(keyStore, alias, password));
+        }
+        else {
+          add("certificate");
+          add(keyStore.getCertificate(alias).getEncoded());
+        }
+      }
+      return this;
+    }
+    catch (GeneralSecurityException ex) {
+      throw new SSLRuntimeException(ex);
+    }
+  }
+
+  /**
+   * Adds the content of the key store from a source, and the location from
+   * which it is reloaded if it is reloaded when its content changes.
+   * @param source the subject source (may be {@code null})
+   * @param password password for private keys (may be {@code null})
+   * @return this fingerprint
+   * @throws SSLRuntimeException if the key store cannot be loaded
+   */
+  public Fingerprint add(KeyStoreSource source, char[] password) {
+    if (source == null) return addNull();
+    return add(source.getKeyStore(), password)
+        .add(source.getReloadLocation());
+  }
+
+  private static byte[] keyEncoding(KeyStore keyStore, String alias,
+      char[] password) {
+    if (password == null) return null;
+    try {
+      final Key key = keyStore.getKey(alias, password);
+      return key != null ? key.getEncoded() : null;
+    }
+    catch (GeneralSecurityException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Adds a value that is identified only by the identity of an object.
+   * <p>
+   * Each distinct object is assigned an identifier that is never assigned
+   * to any other object, even after the object has been collected; an
+   * identity hash code would not do, since distinct objects may share one.
+   * @param object the subject object (may be {@code null})
+   * @return this fingerprint
+   */
+  public Fingerprint addIdentity(Object object) {
+    if (object == null) return addNull();
+    return add(object.getClass().getName() + "@" + identityOf(object));
+  }
+
+  /**
+   * Gets the unique identifier assigned to an object.
+   * @param object the subject object
+   * @return identifier
+   */
+  static synchronized long identityOf(Object object) {
+    Object reference;
+    while ((reference = identityQueue.poll()) != null) {
+      identities.remove(reference);
+    }
+    Long identity = identities.get(new IdentityReference(object, null));
+    if (identity == null) {
+      identity = ++lastIdentity;
+      identities.put(new IdentityReference(object, identityQueue), identity);
+    }
+    return identity;
+  }
+
+  private Fingerprint addNull() {
+    digest.update((byte) 'N');
+    return this;
+  }
+
+  private Fingerprint add(char tag, byte[] value) {
+    digest.update((byte) tag);
+    final int length = value.length;
+    digest.update(new byte[] {
+        (byte) (length >>> 24), (byte) (length >>> 16),
+        (byte) (length >>> 8), (byte) length });
+    digest.update(value);
+    return this;
+  }
+
+  /**
+   * Computes the fingerprint of the values that have been added.
+   * @return hexadecimal representation of the fingerprint
+   */
+  public String compute() {
+    final StringBuilder sb = new StringBuilder();
+    for (final byte b : digest.digest()) {
+      sb.append(Character.forDigit((b >>> 4) & 0xf, 16));
+      sb.append(Character.forDigit(b & 0xf, 16));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * A weak reference to an object that is equal only to another reference
+   * to the same object.
+   */
+  private static class IdentityReference extends WeakReference<Object> {
+
+    private final int hashCode;
+
+    IdentityReference(Object referent, ReferenceQueue<Object> queue) {
+      super(referent, queue);
+      this.hashCode = System.identityHashCode(referent);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) return true;
+      if (!(obj instanceof IdentityReference)) return false;
+      final Object referent = get();
+      return referent != null && referent == ((IdentityReference) obj).get();
+    }
+
+  }
+
+}
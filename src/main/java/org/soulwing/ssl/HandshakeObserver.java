@@ -0,0 +1,151 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLSession;
+
+/**
+ * An observer of the initial handshake on a socket or engine, which
+ * records its outcome in {@link SSLMetrics} and/or as a flight recorder
+ * event, and counts the application data that is subsequently read and
+ * written.
+ * <p>
+ * A handshake is recorded as started at most once, and as completed or
+ * failed at most once, no matter how many threads report its progress.
+ *
+ * @author Carl Harris
+ */
+class HandshakeObserver {
+
+  private static final String NULL_CIPHER_SUITE = "SSL_NULL_WITH_NULL_NULL";
+
+  private static final int NEW = 0;
+  private static final int STARTED = 1;
+  private static final int DONE = 2;
+
+  private final AtomicInteger state = new AtomicInteger();
+
+  private final SSLMetrics metrics;
+
+  private long startNanos;
+  private long startMillis;
+  private SSLEventRecorder.Handshake recording;
+
+  private HandshakeObserver(SSLMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Creates an observer for a new socket or engine, if there is anything
+   * to observe.
+   * @param metrics metrics to update (may be {@code null})
+   * @return observer or {@code null} if {@code metrics} is {@code null} and
+   *    handshake events are not being recorded
+   */
+  static HandshakeObserver create(SSLMetrics metrics) {
+    if (metrics == null
+        && !SSLEventRecorder.getInstance().isHandshakeEnabled()) {
+      return null;
+    }
+    return new HandshakeObserver(metrics);
+  }
+
+  /**
+   * Tests whether the outcome of the handshake has yet to be recorded.
+   * @return {@code true} if the handshake has not completed or failed
+   */
+  public boolean isPending() {
+    return state.get() != DONE;
+  }
+
+  /**
+   * Notifies this observer that the handshake has started (or is about to
+   * start).
+   */
+  public void started() {
+    if (state.get() != NEW) return;
+    synchronized (this) {
+      if (state.get() != NEW) return;
+      recording = SSLEventRecorder.getInstance().beginHandshake();
+      startMillis = System.currentTimeMillis();
+      startNanos = System.nanoTime();
+      state.set(STARTED);
+    }
+    if (metrics != null) {
+      metrics.handshakeStarted();
+    }
+  }
+
+  /**
+   * Notifies this observer that the handshake has completed.
+   * @param session the session that was negotiated; if this is the null
+   *    session that JSSE returns for a failed handshake, the handshake is
+   *    recorded as failed
+   */
+  public void completed(SSLSession session) {
+    final long now = System.nanoTime();
+    if (session == null || !session.isValid()
+        || NULL_CIPHER_SUITE.equals(session.getCipherSuite())) {
+      failed();
+      return;
+    }
+    if (state.compareAndSet(STARTED, DONE)) {
+      final boolean resumed = session.getCreationTime() < startMillis;
+      recording.completed(session, resumed);
+      if (metrics != null) {
+        metrics.handshakeCompleted(session, now - startNanos, resumed);
+      }
+    }
+  }
+
+  /**
+   * Notifies this observer that the handshake has failed.
+   */
+  public void failed() {
+    if (state.compareAndSet(STARTED, DONE)) {
+      recording.failed();
+      if (metrics != null) {
+        metrics.handshakeFailed();
+      }
+    }
+  }
+
+  /**
+   * Notifies this observer that application data was read.
+   * @param count number of bytes read
+   */
+  public void bytesIn(long count) {
+    if (metrics != null) {
+      metrics.bytesIn(count);
+    }
+  }
+
+  /**
+   * Notifies this observer that application data was written.
+   * @param count number of bytes written
+   */
+  public void bytesOut(long count) {
+    if (metrics != null) {
+      metrics.bytesOut(count);
+    }
+  }
+
+}
@@ -0,0 +1,230 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.net.IDN;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.cert.CertificateParsingException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
+import javax.net.ssl.ExtendedSSLSession;
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SNIServerName;
+import javax.net.ssl.SSLSession;
+
+/**
+ * Utility methods for matching host names against the names in an X.509
+ * certificate, following the rules of RFC 6125.
+ * <p>
+ * A DNS name in a certificate may contain a wildcard only as the entire
+ * left-most label (e.g. {@code *.example.com}), which matches exactly one
+ * label of a host name. The common name of the subject is used only if the
+ * certificate has no DNS subject alternative names. An IP address matches
+ * only an IP address subject alternative name.
+ *
+ * @author Carl Harris
+ */
+class HostnameMatcher {
+
+  private static final int DNS_NAME = 2;
+
+  private static final int IP_ADDRESS = 7;
+
+  private HostnameMatcher() {
+  }
+
+  /**
+   * Tests whether a host name matches the identity in a certificate.
+   * @param host a DNS name or IP address literal
+   * @param certificate the subject certificate
+   * @return {@code true} if {@code host} matches
+   */
+  public static boolean matches(String host, X509Certificate certificate) {
+    if (host == null || host.isEmpty()) return false;
+    if (isIPAddress(host)) {
+      return matchesIPAddress(host, certificate);
+    }
+    final String name = normalize(host);
+    for (final String pattern : dnsNames(certificate)) {
+      if (matches(name, pattern)) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Tests whether a normalized host name matches a DNS name pattern.
+   * @param name a host name in the form returned by {@link #normalize}
+   * @param pattern a DNS name, possibly with a wildcard left-most label
+   * @return {@code true} if {@code name} matches {@code pattern}
+   */
+  public static boolean matches(String name, String pattern) {
+    final String p = normalize(pattern);
+    if (!p.startsWith("*.")) {
+      return name.equals(p);
+    }
+    final String suffix = p.substring(1);
+    if (suffix.indexOf('.', 1) == -1) {
+      return false;   // don't allow a wildcard for a top-level domain
+    }
+    final int dot = name.indexOf('.');
+    return dot > 0 && name.substring(dot).equals(suffix);
+  }
+
+  /**
+   * Gets the DNS names that identify the subject of a certificate; i.e. its
+   * DNS subject alternative names or, if it has none, the most specific
+   * common name in its subject.
+   * @param certificate the subject certificate
+   * @return list of DNS names (possibly with wildcards)
+   */
+  public static List<String> dnsNames(X509Certificate certificate) {
+    final List<String> names = new ArrayList<>();
+    for (final List<?> name : subjectAlternativeNames(certificate)) {
+      if (((Integer) name.get(0)) == DNS_NAME) {
+        names.add((String) name.get(1));
+      }
+    }
+    if (names.isEmpty()) {
+      final String commonName = commonName(certificate);
+      if (commonName != null) {
+        names.add(commonName);
+      }
+    }
+    return names;
+  }
+
+  /**
+   * Normalizes a host name or DNS name for comparison: converts it to its
+   * ASCII form, converts it to lower case, and removes any trailing dot.
+   * @param name the name to normalize
+   * @return normalized name
+   */
+  public static String normalize(String name) {
+    String s = name;
+    if (s.endsWith(".")) {
+      s = s.substring(0, s.length() - 1);
+    }
+    try {
+      s = IDN.toASCII(s, IDN.ALLOW_UNASSIGNED);
+    }
+    catch (IllegalArgumentException ex) {
+      assert true;  // compare it as-is
+    }
+    return s.toLowerCase(Locale.ENGLISH);
+  }
+
+  /**
+   * Tests whether a host is an IP address literal.
+   * @param host the host to test
+   * @return {@code true} if {@code host} is an IPv4 or IPv6 literal
+   */
+  public static boolean isIPAddress(String host) {
+    if (host.indexOf(':') != -1) return true;
+    for (int i = 0, max = host.length(); i < max; i++) {
+      final char c = host.charAt(i);
+      if (c != '.' && (c < '0' || c > '9')) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Gets the host name requested by the client in a handshake.
+   * @param session handshake session (may be {@code null})
+   * @return host name or {@code null} if none was requested
+   */
+  public static String requestedHostName(SSLSession session) {
+    if (!(session instanceof ExtendedSSLSession)) return null;
+    for (final SNIServerName name :
+        ((ExtendedSSLSession) session).getRequestedServerNames()) {
+      if (name instanceof SNIHostName) {
+        return ((SNIHostName) name).getAsciiName();
+      }
+    }
+    return null;
+  }
+
+  private static boolean matchesIPAddress(String host,
+      X509Certificate certificate) {
+    final InetAddress address = toAddress(host);
+    if (address == null) return false;
+    for (final List<?> name : subjectAlternativeNames(certificate)) {
+      if (((Integer) name.get(0)) == IP_ADDRESS
+          && address.equals(toAddress((String) name.get(1)))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static InetAddress toAddress(String literal) {
+    String s = literal;
+    if (s.startsWith("[") && s.endsWith("]")) {
+      s = s.substring(1, s.length() - 1);
+    }
+    if (!isIPAddress(s)) return null;
+    try {
+      // a literal address is parsed without a name service lookup
+      return InetAddress.getByName(s);
+    }
+    catch (UnknownHostException ex) {
+      return null;
+    }
+  }
+
+  private static Collection<List<?>> subjectAlternativeNames(
+      X509Certificate certificate) {
+    try {
+      final Collection<List<?>> names =
+          certificate.getSubjectAlternativeNames();
+      return names != null ? names : Collections.<List<?>>emptyList();
+    }
+    catch (CertificateParsingException ex) {
+      return Collections.emptyList();
+    }
+  }
+
+  private static String commonName(X509Certificate certificate) {
+    try {
+      final LdapName name = new LdapName(
+          certificate.getSubjectX500Principal().getName());
+      // RDNs are ordered least significant first
+      final List<Rdn> rdns = name.getRdns();
+      for (int i = rdns.size() - 1; i >= 0; i--) {
+        final Rdn rdn = rdns.get(i);
+        if ("CN".equalsIgnoreCase(rdn.getType())) {
+          return rdn.getValue().toString();
+        }
+      }
+      return null;
+    }
+    catch (InvalidNameException ex) {
+      return null;
+    }
+  }
+
+}
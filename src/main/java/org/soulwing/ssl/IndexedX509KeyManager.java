@@ -0,0 +1,315 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.net.Socket;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.X509ExtendedKeyManager;
+
+/**
+ * An {@link X509ExtendedKeyManager} that selects a server's credential
+ * using the host name requested by the client via the server name
+ * indication (SNI) extension.
+ * <p>
+ * When constructed, the manager loads every private key entry in the key
+ * store and indexes it by the DNS names of its certificate (its DNS subject
+ * alternative names or, if it has none, its common name). Names without a
+ * wildcard are indexed exactly; a wildcard name such as
+ * {@code *.example.com} is indexed by its parent domain, since a wildcard
+ * matches exactly one label. Selecting a credential for a requested host
+ * name is therefore a probe of the exact index, followed if necessary by a
+ * probe of the wildcard index with the host's parent domain, no matter how
+ * many credentials the key store contains.
+ * <p>
+ * Among the credentials that match the requested name, the first (in alias
+ * order) whose key type matches and whose certificate is currently valid is
+ * selected; a credential whose certificate has expired or is not yet valid
+ * (as when old and new certificates for a name share a key store during a
+ * rotation) is selected only if there is no valid one. If the client didn't
+ * request a host name, or no credential matches it, the default is chosen
+ * in the same way from all credentials of the requested key type.
+ *
+ * @author Carl Harris
+ */
+class IndexedX509KeyManager extends X509ExtendedKeyManager {
+
+  private final Map<String, Credential> credentials = new LinkedHashMap<>();
+
+  private final Map<String, List<Credential>> nameIndex = new HashMap<>();
+
+  private final Map<String, List<Credential>> wildcardIndex =
+      new HashMap<>();
+
+  /**
+   * Constructs a new key manager for the private key entries in a key store.
+   * @param keyStore the key store
+   * @param keyPassword password for the private keys in the key store
+   * @throws Exception if a private key or its certificate chain cannot be
+   *    retrieved from the key store
+   */
+  IndexedX509KeyManager(KeyStore keyStore, char[] keyPassword)
+      throws Exception {
+    final List<String> aliases = Collections.list(keyStore.aliases());
+    Collections.sort(aliases);
+    for (final String alias : aliases) {
+      if (!keyStore.isKeyEntry(alias)) continue;
+      final Key key = keyStore.getKey(alias, keyPassword);
+      final Certificate[] chain = keyStore.getCertificateChain(alias);
+      if (!(key instanceof PrivateKey) || chain == null || chain.length == 0
+          || !(chain[0] instanceof X509Certificate)) {
+        continue;
+      }
+      add(new Credential(alias, (PrivateKey) key, Arrays.copyOf(
+          chain, chain.length, X509Certificate[].class)));
+    }
+  }
+
+  private void add(Credential credential) {
+    credentials.put(credential.alias, credential);
+    final Set<String> names = new HashSet<>();
+    for (final String name : HostnameMatcher.dnsNames(credential.chain[0])) {
+      names.add(HostnameMatcher.normalize(name));
+    }
+    for (final String name : names) {
+      if (name.startsWith("*.")) {
+        index(wildcardIndex, name.substring(2), credential);
+      }
+      else {
+        index(nameIndex, name, credential);
+      }
+    }
+  }
+
+  private static void index(Map<String, List<Credential>> index, String key,
+      Credential credential) {
+    List<Credential> credentials = index.get(key);
+    if (credentials == null) {
+      credentials = new ArrayList<>(1);
+      index.put(key, credentials);
+    }
+    credentials.add(credential);
+  }
+
+  /**
+   * Gets the number of credentials managed by this key manager.
+   * @return number of credentials
+   */
+  public int size() {
+    return credentials.size();
+  }
+
+  @Override
+  public String[] getClientAliases(String keyType, Principal[] issuers) {
+    return aliases(keyType, issuers);
+  }
+
+  @Override
+  public String chooseClientAlias(String[] keyTypes, Principal[] issuers,
+      Socket socket) {
+    return chooseClientAlias(keyTypes, issuers);
+  }
+
+  @Override
+  public String chooseEngineClientAlias(String[] keyTypes,
+      Principal[] issuers, SSLEngine engine) {
+    return chooseClientAlias(keyTypes, issuers);
+  }
+
+  @Override
+  public String[] getServerAliases(String keyType, Principal[] issuers) {
+    return aliases(keyType, issuers);
+  }
+
+  @Override
+  public String chooseServerAlias(String keyType, Principal[] issuers,
+      Socket socket) {
+    final SSLSession session = socket instanceof SSLSocket ?
+        ((SSLSocket) socket).getHandshakeSession() : null;
+    return chooseServerAlias(keyType, issuers, session);
+  }
+
+  @Override
+  public String chooseEngineServerAlias(String keyType, Principal[] issuers,
+      SSLEngine engine) {
+    final SSLSession session =
+        engine != null ? engine.getHandshakeSession() : null;
+    return chooseServerAlias(keyType, issuers, session);
+  }
+
+  @Override
+  public X509Certificate[] getCertificateChain(String alias) {
+    final Credential credential = credentials.get(alias);
+    return credential != null ? credential.chain.clone() : null;
+  }
+
+  @Override
+  public PrivateKey getPrivateKey(String alias) {
+    final Credential credential = credentials.get(alias);
+    return credential != null ? credential.key : null;
+  }
+
+  private String chooseClientAlias(String[] keyTypes, Principal[] issuers) {
+    if (keyTypes == null) return null;
+    for (final String keyType : keyTypes) {
+      final String alias =
+          firstMatch(credentials.values(), keyType, issuers);
+      if (alias != null) return alias;
+    }
+    return null;
+  }
+
+  private String chooseServerAlias(String keyType, Principal[] issuers,
+      SSLSession session) {
+    final String hostName = HostnameMatcher.requestedHostName(session);
+    if (hostName != null) {
+      final String alias = firstMatch(
+          candidates(HostnameMatcher.normalize(hostName)), keyType, issuers);
+      if (alias != null) return alias;
+    }
+    return firstMatch(credentials.values(), keyType, issuers);
+  }
+
+  /**
+   * Finds the credentials whose names match a host name.
+   * @param hostName normalized host name
+   * @return matching credentials
+   */
+  List<Credential> candidates(String hostName) {
+    final List<Credential> exact = nameIndex.get(hostName);
+    if (exact != null) return exact;
+    final int dot = hostName.indexOf('.');
+    if (dot > 0) {
+      final List<Credential> wildcard =
+          wildcardIndex.get(hostName.substring(dot + 1));
+      if (wildcard != null) return wildcard;
+    }
+    return Collections.emptyList();
+  }
+
+  private String[] aliases(String keyType, Principal[] issuers) {
+    final List<String> aliases = new ArrayList<>();
+    for (final Credential credential : credentials.values()) {
+      if (credential.matches(keyType, issuers)) {
+        aliases.add(credential.alias);
+      }
+    }
+    return aliases.isEmpty() ? null : aliases.toArray(new String[0]);
+  }
+
+  private static String firstMatch(Iterable<Credential> credentials,
+      String keyType, Principal[] issuers) {
+    final long now = System.currentTimeMillis();
+    String invalid = null;
+    for (final Credential credential : credentials) {
+      if (!credential.matches(keyType, issuers)) continue;
+      if (credential.isValid(now)) return credential.alias;
+      if (invalid == null) {
+        invalid = credential.alias;
+      }
+    }
+    return invalid;
+  }
+
+  /**
+   * A private key and its certificate chain.
+   */
+  static class Credential {
+
+    final String alias;
+    final PrivateKey key;
+    final X509Certificate[] chain;
+    final long notBefore;
+    final long notAfter;
+
+    Credential(String alias, PrivateKey key, X509Certificate[] chain) {
+      this.alias = alias;
+      this.key = key;
+      this.chain = chain;
+      this.notBefore = chain[0].getNotBefore().getTime();
+      this.notAfter = chain[0].getNotAfter().getTime();
+    }
+
+    /**
+     * Tests whether the certificate of this credential is valid at a given
+     * time.
+     * @param now the time of interest
+     * @return {@code true} if the certificate is valid at {@code now}
+     */
+    boolean isValid(long now) {
+      return now >= notBefore && now <= notAfter;
+    }
+
+    /**
+     * Tests whether this credential can be used for a key type and is
+     * issued by one of the given issuers.
+     * @param keyType key algorithm name, optionally followed by an
+     *    underscore and the signature algorithm of the certificate's
+     *    issuer (e.g. {@code EC_RSA})
+     * @param issuers acceptable issuers or {@code null} if any issuer is
+     *    acceptable
+     * @return {@code true} if this credential matches
+     */
+    boolean matches(String keyType, Principal[] issuers) {
+      if (keyType == null) return false;
+      final int index = keyType.indexOf('_');
+      final String keyAlgorithm =
+          index != -1 ? keyType.substring(0, index) : keyType;
+      if (!keyAlgorithm.equals(key.getAlgorithm())) return false;
+      if (index != -1) {
+        final String sigAlgorithm = keyType.substring(index + 1);
+        if (!chain[0].getSigAlgName().toUpperCase(Locale.ENGLISH).contains(
+            "WITH" + sigAlgorithm)) {
+          return false;
+        }
+      }
+      return issuers == null || issuers.length == 0 || isIssuedBy(issuers);
+    }
+
+    private boolean isIssuedBy(Principal[] issuers) {
+      final List<Principal> acceptable = Arrays.asList(issuers);
+      for (final X509Certificate certificate : chain) {
+        if (acceptable.contains(certificate.getIssuerX500Principal())) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+  }
+
+}
@@ -0,0 +1,573 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.io.ByteArrayInputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.security.AlgorithmConstraints;
+import java.security.CryptoPrimitive;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.cert.CertPath;
+import java.security.cert.CertPathValidator;
+import java.security.cert.CertPathValidatorException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.CertificateParsingException;
+import java.security.cert.PKIXCertPathChecker;
+import java.security.cert.PKIXParameters;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.net.ssl.ExtendedSSLSession;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.X509ExtendedTrustManager;
+import javax.security.auth.x500.X500Principal;
+
+/**
+ * An {@link X509ExtendedTrustManager} that finds the trust anchor for a
+ * peer's certificate chain using an index of the trusted certificates.
+ * <p>
+ * The trusted certificates are indexed by subject name and by subject key
+ * identifier, and are held in their DER encoded form. The issuer of a chain
+ * is found by probing the key identifier index with the authority key
+ * identifier of the last certificate in the chain, falling back to probing
+ * the subject index with its issuer name. Only the certificates found in
+ * this way are decoded (once each) and used as trust anchors for PKIX
+ * validation of the chain, so the cost of validation does not depend on
+ * the number of trusted certificates.
+ * <p>
+ * The chain is validated using the default PKIX {@link CertPathValidator},
+ * which applies the {@code jdk.certpath.disabledAlgorithms} constraints.
+ * When the chain is checked during a handshake on a socket or engine, each
+ * certificate in the chain (other than the trust anchor) must also be
+ * signed using one of the signature algorithms that this side of the
+ * handshake supports, and must satisfy the algorithm constraints set in the
+ * socket's or engine's {@link SSLParameters}. As for the JDK's trust
+ * manager, revocation checking is enabled only if the
+ * {@value #CHECK_REVOCATION_PROPERTY} system property is {@code true}.
+ * <p>
+ * The key usage and extended key usage of the end entity certificate must
+ * permit its use for the authentication type, as for the JDK's trust
+ * manager: a client certificate must permit digital signatures, and a
+ * server certificate must permit digital signatures, key encipherment, or
+ * key agreement, according to the key exchange algorithm.
+ * When an endpoint identification algorithm is set on the socket or engine,
+ * a server's certificate must match the server name requested by the
+ * client (or the peer host, if no server name was requested).
+ *
+ * @author Carl Harris
+ */
+class IndexedX509TrustManager extends X509ExtendedTrustManager {
+
+  static final String CHECK_REVOCATION_PROPERTY =
+      "com.sun.net.ssl.checkRevocation";
+
+  private static final String SUBJECT_KEY_IDENTIFIER = "2.5.29.14";
+  private static final String AUTHORITY_KEY_IDENTIFIER = "2.5.29.35";
+
+  private static final String ANY_KEY_USAGE = "2.5.29.37.0";
+  private static final String SERVER_AUTH = "1.3.6.1.5.5.7.3.1";
+  private static final String CLIENT_AUTH = "1.3.6.1.5.5.7.3.2";
+
+  private static final int DIGITAL_SIGNATURE = 0;
+  private static final int KEY_ENCIPHERMENT = 2;
+  private static final int KEY_AGREEMENT = 4;
+
+  /** key exchange algorithms for which a server signs with its key */
+  private static final Set<String> SERVER_SIGNATURE_TYPES =
+      new HashSet<>(Arrays.asList("DHE_DSS", "DHE_RSA", "ECDHE_ECDSA",
+          "ECDHE_RSA", "RSA_EXPORT", "UNKNOWN"));
+
+  /** key exchange algorithms for which a server decrypts with its key */
+  private static final Set<String> SERVER_ENCIPHERMENT_TYPES =
+      Collections.singleton("RSA");
+
+  /** key exchange algorithms in which a server's key agrees a secret */
+  private static final Set<String> SERVER_KEY_AGREEMENT_TYPES =
+      new HashSet<>(Arrays.asList("DH_DSS", "DH_RSA", "ECDH_ECDSA",
+          "ECDH_RSA"));
+
+  private static final Set<CryptoPrimitive> SIGNATURE_PRIMITIVES =
+      Collections.unmodifiableSet(EnumSet.of(CryptoPrimitive.SIGNATURE));
+
+  private static final String HTTPS = "HTTPS";
+  private static final String LDAPS = "LDAPS";
+
+
+  private final Map<X500Principal, List<Anchor>> subjectIndex =
+      new HashMap<>();
+
+  private final Map<ByteBuffer, List<Anchor>> keyIdentifierIndex =
+      new HashMap<>();
+
+  private final List<Anchor> anchors = new ArrayList<>();
+
+  private volatile X509Certificate[] acceptedIssuers;
+
+  /**
+   * Constructs a new trust manager for the trusted certificates in a
+   * trust store.
+   * @param trustStore the trust store
+   * @throws KeyStoreException if the trust store cannot be read
+   * @throws CertificateException if a trusted certificate cannot be encoded
+   */
+  IndexedX509TrustManager(KeyStore trustStore)
+      throws KeyStoreException, CertificateException {
+    final Enumeration<String> aliases = trustStore.aliases();
+    while (aliases.hasMoreElements()) {
+      final String alias = aliases.nextElement();
+      if (!trustStore.isCertificateEntry(alias)) continue;
+      final Certificate certificate =
+          trustStore.getCertificate(alias);
+      if (certificate instanceof X509Certificate) {
+        add((X509Certificate) certificate);
+      }
+    }
+  }
+
+  private void add(X509Certificate certificate)
+      throws CertificateException {
+    final Anchor anchor = new Anchor(certificate.getEncoded());
+    anchors.add(anchor);
+    index(subjectIndex, certificate.getSubjectX500Principal(), anchor);
+    final byte[] keyIdentifier = keyIdentifier(
+        certificate.getExtensionValue(SUBJECT_KEY_IDENTIFIER), false);
+    if (keyIdentifier != null) {
+      index(keyIdentifierIndex, ByteBuffer.wrap(keyIdentifier), anchor);
+    }
+  }
+
+  private static <K> void index(Map<K, List<Anchor>> index, K key,
+      Anchor anchor) {
+    List<Anchor> anchors = index.get(key);
+    if (anchors == null) {
+      anchors = new ArrayList<>(1);
+      index.put(key, anchors);
+    }
+    anchors.add(anchor);
+  }
+
+  /**
+   * Gets the number of trusted certificates.
+   * @return number of certificates
+   */
+  public int size() {
+    return anchors.size();
+  }
+
+  @Override
+  public void checkClientTrusted(X509Certificate[] chain, String authType,
+      Socket socket) throws CertificateException {
+    if (socket instanceof SSLSocket && socket.isConnected()) {
+      final SSLSocket sslSocket = (SSLSocket) socket;
+      validate(chain, authType, false, algorithmChecker(
+          sslSocket.getSSLParameters(), sslSocket.getHandshakeSession()));
+    }
+    else {
+      validate(chain, authType, false, null);
+    }
+  }
+
+  @Override
+  public void checkServerTrusted(X509Certificate[] chain, String authType,
+      Socket socket) throws CertificateException {
+    if (socket instanceof SSLSocket && socket.isConnected()) {
+      final SSLSocket sslSocket = (SSLSocket) socket;
+      final SSLParameters parameters = sslSocket.getSSLParameters();
+      final SSLSession session = sslSocket.getHandshakeSession();
+      validate(chain, authType, true,
+          algorithmChecker(parameters, session));
+      checkIdentity(chain[0],
+          parameters.getEndpointIdentificationAlgorithm(), session);
+    }
+    else {
+      validate(chain, authType, true, null);
+    }
+  }
+
+  @Override
+  public void checkClientTrusted(X509Certificate[] chain, String authType,
+      SSLEngine engine) throws CertificateException {
+    if (engine != null) {
+      validate(chain, authType, false, algorithmChecker(
+          engine.getSSLParameters(), engine.getHandshakeSession()));
+    }
+    else {
+      validate(chain, authType, false, null);
+    }
+  }
+
+  @Override
+  public void checkServerTrusted(X509Certificate[] chain, String authType,
+      SSLEngine engine) throws CertificateException {
+    if (engine != null) {
+      final SSLParameters parameters = engine.getSSLParameters();
+      final SSLSession session = engine.getHandshakeSession();
+      validate(chain, authType, true,
+          algorithmChecker(parameters, session));
+      checkIdentity(chain[0],
+          parameters.getEndpointIdentificationAlgorithm(), session);
+    }
+    else {
+      validate(chain, authType, true, null);
+    }
+  }
+
+  @Override
+  public void checkClientTrusted(X509Certificate[] chain, String authType)
+      throws CertificateException {
+    validate(chain, authType, false, null);
+  }
+
+  @Override
+  public void checkServerTrusted(X509Certificate[] chain, String authType)
+      throws CertificateException {
+    validate(chain, authType, true, null);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * All of the trusted certificates are decoded on the first call to this
+   * method.
+   */
+  @Override
+  public X509Certificate[] getAcceptedIssuers() {
+    X509Certificate[] issuers = acceptedIssuers;
+    if (issuers == null) {
+      issuers = new X509Certificate[anchors.size()];
+      for (int i = 0; i < issuers.length; i++) {
+        issuers[i] = anchors.get(i).getTrustAnchor().getTrustedCert();
+      }
+      acceptedIssuers = issuers;
+    }
+    return issuers.clone();
+  }
+
+  private void validate(X509Certificate[] chain, String authType,
+      boolean server, PKIXCertPathChecker algorithmChecker)
+      throws CertificateException {
+    if (chain == null || chain.length == 0) {
+      throw new IllegalArgumentException(
+          "null or zero-length certificate chain");
+    }
+    if (authType == null || authType.isEmpty()) {
+      throw new IllegalArgumentException(
+          "null or zero-length authentication type");
+    }
+
+    // a chain ends at the first certificate that is itself trusted
+    int length = chain.length;
+    List<Anchor> candidates = null;
+    for (int i = 0; i < chain.length && candidates == null; i++) {
+      final Anchor anchor = findTrusted(chain[i]);
+      if (anchor != null) {
+        length = i;
+        candidates = Collections.singletonList(anchor);
+      }
+    }
+    if (candidates == null) {
+      candidates = findIssuers(chain[chain.length - 1]);
+    }
+    if (candidates.isEmpty()) {
+      throw new CertificateException("no trusted certificate found for "
+          + chain[chain.length - 1].getIssuerX500Principal());
+    }
+
+    checkKeyUsage(chain[0], authType, server);
+    checkExtendedKeyUsage(chain[0], server);
+    if (length == 0) {
+      chain[0].checkValidity();
+      return;
+    }
+
+    final CertificateFactory certificateFactory =
+        CertificateFactory.getInstance("X.509");
+    final CertPath path = certificateFactory.generateCertPath(
+        Arrays.asList(chain).subList(0, length));
+    CertificateException failure = null;
+    for (final Anchor anchor : candidates) {
+      try {
+        final PKIXParameters parameters = new PKIXParameters(
+            Collections.singleton(anchor.getTrustAnchor()));
+        parameters.setRevocationEnabled(
+            Boolean.getBoolean(CHECK_REVOCATION_PROPERTY));
+        if (algorithmChecker != null) {
+          parameters.addCertPathChecker(algorithmChecker);
+        }
+        CertPathValidator.getInstance("PKIX").validate(path, parameters);
+        return;
+      }
+      catch (GeneralSecurityException ex) {
+        failure = new CertificateException(
+            "certificate chain is not valid: " + ex.getMessage(), ex);
+      }
+    }
+    throw failure;
+  }
+
+  private Anchor findTrusted(X509Certificate certificate)
+      throws CertificateException {
+    final List<Anchor> anchors =
+        subjectIndex.get(certificate.getSubjectX500Principal());
+    if (anchors == null) return null;
+    final byte[] encoded = certificate.getEncoded();
+    for (final Anchor anchor : anchors) {
+      if (Arrays.equals(encoded, anchor.encoded)) return anchor;
+    }
+    return null;
+  }
+
+  private List<Anchor> findIssuers(X509Certificate certificate) {
+    final byte[] keyIdentifier = keyIdentifier(
+        certificate.getExtensionValue(AUTHORITY_KEY_IDENTIFIER), true);
+    if (keyIdentifier != null) {
+      final List<Anchor> anchors =
+          keyIdentifierIndex.get(ByteBuffer.wrap(keyIdentifier));
+      if (anchors != null) return anchors;
+    }
+    final List<Anchor> anchors =
+        subjectIndex.get(certificate.getIssuerX500Principal());
+    return anchors != null ? anchors : Collections.<Anchor>emptyList();
+  }
+
+  private static void checkKeyUsage(X509Certificate certificate,
+      String authType, boolean server) throws CertificateException {
+    final int bit;
+    if (!server || SERVER_SIGNATURE_TYPES.contains(authType)) {
+      bit = DIGITAL_SIGNATURE;
+    }
+    else if (SERVER_ENCIPHERMENT_TYPES.contains(authType)) {
+      bit = KEY_ENCIPHERMENT;
+    }
+    else if (SERVER_KEY_AGREEMENT_TYPES.contains(authType)) {
+      bit = KEY_AGREEMENT;
+    }
+    else {
+      return;
+    }
+    final boolean[] usage = certificate.getKeyUsage();
+    if (usage == null || (usage.length > bit && usage[bit])) return;
+    throw new CertificateException("key usage does not permit use for "
+        + (server ? "server" : "client") + " authentication type "
+        + authType);
+  }
+
+  /**
+   * Creates a checker for the algorithm constraints of a handshake.
+   * @param parameters parameters of the socket or engine
+   * @param session handshake session (may be {@code null})
+   * @return checker or {@code null} if there are no constraints to check
+   */
+  private static PKIXCertPathChecker algorithmChecker(
+      SSLParameters parameters, SSLSession session) {
+    Set<String> algorithms = null;
+    if (session instanceof ExtendedSSLSession) {
+      final String[] supported = ((ExtendedSSLSession) session)
+          .getLocalSupportedSignatureAlgorithms();
+      if (supported != null && supported.length > 0) {
+        algorithms = new HashSet<>();
+        for (final String algorithm : supported) {
+          algorithms.add(algorithm.toUpperCase(Locale.ENGLISH));
+        }
+      }
+    }
+    final AlgorithmConstraints constraints =
+        parameters.getAlgorithmConstraints();
+    if (algorithms == null && constraints == null) return null;
+    return new AlgorithmChecker(algorithms, constraints);
+  }
+
+  private static void checkExtendedKeyUsage(X509Certificate certificate,
+      boolean server) throws CertificateException {
+    final List<String> usages;
+    try {
+      usages = certificate.getExtendedKeyUsage();
+    }
+    catch (CertificateParsingException ex) {
+      throw new CertificateException(ex);
+    }
+    if (usages == null || usages.contains(ANY_KEY_USAGE)
+        || usages.contains(server ? SERVER_AUTH : CLIENT_AUTH)) {
+      return;
+    }
+    throw new CertificateException("extended key usage does not permit use"
+        + " for " + (server ? "server" : "client") + " authentication");
+  }
+
+  private static void checkIdentity(X509Certificate certificate,
+      String algorithm, SSLSession session) throws CertificateException {
+    if (algorithm == null || algorithm.isEmpty()) return;
+    if (!HTTPS.equalsIgnoreCase(algorithm)
+        && !LDAPS.equalsIgnoreCase(algorithm)) {
+      throw new CertificateException(
+          "unsupported endpoint identification algorithm: " + algorithm);
+    }
+    final String host = peerHost(session);
+    if (!HostnameMatcher.matches(host, certificate)) {
+      throw new CertificateException("certificate does not match "
+          + "server name " + host);
+    }
+  }
+
+  private static String peerHost(SSLSession session) {
+    if (session == null) return null;
+    final String hostName = HostnameMatcher.requestedHostName(session);
+    return hostName != null ? hostName : session.getPeerHost();
+  }
+
+  /**
+   * Extracts a key identifier from the DER encoded value of a subject or
+   * authority key identifier extension.
+   * @param extensionValue extension value as returned by
+   *    {@link X509Certificate#getExtensionValue(String)}
+   * @param authority {@code true} for an authority key identifier
+   * @return key identifier or {@code null} if there is none
+   */
+  static byte[] keyIdentifier(byte[] extensionValue, boolean authority) {
+    if (extensionValue == null) return null;
+    try {
+      final byte[] value =
+          new Der.Reader(extensionValue).read(Der.OCTET_STRING);
+      if (!authority) {
+        return new Der.Reader(value).read(Der.OCTET_STRING);
+      }
+      final Der.Reader reader =
+          new Der.Reader(new Der.Reader(value).read(Der.SEQUENCE));
+      return reader.peek() == Der.contextTag(0, false) ?
+          reader.read(Der.contextTag(0, false)) : null;
+    }
+    catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * A certificate path checker that requires each certificate to be signed
+   * using one of the signature algorithms supported in a handshake, and to
+   * satisfy the algorithm constraints of the socket or engine.
+   */
+  private static class AlgorithmChecker extends PKIXCertPathChecker {
+
+    private final Set<String> algorithms;
+    private final AlgorithmConstraints constraints;
+
+    /**
+     * Constructs a new instance.
+     * @param algorithms permitted signature algorithm names in upper case
+     *    (or {@code null} if any algorithm is permitted)
+     * @param constraints constraints to satisfy (may be {@code null})
+     */
+    AlgorithmChecker(Set<String> algorithms,
+        AlgorithmConstraints constraints) {
+      this.algorithms = algorithms;
+      this.constraints = constraints;
+    }
+
+    @Override
+    public void init(boolean forward) {
+    }
+
+    @Override
+    public boolean isForwardCheckingSupported() {
+      return true;
+    }
+
+    @Override
+    public Set<String> getSupportedExtensions() {
+      return null;
+    }
+
+    @Override
+    public void check(Certificate certificate,
+        Collection<String> unresolvedCritExts)
+        throws CertPathValidatorException {
+      final X509Certificate x509 = (X509Certificate) certificate;
+      final String algorithm = x509.getSigAlgName();
+      if (algorithms != null
+          && !algorithms.contains(algorithm.toUpperCase(Locale.ENGLISH))) {
+        throw new CertPathValidatorException("signature algorithm "
+            + algorithm + " is not supported in this handshake", null, null,
+            -1, CertPathValidatorException.BasicReason.ALGORITHM_CONSTRAINED);
+      }
+      if (constraints != null
+          && (!constraints.permits(SIGNATURE_PRIMITIVES, algorithm, null)
+          || !constraints.permits(SIGNATURE_PRIMITIVES,
+              x509.getPublicKey()))) {
+        throw new CertPathValidatorException("signature algorithm "
+            + algorithm + " or key is not permitted by the algorithm"
+            + " constraints", null, null, -1,
+            CertPathValidatorException.BasicReason.ALGORITHM_CONSTRAINED);
+      }
+    }
+
+  }
+
+  /**
+   * A trusted certificate held in its encoded form and decoded on demand.
+   */
+  private static class Anchor {
+
+    private final byte[] encoded;
+
+    private volatile TrustAnchor trustAnchor;
+
+    Anchor(byte[] encoded) {
+      this.encoded = encoded;
+    }
+
+    TrustAnchor getTrustAnchor() {
+      TrustAnchor trustAnchor = this.trustAnchor;
+      if (trustAnchor == null) {
+        try {
+          final X509Certificate certificate = (X509Certificate)
+              CertificateFactory.getInstance("X.509").generateCertificate(
+                  new ByteArrayInputStream(encoded));
+          trustAnchor = new TrustAnchor(certificate, null);
+          this.trustAnchor = trustAnchor;
+        }
+        catch (CertificateException ex) {
+          throw new SSLRuntimeException(ex);
+        }
+      }
+      return trustAnchor;
+    }
+
+  }
+
+}
@@ -0,0 +1,260 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import javax.net.ssl.SSLSession;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * An {@link SSLEventRecorder} that records JDK Flight Recorder events.
+ * <p>
+ * This class (and the event classes it contains) must be loaded only when
+ * the {@code jdk.jfr} API is available.
+ *
+ * @author Carl Harris
+ */
+class JfrEventRecorder extends SSLEventRecorder {
+
+  private static final String CATEGORY = "SSL Context Tools";
+
+  @Override
+  public boolean isAvailable() {
+    return true;
+  }
+
+  @Override
+  public ContextBuild beginContextBuild(String mode) {
+    final ContextBuildEvent event = new ContextBuildEvent();
+    if (!event.isEnabled()) return ContextBuild.DISABLED;
+    event.mode = mode;
+    event.begin();
+    return new JfrContextBuild(event);
+  }
+
+  @Override
+  public KeyStoreLoad beginKeyStoreLoad() {
+    final KeyStoreLoadEvent event = new KeyStoreLoadEvent();
+    if (!event.isEnabled()) return KeyStoreLoad.DISABLED;
+    event.begin();
+    return new JfrKeyStoreLoad(event);
+  }
+
+  @Override
+  public boolean isHandshakeEnabled() {
+    return new HandshakeEvent().isEnabled();
+  }
+
+  @Override
+  public Handshake beginHandshake() {
+    final HandshakeEvent event = new HandshakeEvent();
+    if (!event.isEnabled()) return Handshake.DISABLED;
+    event.begin();
+    return new JfrHandshake(event);
+  }
+
+  private static class JfrContextBuild extends ContextBuild {
+
+    private final ContextBuildEvent event;
+
+    JfrContextBuild(ContextBuildEvent event) {
+      this.event = event;
+    }
+
+    @Override
+    public void keyManagerTime(long nanos) {
+      event.keyManagerTime = nanos;
+    }
+
+    @Override
+    public void trustManagerTime(long nanos) {
+      event.trustManagerTime = nanos;
+    }
+
+    @Override
+    public void end(String protocol, String provider, boolean success) {
+      event.end();
+      if (!event.shouldCommit()) return;
+      event.protocol = protocol;
+      event.provider = provider;
+      event.success = success;
+      event.commit();
+    }
+
+  }
+
+  private static class JfrKeyStoreLoad extends KeyStoreLoad {
+
+    private final KeyStoreLoadEvent event;
+
+    JfrKeyStoreLoad(KeyStoreLoadEvent event) {
+      this.event = event;
+    }
+
+    @Override
+    public boolean isEnabled() {
+      return true;
+    }
+
+    @Override
+    public void size(long size) {
+      event.size = size;
+    }
+
+    @Override
+    public void end(String location, String type, boolean cached,
+        int entryCount) {
+      event.end();
+      if (!event.shouldCommit()) return;
+      event.location = location;
+      event.type = type;
+      event.cached = cached;
+      event.entryCount = entryCount;
+      event.success = entryCount >= 0;
+      event.commit();
+    }
+
+  }
+
+  private static class JfrHandshake extends Handshake {
+
+    private final HandshakeEvent event;
+
+    JfrHandshake(HandshakeEvent event) {
+      this.event = event;
+    }
+
+    @Override
+    public void completed(SSLSession session, boolean resumed) {
+      event.end();
+      if (!event.shouldCommit()) return;
+      event.peerHost = session.getPeerHost();
+      event.peerPort = session.getPeerPort();
+      event.protocol = session.getProtocol();
+      event.cipherSuite = session.getCipherSuite();
+      event.resumed = resumed;
+      event.success = true;
+      event.commit();
+    }
+
+    @Override
+    public void failed() {
+      event.end();
+      if (!event.shouldCommit()) return;
+      event.success = false;
+      event.commit();
+    }
+
+  }
+
+  @Name("org.soulwing.ssl.ContextBuild")
+  @Label("SSL Context Build")
+  @Category(CATEGORY)
+  @Description("An SSL context was built")
+  static class ContextBuildEvent extends Event {
+
+    @Label("Mode")
+    @Description("Manner in which the context was built")
+    String mode;
+
+    @Label("Protocol")
+    String protocol;
+
+    @Label("Provider")
+    String provider;
+
+    @Label("Key Manager Time")
+    @Description("Time spent loading the key store and creating key managers")
+    @Timespan(Timespan.NANOSECONDS)
+    long keyManagerTime;
+
+    @Label("Trust Manager Time")
+    @Description("Time spent loading the trust store and creating "
+        + "trust managers")
+    @Timespan(Timespan.NANOSECONDS)
+    long trustManagerTime;
+
+    @Label("Success")
+    boolean success;
+
+  }
+
+  @Name("org.soulwing.ssl.KeyStoreLoad")
+  @Label("Key Store Load")
+  @Category(CATEGORY)
+  @Description("A key store was loaded")
+  static class KeyStoreLoadEvent extends Event {
+
+    @Label("Location")
+    String location;
+
+    @Label("Type")
+    String type;
+
+    @Label("Cached")
+    @Description("Whether the key store was obtained through the "
+        + "key store cache")
+    boolean cached;
+
+    @Label("Size")
+    @Description("Number of bytes of key store content read")
+    @DataAmount
+    long size;
+
+    @Label("Entry Count")
+    int entryCount;
+
+    @Label("Success")
+    boolean success;
+
+  }
+
+  @Name("org.soulwing.ssl.Handshake")
+  @Label("SSL Handshake")
+  @Category(CATEGORY)
+  @Description("An initial handshake on a socket or engine")
+  static class HandshakeEvent extends Event {
+
+    @Label("Peer Host")
+    String peerHost;
+
+    @Label("Peer Port")
+    int peerPort;
+
+    @Label("Protocol")
+    String protocol;
+
+    @Label("Cipher Suite")
+    String cipherSuite;
+
+    @Label("Resumed")
+    boolean resumed;
+
+    @Label("Success")
+    boolean success;
+
+  }
+
+}
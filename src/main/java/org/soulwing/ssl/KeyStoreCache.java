@@ -0,0 +1,236 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A process-wide cache of loaded {@link KeyStore} objects.
+ * <p>
+ * Entries are keyed by location (and private key location, for a PEM key
+ * store), type, provider, and (a digest of) the password used to load the
+ * key store. Each entry records the digest of
+ * the content from which the key store was loaded. When the location is a
+ * file, the file's modification time and size are also recorded, and the
+ * cached key store is returned without reading the file so long as these
+ * are unchanged. Otherwise the content is read and digested, and it is
+ * parsed only if the digest differs from the cached entry.
+ * <p>
+ * The cache holds at most a fixed number of entries, evicting the least
+ * recently used entry when full. The maximum may be set using the
+ * {@value #MAX_SIZE_PROPERTY} system property.
+ *
+ * @author Carl Harris
+ */
+class KeyStoreCache {
+
+  static final String MAX_SIZE_PROPERTY =
+      "org.soulwing.ssl.keyStoreCache.maxSize";
+
+  static final int DEFAULT_MAX_SIZE = 32;
+
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+
+  private static final KeyStoreCache instance = new KeyStoreCache(
+      Integer.getInteger(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+
+  private final Map<Key, CachedKeyStore> entries;
+
+  KeyStoreCache(final int maxSize) {
+    this.entries = new LinkedHashMap<Key, CachedKeyStore>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(
+          Map.Entry<Key, CachedKeyStore> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  /**
+   * Gets the singleton instance.
+   * @return cache instance
+   */
+  public static KeyStoreCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * Gets the key store described by a factory's configuration, loading it
+   * only if it is not in the cache or its content has changed.
+   * @param factory the subject factory
+   * @return key store
+   * @throws Exception if the key store content cannot be read or loaded
+   */
+  public KeyStore getKeyStore(KeyStoreFactory factory) throws Exception {
+    final URL location = factory.getLocation();
+    final URL keyLocation = factory.getKeyLocation();
+    final Key key = new Key(location, keyLocation, factory.getEffectiveType(),
+        factory.getProviderName(), digest(factory.getPassword()));
+    final CachedKeyStore entry = get(key);
+    final FileState fileState = keyLocation != null ? null :
+        FileState.stableOrNull(FileState.of(FileState.toPath(location)));
+    if (entry != null && fileState != null
+        && fileState.equals(entry.fileState)) {
+      return entry.keyStore;
+    }
+
+    final byte[] content = ResourceAccessor.getResourceAsBytes(location);
+    final byte[] digest = keyLocation != null ?
+        digest(content, ResourceAccessor.getResourceAsBytes(keyLocation)) :
+        digest(content);
+    if (entry != null && Arrays.equals(digest, entry.digest)) {
+      put(key, new CachedKeyStore(entry.keyStore, digest, fileState));
+      return entry.keyStore;
+    }
+
+    final KeyStore keyStore =
+        factory.newKeyStore(new ByteArrayInputStream(content));
+    put(key, new CachedKeyStore(keyStore, digest, fileState));
+    return keyStore;
+  }
+
+  /**
+   * Removes all entries from the cache.
+   */
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Gets the number of entries in the cache.
+   * @return number of entries
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private synchronized CachedKeyStore get(Key key) {
+    return entries.get(key);
+  }
+
+  private synchronized void put(Key key, CachedKeyStore entry) {
+    entries.put(key, entry);
+  }
+
+  /**
+   * Computes a digest of the given content.
+   * @param content the subject content
+   * @return digest
+   * @throws NoSuchAlgorithmException if the digest algorithm is unavailable
+   */
+  static byte[] digest(byte[] content) throws NoSuchAlgorithmException {
+    return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(content);
+  }
+
+  /**
+   * Computes a digest of the given content and that of its separate
+   * private key.
+   * @param content the subject content
+   * @param keyContent the private key content
+   * @return digest
+   * @throws NoSuchAlgorithmException if the digest algorithm is unavailable
+   */
+  static byte[] digest(byte[] content, byte[] keyContent)
+      throws NoSuchAlgorithmException {
+    final MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+    digest.update(content);
+    digest.update(keyContent);
+    return digest.digest();
+  }
+
+  private static byte[] digest(char[] password)
+      throws NoSuchAlgorithmException {
+    if (password == null) return null;
+    return digest(new String(password).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * A key that identifies a cached key store.
+   */
+  private static class Key {
+
+    private final String location;
+    private final String keyLocation;
+    private final String type;
+    private final String provider;
+    private final byte[] passwordDigest;
+
+    Key(URL location, URL keyLocation, String type, String provider,
+        byte[] passwordDigest) {
+      this.location = location.toExternalForm();
+      this.keyLocation =
+          keyLocation != null ? keyLocation.toExternalForm() : null;
+      this.type = type;
+      this.provider = provider;
+      this.passwordDigest = passwordDigest;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) return true;
+      if (!(obj instanceof Key)) return false;
+      final Key that = (Key) obj;
+      return this.location.equals(that.location)
+          && (this.keyLocation == null ?
+              that.keyLocation == null :
+              this.keyLocation.equals(that.keyLocation))
+          && this.type.equals(that.type)
+          && (this.provider == null ?
+              that.provider == null : this.provider.equals(that.provider))
+          && Arrays.equals(this.passwordDigest, that.passwordDigest);
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = location.hashCode();
+      hash = 31 * hash + (keyLocation != null ? keyLocation.hashCode() : 0);
+      hash = 31 * hash + type.hashCode();
+      hash = 31 * hash + (provider != null ? provider.hashCode() : 0);
+      hash = 31 * hash + Arrays.hashCode(passwordDigest);
+      return hash;
+    }
+
+  }
+
+  /**
+   * A cached key store and the state of the content it was loaded from.
+   */
+  private static class CachedKeyStore {
+
+    private final KeyStore keyStore;
+    private final byte[] digest;
+    private final FileState fileState;
+
+    CachedKeyStore(KeyStore keyStore, byte[] digest, FileState fileState) {
+      this.keyStore = keyStore;
+      this.digest = digest;
+      this.fileState = fileState;
+    }
+
+  }
+
+}
@@ -33,6 +33,13 @@ public interface KeyStoreConfiguration<T> {
 
   /**
    * Specifies the key store type.
+   * <p>
+   * In addition to the types supported by the JCA, the type {@code PEM}
+   * designates a location containing PEM-encoded certificates and optionally
+   * a PKCS#8 private key (see {@link #keyLocation(String)}). If a private key
+   * is present, the key store contains a single credential whose certificate
+   * chain is the sequence of certificates at the location. Otherwise each
+   * certificate is a trusted certificate entry.
    * @param type key store type (e.g. JKS)
    * @return this builder
    * @see <a target="_top" href="http://docs.oracle.com/javase/7/docs/technotes/guides/security/StandardNames.html#KeyStore">JCA Standard Algorithm Names for KeyStore types</a>
@@ -111,4 +118,26 @@ public interface KeyStoreConfiguration<T> {
    */
   T location(String location, ClassLoader classLoader);
 
+  /**
+   * Specifies the location of a PEM-encoded PKCS#8 private key for a key
+   * store of type {@code PEM}, when the key is not at the same location as
+   * the certificates. An encrypted private key is decrypted using the key
+   * store password.
+   * @param location URI or path that specifies the location of the private
+   *    key; may use the {@code classpath:} pseudo-scheme to specify the
+   *    location relative to the root of the thread context class loader
+   * @return this builder
+   */
+  T keyLocation(String location);
+
+  /**
+   * Specifies that the key store may be shared with other builders through
+   * a process-wide cache.
+   * <p>
+   * A key store obtained from the cache is shared, and must not be modified.
+   * It is reloaded only when the content at its location changes.
+   * @return this builder
+   */
+  T cached();
+
 }
@@ -18,6 +18,8 @@
  */
 package org.soulwing.ssl;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
@@ -40,6 +42,8 @@ class KeyStoreFactory {
   private Provider provider;
   private char[] password;
   private URL location;
+  private URL keyLocation;
+  private boolean cached;
 
   public void setType(String type) {
     this.type = type;
@@ -53,7 +57,19 @@ class KeyStoreFactory {
     this.provider = provider;
   }
 
+  public String getProviderName() {
+    return provider != null ? provider.getName() : providerName;
+  }
+
+  public String getEffectiveType() {
+    return type == null ? KeyStore.getDefaultType() : type;
+  }
+
   public char[] getPassword() {
+    if (password == null && isPem()) {
+      // a PEM key store is protected by whatever password we choose
+      return new char[0];
+    }
     return password;
   }
 
@@ -65,6 +81,10 @@ class KeyStoreFactory {
     this.password = password != null ? password.toCharArray() : null;
   }
 
+  public URL getLocation() {
+    return location;
+  }
+
   public void setLocation(URL location) {
     if (location == null) {
       throw new NullPointerException("URL is required");
@@ -106,6 +126,33 @@ class KeyStoreFactory {
     setLocation(url);
   }
 
+  public URL getKeyLocation() {
+    return keyLocation;
+  }
+
+  public void setKeyLocation(String location) {
+    try {
+      final URL url = ResourceAccessor.getResource(location);
+      assertResolved(location, url);
+      this.keyLocation = url;
+    }
+    catch (URISyntaxException | MalformedURLException ex) {
+      throw new SSLRuntimeException(ex);
+    }
+  }
+
+  public boolean isPem() {
+    return PemKeyStoreLoader.TYPE.equalsIgnoreCase(type);
+  }
+
+  public boolean isCached() {
+    return cached;
+  }
+
+  public void setCached(boolean cached) {
+    this.cached = cached;
+  }
+
   private void assertResolved(String location, URL url) {
     if (url == null) {
       throw new SSLRuntimeException(
@@ -114,7 +161,64 @@ class KeyStoreFactory {
   }
 
   public KeyStore newKeyStore() {
-    try (InputStream inputStream = location.openStream()) {
+    final SSLEventRecorder.KeyStoreLoad recording =
+        SSLEventRecorder.getInstance().beginKeyStoreLoad();
+    int entryCount = -1;
+    try {
+      final KeyStore keyStore = loadKeyStore(recording);
+      if (recording.isEnabled()) {
+        entryCount = keyStore.size();
+      }
+      return keyStore;
+    }
+    catch (KeyStoreException ex) {
+      throw new SSLRuntimeException(ex);
+    }
+    finally {
+      recording.end(String.valueOf(location), getEffectiveType(), cached,
+          entryCount);
+    }
+  }
+
+  private KeyStore loadKeyStore(SSLEventRecorder.KeyStoreLoad recording) {
+    if (cached) {
+      try {
+        return KeyStoreCache.getInstance().getKeyStore(this);
+      }
+      catch (RuntimeException ex) {
+        throw ex;
+      }
+      catch (Exception ex) {
+        throw new SSLRuntimeException(ex);
+      }
+    }
+    try (InputStream inputStream =
+        ResourceAccessor.getResourceAsStream(location)) {
+      if (!recording.isEnabled()) {
+        return newKeyStore(inputStream);
+      }
+      final CountingInputStream countingStream =
+          new CountingInputStream(inputStream);
+      try {
+        return newKeyStore(countingStream);
+      }
+      finally {
+        recording.size(countingStream.count);
+      }
+    }
+    catch (RuntimeException ex) {
+      throw ex;
+    }
+    catch (Exception ex) {
+      throw new SSLRuntimeException(ex);
+    }
+  }
+
+  public KeyStore newKeyStore(InputStream inputStream) {
+    if (isPem()) {
+      return newPemKeyStore(inputStream);
+    }
+    try {
       final KeyStore keyStore = getKeyStoreInstance();
       keyStore.load(inputStream, password);
       return keyStore;
@@ -127,9 +231,29 @@ class KeyStoreFactory {
     }
   }
 
+  private KeyStore newPemKeyStore(InputStream inputStream) {
+    try {
+      final PemKeyStoreLoader loader = new PemKeyStoreLoader(password);
+      loader.read(inputStream);
+      if (keyLocation != null) {
+        try (InputStream keyInputStream =
+            ResourceAccessor.getResourceAsStream(keyLocation)) {
+          loader.read(keyInputStream);
+        }
+      }
+      return loader.load();
+    }
+    catch (RuntimeException ex) {
+      throw ex;
+    }
+    catch (Exception ex) {
+      throw new SSLRuntimeException(ex);
+    }
+  }
+
   private KeyStore getKeyStoreInstance()
       throws KeyStoreException, NoSuchProviderException {
-    final String type = this.type == null ? KeyStore.getDefaultType() : this.type;
+    final String type = getEffectiveType();
     if (provider != null) {
       return KeyStore.getInstance(type, provider);
     }
@@ -140,4 +264,38 @@ class KeyStoreFactory {
     return KeyStore.getInstance(type);
   }
 
+  /**
+   * An input stream that counts the bytes read from its delegate.
+   */
+  private static class CountingInputStream extends FilterInputStream {
+
+    long count;
+
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int b = in.read();
+      if (b != -1) count++;
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      final int n = in.read(b, off, len);
+      if (n > 0) count += n;
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      final long skipped = in.skip(n);
+      count += skipped;
+      return skipped;
+    }
+
+  }
+
 }
@@ -0,0 +1,300 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A monitor that reloads a {@link KeyStore} when the content at its location
+ * changes.
+ * <p>
+ * When the location is a file, a {@link WatchService} registered on the
+ * directory that contains it is used to detect changes promptly. The
+ * location of a separate PEM private key, if any, is monitored in the same
+ * way, and a change to either file causes the key store to be reloaded. Because
+ * file system notifications are not reliable for every kind of change (for
+ * example, a secret volume that is updated by atomically replacing a
+ * symbolic link), the location is also polled at a fixed interval. A change
+ * is recognized only when the digest of the content differs from that of the
+ * content that was last loaded, so spurious notifications are harmless.
+ * <p>
+ * Listeners are held by weak reference; the background thread that performs
+ * monitoring exits when no listeners remain reachable.
+ *
+ * @author Carl Harris
+ */
+class KeyStoreMonitor implements Runnable {
+
+  private static final Logger logger =
+      Logger.getLogger(KeyStoreMonitor.class.getName());
+
+  /**
+   * A listener that is notified when a monitored key store is reloaded.
+   */
+  interface Listener {
+
+    /**
+     * Notifies the recipient that the monitored key store has changed.
+     * @param keyStore the reloaded key store
+     * @throws Exception if the recipient cannot accept the new key store;
+     *    the monitor will try again when the content next changes
+     */
+    void keyStoreChanged(KeyStore keyStore) throws Exception;
+
+  }
+
+  private final List<WeakReference<Listener>> listeners =
+      new CopyOnWriteArrayList<>();
+
+  private final KeyStoreFactory factory;
+  private final long pollInterval;
+  private final Path path;
+  private final Path keyPath;
+
+  private volatile KeyStore keyStore;
+  private byte[] digest;
+  private FileState fileState;
+  private FileState keyFileState;
+  private Thread thread;
+
+  /**
+   * Constructs a new monitor and loads the key store.
+   * @param factory factory that will be used to load the key store
+   * @param pollInterval interval at which the location will be checked for
+   *    changes
+   * @param unit unit for {@code pollInterval}
+   * @throws SSLRuntimeException if the key store cannot be loaded
+   */
+  KeyStoreMonitor(KeyStoreFactory factory, long pollInterval, TimeUnit unit) {
+    if (pollInterval <= 0) {
+      throw new IllegalArgumentException("poll interval must be positive");
+    }
+    this.factory = factory;
+    this.pollInterval = unit.toMillis(pollInterval);
+    this.path = FileState.toPath(factory.getLocation());
+    this.keyPath = factory.getKeyLocation() != null ?
+        FileState.toPath(factory.getKeyLocation()) : null;
+    try {
+      reloadIfChanged(true);
+    }
+    catch (RuntimeException ex) {
+      throw ex;
+    }
+    catch (Exception ex) {
+      throw new SSLRuntimeException(ex);
+    }
+  }
+
+  /**
+   * Gets the most recently loaded key store.
+   * @return key store
+   */
+  public KeyStore getKeyStore() {
+    return keyStore;
+  }
+
+  /**
+   * Gets the factory used to load the key store.
+   * @return key store factory
+   */
+  public KeyStoreFactory getFactory() {
+    return factory;
+  }
+
+  /**
+   * Adds a listener and starts monitoring, if not already started.
+   * @param listener the listener to add; it is weakly referenced
+   */
+  public synchronized void addListener(Listener listener) {
+    listeners.add(new WeakReference<>(listener));
+    if (thread == null || !thread.isAlive()) {
+      thread = new Thread(this,
+          "keystore-monitor[" + factory.getLocation() + "]");
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  /**
+   * Stops monitoring.
+   */
+  public synchronized void stop() {
+    if (thread != null) {
+      thread.interrupt();
+      thread = null;
+    }
+  }
+
+  @Override
+  public void run() {
+    try (WatchService watchService = newWatchService()) {
+      while (!Thread.currentThread().isInterrupted() && hasListeners()) {
+        final boolean notified = awaitChange(watchService);
+        try {
+          reloadIfChanged(notified);
+        }
+        catch (Exception ex) {
+          logger.log(Level.WARNING, "cannot reload key store from "
+              + factory.getLocation() + ": " + ex, ex);
+        }
+      }
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    catch (IOException ex) {
+      logger.log(Level.WARNING, "monitoring for key store at "
+          + factory.getLocation() + " has stopped: " + ex, ex);
+    }
+  }
+
+  private boolean hasListeners() {
+    final Iterator<WeakReference<Listener>> i = listeners.iterator();
+    boolean found = false;
+    while (i.hasNext()) {
+      final WeakReference<Listener> ref = i.next();
+      if (ref.get() == null) {
+        listeners.remove(ref);
+      }
+      else {
+        found = true;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Waits for a file system notification or for the poll interval to elapse.
+   * @return {@code true} if a file system notification was received
+   */
+  private boolean awaitChange(WatchService watchService)
+      throws InterruptedException {
+    if (watchService == null) {
+      Thread.sleep(pollInterval);
+      return false;
+    }
+    final WatchKey key = watchService.poll(pollInterval,
+        TimeUnit.MILLISECONDS);
+    if (key == null) return false;
+    key.pollEvents();
+    key.reset();
+    return true;
+  }
+
+  /**
+   * Reloads the key store if the content at its location (or that of its
+   * separate private key) has changed since it was last loaded, and
+   * notifies listeners.
+   * @param force if {@code true} the content is examined even if the
+   *    file's modification time and size are unchanged
+   * @return {@code true} if the key store was reloaded
+   * @throws Exception if the content cannot be read or loaded as a key store
+   */
+  synchronized boolean reloadIfChanged(boolean force) throws Exception {
+    final URL keyLocation = factory.getKeyLocation();
+    final FileState fileState = FileState.stableOrNull(FileState.of(path));
+    final FileState keyFileState =
+        FileState.stableOrNull(FileState.of(keyPath));
+    if (!force && fileState != null && fileState.equals(this.fileState)
+        && (keyLocation == null || keyFileState != null
+            && keyFileState.equals(this.keyFileState))) {
+      return false;
+    }
+
+    final byte[] content =
+        ResourceAccessor.getResourceAsBytes(factory.getLocation());
+    final byte[] digest = keyLocation != null ?
+        KeyStoreCache.digest(content,
+            ResourceAccessor.getResourceAsBytes(keyLocation)) :
+        KeyStoreCache.digest(content);
+    if (Arrays.equals(digest, this.digest)) {
+      this.fileState = fileState;
+      this.keyFileState = keyFileState;
+      return false;
+    }
+
+    final KeyStore keyStore =
+        factory.newKeyStore(new ByteArrayInputStream(content));
+    for (final WeakReference<Listener> ref : listeners) {
+      final Listener listener = ref.get();
+      if (listener != null) {
+        listener.keyStoreChanged(keyStore);
+      }
+    }
+    this.keyStore = keyStore;
+    this.digest = digest;
+    this.fileState = fileState;
+    this.keyFileState = keyFileState;
+    return true;
+  }
+
+  private WatchService newWatchService() {
+    if (path == null || path.getParent() == null) return null;
+    if (factory.getKeyLocation() != null
+        && (keyPath == null || keyPath.getParent() == null)) {
+      return null;
+    }
+    WatchService watchService = null;
+    try {
+      watchService = path.getFileSystem().newWatchService();
+      path.getParent().register(watchService,
+          ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+      if (keyPath != null && !keyPath.getParent().equals(path.getParent())) {
+        keyPath.getParent().register(watchService,
+            ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+      }
+      return watchService;
+    }
+    catch (IOException | UnsupportedOperationException ex) {
+      logger.log(Level.FINE, "file system notifications are not available for "
+          + path + "; polling for changes", ex);
+      close(watchService);
+      return null;
+    }
+  }
+
+  private static void close(WatchService watchService) {
+    if (watchService == null) return;
+    try {
+      watchService.close();
+    }
+    catch (IOException ex) {
+      assert true;  // nothing more can be done
+    }
+  }
+
+}
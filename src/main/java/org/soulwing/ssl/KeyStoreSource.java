@@ -0,0 +1,135 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.security.KeyStore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A source of a {@link KeyStore} that is loaded on first use.
+ * <p>
+ * A source is created when a key store sub-builder is ended, but the key
+ * store is not loaded until the context is built, so that the key and trust
+ * stores for a context can be loaded concurrently (or not at all, for a
+ * lazily built context that is never used). The key store is loaded at
+ * most once; concurrent callers wait for the load that is in progress, and
+ * a load that fails is attempted again by the next caller.
+ *
+ * @author Carl Harris
+ */
+class KeyStoreSource {
+
+  private final KeyStoreFactory factory;
+  private final long reloadInterval;
+  private final TimeUnit reloadIntervalUnit;
+
+  private KeyStore keyStore;
+  private KeyStoreMonitor monitor;
+
+  private KeyStoreSource(KeyStore keyStore) {
+    this.factory = null;
+    this.reloadInterval = 0;
+    this.reloadIntervalUnit = null;
+    this.keyStore = keyStore;
+  }
+
+  private KeyStoreSource(KeyStoreFactory factory, long reloadInterval,
+      TimeUnit reloadIntervalUnit) {
+    this.factory = factory;
+    this.reloadInterval = reloadInterval;
+    this.reloadIntervalUnit = reloadIntervalUnit;
+  }
+
+  /**
+   * Creates a source for a key store that is already loaded.
+   * @param keyStore the key store (may be {@code null})
+   * @return source or {@code null} if {@code keyStore} is {@code null}
+   */
+  static KeyStoreSource of(KeyStore keyStore) {
+    return keyStore != null ? new KeyStoreSource(keyStore) : null;
+  }
+
+  /**
+   * Creates a source for a key store that will be loaded using a factory.
+   * @param factory the factory that will load the key store
+   * @return source
+   */
+  static KeyStoreSource of(KeyStoreFactory factory) {
+    return new KeyStoreSource(factory, 0, null);
+  }
+
+  /**
+   * Creates a source for a key store that will be loaded using a factory
+   * and reloaded when its content changes.
+   * @param factory the factory that will load the key store
+   * @param reloadInterval interval at which the location will be checked
+   *    for changes
+   * @param unit unit for {@code reloadInterval}
+   * @return source
+   */
+  static KeyStoreSource of(KeyStoreFactory factory, long reloadInterval,
+      TimeUnit unit) {
+    return new KeyStoreSource(factory, reloadInterval, unit);
+  }
+
+  /**
+   * Gets the key store, loading it if necessary. For a source that is
+   * reloaded when its content changes, this is the key store that was
+   * initially loaded.
+   * @return key store
+   * @throws SSLRuntimeException if the key store cannot be loaded
+   */
+  public synchronized KeyStore getKeyStore() throws SSLRuntimeException {
+    if (keyStore == null) {
+      if (reloadIntervalUnit != null) {
+        monitor = new KeyStoreMonitor(factory, reloadInterval,
+            reloadIntervalUnit);
+        keyStore = monitor.getKeyStore();
+      }
+      else {
+        keyStore = factory.newKeyStore();
+      }
+    }
+    return keyStore;
+  }
+
+  /**
+   * Gets the monitor that reloads the key store when its content changes,
+   * loading the key store if necessary.
+   * @return monitor or {@code null} if reloading was not requested
+   * @throws SSLRuntimeException if the key store cannot be loaded
+   */
+  public synchronized KeyStoreMonitor getMonitor() throws SSLRuntimeException {
+    getKeyStore();
+    return monitor;
+  }
+
+  /**
+   * Gets a description of the location of the key store, which
+   * distinguishes a source that is reloaded when its content changes from
+   * one that is not.
+   * @return location or {@code null} if the key store was not loaded from a
+   *    location, or if it is not reloaded
+   */
+  public String getReloadLocation() {
+    return reloadIntervalUnit != null ?
+        factory.getLocation().toString() : null;
+  }
+
+}
@@ -18,7 +18,9 @@
  */
 package org.soulwing.ssl;
 
+import java.net.URI;
 import java.security.KeyStore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A sub builder that produces a {@link KeyStore}.
@@ -29,8 +31,90 @@ public interface KeyStoreSubBuilder
     extends KeyStoreConfiguration<KeyStoreSubBuilder> {
 
   /**
-   * Builds a key store according to the configuration of this builder
-   * and returns to calling builder.
+   * Specifies that the key store should be reloaded when the content at its
+   * location changes.
+   * <p>
+   * When the location is a file, changes are detected using file system
+   * notifications where available. In every case, the location is also
+   * polled at the given interval, and the key store is reloaded only if its
+   * content differs from that which was last loaded. The reloaded key store
+   * takes effect for new handshakes on the resulting SSL context without
+   * rebuilding it.
+   * @param pollInterval interval at which the location is checked for changes
+   * @param unit unit for {@code pollInterval}
+   * @return this builder
+   */
+  KeyStoreSubBuilder reloadOnChange(long pollInterval, TimeUnit unit);
+
+  /**
+   * Specifies a location of certificate revocation lists (CRLs) that should
+   * be used to check whether the certificates in a peer's certificate chain
+   * have been revoked.
+   * <p>
+   * The location is resolved in the same manner as the key store location.
+   * It may be a file containing one or more DER or PEM encoded CRLs, or a
+   * directory, in which case every file in the directory is loaded. This
+   * method may be invoked more than once to specify several locations.
+   * <p>
+   * The CRLs are loaded when the SSL context is built, and are indexed by
+   * issuer and serial number, so that even very large CRLs can be checked
+   * quickly. The signature of each CRL is verified using the issuer's
+   * public key; a certificate whose issuer has CRLs, none of which can be
+   * verified, is rejected. If {@link #reloadOnChange(long, TimeUnit)} is also
+   * specified, the locations are checked for changes at the same interval,
+   * and only changed files are loaded again.
+   * <p>
+   * CRLs are used only for peer trust; they are ignored when specified for
+   * a credential.
+   * @param location a path (to a class path resource), a {@code classpath:}
+   *    URI, or any URL supported by the JRE
+   * @return this builder
+   * @throws SSLRuntimeException if the location cannot be resolved
+   */
+  KeyStoreSubBuilder crlLocation(String location) throws SSLRuntimeException;
+
+  /**
+   * Specifies a location of certificate revocation lists (CRLs).
+   * @param location a {@code classpath:} URI or any URL supported by the
+   *    JRE
+   * @return this builder
+   * @throws SSLRuntimeException if the location cannot be resolved
+   * @see #crlLocation(String)
+   */
+  KeyStoreSubBuilder crlLocation(URI location) throws SSLRuntimeException;
+
+  /**
+   * Specifies a location of certificate revocation lists (CRLs) relative to
+   * a class.
+   * @param location location of the resource relative to
+   *    {@code relativeToClass}
+   * @param relativeToClass class used to locate the resource
+   * @return this builder
+   * @throws SSLRuntimeException if the location cannot be resolved
+   * @see #crlLocation(String)
+   */
+  KeyStoreSubBuilder crlLocation(String location, Class<?> relativeToClass)
+      throws SSLRuntimeException;
+
+  /**
+   * Specifies that a peer certificate should be rejected when the CRL of
+   * its issuer is stale (that is, the CRL's {@code nextUpdate} time has
+   * passed), because its revocation status cannot be determined.
+   * <p>
+   * By default, a warning is logged when a stale CRL is first used, and
+   * the stale CRL continues to be used until it is replaced.
+   * @return this builder
+   * @see #crlLocation(String)
+   */
+  KeyStoreSubBuilder rejectStaleCrls();
+
+  /**
+   * Completes the configuration of a key store and returns to the calling
+   * builder.
+   * <p>
+   * The key store is loaded when the SSL context is built, so errors in
+   * loading the key store (e.g. an incorrect password) are reported by
+   * the context builder.
    *
    * @return SSL context builder
    */
@@ -0,0 +1,111 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of latency values with bounded relative error.
+ * <p>
+ * Values are counted in log-linear buckets in the manner of an HDR
+ * histogram: values less than {@value #SUB_BUCKETS} are counted exactly, and
+ * each larger power of two is divided into {@value #SUB_BUCKETS} equal
+ * buckets, so that a value is reported with relative error of at most
+ * 1/{@value #SUB_BUCKETS}. Recording a value is wait-free and requires no
+ * allocation.
+ *
+ * @author Carl Harris
+ */
+class LatencyHistogram {
+
+  static final int SUB_BUCKET_BITS = 5;
+
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private static final int BUCKETS =
+      SUB_BUCKETS * (Long.SIZE - SUB_BUCKET_BITS);
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  private final LongAdder count = new LongAdder();
+
+  private final LongAdder sum = new LongAdder();
+
+  private final LongAccumulator min =
+      new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+  private final LongAccumulator max =
+      new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+  /**
+   * Records a value.
+   * @param value the value to record; a negative value is recorded as zero
+   */
+  public void record(long value) {
+    if (value < 0) value = 0;
+    counts.incrementAndGet(indexOf(value));
+    count.increment();
+    sum.add(value);
+    min.accumulate(value);
+    max.accumulate(value);
+  }
+
+  /**
+   * Creates a snapshot of the values recorded in this histogram.
+   * @return snapshot
+   */
+  public SSLMetrics.Latency snapshot() {
+    final long[] counts = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = this.counts.get(i);
+    }
+    final long count = this.count.sum();
+    return new SSLMetrics.Latency(counts, count,
+        count > 0 ? min.get() : 0,
+        count > 0 ? max.get() : 0,
+        count > 0 ? (double) sum.sum() / count : 0.0);
+  }
+
+  /**
+   * Gets the index of the bucket for a value.
+   * @param value a non-negative value
+   * @return bucket index
+   */
+  static int indexOf(long value) {
+    if (value < SUB_BUCKETS) return (int) value;
+    final int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value)
+        - SUB_BUCKET_BITS;
+    return SUB_BUCKETS * shift + (int) (value >>> shift);
+  }
+
+  /**
+   * Gets the largest value that is counted in a bucket.
+   * @param index bucket index
+   * @return largest value in the bucket at {@code index}
+   */
+  static long highestValueAt(int index) {
+    if (index < 2 * SUB_BUCKETS) return index;
+    final int shift = index / SUB_BUCKETS - 1;
+    final long lowest = (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+}
@@ -0,0 +1,250 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.SocketOption;
+import java.nio.channels.ServerSocketChannel;
+import java.util.Set;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+
+/**
+ * An {@link SSLServerSocket} that delegates to another server socket and
+ * wraps each accepted socket so that it reports to {@link SSLMetrics}
+ * and/or records flight recorder events.
+ *
+ * @author Carl Harris
+ */
+class MeteredSSLServerSocket extends SSLServerSocket {
+
+  private final SSLServerSocket delegate;
+  private final SSLMetrics metrics;
+
+  /**
+   * Constructs a new instance.
+   * @param delegate the server socket delegate
+   * @param metrics metrics to update (may be {@code null})
+   * @throws IOException as for {@link SSLServerSocket#SSLServerSocket()}
+   */
+  MeteredSSLServerSocket(SSLServerSocket delegate, SSLMetrics metrics)
+      throws IOException {
+    this.delegate = delegate;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public Socket accept() throws IOException {
+    final SSLSocket socket = (SSLSocket) delegate.accept();
+    final HandshakeObserver observer = HandshakeObserver.create(metrics);
+    if (observer == null) return socket;
+    return new MeteredSSLSocket(socket, observer);
+  }
+
+  @Override
+  public String[] getEnabledCipherSuites() {
+    return delegate.getEnabledCipherSuites();
+  }
+
+  @Override
+  public void setEnabledCipherSuites(String[] suites) {
+    delegate.setEnabledCipherSuites(suites);
+  }
+
+  @Override
+  public String[] getSupportedCipherSuites() {
+    return delegate.getSupportedCipherSuites();
+  }
+
+  @Override
+  public String[] getSupportedProtocols() {
+    return delegate.getSupportedProtocols();
+  }
+
+  @Override
+  public String[] getEnabledProtocols() {
+    return delegate.getEnabledProtocols();
+  }
+
+  @Override
+  public void setEnabledProtocols(String[] protocols) {
+    delegate.setEnabledProtocols(protocols);
+  }
+
+  @Override
+  public void setNeedClientAuth(boolean need) {
+    delegate.setNeedClientAuth(need);
+  }
+
+  @Override
+  public boolean getNeedClientAuth() {
+    return delegate.getNeedClientAuth();
+  }
+
+  @Override
+  public void setWantClientAuth(boolean want) {
+    delegate.setWantClientAuth(want);
+  }
+
+  @Override
+  public boolean getWantClientAuth() {
+    return delegate.getWantClientAuth();
+  }
+
+  @Override
+  public void setUseClientMode(boolean mode) {
+    delegate.setUseClientMode(mode);
+  }
+
+  @Override
+  public boolean getUseClientMode() {
+    return delegate.getUseClientMode();
+  }
+
+  @Override
+  public void setEnableSessionCreation(boolean flag) {
+    delegate.setEnableSessionCreation(flag);
+  }
+
+  @Override
+  public boolean getEnableSessionCreation() {
+    return delegate.getEnableSessionCreation();
+  }
+
+  @Override
+  public SSLParameters getSSLParameters() {
+    return delegate.getSSLParameters();
+  }
+
+  @Override
+  public void setSSLParameters(SSLParameters params) {
+    delegate.setSSLParameters(params);
+  }
+
+  @Override
+  public void bind(SocketAddress endpoint) throws IOException {
+    delegate.bind(endpoint);
+  }
+
+  @Override
+  public void bind(SocketAddress endpoint, int backlog) throws IOException {
+    delegate.bind(endpoint, backlog);
+  }
+
+  @Override
+  public InetAddress getInetAddress() {
+    return delegate.getInetAddress();
+  }
+
+  @Override
+  public int getLocalPort() {
+    return delegate.getLocalPort();
+  }
+
+  @Override
+  public SocketAddress getLocalSocketAddress() {
+    return delegate.getLocalSocketAddress();
+  }
+
+  @Override
+  public void close() throws IOException {
+    delegate.close();
+  }
+
+  @Override
+  public ServerSocketChannel getChannel() {
+    return delegate.getChannel();
+  }
+
+  @Override
+  public boolean isBound() {
+    return delegate.isBound();
+  }
+
+  @Override
+  public boolean isClosed() {
+    return delegate.isClosed();
+  }
+
+  @Override
+  public void setSoTimeout(int timeout) throws SocketException {
+    delegate.setSoTimeout(timeout);
+  }
+
+  @Override
+  public int getSoTimeout() throws IOException {
+    return delegate.getSoTimeout();
+  }
+
+  @Override
+  public void setReuseAddress(boolean on) throws SocketException {
+    delegate.setReuseAddress(on);
+  }
+
+  @Override
+  public boolean getReuseAddress() throws SocketException {
+    return delegate.getReuseAddress();
+  }
+
+  @Override
+  public void setReceiveBufferSize(int size) throws SocketException {
+    delegate.setReceiveBufferSize(size);
+  }
+
+  @Override
+  public int getReceiveBufferSize() throws SocketException {
+    return delegate.getReceiveBufferSize();
+  }
+
+  @Override
+  public void setPerformancePreferences(int connectionTime, int latency,
+      int bandwidth) {
+    delegate.setPerformancePreferences(connectionTime, latency, bandwidth);
+  }
+
+  // The following methods override methods that were added to ServerSocket
+  // in Java 9, so they are not annotated with @Override.
+
+  public <T> ServerSocket setOption(SocketOption<T> name, T value)
+      throws IOException {
+    delegate.setOption(name, value);
+    return this;
+  }
+
+  public <T> T getOption(SocketOption<T> name) throws IOException {
+    return delegate.getOption(name);
+  }
+
+  public Set<SocketOption<?>> supportedOptions() {
+    return delegate.supportedOptions();
+  }
+
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+
+}
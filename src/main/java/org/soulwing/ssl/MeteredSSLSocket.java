@@ -0,0 +1,554 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.SocketOption;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+import javax.net.ssl.HandshakeCompletedEvent;
+import javax.net.ssl.HandshakeCompletedListener;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+
+/**
+ * An {@link SSLSocket} that delegates to another socket and reports its
+ * initial handshake and application data traffic to a
+ * {@link HandshakeObserver}.
+ * <p>
+ * The handshake is considered to have started when it is explicitly
+ * started, when the session is first requested, or when application data
+ * is first read or written. It is considered to have completed when JSSE
+ * notifies handshake completion listeners, or when the method that started
+ * it returns (except for a read, which may wait for the peer to send
+ * application data after the handshake), and to have failed when the
+ * method that started it throws an exception.
+ * <p>
+ * Handshake completion listeners registered with this socket receive events
+ * whose source is this socket rather than its delegate.
+ *
+ * @author Carl Harris
+ */
+class MeteredSSLSocket extends SSLSocket {
+
+  private final SSLSocket delegate;
+  private final HandshakeObserver observer;
+
+  private final Map<HandshakeCompletedListener, HandshakeCompletedListener>
+      listeners = new HashMap<>();
+
+  private InputStream inputStream;
+  private OutputStream outputStream;
+
+  MeteredSSLSocket(SSLSocket delegate, final HandshakeObserver observer) {
+    this.delegate = delegate;
+    this.observer = observer;
+    delegate.addHandshakeCompletedListener(
+        event -> observer.completed(event.getSession()));
+  }
+
+  @Override
+  public void startHandshake() throws IOException {
+    final boolean pending = observer.isPending();
+    if (pending) observer.started();
+    try {
+      delegate.startHandshake();
+    }
+    catch (IOException | RuntimeException ex) {
+      if (pending) observer.failed();
+      throw ex;
+    }
+    if (pending) observer.completed(delegate.getSession());
+  }
+
+  @Override
+  public SSLSession getSession() {
+    final boolean pending = observer.isPending();
+    if (pending) observer.started();
+    final SSLSession session = delegate.getSession();
+    if (pending) observer.completed(session);
+    return session;
+  }
+
+  @Override
+  public synchronized InputStream getInputStream() throws IOException {
+    if (inputStream == null) {
+      inputStream = new MeteredInputStream(delegate.getInputStream());
+    }
+    return inputStream;
+  }
+
+  @Override
+  public synchronized OutputStream getOutputStream() throws IOException {
+    if (outputStream == null) {
+      outputStream = new MeteredOutputStream(delegate.getOutputStream());
+    }
+    return outputStream;
+  }
+
+  @Override
+  public SSLSession getHandshakeSession() {
+    return delegate.getHandshakeSession();
+  }
+
+  @Override
+  public void addHandshakeCompletedListener(
+      final HandshakeCompletedListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("listener is null");
+    }
+    final HandshakeCompletedListener wrapper = event ->
+        listener.handshakeCompleted(
+            new HandshakeCompletedEvent(this, event.getSession()));
+    synchronized (listeners) {
+      final HandshakeCompletedListener previous =
+          listeners.put(listener, wrapper);
+      if (previous != null) {
+        delegate.removeHandshakeCompletedListener(previous);
+      }
+      delegate.addHandshakeCompletedListener(wrapper);
+    }
+  }
+
+  @Override
+  public void removeHandshakeCompletedListener(
+      HandshakeCompletedListener listener) {
+    synchronized (listeners) {
+      final HandshakeCompletedListener wrapper = listeners.remove(listener);
+      if (wrapper == null) {
+        throw new IllegalArgumentException("no such listener");
+      }
+      delegate.removeHandshakeCompletedListener(wrapper);
+    }
+  }
+
+  @Override
+  public String[] getSupportedCipherSuites() {
+    return delegate.getSupportedCipherSuites();
+  }
+
+  @Override
+  public String[] getEnabledCipherSuites() {
+    return delegate.getEnabledCipherSuites();
+  }
+
+  @Override
+  public void setEnabledCipherSuites(String[] suites) {
+    delegate.setEnabledCipherSuites(suites);
+  }
+
+  @Override
+  public String[] getSupportedProtocols() {
+    return delegate.getSupportedProtocols();
+  }
+
+  @Override
+  public String[] getEnabledProtocols() {
+    return delegate.getEnabledProtocols();
+  }
+
+  @Override
+  public void setEnabledProtocols(String[] protocols) {
+    delegate.setEnabledProtocols(protocols);
+  }
+
+  @Override
+  public void setUseClientMode(boolean mode) {
+    delegate.setUseClientMode(mode);
+  }
+
+  @Override
+  public boolean getUseClientMode() {
+    return delegate.getUseClientMode();
+  }
+
+  @Override
+  public void setNeedClientAuth(boolean need) {
+    delegate.setNeedClientAuth(need);
+  }
+
+  @Override
+  public boolean getNeedClientAuth() {
+    return delegate.getNeedClientAuth();
+  }
+
+  @Override
+  public void setWantClientAuth(boolean want) {
+    delegate.setWantClientAuth(want);
+  }
+
+  @Override
+  public boolean getWantClientAuth() {
+    return delegate.getWantClientAuth();
+  }
+
+  @Override
+  public void setEnableSessionCreation(boolean flag) {
+    delegate.setEnableSessionCreation(flag);
+  }
+
+  @Override
+  public boolean getEnableSessionCreation() {
+    return delegate.getEnableSessionCreation();
+  }
+
+  @Override
+  public SSLParameters getSSLParameters() {
+    return delegate.getSSLParameters();
+  }
+
+  @Override
+  public void setSSLParameters(SSLParameters params) {
+    delegate.setSSLParameters(params);
+  }
+
+  // The following methods override methods that were added to SSLSocket
+  // in Java 9 (and 8u251), so they are not annotated with @Override.
+
+  public String getApplicationProtocol() {
+    return delegate.getApplicationProtocol();
+  }
+
+  public String getHandshakeApplicationProtocol() {
+    return delegate.getHandshakeApplicationProtocol();
+  }
+
+  public void setHandshakeApplicationProtocolSelector(
+      BiFunction<SSLSocket, List<String>, String> selector) {
+    delegate.setHandshakeApplicationProtocolSelector(selector);
+  }
+
+  public BiFunction<SSLSocket, List<String>, String>
+      getHandshakeApplicationProtocolSelector() {
+    return delegate.getHandshakeApplicationProtocolSelector();
+  }
+
+  @Override
+  public void connect(SocketAddress endpoint) throws IOException {
+    delegate.connect(endpoint);
+  }
+
+  @Override
+  public void connect(SocketAddress endpoint, int timeout)
+      throws IOException {
+    delegate.connect(endpoint, timeout);
+  }
+
+  @Override
+  public void bind(SocketAddress bindpoint) throws IOException {
+    delegate.bind(bindpoint);
+  }
+
+  @Override
+  public InetAddress getInetAddress() {
+    return delegate.getInetAddress();
+  }
+
+  @Override
+  public InetAddress getLocalAddress() {
+    return delegate.getLocalAddress();
+  }
+
+  @Override
+  public int getPort() {
+    return delegate.getPort();
+  }
+
+  @Override
+  public int getLocalPort() {
+    return delegate.getLocalPort();
+  }
+
+  @Override
+  public SocketAddress getRemoteSocketAddress() {
+    return delegate.getRemoteSocketAddress();
+  }
+
+  @Override
+  public SocketAddress getLocalSocketAddress() {
+    return delegate.getLocalSocketAddress();
+  }
+
+  @Override
+  public SocketChannel getChannel() {
+    return delegate.getChannel();
+  }
+
+  @Override
+  public void setTcpNoDelay(boolean on) throws SocketException {
+    delegate.setTcpNoDelay(on);
+  }
+
+  @Override
+  public boolean getTcpNoDelay() throws SocketException {
+    return delegate.getTcpNoDelay();
+  }
+
+  @Override
+  public void setSoLinger(boolean on, int linger) throws SocketException {
+    delegate.setSoLinger(on, linger);
+  }
+
+  @Override
+  public int getSoLinger() throws SocketException {
+    return delegate.getSoLinger();
+  }
+
+  @Override
+  public void sendUrgentData(int data) throws IOException {
+    delegate.sendUrgentData(data);
+  }
+
+  @Override
+  public void setOOBInline(boolean on) throws SocketException {
+    delegate.setOOBInline(on);
+  }
+
+  @Override
+  public boolean getOOBInline() throws SocketException {
+    return delegate.getOOBInline();
+  }
+
+  @Override
+  public void setSoTimeout(int timeout) throws SocketException {
+    delegate.setSoTimeout(timeout);
+  }
+
+  @Override
+  public int getSoTimeout() throws SocketException {
+    return delegate.getSoTimeout();
+  }
+
+  @Override
+  public void setSendBufferSize(int size) throws SocketException {
+    delegate.setSendBufferSize(size);
+  }
+
+  @Override
+  public int getSendBufferSize() throws SocketException {
+    return delegate.getSendBufferSize();
+  }
+
+  @Override
+  public void setReceiveBufferSize(int size) throws SocketException {
+    delegate.setReceiveBufferSize(size);
+  }
+
+  @Override
+  public int getReceiveBufferSize() throws SocketException {
+    return delegate.getReceiveBufferSize();
+  }
+
+  @Override
+  public void setKeepAlive(boolean on) throws SocketException {
+    delegate.setKeepAlive(on);
+  }
+
+  @Override
+  public boolean getKeepAlive() throws SocketException {
+    return delegate.getKeepAlive();
+  }
+
+  @Override
+  public void setTrafficClass(int tc) throws SocketException {
+    delegate.setTrafficClass(tc);
+  }
+
+  @Override
+  public int getTrafficClass() throws SocketException {
+    return delegate.getTrafficClass();
+  }
+
+  @Override
+  public void setReuseAddress(boolean on) throws SocketException {
+    delegate.setReuseAddress(on);
+  }
+
+  @Override
+  public boolean getReuseAddress() throws SocketException {
+    return delegate.getReuseAddress();
+  }
+
+  @Override
+  public void close() throws IOException {
+    delegate.close();
+  }
+
+  @Override
+  public void shutdownInput() throws IOException {
+    delegate.shutdownInput();
+  }
+
+  @Override
+  public void shutdownOutput() throws IOException {
+    delegate.shutdownOutput();
+  }
+
+  @Override
+  public boolean isConnected() {
+    return delegate.isConnected();
+  }
+
+  @Override
+  public boolean isBound() {
+    return delegate.isBound();
+  }
+
+  @Override
+  public boolean isClosed() {
+    return delegate.isClosed();
+  }
+
+  @Override
+  public boolean isInputShutdown() {
+    return delegate.isInputShutdown();
+  }
+
+  @Override
+  public boolean isOutputShutdown() {
+    return delegate.isOutputShutdown();
+  }
+
+  @Override
+  public void setPerformancePreferences(int connectionTime, int latency,
+      int bandwidth) {
+    delegate.setPerformancePreferences(connectionTime, latency, bandwidth);
+  }
+
+  // The following methods override methods that were added to Socket in
+  // Java 9, so they are not annotated with @Override.
+
+  public <T> Socket setOption(SocketOption<T> name, T value)
+      throws IOException {
+    delegate.setOption(name, value);
+    return this;
+  }
+
+  public <T> T getOption(SocketOption<T> name) throws IOException {
+    return delegate.getOption(name);
+  }
+
+  public Set<SocketOption<?>> supportedOptions() {
+    return delegate.supportedOptions();
+  }
+
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+
+  private void beforeIO() {
+    if (observer.isPending()) observer.started();
+  }
+
+  private void afterIO() {
+    if (observer.isPending()) observer.completed(delegate.getSession());
+  }
+
+  private void failedIO() {
+    if (observer.isPending()) observer.failed();
+  }
+
+  private class MeteredInputStream extends FilterInputStream {
+
+    MeteredInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      beforeIO();
+      try {
+        final int b = in.read();
+        if (b != -1) observer.bytesIn(1);
+        return b;
+      }
+      catch (IOException | RuntimeException ex) {
+        failedIO();
+        throw ex;
+      }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      beforeIO();
+      try {
+        final int count = in.read(b, off, len);
+        observer.bytesIn(count);
+        return count;
+      }
+      catch (IOException | RuntimeException ex) {
+        failedIO();
+        throw ex;
+      }
+    }
+
+  }
+
+  private class MeteredOutputStream extends FilterOutputStream {
+
+    MeteredOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      beforeIO();
+      try {
+        out.write(b);
+        afterIO();
+        observer.bytesOut(1);
+      }
+      catch (IOException | RuntimeException ex) {
+        failedIO();
+        throw ex;
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      beforeIO();
+      try {
+        out.write(b, off, len);
+        afterIO();
+        observer.bytesOut(len);
+      }
+      catch (IOException | RuntimeException ex) {
+        failedIO();
+        throw ex;
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+
+/**
+ * A client that fetches OCSP responses from a responder using HTTP.
+ * <p>
+ * The responder is given by the authority information access extension of
+ * the subject certificate, unless a responder is specified that overrides
+ * it. A response is returned without being verified.
+ *
+ * @author Carl Harris
+ */
+class OcspClient {
+
+  static final int MAX_RESPONSE_SIZE = 65536;
+
+  private static final String AUTHORITY_INFO_ACCESS = "1.3.6.1.5.5.7.1.1";
+
+  /** content of the object identifier {@code id-ad-ocsp} */
+  private static final byte[] ID_AD_OCSP = {
+      0x2b, 0x06, 0x01, 0x05, 0x05, 0x07, 0x30, 0x01
+  };
+
+  /** encoded algorithm identifier for SHA-1 with null parameters */
+  private static final byte[] SHA1_ALGORITHM = {
+      0x30, 0x09, 0x06, 0x05, 0x2b, 0x0e, 0x03, 0x02, 0x1a, 0x05, 0x00
+  };
+
+  private static final int URI_NAME = 6;
+
+  private final URI responder;
+  private final int timeout;
+
+  /**
+   * Constructs a new instance.
+   * @param responder responder that overrides the responder given in
+   *    certificates (may be {@code null})
+   * @param timeout connect and read timeout in milliseconds
+   */
+  OcspClient(URI responder, int timeout) {
+    this.responder = responder;
+    this.timeout = timeout;
+  }
+
+  /**
+   * Gets the responder that overrides the responder given in certificates.
+   * @return responder or {@code null} if there is none
+   */
+  public URI getResponder() {
+    return responder;
+  }
+
+  /**
+   * Fetches a response for a certificate.
+   * @param certificate the subject certificate
+   * @param issuer the certificate of its issuer
+   * @return encoded OCSP response
+   * @throws IOException if the response cannot be fetched
+   */
+  public byte[] fetch(X509Certificate certificate, X509Certificate issuer)
+      throws IOException {
+    final URI uri = responder != null ? responder : responderOf(certificate);
+    if (uri == null) {
+      throw new IOException("no OCSP responder for "
+          + certificate.getSubjectX500Principal());
+    }
+    final byte[] request = newRequest(certificate, issuer);
+    final HttpURLConnection connection =
+        (HttpURLConnection) uri.toURL().openConnection();
+    try {
+      connection.setConnectTimeout(timeout);
+      connection.setReadTimeout(timeout);
+      connection.setDoOutput(true);
+      connection.setRequestMethod("POST");
+      connection.setRequestProperty("Content-Type",
+          "application/ocsp-request");
+      connection.setRequestProperty("Accept", "application/ocsp-response");
+      connection.setFixedLengthStreamingMode(request.length);
+      try (OutputStream outputStream = connection.getOutputStream()) {
+        outputStream.write(request);
+      }
+      if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+        throw new IOException("OCSP responder " + uri + " returned status "
+            + connection.getResponseCode());
+      }
+      try (InputStream inputStream = connection.getInputStream()) {
+        return readResponse(inputStream);
+      }
+    }
+    finally {
+      connection.disconnect();
+    }
+  }
+
+  private static byte[] readResponse(InputStream inputStream)
+      throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final byte[] buf = new byte[4096];
+    int count;
+    while ((count = inputStream.read(buf)) != -1) {
+      out.write(buf, 0, count);
+      if (out.size() > MAX_RESPONSE_SIZE) {
+        throw new IOException("OCSP response is too large");
+      }
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Creates an encoded OCSP request for a certificate.
+   * @param certificate the subject certificate
+   * @param issuer the certificate of its issuer
+   * @return encoded request
+   */
+  static byte[] newRequest(X509Certificate certificate,
+      X509Certificate issuer) {
+    final byte[] certId = Der.encode(Der.SEQUENCE, SHA1_ALGORITHM,
+        Der.encode(Der.OCTET_STRING,
+            sha1(issuer.getSubjectX500Principal().getEncoded())),
+        Der.encode(Der.OCTET_STRING, sha1(publicKeyBits(issuer))),
+        Der.encode(Der.INTEGER, certificate.getSerialNumber().toByteArray()));
+    return Der.encode(Der.SEQUENCE,
+        Der.encode(Der.SEQUENCE,
+            Der.encode(Der.SEQUENCE,
+                Der.encode(Der.SEQUENCE, certId))));
+  }
+
+  /**
+   * Gets the OCSP responder named in the authority information access
+   * extension of a certificate.
+   * @param certificate the subject certificate
+   * @return responder or {@code null} if the certificate doesn't name one
+   */
+  static URI responderOf(X509Certificate certificate) {
+    final byte[] extensionValue =
+        certificate.getExtensionValue(AUTHORITY_INFO_ACCESS);
+    if (extensionValue == null) return null;
+    try {
+      final Der.Reader descriptions = new Der.Reader(new Der.Reader(
+          new Der.Reader(extensionValue).read(Der.OCTET_STRING))
+              .read(Der.SEQUENCE));
+      while (descriptions.hasNext()) {
+        final Der.Reader description =
+            new Der.Reader(descriptions.read(Der.SEQUENCE));
+        final byte[] method = description.read(Der.OBJECT_IDENTIFIER);
+        if (Arrays.equals(method, ID_AD_OCSP)
+            && description.peek() == Der.contextTag(URI_NAME, false)) {
+          return URI.create(new String(
+              description.read(Der.contextTag(URI_NAME, false)),
+              StandardCharsets.US_ASCII));
+        }
+      }
+      return null;
+    }
+    catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  private static byte[] publicKeyBits(X509Certificate certificate) {
+    final Der.Reader reader = new Der.Reader(new Der.Reader(
+        certificate.getPublicKey().getEncoded()).read(Der.SEQUENCE));
+    reader.skip();
+    final byte[] bits = reader.read(Der.BIT_STRING);
+    return Arrays.copyOfRange(bits, 1, bits.length);
+  }
+
+  private static byte[] sha1(byte[] data) {
+    try {
+      return MessageDigest.getInstance("SHA-1").digest(data);
+    }
+    catch (NoSuchAlgorithmException ex) {
+      throw new SSLRuntimeException(ex);
+    }
+  }
+
+}
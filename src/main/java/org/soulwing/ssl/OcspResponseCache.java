@@ -0,0 +1,425 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.cert.CertPathValidator;
+import java.security.cert.CertPathValidatorException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.PKIXParameters;
+import java.security.cert.PKIXRevocationChecker;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.security.auth.x500.X500Principal;
+
+/**
+ * A cache of the revocation status of certificates, as determined from OCSP
+ * responses that are fetched in the background.
+ * <p>
+ * Getting the status of a certificate never waits for a responder. If the
+ * cache holds no current status for a certificate, a response is fetched in
+ * the background and the status is reported as {@link Status#UNKNOWN} in the
+ * meantime.
+ * <p>
+ * Each response is verified using a {@link PKIXRevocationChecker} to which
+ * the response is supplied, so that its signature, its signer, and its
+ * validity period are checked exactly as when the JDK checks revocation.
+ * A status is current until the {@code nextUpdate} time of the response it
+ * was taken from (or for {@value #DEFAULT_LIFETIME_MINUTES} minutes after
+ * its {@code thisUpdate} time, if the response has no {@code nextUpdate}).
+ * A new response is prefetched when three quarters of the remaining time
+ * has elapsed, but only if the status was requested since the last fetch;
+ * otherwise the status is discarded. A response that cannot be fetched or
+ * verified is retried after an interval, and the previous status remains
+ * in use until it is no longer current.
+ * <p>
+ * Revocation is permanent, so a verified {@link Status#REVOKED} status never
+ * expires and is not fetched again; a responder that later becomes
+ * unavailable cannot cause a revoked certificate to be reported as
+ * {@link Status#UNKNOWN}.
+ * <p>
+ * The cache holds at most a fixed number of statuses, evicting the least
+ * recently used status when full. Revoked statuses are held separately
+ * (subject to the same limit), so that they are not evicted to make room
+ * for other statuses.
+ *
+ * @author Carl Harris
+ */
+class OcspResponseCache {
+
+  static final int DEFAULT_LIFETIME_MINUTES = 5;
+
+  static final long DEFAULT_RETRY_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
+  private static final long DEFAULT_LIFETIME =
+      TimeUnit.MINUTES.toMillis(DEFAULT_LIFETIME_MINUTES);
+
+  private static final long KEEP_ALIVE_SECONDS = 60;
+
+  private static final Logger logger =
+      Logger.getLogger(OcspResponseCache.class.getName());
+
+  /**
+   * An enumeration of revocation statuses.
+   */
+  enum Status {
+    /** the certificate is not revoked */
+    GOOD,
+    /** the certificate is revoked */
+    REVOKED,
+    /** the status of the certificate is not known */
+    UNKNOWN
+  }
+
+  private final OcspClient client;
+  private final ScheduledExecutorService executor;
+  private final long retryInterval;
+  private final LongSupplier clock;
+  private final Map<Key, CachedStatus> entries;
+  private final Map<Key, Result> revocations;
+
+  /**
+   * Constructs a new instance.
+   * @param client client used to fetch responses
+   * @param maxSize maximum number of statuses to cache
+   */
+  OcspResponseCache(OcspClient client, int maxSize) {
+    this(client, maxSize, newExecutor(), DEFAULT_RETRY_INTERVAL,
+        System::currentTimeMillis);
+  }
+
+  OcspResponseCache(OcspClient client, final int maxSize,
+      ScheduledExecutorService executor, long retryInterval,
+      LongSupplier clock) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("cache size must be positive");
+    }
+    this.client = client;
+    this.executor = executor;
+    this.retryInterval = retryInterval;
+    this.clock = clock;
+    this.entries = newLruMap(maxSize);
+    this.revocations = newLruMap(maxSize);
+  }
+
+  private static <K, V> Map<K, V> newLruMap(final int maxSize) {
+    return new LinkedHashMap<K, V>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  private static ScheduledExecutorService newExecutor() {
+    final ScheduledThreadPoolExecutor executor =
+        new ScheduledThreadPoolExecutor(1, runnable -> {
+          final Thread thread = new Thread(runnable, "ocsp-response-cache");
+          thread.setDaemon(true);
+          return thread;
+        });
+    executor.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+    executor.allowCoreThreadTimeOut(true);
+    executor.setRemoveOnCancelPolicy(true);
+    return executor;
+  }
+
+  /**
+   * Gets the revocation status of a certificate.
+   * @param certificate the subject certificate
+   * @param issuer the certificate of its issuer
+   * @return current status, or {@link Status#UNKNOWN} if there is none
+   */
+  public Status getStatus(X509Certificate certificate,
+      X509Certificate issuer) {
+    final Key key = new Key(certificate);
+    final long now = clock.getAsLong();
+    final CachedStatus entry;
+    synchronized (this) {
+      if (revocations.get(key) != null) return Status.REVOKED;
+      CachedStatus e = entries.get(key);
+      if (e == null) {
+        e = new CachedStatus(key, certificate, issuer);
+        entries.put(key, e);
+      }
+      entry = e;
+    }
+    entry.accessedAt = now;
+    final Result result = entry.result;
+    if (result != null && now < result.expiresAt) {
+      return result.status;
+    }
+    entry.fetchIfIdle(0);
+    return Status.UNKNOWN;
+  }
+
+  /**
+   * Gets the exception that describes the revocation of a certificate.
+   * @param certificate the subject certificate
+   * @return exception or {@code null} if the certificate is not known to
+   *    be revoked
+   */
+  public CertificateException getRevocation(X509Certificate certificate) {
+    final Key key = new Key(certificate);
+    final CachedStatus entry;
+    synchronized (this) {
+      final Result revocation = revocations.get(key);
+      if (revocation != null) return revocation.revocation;
+      entry = entries.get(key);
+    }
+    final Result result = entry != null ? entry.result : null;
+    return result != null ? result.revocation : null;
+  }
+
+  /**
+   * Gets the number of cached statuses.
+   * @return number of statuses
+   */
+  synchronized int size() {
+    return entries.size() + revocations.size();
+  }
+
+  private synchronized void remove(CachedStatus entry) {
+    if (entries.get(entry.key) == entry) {
+      entries.remove(entry.key);
+    }
+  }
+
+  private synchronized void revoked(CachedStatus entry, Result result) {
+    revocations.put(entry.key, result);
+    remove(entry);
+  }
+
+  /**
+   * Fetches and verifies a response for an entry, and schedules the next
+   * fetch.
+   * @param entry the subject entry
+   */
+  private void refresh(CachedStatus entry) {
+    final long start = clock.getAsLong();
+    long delay = retryInterval;
+    try {
+      final byte[] response = client.fetch(entry.certificate, entry.issuer);
+      final long[] validity = validityOf(response);
+      final Result result = verify(entry, response, validity);
+      entry.result = result;
+      if (result.status == Status.REVOKED) {
+        revoked(entry, result);
+        return;
+      }
+      delay = Math.max(0, (result.expiresAt - start) * 3 / 4);
+    }
+    catch (Exception ex) {
+      logger.log(Level.FINE, "cannot get OCSP response for "
+          + entry.certificate.getSubjectX500Principal() + ": " + ex, ex);
+    }
+    finally {
+      entry.fetchedAt = start;
+      entry.idle();
+    }
+    entry.fetchIfIdle(delay);
+  }
+
+  private Result verify(CachedStatus entry, byte[] response, long[] validity)
+      throws GeneralSecurityException {
+    final long expiresAt = validity[1] != -1 ?
+        validity[1] : validity[0] + DEFAULT_LIFETIME;
+    final CertPathValidator validator = CertPathValidator.getInstance("PKIX");
+    final PKIXRevocationChecker checker =
+        (PKIXRevocationChecker) validator.getRevocationChecker();
+    checker.setOptions(EnumSet.of(
+        PKIXRevocationChecker.Option.ONLY_END_ENTITY,
+        PKIXRevocationChecker.Option.NO_FALLBACK));
+    checker.setOcspResponses(
+        Collections.singletonMap(entry.certificate, response));
+    if (client.getResponder() != null) {
+      checker.setOcspResponder(client.getResponder());
+    }
+    final PKIXParameters parameters = new PKIXParameters(
+        Collections.singleton(new TrustAnchor(entry.issuer, null)));
+    parameters.addCertPathChecker(checker);
+    try {
+      validator.validate(CertificateFactory.getInstance("X.509")
+          .generateCertPath(Collections.singletonList(entry.certificate)),
+          parameters);
+      return new Result(Status.GOOD, expiresAt, null);
+    }
+    catch (CertPathValidatorException ex) {
+      if (ex.getReason() != CertPathValidatorException.BasicReason.REVOKED) {
+        throw ex;
+      }
+      return new Result(Status.REVOKED, Long.MAX_VALUE,
+          new CertificateException("certificate has been revoked: "
+              + ex.getMessage(), ex));
+    }
+  }
+
+  /**
+   * Gets the validity period of the first single response in an OCSP
+   * response.
+   * @param response encoded OCSP response
+   * @return array containing the {@code thisUpdate} time and the
+   *    {@code nextUpdate} time (or -1 if there is none)
+   * @throws IllegalArgumentException if the response is malformed or
+   *    indicates an error
+   */
+  static long[] validityOf(byte[] response) {
+    final Der.Reader ocspResponse =
+        new Der.Reader(new Der.Reader(response).read(Der.SEQUENCE));
+    final byte[] responseStatus = ocspResponse.read(Der.ENUMERATED);
+    if (responseStatus.length != 1 || responseStatus[0] != 0) {
+      throw new IllegalArgumentException("OCSP response status is "
+          + new BigInteger(responseStatus));
+    }
+    final Der.Reader responseBytes = new Der.Reader(new Der.Reader(
+        ocspResponse.read(Der.contextTag(0, true))).read(Der.SEQUENCE));
+    responseBytes.skip();
+    final Der.Reader basicResponse = new Der.Reader(new Der.Reader(
+        responseBytes.read(Der.OCTET_STRING)).read(Der.SEQUENCE));
+    final Der.Reader responseData =
+        new Der.Reader(basicResponse.read(Der.SEQUENCE));
+    if (responseData.peek() == Der.contextTag(0, true)) {
+      responseData.skip();    // version
+    }
+    responseData.skip();      // responder ID
+    responseData.skip();      // produced at
+    final Der.Reader singleResponse = new Der.Reader(new Der.Reader(
+        responseData.read(Der.SEQUENCE)).read(Der.SEQUENCE));
+    singleResponse.skip();    // cert ID
+    singleResponse.skip();    // cert status
+    final long thisUpdate = Der.parseGeneralizedTime(
+        singleResponse.read(Der.GENERALIZED_TIME));
+    long nextUpdate = -1;
+    if (singleResponse.peek() == Der.contextTag(0, true)) {
+      nextUpdate = Der.parseGeneralizedTime(new Der.Reader(
+          singleResponse.read(Der.contextTag(0, true)))
+              .read(Der.GENERALIZED_TIME));
+    }
+    return new long[] { thisUpdate, nextUpdate };
+  }
+
+  /**
+   * A key that identifies a certificate by its issuer and serial number.
+   */
+  private static class Key {
+
+    private final X500Principal issuer;
+    private final BigInteger serialNumber;
+
+    Key(X509Certificate certificate) {
+      this.issuer = certificate.getIssuerX500Principal();
+      this.serialNumber = certificate.getSerialNumber();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) return true;
+      if (!(obj instanceof Key)) return false;
+      final Key that = (Key) obj;
+      return this.issuer.equals(that.issuer)
+          && this.serialNumber.equals(that.serialNumber);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * issuer.hashCode() + serialNumber.hashCode();
+    }
+
+  }
+
+  /**
+   * A verified status and the time at which it expires (which, for a
+   * revoked status, is never).
+   */
+  private static class Result {
+
+    final Status status;
+    final long expiresAt;
+    final CertificateException revocation;
+
+    Result(Status status, long expiresAt, CertificateException revocation) {
+      this.status = status;
+      this.expiresAt = expiresAt;
+      this.revocation = revocation;
+    }
+
+  }
+
+  /**
+   * The state of a cached certificate status.
+   */
+  private class CachedStatus {
+
+    final Key key;
+    final X509Certificate certificate;
+    final X509Certificate issuer;
+
+    volatile Result result;
+    volatile long accessedAt;
+    volatile long fetchedAt = Long.MIN_VALUE;
+
+    private boolean fetching;
+
+    CachedStatus(Key key, X509Certificate certificate, X509Certificate issuer) {
+      this.key = key;
+      this.certificate = certificate;
+      this.issuer = issuer;
+    }
+
+    /**
+     * Schedules a fetch, unless one is already scheduled or in progress.
+     * A scheduled fetch is skipped (and the entry is removed from the cache)
+     * if the status has not been requested since the previous fetch.
+     * @param delay delay before fetching in milliseconds
+     */
+    void fetchIfIdle(long delay) {
+      synchronized (this) {
+        if (fetching) return;
+        fetching = true;
+      }
+      executor.schedule(() -> {
+        if (accessedAt < fetchedAt) {
+          remove(this);
+          idle();
+          return;
+        }
+        refresh(this);
+      }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void idle() {
+      fetching = false;
+    }
+
+  }
+
+}
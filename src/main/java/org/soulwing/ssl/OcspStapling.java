@@ -0,0 +1,393 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.net.Socket;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SNIServerName;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509ExtendedTrustManager;
+
+/**
+ * A configuration for server-side OCSP stapling using the JDK's status
+ * response manager.
+ * <p>
+ * The JDK is configured only by means of system properties, which are
+ * read when a context is created (whether stapling is enabled) and when
+ * the context performs its first server handshake (everything else, except
+ * the fetch timeout, which is read for every handshake). These properties
+ * are global to the JVM, so they are set only while they are needed: by
+ * {@link #apply()} around the creation of a context, and again around the
+ * in-memory handshakes performed by {@link #prefetch}, which create the
+ * context's status response manager. Their previous values are restored
+ * afterwards, so contexts that are created or used as servers at any other
+ * time are not affected. Each application holds a lock until it is
+ * closed, so that builders that apply their configurations concurrently
+ * do not see (or restore) each other's values.
+ * <p>
+ * Because the fetch timeout is read for every handshake, the timeout of
+ * a configuration applies only to the prefetch handshakes; later
+ * handshakes use the timeout configured for the JVM. Similarly, if no
+ * prefetch handshake is performed (e.g. because the context has no
+ * credential key store), the status response manager is created by the
+ * first client handshake using the JVM's configuration.
+ *
+ * @author Carl Harris
+ */
+class OcspStapling {
+
+  static final String ENABLE = "jdk.tls.server.enableStatusRequestExtension";
+  static final String CACHE_SIZE = "jdk.tls.stapling.cacheSize";
+  static final String CACHE_LIFETIME = "jdk.tls.stapling.cacheLifetime";
+  static final String RESPONSE_TIMEOUT = "jdk.tls.stapling.responseTimeout";
+  static final String RESPONDER_URI = "jdk.tls.stapling.responderURI";
+  static final String RESPONDER_OVERRIDE =
+      "jdk.tls.stapling.responderOverride";
+
+  /** host name to request for a certificate with only wildcard names */
+  private static final String WILDCARD_LABEL = "ocsp-prefetch";
+
+  private static final int MAX_HANDSHAKE_STEPS = 100;
+
+  private static final Logger logger =
+      Logger.getLogger(OcspStapling.class.getName());
+
+  private static final ReentrantLock lock = new ReentrantLock();
+
+  private final int cacheSize;
+  private final long cacheLifetime;
+  private final long timeout;
+  private final URI responder;
+
+  /**
+   * Constructs a new instance.
+   * @param cacheSize maximum number of cached staples
+   * @param cacheLifetime maximum time for which a staple is cached, in
+   *    seconds
+   * @param timeout timeout for fetching a staple, in milliseconds, or zero
+   *    if the JDK's timeout should be used
+   * @param responder responder to use in place of those named in
+   *    certificates (may be {@code null})
+   */
+  OcspStapling(int cacheSize, long cacheLifetime, long timeout,
+      URI responder) {
+    this.cacheSize = cacheSize;
+    this.cacheLifetime = cacheLifetime;
+    this.timeout = timeout;
+    this.responder = responder;
+  }
+
+  /**
+   * Sets the system properties that configure the JDK's status response
+   * manager, for the options of this configuration that were specified.
+   * <p>
+   * The properties keep their values until the returned object is closed,
+   * which restores their previous values. The calling thread holds a lock
+   * that prevents other applications from setting the properties until
+   * then, so the returned object should be closed promptly, in a
+   * {@code finally} block.
+   * @return object that restores the previous values when closed
+   */
+  public AppliedProperties apply() {
+    final AppliedProperties properties = new AppliedProperties();
+    properties.set(ENABLE, "true");
+    properties.set(CACHE_SIZE, Integer.toString(cacheSize));
+    properties.set(CACHE_LIFETIME, Long.toString(
+        Math.min(cacheLifetime, Integer.MAX_VALUE)));
+    if (timeout > 0) {
+      properties.set(RESPONSE_TIMEOUT, Long.toString(timeout));
+    }
+    if (responder != null) {
+      properties.set(RESPONDER_URI, responder.toString());
+      properties.set(RESPONDER_OVERRIDE, "true");
+    }
+    return properties;
+  }
+
+  /**
+   * Fetches staples for the certificates in a credential key store by
+   * performing an in-memory handshake with a context for each of them.
+   * <p>
+   * The properties of this configuration are applied while the handshakes
+   * are performed, so that the status response manager the first of them
+   * creates for {@code context} uses them.
+   * <p>
+   * A failure to fetch a staple is logged and otherwise ignored; the JDK
+   * will try again when a client next requests it.
+   * @param context an initialized context
+   * @param keyStore credential key store of {@code context}
+   * @return number of handshakes performed
+   */
+  public int prefetch(SSLContext context, KeyStore keyStore) {
+    final SSLContext client;
+    try {
+      client = SSLContext.getInstance("TLS");
+      client.init(null, new TrustManager[] { new AcceptingTrustManager() },
+          null);
+    }
+    catch (Exception ex) {
+      logger.log(Level.FINE, "cannot create prefetch client: " + ex, ex);
+      return 0;
+    }
+    int count = 0;
+    try (AppliedProperties properties = apply()) {
+      for (final String hostName : hostNames(keyStore)) {
+        try {
+          handshake(client, context, hostName);
+        }
+        catch (Exception ex) {
+          logger.log(Level.FINE, "prefetch handshake failed for "
+              + hostName + ": " + ex, ex);
+        }
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Gets a host name to request for each certificate in a credential
+   * key store.
+   * @param keyStore credential key store
+   * @return list of host names; {@code null} is used for a certificate
+   *    that has no DNS names
+   */
+  static List<String> hostNames(KeyStore keyStore) {
+    final Set<String> hostNames = new LinkedHashSet<>();
+    try {
+      final Enumeration<String> aliases = keyStore.aliases();
+      while (aliases.hasMoreElements()) {
+        final String alias = aliases.nextElement();
+        if (!keyStore.isKeyEntry(alias)) continue;
+        final Certificate certificate = keyStore.getCertificate(alias);
+        if (!(certificate instanceof X509Certificate)) continue;
+        hostNames.add(hostName((X509Certificate) certificate));
+      }
+    }
+    catch (Exception ex) {
+      logger.log(Level.FINE, "cannot enumerate credentials: " + ex, ex);
+    }
+    return new ArrayList<>(hostNames);
+  }
+
+  private static String hostName(X509Certificate certificate) {
+    final List<String> names = HostnameMatcher.dnsNames(certificate);
+    for (final String name : names) {
+      if (!name.startsWith("*.")) return name;
+    }
+    for (final String name : names) {
+      return WILDCARD_LABEL + name.substring(1);
+    }
+    return null;
+  }
+
+  private static void handshake(SSLContext client, SSLContext server,
+      String hostName) throws SSLException {
+    final SSLEngine clientEngine = client.createSSLEngine();
+    clientEngine.setUseClientMode(true);
+    if (hostName != null) {
+      try {
+        final SSLParameters parameters = clientEngine.getSSLParameters();
+        parameters.setServerNames(Collections.<SNIServerName>singletonList(
+            new SNIHostName(hostName)));
+        clientEngine.setSSLParameters(parameters);
+      }
+      catch (IllegalArgumentException ex) {
+        // not a valid SNI host name; the default credential will be used
+        assert true;
+      }
+    }
+    final SSLEngine serverEngine = server.createSSLEngine();
+    serverEngine.setUseClientMode(false);
+
+    final ByteBuffer empty = ByteBuffer.allocate(0);
+    final ByteBuffer clientToServer = ByteBuffer.allocate(
+        clientEngine.getSession().getPacketBufferSize());
+    final ByteBuffer serverToClient = ByteBuffer.allocate(
+        serverEngine.getSession().getPacketBufferSize());
+    final ByteBuffer clientApp = ByteBuffer.allocate(
+        clientEngine.getSession().getApplicationBufferSize());
+    final ByteBuffer serverApp = ByteBuffer.allocate(
+        serverEngine.getSession().getApplicationBufferSize());
+
+    clientEngine.beginHandshake();
+    serverEngine.beginHandshake();
+    for (int i = 0; i < MAX_HANDSHAKE_STEPS
+        && (isHandshaking(clientEngine) || isHandshaking(serverEngine)); i++) {
+      step(clientEngine, empty, clientToServer, serverToClient, clientApp);
+      step(serverEngine, empty, serverToClient, clientToServer, serverApp);
+    }
+    clientEngine.closeOutbound();
+    serverEngine.closeOutbound();
+  }
+
+  private static void step(SSLEngine engine, ByteBuffer empty,
+      ByteBuffer outbound, ByteBuffer inbound, ByteBuffer app)
+      throws SSLException {
+    switch (engine.getHandshakeStatus()) {
+      case NEED_WRAP:
+        engine.wrap(empty, outbound);
+        break;
+      case NEED_UNWRAP:
+        inbound.flip();
+        final SSLEngineResult result = engine.unwrap(inbound, app);
+        inbound.compact();
+        app.clear();
+        if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+          throw new SSLException("peer closed the connection");
+        }
+        break;
+      case NEED_TASK:
+        Runnable task;
+        while ((task = engine.getDelegatedTask()) != null) {
+          task.run();
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  private static boolean isHandshaking(SSLEngine engine) {
+    final SSLEngineResult.HandshakeStatus status =
+        engine.getHandshakeStatus();
+    return status != SSLEngineResult.HandshakeStatus.FINISHED
+        && status != SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING;
+  }
+
+  /**
+   * Adds the configuration to a fingerprint.
+   * @param fingerprint the subject fingerprint
+   */
+  void addTo(Fingerprint fingerprint) {
+    fingerprint.add(cacheSize)
+        .add(Long.toString(cacheLifetime))
+        .add(Long.toString(timeout))
+        .add(responder != null ? responder.toString() : null);
+  }
+
+  /**
+   * The system properties set by an application of a configuration, which
+   * are restored to their previous values when it is closed.
+   */
+  static class AppliedProperties implements AutoCloseable {
+
+    private final Map<String, String> previousValues = new LinkedHashMap<>();
+
+    private boolean closed;
+
+    AppliedProperties() {
+      lock.lock();
+    }
+
+    private void set(String name, String value) {
+      previousValues.put(name, System.getProperty(name));
+      System.setProperty(name, value);
+    }
+
+    @Override
+    public void close() {
+      if (closed) return;
+      closed = true;
+      try {
+        for (final Map.Entry<String, String> entry :
+            previousValues.entrySet()) {
+          if (entry.getValue() != null) {
+            System.setProperty(entry.getKey(), entry.getValue());
+          }
+          else {
+            System.clearProperty(entry.getKey());
+          }
+        }
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+
+  }
+
+  /**
+   * A trust manager for the client side of a prefetch handshake, whose
+   * only purpose is to cause the server to fetch a staple.
+   */
+  private static class AcceptingTrustManager
+      extends X509ExtendedTrustManager {
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType,
+        Socket socket) {
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType,
+        Socket socket) {
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType,
+        SSLEngine engine) {
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType,
+        SSLEngine engine) {
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain,
+        String authType) {
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain,
+        String authType) {
+    }
+
+    @Override
+    public X509Certificate[] getAcceptedIssuers() {
+      return new X509Certificate[0];
+    }
+
+  }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.net.Socket;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedTrustManager;
+import javax.security.auth.x500.X500Principal;
+
+/**
+ * An {@link X509ExtendedTrustManager} that checks the revocation status of
+ * a peer's certificate using an {@link OcspResponseCache}, after its
+ * delegate has validated the peer's certificate chain.
+ * <p>
+ * Only the peer's own certificate is checked. Its issuer is the next
+ * certificate in the chain or, if the chain contains only the peer's
+ * certificate, the trusted certificate whose subject is the issuer of the
+ * peer's certificate. A certificate is rejected only if it is known to be
+ * revoked; if its status is not yet known, it is accepted (a soft failure)
+ * while its status is fetched in the background.
+ * <p>
+ * When the trust manager is registered with a {@link KeyStoreMonitor} for
+ * the trust store, the trusted certificates used to find issuers are
+ * replaced whenever the trust store changes.
+ *
+ * @author Carl Harris
+ */
+class OcspX509TrustManager extends X509ExtendedTrustManager
+    implements KeyStoreMonitor.Listener {
+
+  private final X509ExtendedTrustManager delegate;
+  private final OcspResponseCache cache;
+
+  private volatile Map<X500Principal, List<X509Certificate>> issuers;
+
+  /**
+   * Constructs a new instance.
+   * @param delegate trust manager that validates peer certificate chains
+   * @param cache cache of revocation statuses
+   * @param trustStore trust store containing the trusted certificates
+   * @throws KeyStoreException if the trust store cannot be read
+   */
+  OcspX509TrustManager(X509ExtendedTrustManager delegate,
+      OcspResponseCache cache, KeyStore trustStore) throws KeyStoreException {
+    this.delegate = delegate;
+    this.cache = cache;
+    this.issuers = index(trustStore);
+  }
+
+  @Override
+  public void keyStoreChanged(KeyStore keyStore) throws Exception {
+    issuers = index(keyStore);
+  }
+
+  /**
+   * Indexes the trusted certificates in a trust store by subject.
+   * @param trustStore the subject trust store
+   * @return map of subject name to certificates
+   * @throws KeyStoreException if the trust store cannot be read
+   */
+  static Map<X500Principal, List<X509Certificate>> index(
+      KeyStore trustStore) throws KeyStoreException {
+    final Map<X500Principal, List<X509Certificate>> index = new HashMap<>();
+    final Enumeration<String> aliases = trustStore.aliases();
+    while (aliases.hasMoreElements()) {
+      final Certificate certificate =
+          trustStore.getCertificate(aliases.nextElement());
+      if (!(certificate instanceof X509Certificate)) continue;
+      final X509Certificate x509 = (X509Certificate) certificate;
+      List<X509Certificate> certificates =
+          index.get(x509.getSubjectX500Principal());
+      if (certificates == null) {
+        certificates = new ArrayList<>(1);
+        index.put(x509.getSubjectX500Principal(), certificates);
+      }
+      certificates.add(x509);
+    }
+    return index;
+  }
+
+  @Override
+  public void checkClientTrusted(X509Certificate[] chain, String authType,
+      Socket socket) throws CertificateException {
+    delegate.checkClientTrusted(chain, authType, socket);
+    checkRevocation(chain);
+  }
+
+  @Override
+  public void checkServerTrusted(X509Certificate[] chain, String authType,
+      Socket socket) throws CertificateException {
+    delegate.checkServerTrusted(chain, authType, socket);
+    checkRevocation(chain);
+  }
+
+  @Override
+  public void checkClientTrusted(X509Certificate[] chain, String authType,
+      SSLEngine engine) throws CertificateException {
+    delegate.checkClientTrusted(chain, authType, engine);
+    checkRevocation(chain);
+  }
+
+  @Override
+  public void checkServerTrusted(X509Certificate[] chain, String authType,
+      SSLEngine engine) throws CertificateException {
+    delegate.checkServerTrusted(chain, authType, engine);
+    checkRevocation(chain);
+  }
+
+  @Override
+  public void checkClientTrusted(X509Certificate[] chain, String authType)
+      throws CertificateException {
+    delegate.checkClientTrusted(chain, authType);
+    checkRevocation(chain);
+  }
+
+  @Override
+  public void checkServerTrusted(X509Certificate[] chain, String authType)
+      throws CertificateException {
+    delegate.checkServerTrusted(chain, authType);
+    checkRevocation(chain);
+  }
+
+  @Override
+  public X509Certificate[] getAcceptedIssuers() {
+    return delegate.getAcceptedIssuers();
+  }
+
+  private void checkRevocation(X509Certificate[] chain)
+      throws CertificateException {
+    final X509Certificate certificate = chain[0];
+    final X509Certificate issuer = issuerOf(chain);
+    if (issuer == null) return;
+    if (cache.getStatus(certificate, issuer)
+        != OcspResponseCache.Status.REVOKED) {
+      return;
+    }
+    final CertificateException revocation = cache.getRevocation(certificate);
+    throw revocation != null ? revocation :
+        new CertificateException("certificate has been revoked");
+  }
+
+  private X509Certificate issuerOf(X509Certificate[] chain) {
+    final X509Certificate certificate = chain[0];
+    final X500Principal issuer = certificate.getIssuerX500Principal();
+    if (chain.length > 1) return chain[1];
+    if (issuer.equals(certificate.getSubjectX500Principal())) return null;
+    final List<X509Certificate> candidates = issuers.get(issuer);
+    return candidates != null ? candidates.get(0) : null;
+  }
+
+}
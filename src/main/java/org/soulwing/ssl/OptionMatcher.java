@@ -0,0 +1,166 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * A compiled matcher for an ordered list of option patterns.
+ * <p>
+ * Each pattern is a regular expression that must match an entire option
+ * name. Patterns that contain no regular expression metacharacters are
+ * matched using a hash lookup, and patterns of the form {@code PREFIX.*}
+ * are matched by looking up prefixes of the option name. All remaining
+ * patterns are combined into a single alternation that is used to quickly
+ * reject options that match none of them. Because combining patterns
+ * renumbers their groups and merges their group names, no alternation is
+ * used if any of them contains a backreference or a named group; each is
+ * then tested in turn.
+ *
+ * @author Carl Harris
+ */
+class OptionMatcher {
+
+  private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+
+  private static final String ANY_SUFFIX = ".*";
+
+  private final Map<String, Integer> literals = new HashMap<>();
+  private final Map<String, Integer> prefixes = new HashMap<>();
+  private final SortedSet<Integer> prefixLengths = new TreeSet<>();
+  private final List<Pattern> patterns = new ArrayList<>();
+  private final List<Integer> patternIndexes = new ArrayList<>();
+  private final Pattern combinedPattern;
+
+  /**
+   * Constructs a new instance.
+   * @param patterns the patterns to match, in order of preference
+   */
+  OptionMatcher(Collection<String> patterns) {
+    final StringBuilder sb = new StringBuilder();
+    boolean combinable = true;
+    int index = 0;
+    for (final String pattern : patterns) {
+      if (isLiteral(pattern)) {
+        putIfAbsent(literals, pattern, index);
+      }
+      else if (pattern.endsWith(ANY_SUFFIX) && isLiteral(
+          pattern.substring(0, pattern.length() - ANY_SUFFIX.length()))) {
+        final String prefix =
+            pattern.substring(0, pattern.length() - ANY_SUFFIX.length());
+        putIfAbsent(prefixes, prefix, index);
+        prefixLengths.add(prefix.length());
+      }
+      else {
+        this.patterns.add(Pattern.compile(pattern));
+        this.patternIndexes.add(index);
+        combinable = combinable && isCombinable(pattern);
+        if (sb.length() > 0) {
+          sb.append('|');
+        }
+        sb.append("(?:").append(pattern).append(')');
+      }
+      index++;
+    }
+    this.combinedPattern = combinable && sb.length() > 0 ?
+        Pattern.compile(sb.toString()) : null;
+  }
+
+  /**
+   * Determines whether the given option matches any pattern.
+   * @param option the subject option
+   * @return {@code true} if {@code option} matches at least one pattern
+   */
+  public boolean matches(String option) {
+    return indexOf(option) != -1;
+  }
+
+  /**
+   * Finds the first pattern that matches the given option.
+   * @param option the subject option
+   * @return index of the first pattern (in the order given at construction)
+   *    that matches {@code option}, or -1 if no pattern matches
+   */
+  public int indexOf(String option) {
+    int best = Integer.MAX_VALUE;
+    final Integer literal = literals.get(option);
+    if (literal != null) {
+      best = literal;
+    }
+    for (final int length : prefixLengths) {
+      if (length > option.length()) break;
+      final Integer prefix = prefixes.get(option.substring(0, length));
+      if (prefix != null && prefix < best) {
+        best = prefix;
+      }
+    }
+    if (!patterns.isEmpty() && (combinedPattern == null
+        || combinedPattern.matcher(option).matches())) {
+      for (int i = 0, max = patterns.size(); i < max; i++) {
+        final int index = patternIndexes.get(i);
+        if (index >= best) break;
+        if (patterns.get(i).matcher(option).matches()) {
+          best = index;
+          break;
+        }
+      }
+    }
+    return best != Integer.MAX_VALUE ? best : -1;
+  }
+
+  private static boolean isLiteral(String pattern) {
+    for (int i = 0, max = pattern.length(); i < max; i++) {
+      if (METACHARACTERS.indexOf(pattern.charAt(i)) != -1) return false;
+    }
+    return true;
+  }
+
+  private static boolean isCombinable(String pattern) {
+    for (int i = 0, max = pattern.length() - 1; i < max; i++) {
+      final char c = pattern.charAt(i);
+      if (c == '\\') {
+        final char escaped = pattern.charAt(++i);
+        if (escaped == 'k' || (escaped >= '1' && escaped <= '9')) {
+          return false;
+        }
+      }
+      else if (c == '(' && pattern.startsWith("?<", i + 1)
+          && i + 3 < pattern.length()
+          && Character.isLetter(pattern.charAt(i + 3))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void putIfAbsent(Map<String, Integer> map, String key,
+      int index) {
+    if (!map.containsKey(key)) {
+      map.put(key, index);
+    }
+  }
+
+}
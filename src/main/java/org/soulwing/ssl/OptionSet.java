@@ -18,14 +18,21 @@
  */
 package org.soulwing.ssl;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.regex.Pattern;
 
 /**
  * A set of strings that represent options.
+ * <p>
+ * Included and excluded options are specified as regular expressions. The
+ * expressions are compiled once (on first use after the set is modified)
+ * and the most recent result of resolving the enabled options for a given
+ * pair of supported and default option arrays is retained, so that repeated
+ * resolution against the same arrays costs nothing.
  *
  * @author Carl Harris
  */
@@ -34,12 +41,21 @@ class OptionSet {
   private final Set<String> excludedOptions = new LinkedHashSet<>();
   private final Set<String> includedOptions = new LinkedHashSet<>();
 
-  public void excludeOptions(String... options) {
+  private OptionMatcher excludedMatcher;
+  private OptionMatcher includedMatcher;
+
+  private volatile Resolution resolution;
+
+  public synchronized void excludeOptions(String... options) {
     excludedOptions.addAll(Arrays.asList(options));
+    excludedMatcher = null;
+    resolution = null;
   }
 
-  public void includeOptions(String... options) {
+  public synchronized void includeOptions(String... options) {
     includedOptions.addAll(Arrays.asList(options));
+    includedMatcher = null;
+    resolution = null;
   }
 
   public String[] enabledOptions(String[] supportedOptions,
@@ -47,10 +63,16 @@ class OptionSet {
     if (excludedOptions.isEmpty() && includedOptions.isEmpty()) {
       return defaultOptions;
     }
-    final Collection<String> enabledOptions = enabledOptions(
-        Arrays.asList(supportedOptions), Arrays.asList(defaultOptions));
-
-    return enabledOptions.toArray(new String[enabledOptions.size()]);
+    Resolution resolution = this.resolution;
+    if (resolution == null
+        || !resolution.isFor(supportedOptions, defaultOptions)) {
+      final Collection<String> enabledOptions = enabledOptions(
+          Arrays.asList(supportedOptions), Arrays.asList(defaultOptions));
+      resolution = new Resolution(supportedOptions, defaultOptions,
+          enabledOptions.toArray(new String[enabledOptions.size()]));
+      this.resolution = resolution;
+    }
+    return resolution.enabledOptions.clone();
   }
 
   public Collection<String> enabledOptions(
@@ -60,39 +82,98 @@ class OptionSet {
       return defaultOptions;
     }
     final Collection<String> supportedAndIncludedOptions =
-        retainMatching(supportedOptions, includedOptions);
+        retainMatching(supportedOptions, getIncludedMatcher());
     return removeMatching(
-        supportedAndIncludedOptions, excludedOptions);
+        supportedAndIncludedOptions, getExcludedMatcher());
+  }
+
+  public synchronized void addTo(Fingerprint fingerprint) {
+    fingerprint.add(includedOptions).add(excludedOptions);
+  }
+
+  private synchronized OptionMatcher getIncludedMatcher() {
+    if (includedOptions.isEmpty()) return null;
+    if (includedMatcher == null) {
+      includedMatcher = new OptionMatcher(includedOptions);
+    }
+    return includedMatcher;
   }
 
+  private synchronized OptionMatcher getExcludedMatcher() {
+    if (excludedOptions.isEmpty()) return null;
+    if (excludedMatcher == null) {
+      excludedMatcher = new OptionMatcher(excludedOptions);
+    }
+    return excludedMatcher;
+  }
+
+  /**
+   * Retains the strings that match at least one pattern.
+   * <p>
+   * The result is ordered first by the position of the first matching
+   * pattern and then by the order of {@code strings}, so that the order
+   * in which options are included expresses a preference.
+   */
   private Collection<String> retainMatching(Collection<String> strings,
-      Set<String> patterns) {
-    if (patterns.isEmpty()) return strings;
-    return findMatches(strings, patterns);
+      OptionMatcher matcher) {
+    if (matcher == null) return strings;
+    final List<List<String>> groups = new ArrayList<>();
+    for (final String s : strings) {
+      final int index = matcher.indexOf(s);
+      if (index == -1) continue;
+      while (groups.size() <= index) {
+        groups.add(null);
+      }
+      List<String> group = groups.get(index);
+      if (group == null) {
+        group = new ArrayList<>();
+        groups.set(index, group);
+      }
+      group.add(s);
+    }
+    final Set<String> result = new LinkedHashSet<>();
+    for (final List<String> group : groups) {
+      if (group != null) {
+        result.addAll(group);
+      }
+    }
+    return result;
   }
 
   private Collection<String> removeMatching(Collection<String> strings,
-      Set<String> patterns) {
-    if (patterns.isEmpty()) return strings;
-    final Set<String> matches = findMatches(strings, patterns);
+      OptionMatcher matcher) {
+    if (matcher == null) return strings;
     final Set<String> result = new LinkedHashSet<>();
-    result.addAll(strings);
-    result.removeAll(matches);
+    for (final String s : strings) {
+      if (!matcher.matches(s)) {
+        result.add(s);
+      }
+    }
     return result;
   }
 
-  private Set<String> findMatches(Collection<String> strings,
-      Set<String> patterns) {
-    Set<String> matches = new LinkedHashSet<>();
-    for (final String p : patterns) {
-      final Pattern pattern = Pattern.compile(p);
-      for (final String s : strings) {
-        if (pattern.matcher(s).matches()) {
-          matches.add(s);
-        }
-      }
+  /**
+   * The enabled options resolved for a particular pair of supported and
+   * default option arrays, which are compared by identity.
+   */
+  private static class Resolution {
+
+    final String[] supportedOptions;
+    final String[] defaultOptions;
+    final String[] enabledOptions;
+
+    Resolution(String[] supportedOptions, String[] defaultOptions,
+        String[] enabledOptions) {
+      this.supportedOptions = supportedOptions;
+      this.defaultOptions = defaultOptions;
+      this.enabledOptions = enabledOptions;
     }
-    return matches;
+
+    boolean isFor(String[] supportedOptions, String[] defaultOptions) {
+      return this.supportedOptions == supportedOptions
+          && this.defaultOptions == defaultOptions;
+    }
+
   }
 
 }
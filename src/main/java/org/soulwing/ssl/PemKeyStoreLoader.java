@@ -0,0 +1,393 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.RSAKey;
+import java.security.spec.KeySpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import javax.crypto.Cipher;
+import javax.crypto.EncryptedPrivateKeyInfo;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * A loader that produces a {@link KeyStore} from PEM-encoded certificates
+ * and a PKCS#8 private key.
+ * <p>
+ * The PEM content is read line by line, and the DER encoding of each
+ * {@code CERTIFICATE} block is decoded as soon as it is read; any text
+ * outside of the encapsulation boundaries is ignored. When there are many
+ * certificates (as in a large CA bundle), they are parsed in parallel.
+ * <p>
+ * If a private key is found (in either the certificate content or the
+ * separate key content), the resulting key store contains a single private
+ * key entry with alias {@value #KEY_ALIAS}, whose certificate chain is the
+ * sequence of certificates in the certificate content, starting with the
+ * certificate whose public key matches the private key and followed by its
+ * issuers (any other certificates follow in the order they were read).
+ * Otherwise, each
+ * certificate becomes a trusted certificate entry with alias
+ * {@code certificate-N}. The key store is an in-memory JKS store, whose
+ * private key protection is inexpensive compared to that of PKCS#12.
+ *
+ * @author Carl Harris
+ */
+class PemKeyStoreLoader {
+
+  /** Key store type name that designates PEM content */
+  static final String TYPE = "PEM";
+
+  static final String KEY_ALIAS = "key";
+
+  static final String CERTIFICATE_ALIAS_PREFIX = "certificate-";
+
+  private static final String STORE_TYPE = "JKS";
+
+  private static final String BEGIN = "-----BEGIN ";
+  private static final String END = "-----END ";
+  private static final String CERTIFICATE = "CERTIFICATE";
+  private static final String PRIVATE_KEY = "PRIVATE KEY";
+  private static final String ENCRYPTED_PRIVATE_KEY = "ENCRYPTED PRIVATE KEY";
+
+  private static final String[] KEY_ALGORITHMS = { "RSA", "EC", "DSA", "EdDSA" };
+
+  /** Message signed to test whether a private key matches a certificate */
+  private static final byte[] PROBE =
+      "pem-key-store-loader".getBytes(StandardCharsets.US_ASCII);
+
+  /** Number of certificates at or above which parsing is done in parallel */
+  static final int PARALLEL_THRESHOLD = 64;
+
+  private final char[] password;
+
+  private final List<byte[]> certificates = new ArrayList<>();
+
+  private byte[] privateKey;
+
+  private boolean privateKeyEncrypted;
+
+  /**
+   * Constructs a new loader.
+   * @param password password for an encrypted private key, and which will
+   *    protect the private key in the resulting key store; may be
+   *    {@code null}
+   */
+  PemKeyStoreLoader(char[] password) {
+    this.password = password != null ? password : new char[0];
+  }
+
+  /**
+   * Reads PEM content.
+   * <p>
+   * This method may be invoked more than once to read content from several
+   * sources; certificates are retained in the order they are read.
+   * @param inputStream stream from which PEM content will be read
+   * @return this loader
+   * @throws IOException if an error occurs in reading the content, or the
+   *    content contains an unsupported or malformed block
+   */
+  public PemKeyStoreLoader read(InputStream inputStream) throws IOException {
+    final BufferedReader reader = new BufferedReader(
+        new InputStreamReader(inputStream, StandardCharsets.US_ASCII));
+    StringBuilder body = null;
+    String label = null;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      line = line.trim();
+      if (label == null) {
+        if (line.startsWith(BEGIN)) {
+          label = label(line, BEGIN);
+          body = new StringBuilder();
+        }
+      }
+      else if (line.startsWith(END)) {
+        if (!label.equals(label(line, END))) {
+          throw new IOException("mismatched PEM boundary for " + label);
+        }
+        addBlock(label, decode(label, body));
+        label = null;
+      }
+      else {
+        body.append(line);
+      }
+    }
+    if (label != null) {
+      throw new IOException("unterminated PEM block for " + label);
+    }
+    return this;
+  }
+
+  private static String label(String line, String boundary) throws IOException {
+    if (!line.endsWith("-----") || line.length() < boundary.length() + 5) {
+      throw new IOException("malformed PEM boundary: " + line);
+    }
+    return line.substring(boundary.length(), line.length() - 5);
+  }
+
+  private static byte[] decode(String label, StringBuilder body)
+      throws IOException {
+    try {
+      return Base64.getMimeDecoder().decode(body.toString());
+    }
+    catch (IllegalArgumentException ex) {
+      throw new IOException("malformed PEM content for " + label, ex);
+    }
+  }
+
+  private void addBlock(String label, byte[] der) throws IOException {
+    switch (label) {
+      case CERTIFICATE:
+        certificates.add(der);
+        break;
+      case PRIVATE_KEY:
+      case ENCRYPTED_PRIVATE_KEY:
+        if (privateKey != null) {
+          throw new IOException("PEM content contains more than one private key");
+        }
+        privateKey = der;
+        privateKeyEncrypted = label.equals(ENCRYPTED_PRIVATE_KEY);
+        break;
+      default:
+        throw new IOException("unsupported PEM content type: " + label
+            + " (private keys must be in PKCS#8 format)");
+    }
+  }
+
+  /**
+   * Creates a key store containing the content that has been read.
+   * @return key store
+   * @throws GeneralSecurityException if the content cannot be parsed as
+   *    certificates and a private key, or (as a
+   *    {@link CertificateException}) if the private key does not match the
+   *    public key of any certificate
+   * @throws IOException if an error occurs in initializing the key store
+   */
+  public KeyStore load() throws GeneralSecurityException, IOException {
+    final Certificate[] chain = parseCertificates();
+    final KeyStore keyStore = KeyStore.getInstance(STORE_TYPE);
+    keyStore.load(null, null);
+    if (privateKey != null) {
+      if (chain.length == 0) {
+        throw new CertificateException(
+            "private key has no corresponding certificate");
+      }
+      final PrivateKey key =
+          parsePrivateKey(chain[0].getPublicKey().getAlgorithm());
+      keyStore.setKeyEntry(KEY_ALIAS, key, password,
+          orderChain(chain, leafIndex(chain, key)));
+    }
+    else {
+      for (int i = 0; i < chain.length; i++) {
+        keyStore.setCertificateEntry(CERTIFICATE_ALIAS_PREFIX + i, chain[i]);
+      }
+    }
+    return keyStore;
+  }
+
+  /**
+   * Finds the certificate whose public key matches a private key.
+   * @param chain the certificates that were read
+   * @param key the private key
+   * @return index of the matching certificate in {@code chain}
+   * @throws CertificateException if no certificate matches the key
+   */
+  private static int leafIndex(Certificate[] chain, PrivateKey key)
+      throws GeneralSecurityException {
+    for (int i = 0; i < chain.length; i++) {
+      if (matches(key, chain[i].getPublicKey())) return i;
+    }
+    throw new CertificateException(
+        "private key does not match the public key of any certificate");
+  }
+
+  private static boolean matches(PrivateKey key, PublicKey publicKey)
+      throws GeneralSecurityException {
+    if (key instanceof RSAKey && publicKey instanceof RSAKey) {
+      return ((RSAKey) key).getModulus().equals(
+          ((RSAKey) publicKey).getModulus());
+    }
+    final Signature signature =
+        Signature.getInstance(signatureAlgorithm(key.getAlgorithm()));
+    try {
+      signature.initSign(key);
+      signature.update(PROBE);
+      final byte[] signed = signature.sign();
+      signature.initVerify(publicKey);
+      signature.update(PROBE);
+      return signature.verify(signed);
+    }
+    catch (InvalidKeyException | SignatureException ex) {
+      return false;
+    }
+  }
+
+  private static String signatureAlgorithm(String keyAlgorithm) {
+    switch (keyAlgorithm) {
+      case "EC":
+        return "SHA256withECDSA";
+      case "DSA":
+        return "SHA256withDSA";
+      default:
+        return keyAlgorithm;
+    }
+  }
+
+  /**
+   * Orders certificates so that the leaf is followed by its issuers.
+   * @param chain the certificates that were read
+   * @param leaf index of the certificate that matches the private key
+   * @return ordered certificates
+   */
+  private static Certificate[] orderChain(Certificate[] chain, int leaf) {
+    final List<Certificate> remaining = new ArrayList<>(Arrays.asList(chain));
+    final List<Certificate> ordered = new ArrayList<>(chain.length);
+    Certificate current = remaining.remove(leaf);
+    while (current != null) {
+      ordered.add(current);
+      current = removeIssuer(remaining, current);
+    }
+    ordered.addAll(remaining);
+    return ordered.toArray(new Certificate[ordered.size()]);
+  }
+
+  private static Certificate removeIssuer(List<Certificate> certificates,
+      Certificate subject) {
+    if (!(subject instanceof X509Certificate)) return null;
+    final X509Certificate x509 = (X509Certificate) subject;
+    if (x509.getIssuerX500Principal().equals(
+        x509.getSubjectX500Principal())) {
+      return null;
+    }
+    for (final Iterator<Certificate> i = certificates.iterator();
+         i.hasNext(); ) {
+      final Certificate candidate = i.next();
+      if (candidate instanceof X509Certificate
+          && ((X509Certificate) candidate).getSubjectX500Principal()
+              .equals(x509.getIssuerX500Principal())) {
+        i.remove();
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  private Certificate[] parseCertificates() throws CertificateException {
+    final Certificate[] result = new Certificate[certificates.size()];
+    if (result.length < PARALLEL_THRESHOLD) {
+      final CertificateFactory factory = CertificateFactory.getInstance("X.509");
+      for (int i = 0; i < result.length; i++) {
+        result[i] = factory.generateCertificate(
+            new ByteArrayInputStream(certificates.get(i)));
+      }
+      return result;
+    }
+
+    // CertificateFactory is not thread safe, so each worker uses its own
+    final ThreadLocal<CertificateFactory> factories =
+        new ThreadLocal<CertificateFactory>() {
+          @Override
+          protected CertificateFactory initialValue() {
+            try {
+              return CertificateFactory.getInstance("X.509");
+            }
+            catch (CertificateException ex) {
+              throw new SSLRuntimeException(ex);
+            }
+          }
+        };
+    try {
+      IntStream.range(0, result.length).parallel().forEach(i -> {
+        try {
+          result[i] = factories.get().generateCertificate(
+              new ByteArrayInputStream(certificates.get(i)));
+        }
+        catch (CertificateException ex) {
+          throw new SSLRuntimeException(ex);
+        }
+      });
+    }
+    catch (SSLRuntimeException ex) {
+      if (ex.getCause() instanceof CertificateException) {
+        throw (CertificateException) ex.getCause();
+      }
+      throw ex;
+    }
+    return result;
+  }
+
+  private PrivateKey parsePrivateKey(String algorithm)
+      throws GeneralSecurityException, IOException {
+    final KeySpec keySpec = privateKeyEncrypted ?
+        decrypt(privateKey) : new PKCS8EncodedKeySpec(privateKey);
+    try {
+      return KeyFactory.getInstance(algorithm).generatePrivate(keySpec);
+    }
+    catch (GeneralSecurityException ex) {
+      for (final String candidate : KEY_ALGORITHMS) {
+        if (candidate.equals(algorithm)) continue;
+        try {
+          return KeyFactory.getInstance(candidate).generatePrivate(keySpec);
+        }
+        catch (GeneralSecurityException cex) {
+          assert true;  // try the next candidate
+        }
+      }
+      throw ex;
+    }
+  }
+
+  private PKCS8EncodedKeySpec decrypt(byte[] der)
+      throws GeneralSecurityException, IOException {
+    final EncryptedPrivateKeyInfo info = new EncryptedPrivateKeyInfo(der);
+    final String algorithm = info.getAlgParameters() != null ?
+        info.getAlgParameters().toString() : info.getAlgName();
+    final Key key = SecretKeyFactory.getInstance(algorithm)
+        .generateSecret(new PBEKeySpec(password));
+    final Cipher cipher = Cipher.getInstance(algorithm);
+    cipher.init(Cipher.DECRYPT_MODE, key, info.getAlgParameters());
+    return info.getKeySpec(cipher);
+  }
+
+}
@@ -0,0 +1,253 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.net.Socket;
+import java.security.KeyStore;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedKeyManager;
+
+/**
+ * An {@link X509ExtendedKeyManager} that replaces its delegate whenever a
+ * monitored key store is reloaded.
+ * <p>
+ * A handshake obtains an alias from one of the {@code choose*Alias} methods
+ * and later uses it to retrieve the corresponding private key and
+ * certificate chain. So that a handshake that is in progress when the
+ * delegate is replaced continues to use the credential it selected, each
+ * alias returned by this manager is qualified with the generation of the
+ * delegate that produced it, and the current and immediately preceding
+ * delegates are retained.
+ *
+ * @author Carl Harris
+ */
+class ReloadingX509KeyManager extends X509ExtendedKeyManager
+    implements KeyStoreMonitor.Listener {
+
+  private static final char GENERATION_DELIMITER = ':';
+
+  /**
+   * A factory that creates a delegate key manager for a key store.
+   */
+  interface Factory {
+
+    /**
+     * Creates a key manager for the given key store.
+     * @param keyStore the key store
+     * @param keyPassword password for the private keys in the key store
+     * @return key manager
+     * @throws Exception if the key manager cannot be created
+     */
+    X509ExtendedKeyManager newKeyManager(KeyStore keyStore,
+        char[] keyPassword) throws Exception;
+
+  }
+
+  private final Factory factory;
+
+  private final char[] keyPassword;
+
+  private volatile Generation current;
+  private volatile Generation previous;
+
+  /**
+   * Constructs a new key manager and registers it with the given monitor.
+   * @param monitor key store monitor
+   * @param keyPassword password for the private keys in the key store
+   * @throws Exception if a key manager cannot be created for the monitor's
+   *    current key store
+   */
+  ReloadingX509KeyManager(KeyStoreMonitor monitor, char[] keyPassword)
+      throws Exception {
+    this(monitor, keyPassword, ReloadingX509KeyManager::newKeyManager);
+  }
+
+  /**
+   * Constructs a new key manager that uses the given factory to create its
+   * delegate, and registers it with the given monitor.
+   * @param monitor key store monitor
+   * @param keyPassword password for the private keys in the key store
+   * @param factory delegate factory
+   * @throws Exception if a key manager cannot be created for the monitor's
+   *    current key store
+   */
+  ReloadingX509KeyManager(KeyStoreMonitor monitor, char[] keyPassword,
+      Factory factory) throws Exception {
+    this.factory = factory;
+    this.keyPassword = keyPassword;
+    this.current = new Generation(0,
+        factory.newKeyManager(monitor.getKeyStore(), keyPassword));
+    monitor.addListener(this);
+  }
+
+  @Override
+  public void keyStoreChanged(KeyStore keyStore) throws Exception {
+    final X509ExtendedKeyManager delegate =
+        factory.newKeyManager(keyStore, keyPassword);
+    synchronized (this) {
+      previous = current;
+      current = new Generation(current.id + 1, delegate);
+    }
+  }
+
+  /**
+   * Creates a key manager for a key store using the default key manager
+   * factory algorithm.
+   * @param keyStore the key store
+   * @param keyPassword password for the private keys in the key store
+   * @return key manager
+   * @throws Exception if the key manager cannot be created
+   */
+  static X509ExtendedKeyManager newKeyManager(KeyStore keyStore,
+      char[] keyPassword) throws Exception {
+    final KeyManagerFactory kmf = KeyManagerFactory.getInstance(
+        KeyManagerFactory.getDefaultAlgorithm());
+    kmf.init(keyStore, keyPassword);
+    for (final KeyManager keyManager : kmf.getKeyManagers()) {
+      if (keyManager instanceof X509ExtendedKeyManager) {
+        return (X509ExtendedKeyManager) keyManager;
+      }
+    }
+    throw new SSLRuntimeException("no X.509 key manager is available");
+  }
+
+  @Override
+  public String[] getClientAliases(String keyType, Principal[] issuers) {
+    final Generation generation = current;
+    return generation.qualify(
+        generation.delegate.getClientAliases(keyType, issuers));
+  }
+
+  @Override
+  public String chooseClientAlias(String[] keyTypes, Principal[] issuers,
+      Socket socket) {
+    final Generation generation = current;
+    return generation.qualify(
+        generation.delegate.chooseClientAlias(keyTypes, issuers, socket));
+  }
+
+  @Override
+  public String chooseEngineClientAlias(String[] keyTypes,
+      Principal[] issuers, SSLEngine engine) {
+    final Generation generation = current;
+    return generation.qualify(generation.delegate.chooseEngineClientAlias(
+        keyTypes, issuers, engine));
+  }
+
+  @Override
+  public String[] getServerAliases(String keyType, Principal[] issuers) {
+    final Generation generation = current;
+    return generation.qualify(
+        generation.delegate.getServerAliases(keyType, issuers));
+  }
+
+  @Override
+  public String chooseServerAlias(String keyType, Principal[] issuers,
+      Socket socket) {
+    final Generation generation = current;
+    return generation.qualify(
+        generation.delegate.chooseServerAlias(keyType, issuers, socket));
+  }
+
+  @Override
+  public String chooseEngineServerAlias(String keyType, Principal[] issuers,
+      SSLEngine engine) {
+    final Generation generation = current;
+    return generation.qualify(generation.delegate.chooseEngineServerAlias(
+        keyType, issuers, engine));
+  }
+
+  @Override
+  public X509Certificate[] getCertificateChain(String alias) {
+    final Generation generation = generationOf(alias);
+    if (generation == null) return null;
+    return generation.delegate.getCertificateChain(unqualify(alias));
+  }
+
+  @Override
+  public PrivateKey getPrivateKey(String alias) {
+    final Generation generation = generationOf(alias);
+    if (generation == null) return null;
+    return generation.delegate.getPrivateKey(unqualify(alias));
+  }
+
+  /**
+   * Finds the generation that produced a qualified alias.
+   * @param alias qualified alias
+   * @return generation or {@code null} if the alias is unqualified or the
+   *    generation that produced it has been discarded
+   */
+  private Generation generationOf(String alias) {
+    if (alias == null) return null;
+    final int index = alias.indexOf(GENERATION_DELIMITER);
+    if (index == -1) return null;
+    final int id;
+    try {
+      id = Integer.parseInt(alias.substring(0, index));
+    }
+    catch (NumberFormatException ex) {
+      return null;
+    }
+    final Generation current = this.current;
+    if (current.id == id) return current;
+    final Generation previous = this.previous;
+    if (previous != null && previous.id == id) return previous;
+    return null;
+  }
+
+  private static String unqualify(String alias) {
+    return alias.substring(alias.indexOf(GENERATION_DELIMITER) + 1);
+  }
+
+  /**
+   * A delegate key manager and the generation number assigned to it.
+   */
+  private static class Generation {
+
+    final int id;
+    final X509ExtendedKeyManager delegate;
+
+    Generation(int id, X509ExtendedKeyManager delegate) {
+      this.id = id;
+      this.delegate = delegate;
+    }
+
+    String qualify(String alias) {
+      return alias != null ? id + String.valueOf(GENERATION_DELIMITER) + alias
+          : null;
+    }
+
+    String[] qualify(String[] aliases) {
+      if (aliases == null) return null;
+      final String[] qualified = new String[aliases.length];
+      for (int i = 0; i < aliases.length; i++) {
+        qualified[i] = qualify(aliases[i]);
+      }
+      return qualified;
+    }
+
+  }
+
+}
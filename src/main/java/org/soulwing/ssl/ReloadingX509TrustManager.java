@@ -0,0 +1,148 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.net.Socket;
+import java.security.KeyStore;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509ExtendedTrustManager;
+
+/**
+ * An {@link X509ExtendedTrustManager} that replaces its delegate whenever a
+ * monitored trust store is reloaded.
+ * <p>
+ * The replacement delegate is constructed on the monitor's thread and
+ * published through a volatile reference, so that validation of a peer's
+ * certificate chain never waits on file I/O or trust manager initialization.
+ *
+ * @author Carl Harris
+ */
+class ReloadingX509TrustManager extends X509ExtendedTrustManager
+    implements KeyStoreMonitor.Listener {
+
+  /**
+   * A factory that creates a delegate trust manager for a trust store.
+   */
+  interface Factory {
+
+    /**
+     * Creates a trust manager for the given trust store.
+     * @param trustStore the trust store
+     * @return trust manager
+     * @throws Exception if the trust manager cannot be created
+     */
+    X509ExtendedTrustManager newTrustManager(KeyStore trustStore)
+        throws Exception;
+
+  }
+
+  private final Factory factory;
+
+  private volatile X509ExtendedTrustManager delegate;
+
+  /**
+   * Constructs a new trust manager and registers it with the given monitor.
+   * @param monitor trust store monitor
+   * @throws Exception if a trust manager cannot be created for the monitor's
+   *    current trust store
+   */
+  ReloadingX509TrustManager(KeyStoreMonitor monitor) throws Exception {
+    this(monitor, ReloadingX509TrustManager::newTrustManager);
+  }
+
+  /**
+   * Constructs a new trust manager that uses the given factory to create
+   * its delegate, and registers it with the given monitor.
+   * @param monitor trust store monitor
+   * @param factory delegate factory
+   * @throws Exception if a trust manager cannot be created for the monitor's
+   *    current trust store
+   */
+  ReloadingX509TrustManager(KeyStoreMonitor monitor, Factory factory)
+      throws Exception {
+    this.factory = factory;
+    this.delegate = factory.newTrustManager(monitor.getKeyStore());
+    monitor.addListener(this);
+  }
+
+  @Override
+  public void keyStoreChanged(KeyStore keyStore) throws Exception {
+    delegate = factory.newTrustManager(keyStore);
+  }
+
+  private static X509ExtendedTrustManager newTrustManager(KeyStore trustStore)
+      throws Exception {
+    final TrustManagerFactory tmf = TrustManagerFactory.getInstance(
+        TrustManagerFactory.getDefaultAlgorithm());
+    tmf.init(trustStore);
+    for (final TrustManager trustManager : tmf.getTrustManagers()) {
+      if (trustManager instanceof X509ExtendedTrustManager) {
+        return (X509ExtendedTrustManager) trustManager;
+      }
+    }
+    throw new SSLRuntimeException("no X.509 trust manager is available");
+  }
+
+  @Override
+  public void checkClientTrusted(X509Certificate[] chain, String authType,
+      Socket socket) throws CertificateException {
+    delegate.checkClientTrusted(chain, authType, socket);
+  }
+
+  @Override
+  public void checkServerTrusted(X509Certificate[] chain, String authType,
+      Socket socket) throws CertificateException {
+    delegate.checkServerTrusted(chain, authType, socket);
+  }
+
+  @Override
+  public void checkClientTrusted(X509Certificate[] chain, String authType,
+      SSLEngine engine) throws CertificateException {
+    delegate.checkClientTrusted(chain, authType, engine);
+  }
+
+  @Override
+  public void checkServerTrusted(X509Certificate[] chain, String authType,
+      SSLEngine engine) throws CertificateException {
+    delegate.checkServerTrusted(chain, authType, engine);
+  }
+
+  @Override
+  public void checkClientTrusted(X509Certificate[] chain, String authType)
+      throws CertificateException {
+    delegate.checkClientTrusted(chain, authType);
+  }
+
+  @Override
+  public void checkServerTrusted(X509Certificate[] chain, String authType)
+      throws CertificateException {
+    delegate.checkServerTrusted(chain, authType);
+  }
+
+  @Override
+  public X509Certificate[] getAcceptedIssuers() {
+    return delegate.getAcceptedIssuers();
+  }
+
+}
@@ -18,6 +18,9 @@
  */
 package org.soulwing.ssl;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -25,14 +28,27 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Static utility methods for accessing file-like resources.
+ * <p>
+ * Resources whose URL refers to a file (including class path resources
+ * located in a directory) are read directly using {@code java.nio.file}; a
+ * small file is read in a single bulk operation, while a large file is
+ * mapped into memory. Resources at any other kind of URL are read through
+ * a buffered stream.
  *
  * @author Carl Harris
  */
 class ResourceAccessor {
 
+  /** Size at or above which a file is mapped rather than read */
+  static final int MAP_THRESHOLD = 1024 * 1024;
+
   /**
    * Gets a URL for a resource.
    * <p>
@@ -134,7 +150,7 @@ class ResourceAccessor {
       throws MalformedURLException, IOException {
     URL location = getResource(uri);
     assertNotNull(location, new FileNotFoundException(uri.toString()));
-    return location.openStream();
+    return openStream(location);
   }
   
   /**
@@ -147,7 +163,7 @@ class ResourceAccessor {
    */
   public static InputStream getResourceAsStream(URL location)
       throws MalformedURLException, IOException {
-    return location.openStream();
+    return openStream(location);
   }
 
   /**
@@ -163,7 +179,7 @@ class ResourceAccessor {
     URL location = getResource(name, relativeToClass);
     assertNotNull(location, new FileNotFoundException(
         relativeToClass.getPackage().getName() + "." + name));
-    return location.openStream();
+    return openStream(location);
   }
 
   /**
@@ -177,7 +193,44 @@ class ResourceAccessor {
       ClassLoader classLoader) throws IOException {
     URL location = getResource(name, classLoader);
     assertNotNull(location, new FileNotFoundException(name));
-    return location.openStream();
+    return openStream(location);
+  }
+
+  /**
+   * Gets the entire content of a resource.
+   * @param location any URL supported by the JRE's URL loading system
+   * @return resource content
+   * @throws IOException
+   */
+  public static byte[] getResourceAsBytes(URL location) throws IOException {
+    final Path path = FileState.toPath(location);
+    if (path != null) {
+      return Files.readAllBytes(path);
+    }
+    try (InputStream inputStream = openStream(location)) {
+      final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      final byte[] buf = new byte[8192];
+      int numRead;
+      while ((numRead = inputStream.read(buf)) != -1) {
+        outputStream.write(buf, 0, numRead);
+      }
+      return outputStream.toByteArray();
+    }
+  }
+
+  private static InputStream openStream(URL location) throws IOException {
+    final Path path = FileState.toPath(location);
+    if (path == null) {
+      return new BufferedInputStream(location.openStream());
+    }
+    try (FileChannel channel = FileChannel.open(path,
+        StandardOpenOption.READ)) {
+      if (channel.size() >= MAP_THRESHOLD) {
+        return new ByteBufferInputStream(channel.map(
+            FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+      }
+    }
+    return new ByteArrayInputStream(Files.readAllBytes(path));
   }
 
   private static void assertNotNull(URL location, IOException ex) 
@@ -18,9 +18,13 @@
  */
 package org.soulwing.ssl;
 
+import java.net.URI;
 import java.security.KeyStore;
 import java.security.Provider;
 import java.security.SecureRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLContext;
 
@@ -43,6 +47,31 @@ public interface SSLContextBuilder {
     REQUIRED
   }
 
+  /**
+   * An enumeration of cipher suite profiles.
+   * <p>
+   * Each profile prefers AES-GCM cipher suites to ChaCha20-Poly1305 cipher
+   * suites when the processor has AES instructions, and vice versa.
+   */
+  enum CipherSuiteProfile {
+    /**
+     * Enables only AEAD cipher suites with forward secrecy, preferring the
+     * fastest cipher and then the smallest key
+     */
+    THROUGHPUT,
+    /**
+     * Enables only AEAD cipher suites with elliptic curve (or TLS 1.3) key
+     * exchange, preferring the fastest key exchange and authentication
+     * (ECDSA before RSA) and then the fastest cipher
+     */
+    LOW_LATENCY,
+    /**
+     * Enables all cipher suites, preferring AEAD cipher suites with forward
+     * secrecy and then the fastest cipher
+     */
+    COMPAT
+  }
+
   /**
    * Specifies the name of the secure socket protocol this context will use.
    * @param protocol protocol name
@@ -161,6 +190,42 @@ public interface SSLContextBuilder {
    */
   SSLContextBuilder includeCipherSuites(String... cipherSuites);
 
+  /**
+   * Specifies a cipher suite profile that filters and orders the enabled
+   * cipher suites for performance.
+   * <p>
+   * The profile is applied to the cipher suites that result from the
+   * included and excluded cipher suites (or the default cipher suites, if
+   * none are included or excluded). Among cipher suites that the profile
+   * ranks equally, the order of the included cipher suites is retained.
+   * The server's order of preference is enforced, so that the profile
+   * determines the cipher suite selected by a server for any client.
+   * <p>
+   * Whether the processor has AES instructions is determined by asking the
+   * JVM. A profile may leave no cipher suites enabled if it is combined
+   * with restrictive inclusions.
+   * @param profile the cipher suite profile
+   * @return this builder
+   */
+  SSLContextBuilder cipherSuiteProfile(CipherSuiteProfile profile);
+
+  /**
+   * Specifies a cipher suite profile that filters and orders the enabled
+   * cipher suites for performance, optionally using a benchmark to choose
+   * between AES-GCM and ChaCha20-Poly1305 cipher suites.
+   * <p>
+   * The benchmark encrypts a buffer using each cipher for a few tens of
+   * milliseconds, the first time a context is initialized with a benchmarked
+   * profile. Its result is then used for all such contexts.
+   * @param profile the cipher suite profile
+   * @param benchmark {@code true} to benchmark the ciphers, rather than
+   *    asking the JVM whether the processor has AES instructions
+   * @return this builder
+   * @see #cipherSuiteProfile(CipherSuiteProfile)
+   */
+  SSLContextBuilder cipherSuiteProfile(CipherSuiteProfile profile,
+      boolean benchmark);
+
   /**
    * Specifies whether client authentication should be performed on SSL server
    * sockets produced by a factory created from the resulting context.
@@ -234,6 +299,231 @@ public interface SSLContextBuilder {
    */
   SSLContextBuilder peerTrust(KeyStore trustStore);
 
+  /**
+   * Specifies that successful validations of peer certificate chains
+   * should be cached, so that a chain presented again by a peer is not
+   * validated again.
+   * <p>
+   * A cached result is used only for the same chain and authentication
+   * type, and (when endpoint identification is enabled) the same peer
+   * host. It expires when any certificate in the chain expires or when
+   * {@code timeToLive} has elapsed, whichever is earlier, and all results
+   * are discarded when a trust store that is reloaded on change is
+   * reloaded. Note that a revoked certificate may continue to be accepted
+   * until its cached result expires.
+   * @param maxSize maximum number of cached results
+   * @param timeToLive maximum time for which a result is cached
+   * @param unit unit for {@code timeToLive}
+   * @return this builder
+   */
+  SSLContextBuilder peerTrustCache(int maxSize, long timeToLive,
+      TimeUnit unit);
+
+  /**
+   * Specifies that the credential presented by a server should be selected
+   * using the host name that the client requests via the server name
+   * indication (SNI) extension.
+   * <p>
+   * Every private key entry in the credential key store is indexed by the
+   * DNS subject alternative names of its certificate (or by its common name,
+   * if it has none), including wildcard names such as
+   * {@code *.example.com}. For each handshake, the credential is found by
+   * looking up the requested host name in the index, so that a single
+   * server can efficiently serve many virtual hosts, each with its own
+   * certificate. If the client requests no host name, or the requested name
+   * is not in the index, the first entry (in alias order) with a suitable
+   * key type is used.
+   * <p>
+   * All private keys in the key store must use the same password.
+   * @return this builder
+   */
+  SSLContextBuilder credentialIndex();
+
+  /**
+   * Specifies that the aliases of the credentials chosen for handshakes
+   * should be memoized.
+   * <p>
+   * The JDK's key managers examine every entry in the credential key store
+   * each time a credential is chosen. When the credential key store
+   * contains many entries, memoizing the chosen alias for each combination
+   * of key type, acceptable issuers, requested server name, protocol,
+   * signature algorithms supported by the peer, and algorithm constraints
+   * avoids this cost for all but the first of a series of similar
+   * handshakes. A memoized alias is discarded when its certificate expires,
+   * and all are discarded when a credential key store that is reloaded on
+   * change is reloaded. When no credential is suitable, nothing is
+   * memoized.
+   * @return this builder
+   */
+  SSLContextBuilder credentialSelectionCache();
+
+  /**
+   * Specifies the alias of the credential key store entry to use for all
+   * handshakes.
+   * <p>
+   * The entry is used whenever the key manager lists it among the entries
+   * for the type of key requested for a handshake; no other entry is ever
+   * used. This works with both the {@code SunX509} and {@code PKIX} key
+   * manager algorithms.
+   * The choice is memoized as described for
+   * {@link #credentialSelectionCache()}.
+   * @param alias alias of the key store entry
+   * @return this builder
+   */
+  SSLContextBuilder credentialAlias(String alias);
+
+  /**
+   * Specifies that the revocation status of a peer's certificate should be
+   * checked using OCSP, without delaying handshakes.
+   * <p>
+   * OCSP responses are fetched and verified in the background and their
+   * statuses are cached, so that a handshake never waits for a responder.
+   * A peer's certificate is rejected if its cached status shows that it is
+   * revoked. If its status is not yet known (e.g. the first time it is
+   * seen, or if its responder is slow or unavailable), the certificate is
+   * accepted while a response is fetched. A cached status is used until
+   * the {@code nextUpdate} time of its response, and a new response is
+   * fetched before then for certificates that are still in use.
+   * <p>
+   * Only the peer's own certificate is checked, not the certificates of
+   * intermediate certification authorities. The responder is the one
+   * named in the certificate's authority information access extension,
+   * unless overridden using {@link #ocspResponder(URI)}.
+   * @param maxSize maximum number of cached statuses
+   * @param timeout timeout for connecting to and reading a response from a
+   *    responder
+   * @param unit unit for {@code timeout}
+   * @return this builder
+   */
+  SSLContextBuilder ocspRevocationCheck(int maxSize, long timeout,
+      TimeUnit unit);
+
+  /**
+   * Specifies an OCSP responder to use in place of the responders named in
+   * certificates, both when checking the revocation status of a peer's
+   * certificate and when fetching OCSP responses to staple.
+   * <p>
+   * When used with {@link #ocspStapling(int, long, TimeUnit)}, this option
+   * is applied by means of system properties, as described for that
+   * method.
+   * @param responder URI of the responder
+   * @return this builder
+   */
+  SSLContextBuilder ocspResponder(URI responder);
+
+  /**
+   * Specifies that a server should staple OCSP responses for its own
+   * certificates to its handshakes, so that clients need not contact the
+   * responder themselves.
+   * <p>
+   * Stapling is performed by the JDK, which fetches a response when a
+   * client requests one and caches it until its {@code nextUpdate} time or
+   * until the given lifetime has elapsed, whichever is earlier. So that the
+   * first clients need not wait while responses are fetched, when the
+   * context is built, a response is fetched for each certificate in the
+   * credential key store.
+   * <p>
+   * The JDK is configured only by means of the
+   * {@code jdk.tls.server.enableStatusRequestExtension} and
+   * {@code jdk.tls.stapling.*} system properties, which are global to the
+   * JVM. The builder sets these properties only while the context is
+   * created and while the responses are fetched when it is built, and then
+   * restores their previous values, so other contexts in the JVM are not
+   * affected. Properties for options that are not specified keep their
+   * existing values (e.g. those given on the command line). If the context
+   * has no credential key store, no responses are fetched when it is built,
+   * and the JDK's configuration for the JVM is used instead of the cache
+   * size, lifetime, and responder given to the builder.
+   * @param cacheSize maximum number of cached responses
+   * @param cacheLifetime maximum time for which a response is cached
+   *    (rounded up to at least one second)
+   * @param unit unit for {@code cacheLifetime}
+   * @return this builder
+   * @see #ocspStaplingTimeout(long, TimeUnit)
+   * @see #ocspResponder(URI)
+   */
+  SSLContextBuilder ocspStapling(int cacheSize, long cacheLifetime,
+      TimeUnit unit);
+
+  /**
+   * Specifies the time a server handshake may wait for an OCSP response
+   * to staple to be fetched. If the response is not fetched in time, the
+   * handshake proceeds without it. If not specified, the JDK's timeout
+   * (5 seconds, unless set using the
+   * {@code jdk.tls.stapling.responseTimeout} system property) is used.
+   * <p>
+   * The JDK reads its timeout for every handshake, from a system property
+   * that is global to the JVM. So that other contexts are not affected,
+   * this option applies only to the handshakes that fetch responses when
+   * the context is built; to change the timeout for every handshake, set
+   * the {@code jdk.tls.stapling.responseTimeout} system property instead.
+   * @param timeout the timeout
+   * @param unit unit for {@code timeout}
+   * @return this builder
+   * @see #ocspStapling(int, long, TimeUnit)
+   */
+  SSLContextBuilder ocspStaplingTimeout(long timeout, TimeUnit unit);
+
+  /**
+   * Specifies that peer certificate chains should be validated using an
+   * index of the certificates in the peer trust store, rather than the
+   * JDK's default trust manager.
+   * <p>
+   * The trusted certificates are indexed by subject name and subject key
+   * identifier, and each is decoded only when it is first needed as the
+   * issuer of a peer's certificate chain. This keeps the time needed to
+   * create the trust manager, the memory it uses, and the time needed to
+   * find the issuer of a chain from growing in proportion to the number of
+   * trusted certificates, which can be significant for trust stores that
+   * contain thousands of certificates.
+   * <p>
+   * Chains are validated using the PKIX certification path validator.
+   * Revocation is checked only if the {@code com.sun.net.ssl.checkRevocation}
+   * system property is {@code true}, and the host name of a server is
+   * verified if an endpoint identification algorithm ({@code HTTPS} or
+   * {@code LDAPS}) is set in the SSL parameters.
+   * @return this builder
+   */
+  SSLContextBuilder peerTrustIndex();
+
+  /**
+   * Specifies the maximum number of sessions to retain in the server session
+   * cache of the resulting context.
+   * <p>
+   * Sessions retained in the cache can be resumed by a client using an
+   * abbreviated handshake.
+   * @param size maximum number of cached sessions; zero means no limit
+   * @return this builder
+   */
+  SSLContextBuilder serverSessionCacheSize(int size);
+
+  /**
+   * Specifies the time after which a session in the server session cache of
+   * the resulting context expires.
+   * @param seconds session timeout in seconds; zero means no limit
+   * @return this builder
+   */
+  SSLContextBuilder serverSessionTimeout(int seconds);
+
+  /**
+   * Specifies the maximum number of sessions to retain in the client session
+   * cache of the resulting context.
+   * <p>
+   * Sessions retained in the cache can be resumed when reconnecting to the
+   * same peer host and port.
+   * @param size maximum number of cached sessions; zero means no limit
+   * @return this builder
+   */
+  SSLContextBuilder clientSessionCacheSize(int size);
+
+  /**
+   * Specifies the time after which a session in the client session cache of
+   * the resulting context expires.
+   * @param seconds session timeout in seconds; zero means no limit
+   * @return this builder
+   */
+  SSLContextBuilder clientSessionTimeout(int seconds);
+
   /**
    * Specifies a secure random number generator for use by the resulting context.
    * @param secureRandom secure random instance
@@ -241,6 +531,17 @@ public interface SSLContextBuilder {
    */
   SSLContextBuilder secureRandom(SecureRandom secureRandom);
 
+  /**
+   * Specifies metrics to be collected for the sockets and engines produced
+   * by the resulting context.
+   * <p>
+   * By default, metrics are not collected, and sockets and engines are
+   * not wrapped.
+   * @param metrics metrics to update; may be shared by several contexts
+   * @return this builder
+   */
+  SSLContextBuilder metrics(SSLMetrics metrics);
+
   /**
    * Builds an SSL context according to the configuration of this builder.
    * @return SSL context
@@ -249,4 +550,35 @@ public interface SSLContextBuilder {
    */
   SSLContext build() throws SSLRuntimeException;
 
+  /**
+   * Builds an SSL context according to the configuration of this builder,
+   * deferring the loading of key and trust stores and the initialization
+   * of the context until it is first used.
+   * <p>
+   * The context is initialized when a socket factory, engine, or session
+   * context is first requested from it. Any error in loading the key and
+   * trust stores or initializing the context is reported at that point, as
+   * an {@link SSLRuntimeException} thrown by the method that requested it;
+   * initialization is attempted again on next use. This builder must not
+   * be modified after this method is invoked.
+   * @return SSL context
+   * @throws SSLRuntimeException if the underlying JCA provider does not
+   *   support the specified protocol
+   */
+  SSLContext buildLazily() throws SSLRuntimeException;
+
+  /**
+   * Builds an SSL context according to the configuration of this builder,
+   * using the given executor to concurrently load the key and trust stores
+   * and initialize the key and trust managers.
+   * <p>
+   * This builder must not be modified until the returned future completes.
+   * @param executor executor for the tasks that build the context
+   * @return future that completes with the SSL context; if the context
+   *   cannot be built it completes exceptionally with an
+   *   {@link SSLRuntimeException} (or another runtime exception) as the
+   *   cause
+   */
+  CompletableFuture<SSLContext> buildAsync(Executor executor);
+
 }
@@ -0,0 +1,300 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javax.net.ssl.SSLContext;
+
+/**
+ * A registry of named {@link SSLContext} objects shared by the components
+ * of an application.
+ * <p>
+ * When a context is registered, the registry computes a fingerprint of the
+ * builder's configuration: protocol, provider, protocol and cipher suite
+ * rules, client authentication, session settings, and the content of the
+ * key and trust stores. If a context with the same fingerprint is already
+ * registered (under any name), it is shared rather than building another
+ * context, so that equivalent configurations use a single context with a
+ * single session cache.
+ * <p>
+ * Each registration holds a reference to its context, and must be closed
+ * when the component that requested it no longer needs it. A context is
+ * evicted from the registry when its last registration is closed.
+ * <pre>
+ * SSLContextRegistry.Registration registration =
+ *     SSLContextRegistry.getInstance().register("ldap",
+ *         SSLContextBuilderFactory.newBuilder()
+ *             .peerTrust()
+ *                 .location("classpath:truststore.jks")
+ *                 .password("changeit")
+ *                 .end());
+ *
+ * SSLContext context = registration.getContext();
+ * ...
+ * registration.close();
+ * </pre>
+ *
+ * @author Carl Harris
+ */
+public class SSLContextRegistry {
+
+  /**
+   * A registration of a named context.
+   */
+  public interface Registration extends AutoCloseable {
+
+    /**
+     * Gets the name under which the context was registered.
+     * @return name
+     */
+    String getName();
+
+    /**
+     * Gets the registered context.
+     * @return context
+     */
+    SSLContext getContext();
+
+    /**
+     * Releases this registration. When the last registration for a context
+     * is closed, the context is evicted from the registry. Closing a
+     * registration more than once has no further effect.
+     */
+    @Override
+    void close();
+
+  }
+
+  private static final SSLContextRegistry instance = new SSLContextRegistry();
+
+  private final Map<String, Entry> entries = new HashMap<>();
+
+  private final Map<String, Entry> names = new HashMap<>();
+
+  /**
+   * Gets the process-wide registry instance.
+   * @return registry
+   */
+  public static SSLContextRegistry getInstance() {
+    return instance;
+  }
+
+  /**
+   * Registers a context under the given name, sharing an existing context
+   * if one with the same configuration is already registered.
+   * <p>
+   * The builder's key and trust stores are loaded when this method computes
+   * the fingerprint of its configuration (a builder that is not registered
+   * loads them when the context is built); when an existing context is
+   * shared, the key and trust manager factories are not initialized again
+   * and the builder is not used to build a context.
+   * @param name name for the context
+   * @param builder builder for the context
+   * @return registration which must be closed when the context is no longer
+   *    needed
+   * @throws SSLRuntimeException if the name is registered for a context with
+   *    a different configuration, or if the context cannot be built
+   */
+  public Registration register(String name, SSLContextBuilder builder)
+      throws SSLRuntimeException {
+    if (name == null) {
+      throw new NullPointerException("name is required");
+    }
+    if (!(builder instanceof ConcreteSSLContextBuilder)) {
+      throw new IllegalArgumentException("unsupported builder");
+    }
+    final ConcreteSSLContextBuilder concreteBuilder =
+        (ConcreteSSLContextBuilder) builder;
+    final String fingerprint = concreteBuilder.fingerprint();
+    final Entry entry;
+    synchronized (this) {
+      final Entry named = names.get(name);
+      if (named != null && !named.fingerprint.equals(fingerprint)) {
+        throw new SSLRuntimeException("context '" + name
+            + "' is registered with a different configuration");
+      }
+      Entry existing = entries.get(fingerprint);
+      if (existing == null) {
+        existing = new Entry(fingerprint, new FutureTask<>(
+            new Callable<SSLContext>() {
+              @Override
+              public SSLContext call() {
+                return concreteBuilder.build();
+              }
+            }));
+        entries.put(fingerprint, existing);
+      }
+      existing.retain(name);
+      names.put(name, existing);
+      entry = existing;
+    }
+
+    try {
+      return new ConcreteRegistration(name, entry, entry.getContext());
+    }
+    catch (RuntimeException ex) {
+      release(name, entry);
+      throw ex;
+    }
+  }
+
+  /**
+   * Gets the context registered under the given name.
+   * @param name name of the context
+   * @return context or {@code null} if no context is registered under
+   *    {@code name} (or if it failed to build)
+   */
+  public SSLContext get(String name) {
+    final Entry entry;
+    synchronized (this) {
+      entry = names.get(name);
+    }
+    if (entry == null) return null;
+    try {
+      return entry.getContext();
+    }
+    catch (SSLRuntimeException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Gets the number of distinct contexts in the registry.
+   * @return number of contexts
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private synchronized void release(String name, Entry entry) {
+    if (entry.release(name)) {
+      names.remove(name);
+    }
+    if (entry.isUnreferenced()) {
+      entries.remove(entry.fingerprint);
+    }
+  }
+
+  /**
+   * A registered context and the number of references to it, by name.
+   * <p>
+   * The context is built by the first thread to register it, outside of
+   * the registry's lock; concurrent registrations with the same
+   * fingerprint wait for that build to complete.
+   */
+  private static class Entry {
+
+    final String fingerprint;
+    final FutureTask<SSLContext> context;
+    final Map<String, Integer> references = new HashMap<>();
+
+    Entry(String fingerprint, FutureTask<SSLContext> context) {
+      this.fingerprint = fingerprint;
+      this.context = context;
+    }
+
+    void retain(String name) {
+      final Integer count = references.get(name);
+      references.put(name, count != null ? count + 1 : 1);
+    }
+
+    boolean release(String name) {
+      final int count = references.get(name) - 1;
+      if (count > 0) {
+        references.put(name, count);
+        return false;
+      }
+      references.remove(name);
+      return true;
+    }
+
+    boolean isUnreferenced() {
+      return references.isEmpty();
+    }
+
+    SSLContext getContext() throws SSLRuntimeException {
+      context.run();
+      boolean interrupted = false;
+      try {
+        while (true) {
+          try {
+            return context.get();
+          }
+          catch (InterruptedException ex) {
+            interrupted = true;
+          }
+          catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof SSLRuntimeException) {
+              throw (SSLRuntimeException) cause;
+            }
+            throw new SSLRuntimeException(cause);
+          }
+        }
+      }
+      finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+  }
+
+  private class ConcreteRegistration implements Registration {
+
+    private final String name;
+    private final Entry entry;
+    private final SSLContext context;
+
+    private boolean closed;
+
+    ConcreteRegistration(String name, Entry entry, SSLContext context) {
+      this.name = name;
+      this.entry = entry;
+      this.context = context;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public SSLContext getContext() {
+      return context;
+    }
+
+    @Override
+    public void close() {
+      synchronized (this) {
+        if (closed) return;
+        closed = true;
+      }
+      release(name, entry);
+    }
+
+  }
+
+}
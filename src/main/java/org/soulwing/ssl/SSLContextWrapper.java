@@ -35,4 +35,19 @@ class SSLContextWrapper extends SSLContext {
         delegate.getProtocol());
   }
 
+  protected SSLContextWrapper(SSLContext delegate,
+      SSLParametersConfiguration parameters,
+      DelegatingSSLContextSpi.Initializer initializer) {
+    this(delegate, parameters, initializer, null);
+  }
+
+  protected SSLContextWrapper(SSLContext delegate,
+      SSLParametersConfiguration parameters,
+      DelegatingSSLContextSpi.Initializer initializer, SSLMetrics metrics) {
+    super(new DelegatingSSLContextSpi(delegate, parameters, initializer,
+            metrics),
+        delegate.getProvider(),
+        delegate.getProtocol());
+  }
+
 }
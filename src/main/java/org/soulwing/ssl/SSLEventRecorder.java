@@ -0,0 +1,200 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.net.ssl.SSLSession;
+
+/**
+ * A recorder of JDK Flight Recorder events for context builds, key store
+ * loads, and handshakes.
+ * <p>
+ * This class records nothing; it is used as-is when the JDK Flight Recorder
+ * API ({@code jdk.jfr}) is not available in the runtime, so that this
+ * library continues to run on a Java 8 runtime without it. Otherwise, the
+ * singleton instance is a {@link JfrEventRecorder}. Each recording checks
+ * whether its event type is enabled when it begins, so that recording
+ * costs very little when the flight recorder is not recording.
+ *
+ * @author Carl Harris
+ */
+class SSLEventRecorder {
+
+  private static final Logger logger =
+      Logger.getLogger(SSLEventRecorder.class.getName());
+
+  private static final String JFR_EVENT_CLASS = "jdk.jfr.Event";
+
+  private static final SSLEventRecorder instance = newInstance();
+
+  /**
+   * Gets the singleton instance.
+   * @return recorder
+   */
+  public static SSLEventRecorder getInstance() {
+    return instance;
+  }
+
+  private static SSLEventRecorder newInstance() {
+    try {
+      Class.forName(JFR_EVENT_CLASS, false,
+          SSLEventRecorder.class.getClassLoader());
+      return new JfrEventRecorder();
+    }
+    catch (ClassNotFoundException | LinkageError ex) {
+      logger.log(Level.FINE, "flight recorder events are not available", ex);
+      return new SSLEventRecorder();
+    }
+  }
+
+  /**
+   * Tests whether this recorder can record events.
+   * @return {@code true} if events can be recorded (now or later)
+   */
+  public boolean isAvailable() {
+    return false;
+  }
+
+  /**
+   * Begins recording the build of a context.
+   * @param mode the manner in which the context is built; e.g. "eager"
+   * @return recording
+   */
+  public ContextBuild beginContextBuild(String mode) {
+    return ContextBuild.DISABLED;
+  }
+
+  /**
+   * Begins recording the load of a key store.
+   * @return recording
+   */
+  public KeyStoreLoad beginKeyStoreLoad() {
+    return KeyStoreLoad.DISABLED;
+  }
+
+  /**
+   * Tests whether handshake events are enabled.
+   * @return {@code true} if handshake events are currently recorded
+   */
+  public boolean isHandshakeEnabled() {
+    return false;
+  }
+
+  /**
+   * Begins recording a handshake.
+   * @return recording
+   */
+  public Handshake beginHandshake() {
+    return Handshake.DISABLED;
+  }
+
+  /**
+   * A recording of the build of a context.
+   */
+  static class ContextBuild {
+
+    static final ContextBuild DISABLED = new ContextBuild();
+
+    /**
+     * Records the time spent creating key managers.
+     * @param nanos elapsed time in nanoseconds
+     */
+    public void keyManagerTime(long nanos) {
+    }
+
+    /**
+     * Records the time spent creating trust managers.
+     * @param nanos elapsed time in nanoseconds
+     */
+    public void trustManagerTime(long nanos) {
+    }
+
+    /**
+     * Ends this recording.
+     * @param protocol context protocol
+     * @param provider name of the context's provider (may be {@code null})
+     * @param success whether the context was built successfully
+     */
+    public void end(String protocol, String provider, boolean success) {
+    }
+
+  }
+
+  /**
+   * A recording of the load of a key store.
+   */
+  static class KeyStoreLoad {
+
+    static final KeyStoreLoad DISABLED = new KeyStoreLoad();
+
+    /**
+     * Tests whether this recording is enabled.
+     * @return {@code true} if this recording will record an event
+     */
+    public boolean isEnabled() {
+      return false;
+    }
+
+    /**
+     * Records the number of bytes of content that were read.
+     * @param size number of bytes
+     */
+    public void size(long size) {
+    }
+
+    /**
+     * Ends this recording.
+     * @param location key store location
+     * @param type key store type
+     * @param cached whether the key store cache was used
+     * @param entryCount number of entries in the loaded key store, or -1
+     *    if the key store was not loaded
+     */
+    public void end(String location, String type, boolean cached,
+        int entryCount) {
+    }
+
+  }
+
+  /**
+   * A recording of a handshake.
+   */
+  static class Handshake {
+
+    static final Handshake DISABLED = new Handshake();
+
+    /**
+     * Ends this recording for a handshake that completed.
+     * @param session the negotiated session
+     * @param resumed whether the session was resumed
+     */
+    public void completed(SSLSession session, boolean resumed) {
+    }
+
+    /**
+     * Ends this recording for a handshake that failed.
+     */
+    public void failed() {
+    }
+
+  }
+
+}
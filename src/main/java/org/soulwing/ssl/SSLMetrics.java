@@ -0,0 +1,353 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.net.ssl.SSLSession;
+
+/**
+ * Handshake and traffic metrics for the sockets and engines produced by
+ * an SSL context.
+ * <p>
+ * Metrics are collected only for a context whose builder was given an
+ * instance of this class using {@link SSLContextBuilder#metrics}. A single
+ * instance may be shared by several contexts to aggregate their metrics.
+ * Counters are updated without locking, so that collection adds little
+ * cost to each handshake and each read or write of application data.
+ * <p>
+ * A handshake is counted as resumed if the negotiated session was created
+ * before the handshake began. Only the initial handshake on each socket or
+ * engine is counted. The bytes counted are application data bytes (i.e.
+ * plaintext) read and written.
+ * <pre>
+ * SSLMetrics metrics = new SSLMetrics();
+ * SSLContext context = SSLContextBuilderFactory.newBuilder()
+ *     ...
+ *     .metrics(metrics)
+ *     .build();
+ * ...
+ * SSLMetrics.Snapshot snapshot = metrics.snapshot();
+ * </pre>
+ *
+ * @author Carl Harris
+ */
+public class SSLMetrics {
+
+  private final LongAdder handshakesStarted = new LongAdder();
+  private final LongAdder handshakesCompleted = new LongAdder();
+  private final LongAdder handshakesFailed = new LongAdder();
+  private final LongAdder fullHandshakes = new LongAdder();
+  private final LongAdder resumedHandshakes = new LongAdder();
+  private final LongAdder bytesIn = new LongAdder();
+  private final LongAdder bytesOut = new LongAdder();
+
+  private final LatencyHistogram handshakeLatency = new LatencyHistogram();
+
+  private final ConcurrentMap<String, LongAdder> protocols =
+      new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, LongAdder> cipherSuites =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Creates a snapshot of the current values of these metrics.
+   * <p>
+   * The values in a snapshot are read individually while metrics continue
+   * to be collected, so they are not necessarily mutually consistent; e.g.
+   * a handshake that completes while the snapshot is taken may be counted
+   * as completed but not yet in the latency histogram.
+   * @return snapshot
+   */
+  public Snapshot snapshot() {
+    return new Snapshot(this);
+  }
+
+  void handshakeStarted() {
+    handshakesStarted.increment();
+  }
+
+  void handshakeCompleted(SSLSession session, long nanos, boolean resumed) {
+    handshakesCompleted.increment();
+    (resumed ? resumedHandshakes : fullHandshakes).increment();
+    handshakeLatency.record(nanos);
+    increment(protocols, session.getProtocol());
+    increment(cipherSuites, session.getCipherSuite());
+  }
+
+  void handshakeFailed() {
+    handshakesFailed.increment();
+  }
+
+  void bytesIn(long count) {
+    if (count > 0) bytesIn.add(count);
+  }
+
+  void bytesOut(long count) {
+    if (count > 0) bytesOut.add(count);
+  }
+
+  private static void increment(ConcurrentMap<String, LongAdder> counters,
+      String key) {
+    LongAdder counter = counters.get(key);
+    if (counter == null) {
+      counter = counters.computeIfAbsent(key, k -> new LongAdder());
+    }
+    counter.increment();
+  }
+
+  private static Map<String, Long> sums(Map<String, LongAdder> counters) {
+    final Map<String, Long> sums = new TreeMap<>();
+    for (final Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+      sums.put(entry.getKey(), entry.getValue().sum());
+    }
+    return Collections.unmodifiableMap(sums);
+  }
+
+  /**
+   * An immutable snapshot of {@link SSLMetrics}.
+   */
+  public static final class Snapshot {
+
+    private final long handshakesStarted;
+    private final long handshakesCompleted;
+    private final long handshakesFailed;
+    private final long fullHandshakes;
+    private final long resumedHandshakes;
+    private final long bytesIn;
+    private final long bytesOut;
+    private final Latency handshakeLatency;
+    private final Map<String, Long> protocols;
+    private final Map<String, Long> cipherSuites;
+
+    private Snapshot(SSLMetrics metrics) {
+      this.handshakesStarted = metrics.handshakesStarted.sum();
+      this.handshakesCompleted = metrics.handshakesCompleted.sum();
+      this.handshakesFailed = metrics.handshakesFailed.sum();
+      this.fullHandshakes = metrics.fullHandshakes.sum();
+      this.resumedHandshakes = metrics.resumedHandshakes.sum();
+      this.bytesIn = metrics.bytesIn.sum();
+      this.bytesOut = metrics.bytesOut.sum();
+      this.handshakeLatency = metrics.handshakeLatency.snapshot();
+      this.protocols = sums(metrics.protocols);
+      this.cipherSuites = sums(metrics.cipherSuites);
+    }
+
+    /**
+     * Gets the number of handshakes that were started.
+     * @return handshake count
+     */
+    public long getHandshakesStarted() {
+      return handshakesStarted;
+    }
+
+    /**
+     * Gets the number of handshakes that completed successfully.
+     * @return handshake count
+     */
+    public long getHandshakesCompleted() {
+      return handshakesCompleted;
+    }
+
+    /**
+     * Gets the number of handshakes that failed.
+     * @return handshake count
+     */
+    public long getHandshakesFailed() {
+      return handshakesFailed;
+    }
+
+    /**
+     * Gets the number of completed handshakes that established a new
+     * session.
+     * @return handshake count
+     */
+    public long getFullHandshakes() {
+      return fullHandshakes;
+    }
+
+    /**
+     * Gets the number of completed handshakes that resumed an existing
+     * session.
+     * @return handshake count
+     */
+    public long getResumedHandshakes() {
+      return resumedHandshakes;
+    }
+
+    /**
+     * Gets the number of application data bytes read.
+     * @return byte count
+     */
+    public long getBytesIn() {
+      return bytesIn;
+    }
+
+    /**
+     * Gets the number of application data bytes written.
+     * @return byte count
+     */
+    public long getBytesOut() {
+      return bytesOut;
+    }
+
+    /**
+     * Gets the distribution of the latency of completed handshakes.
+     * @return latency distribution in nanoseconds
+     */
+    public Latency getHandshakeLatency() {
+      return handshakeLatency;
+    }
+
+    /**
+     * Gets the number of completed handshakes for each negotiated protocol.
+     * @return map of protocol name to handshake count
+     */
+    public Map<String, Long> getProtocols() {
+      return protocols;
+    }
+
+    /**
+     * Gets the number of completed handshakes for each negotiated cipher
+     * suite.
+     * @return map of cipher suite name to handshake count
+     */
+    public Map<String, Long> getCipherSuites() {
+      return cipherSuites;
+    }
+
+    @Override
+    public String toString() {
+      final Map<String, Object> values = new LinkedHashMap<>();
+      values.put("handshakesStarted", handshakesStarted);
+      values.put("handshakesCompleted", handshakesCompleted);
+      values.put("handshakesFailed", handshakesFailed);
+      values.put("fullHandshakes", fullHandshakes);
+      values.put("resumedHandshakes", resumedHandshakes);
+      values.put("bytesIn", bytesIn);
+      values.put("bytesOut", bytesOut);
+      values.put("handshakeLatency", handshakeLatency);
+      values.put("protocols", protocols);
+      values.put("cipherSuites", cipherSuites);
+      return values.toString();
+    }
+
+  }
+
+  /**
+   * An immutable distribution of latency values.
+   * <p>
+   * Values are reported with a relative error of at most 1/32 (about 3%),
+   * except for the minimum and maximum which are exact.
+   */
+  public static final class Latency {
+
+    private final long[] counts;
+    private final long count;
+    private final long min;
+    private final long max;
+    private final double mean;
+
+    Latency(long[] counts, long count, long min, long max, double mean) {
+      this.counts = counts;
+      this.count = count;
+      this.min = min;
+      this.max = max;
+      this.mean = mean;
+    }
+
+    /**
+     * Gets the number of recorded values.
+     * @return count
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * Gets the smallest recorded value.
+     * @return minimum value or zero if no values were recorded
+     */
+    public long getMin() {
+      return min;
+    }
+
+    /**
+     * Gets the largest recorded value.
+     * @return maximum value or zero if no values were recorded
+     */
+    public long getMax() {
+      return max;
+    }
+
+    /**
+     * Gets the arithmetic mean of the recorded values.
+     * @return mean value or zero if no values were recorded
+     */
+    public double getMean() {
+      return mean;
+    }
+
+    /**
+     * Gets the value at a given percentile; i.e. the smallest value such
+     * that the given percentage of recorded values are less than or equal
+     * to it.
+     * @param percentile percentile in the range 0 to 100
+     * @return value at {@code percentile} or zero if no values were recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+      if (percentile < 0 || percentile > 100) {
+        throw new IllegalArgumentException(
+            "percentile must be in the range 0 to 100");
+      }
+      long total = 0;
+      for (final long c : counts) {
+        total += c;
+      }
+      if (total == 0) return 0;
+      final long target =
+          Math.max(1, (long) Math.ceil(percentile / 100 * total));
+      long cumulative = 0;
+      for (int i = 0; i < counts.length; i++) {
+        cumulative += counts[i];
+        if (cumulative >= target) {
+          return Math.max(min, Math.min(max,
+              LatencyHistogram.highestValueAt(i)));
+        }
+      }
+      return max;
+    }
+
+    @Override
+    public String toString() {
+      return "{count=" + count + ", min=" + min + ", mean=" + (long) mean
+          + ", p50=" + getValueAtPercentile(50)
+          + ", p99=" + getValueAtPercentile(99)
+          + ", max=" + max + "}";
+    }
+
+  }
+
+}
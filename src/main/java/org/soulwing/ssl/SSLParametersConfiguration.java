@@ -20,6 +20,8 @@ package org.soulwing.ssl;
 
 import javax.net.ssl.SSLParameters;
 
+import org.soulwing.ssl.SSLContextBuilder.CipherSuiteProfile;
+
 /**
  * A configuration to use in deriving an {@link SSLParameters} instance from
  * supported and default SSL parameters.
@@ -32,6 +34,10 @@ class SSLParametersConfiguration {
 
   private final OptionSet cipherSuiteOptions = new OptionSet();
 
+  private CipherSuiteProfile cipherSuiteProfile;
+
+  private boolean benchmarkCipherSuites;
+
   private Boolean wantClientAuth;
 
   private Boolean needClientAuth;
@@ -52,6 +58,12 @@ class SSLParametersConfiguration {
     cipherSuiteOptions.includeOptions(cipherSuites);
   }
 
+  public void setCipherSuiteProfile(CipherSuiteProfile profile,
+      boolean benchmark) {
+    this.cipherSuiteProfile = profile;
+    this.benchmarkCipherSuites = benchmark;
+  }
+
   public void setWantClientAuth(Boolean wantClientAuth) {
     this.wantClientAuth = wantClientAuth;
   }
@@ -66,9 +78,17 @@ class SSLParametersConfiguration {
     parameters.setProtocols(protocolOptions.enabledOptions(
         supportedParameters.getProtocols(),
         defaultParameters.getProtocols()));
-    parameters.setCipherSuites(cipherSuiteOptions.enabledOptions(
+    final String[] cipherSuites = cipherSuiteOptions.enabledOptions(
         supportedParameters.getCipherSuites(),
-        defaultParameters.getCipherSuites()));
+        defaultParameters.getCipherSuites());
+    if (cipherSuiteProfile != null) {
+      parameters.setCipherSuites(CipherSuiteProfiles.apply(
+          cipherSuiteProfile, cipherSuites, benchmarkCipherSuites));
+      parameters.setUseCipherSuitesOrder(true);
+    }
+    else {
+      parameters.setCipherSuites(cipherSuites);
+    }
     parameters.setWantClientAuth(wantClientAuth != null ?
         wantClientAuth : defaultParameters.getWantClientAuth());
     parameters.setNeedClientAuth(needClientAuth != null ?
@@ -77,4 +97,13 @@ class SSLParametersConfiguration {
     return parameters;
   }
 
+  public void addTo(Fingerprint fingerprint) {
+    protocolOptions.addTo(fingerprint);
+    cipherSuiteOptions.addTo(fingerprint);
+    fingerprint.add(cipherSuiteProfile != null ?
+            cipherSuiteProfile.name() : null)
+        .add(benchmarkCipherSuites)
+        .add(wantClientAuth).add(needClientAuth);
+  }
+
 }
@@ -28,7 +28,11 @@ import javax.net.ssl.SSLServerSocketFactory;
 
 /**
  * A wrapper for an {@link SSLServerSocketFactory} that sets configured SSL
- * parameters on each socket produced by the factory delegate.
+ * parameters on each socket produced by the factory delegate and, if
+ * metrics are configured or handshake events are being recorded when the
+ * socket is created, wraps each socket so that the sockets it accepts
+ * report them. Whether each accepted socket is observed is decided when it
+ * is accepted.
  *
  * @author Carl Harris
  */
@@ -36,11 +40,18 @@ class SSLServerSocketFactoryWrapper extends SSLServerSocketFactory {
 
   private final SSLServerSocketFactory delegate;
   private final SSLParameters parameters;
+  private final SSLMetrics metrics;
 
   public SSLServerSocketFactoryWrapper(SSLServerSocketFactory delegate,
       SSLParameters parameters) {
+    this(delegate, parameters, null);
+  }
+
+  public SSLServerSocketFactoryWrapper(SSLServerSocketFactory delegate,
+      SSLParameters parameters, SSLMetrics metrics) {
     this.delegate = delegate;
     this.parameters = parameters;
+    this.metrics = metrics;
   }
 
   @Override
@@ -57,8 +68,7 @@ class SSLServerSocketFactoryWrapper extends SSLServerSocketFactory {
   public ServerSocket createServerSocket(int port) throws IOException {
     SSLServerSocket serverSocket =
         (SSLServerSocket) delegate.createServerSocket(port);
-    serverSocket.setSSLParameters(parameters);
-    return serverSocket;
+    return configure(serverSocket);
   }
 
   @Override
@@ -66,8 +76,7 @@ class SSLServerSocketFactoryWrapper extends SSLServerSocketFactory {
       throws IOException {
     SSLServerSocket serverSocket =
         (SSLServerSocket) delegate.createServerSocket(port, backlog);
-    serverSocket.setSSLParameters(parameters);
-    return serverSocket;
+    return configure(serverSocket);
   }
 
   @Override
@@ -75,8 +84,17 @@ class SSLServerSocketFactoryWrapper extends SSLServerSocketFactory {
       InetAddress localAddress) throws IOException {
     SSLServerSocket serverSocket =
         (SSLServerSocket) delegate.createServerSocket(port, backlog, localAddress);
+    return configure(serverSocket);
+  }
+
+  private ServerSocket configure(SSLServerSocket serverSocket)
+      throws IOException {
     serverSocket.setSSLParameters(parameters);
-    return serverSocket;
+    if (metrics == null
+        && !SSLEventRecorder.getInstance().isHandshakeEnabled()) {
+      return serverSocket;
+    }
+    return new MeteredSSLServerSocket(serverSocket, metrics);
   }
 
 }
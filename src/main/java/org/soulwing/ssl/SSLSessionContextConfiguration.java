@@ -0,0 +1,64 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import javax.net.ssl.SSLSessionContext;
+
+/**
+ * A configuration to apply to an {@link SSLSessionContext}.
+ *
+ * @author Carl Harris
+ */
+class SSLSessionContextConfiguration {
+
+  private Integer sessionCacheSize;
+
+  private Integer sessionTimeout;
+
+  public void setSessionCacheSize(int sessionCacheSize) {
+    if (sessionCacheSize < 0) {
+      throw new IllegalArgumentException(
+          "session cache size must be non-negative");
+    }
+    this.sessionCacheSize = sessionCacheSize;
+  }
+
+  public void setSessionTimeout(int sessionTimeout) {
+    if (sessionTimeout < 0) {
+      throw new IllegalArgumentException(
+          "session timeout must be non-negative");
+    }
+    this.sessionTimeout = sessionTimeout;
+  }
+
+  public void apply(SSLSessionContext sessionContext) {
+    if (sessionContext == null) return;
+    if (sessionCacheSize != null) {
+      sessionContext.setSessionCacheSize(sessionCacheSize);
+    }
+    if (sessionTimeout != null) {
+      sessionContext.setSessionTimeout(sessionTimeout);
+    }
+  }
+
+  public void addTo(Fingerprint fingerprint) {
+    fingerprint.add(sessionCacheSize).add(sessionTimeout);
+  }
+
+}
@@ -29,7 +29,9 @@ import javax.net.ssl.SSLSocketFactory;
 
 /**
  * A wrapper for an {@link SSLSocketFactory} that sets configured SSL
- * parameters on each socket produced by the factory delegate.
+ * parameters on each socket produced by the factory delegate and, if
+ * metrics or flight recorder events are to be recorded, wraps each socket
+ * to report them.
  *
  * @author Carl Harris
  */
@@ -37,11 +39,18 @@ class SSLSocketFactoryWrapper extends SSLSocketFactory {
 
   private final SSLSocketFactory delegate;
   private final SSLParameters parameters;
+  private final SSLMetrics metrics;
 
   public SSLSocketFactoryWrapper(SSLSocketFactory delegate,
       SSLParameters parameters) {
+    this(delegate, parameters, null);
+  }
+
+  public SSLSocketFactoryWrapper(SSLSocketFactory delegate,
+      SSLParameters parameters, SSLMetrics metrics) {
     this.delegate = delegate;
     this.parameters = parameters;
+    this.metrics = metrics;
   }
 
   @Override
@@ -57,8 +66,7 @@ class SSLSocketFactoryWrapper extends SSLSocketFactory {
   @Override
   public Socket createSocket() throws IOException {
     SSLSocket sslSocket = (SSLSocket) delegate.createSocket();
-    sslSocket.setSSLParameters(parameters);
-    return sslSocket;
+    return configure(sslSocket);
   }
 
   @Override
@@ -66,16 +74,14 @@ class SSLSocketFactoryWrapper extends SSLSocketFactory {
       boolean autoClose) throws IOException {
     SSLSocket sslSocket = (SSLSocket) delegate.createSocket(socket, host, port,
         autoClose);
-    sslSocket.setSSLParameters(parameters);
-    return sslSocket;
+    return configure(sslSocket);
   }
 
   @Override
   public Socket createSocket(String host, int port) throws IOException,
       UnknownHostException {
     SSLSocket socket = (SSLSocket) delegate.createSocket(host, port);
-    socket.setSSLParameters(parameters);
-    return socket;
+    return configure(socket);
   }
 
   @Override
@@ -83,15 +89,13 @@ class SSLSocketFactoryWrapper extends SSLSocketFactory {
       int localPort) throws IOException, UnknownHostException {
     SSLSocket socket = (SSLSocket) delegate.createSocket(host, port,
         localAddress, localPort);
-    socket.setSSLParameters(parameters);
-    return socket;
+    return configure(socket);
   }
 
   @Override
   public Socket createSocket(InetAddress address, int port) throws IOException {
     SSLSocket socket = (SSLSocket) delegate.createSocket(address, port);
-    socket.setSSLParameters(parameters);
-    return socket;
+    return configure(socket);
   }
 
   @Override
@@ -99,8 +103,14 @@ class SSLSocketFactoryWrapper extends SSLSocketFactory {
       InetAddress localAddress, int localPort) throws IOException {
     SSLSocket socket = (SSLSocket) delegate.createSocket(address, port,
         localAddress, localPort);
+    return configure(socket);
+  }
+
+  private Socket configure(SSLSocket socket) {
     socket.setSSLParameters(parameters);
-    return socket;
+    final HandshakeObserver observer = HandshakeObserver.create(metrics);
+    if (observer == null) return socket;
+    return new MeteredSSLSocket(socket, observer);
   }
 
 }
@@ -0,0 +1,637 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLHandshakeException;
+
+/**
+ * A driver for an {@link SSLEngine} that performs the handshake and
+ * transfers application data over a network channel, using buffers
+ * borrowed from a pool of direct buffers.
+ * <p>
+ * The network channel is given to each operation, so that the driver can
+ * be used with any channel, blocking or not. With a non-blocking channel,
+ * an operation that cannot make progress without network I/O that would
+ * block returns immediately, and should be retried when the channel is
+ * ready; the caller is responsible for registering the appropriate
+ * interest with a selector: {@link #isNetworkReadNeeded()} and
+ * {@link #hasPendingOutput()} indicate what the driver is waiting for.
+ * <p>
+ * Network and application buffers are borrowed from the pool only while
+ * they hold data, and are returned as soon as they are empty, so an idle
+ * connection holds no buffers. Delegated tasks of the engine are run on
+ * the calling thread.
+ * <p>
+ * A driver is not safe for concurrent use by multiple threads; callers
+ * that read and write from different threads must synchronize.
+ * <p>
+ * Example:
+ * <pre>
+ * SSLContext sslContext = SSLContextBuilderFactory.newBuilder()
+ *     ...
+ *     .build();
+ *
+ * TlsEngineDriver driver = TlsEngineDriver.newClientDriver(sslContext,
+ *     "server.example.com", 443);
+ * SocketChannel channel = SocketChannel.open(address);
+ * while (!driver.handshake(channel)) {
+ *   // wait until channel is readable or writable
+ * }
+ * driver.write(new ByteBuffer[] { request }, 0, 1, channel);
+ * int count = driver.read(response, channel);
+ * </pre>
+ *
+ * @author Carl Harris
+ */
+public class TlsEngineDriver {
+
+  private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+  private static final ByteBuffer[] EMPTY_ARRAY = { EMPTY };
+
+  private final SSLEngine engine;
+  private final DirectBufferPool pool;
+
+  /** received ciphertext in [0, position) */
+  private ByteBuffer netIn;
+
+  /** ciphertext to be sent in [0, position) */
+  private ByteBuffer netOut;
+
+  /** decrypted plaintext in [position, limit) */
+  private ByteBuffer appIn;
+
+  private boolean started;
+  private boolean inboundDone;
+  private boolean networkReadNeeded;
+
+  /**
+   * Constructs a new instance.
+   * @param engine the engine to drive; its client mode must already be set
+   * @param pool pool from which buffers are borrowed
+   */
+  TlsEngineDriver(SSLEngine engine, DirectBufferPool pool) {
+    this.engine = engine;
+    this.pool = pool;
+  }
+
+  /**
+   * Creates a driver for an engine, produced by the given context, for the
+   * client side of a connection.
+   * @param context the context (typically one built by an
+   *    {@link SSLContextBuilder}, so that its protocol and cipher suite
+   *    constraints apply)
+   * @param peerHost host name of the server
+   * @param peerPort port of the server
+   * @return driver
+   */
+  public static TlsEngineDriver newClientDriver(SSLContext context,
+      String peerHost, int peerPort) {
+    final SSLEngine engine = context.createSSLEngine(peerHost, peerPort);
+    engine.setUseClientMode(true);
+    return new TlsEngineDriver(engine, DirectBufferPool.getDefault());
+  }
+
+  /**
+   * Creates a driver for an engine, produced by the given context, for the
+   * server side of a connection.
+   * @param context the context (typically one built by an
+   *    {@link SSLContextBuilder}, so that its protocol, cipher suite, and
+   *    client authentication constraints apply)
+   * @return driver
+   */
+  public static TlsEngineDriver newServerDriver(SSLContext context) {
+    final SSLEngine engine = context.createSSLEngine();
+    engine.setUseClientMode(false);
+    return new TlsEngineDriver(engine, DirectBufferPool.getDefault());
+  }
+
+  /**
+   * Gets the engine that this driver drives.
+   * @return engine
+   */
+  public SSLEngine getEngine() {
+    return engine;
+  }
+
+  /**
+   * Tests whether the initial handshake has completed.
+   * @return {@code true} if the handshake has completed
+   */
+  public boolean isHandshakeComplete() {
+    return started && !isHandshaking();
+  }
+
+  /**
+   * Tests whether the last operation could not complete until more data
+   * is read from the network.
+   * @return {@code true} if the network channel must become readable
+   */
+  public boolean isNetworkReadNeeded() {
+    return networkReadNeeded;
+  }
+
+  /**
+   * Tests whether ciphertext is waiting to be written to the network.
+   * @return {@code true} if the network channel must become writable
+   * @see #flush(ByteChannel)
+   */
+  public boolean hasPendingOutput() {
+    return netOut != null && netOut.position() > 0;
+  }
+
+  /**
+   * Tests whether decrypted application data is waiting to be read.
+   * @return {@code true} if a read would return data without network I/O
+   */
+  public boolean hasPendingInput() {
+    return appIn != null && appIn.hasRemaining();
+  }
+
+  /**
+   * Performs the handshake, starting it if necessary.
+   * @param network network channel
+   * @return {@code true} if the handshake has completed, {@code false} if
+   *    it cannot proceed until the network channel is ready
+   * @throws IOException if an I/O error occurs, if the handshake fails, or
+   *    if the peer closes the connection during the handshake; when the
+   *    handshake fails, the alert that describes the failure is written
+   *    to the network first, as far as possible without blocking
+   */
+  public boolean handshake(ByteChannel network) throws IOException {
+    networkReadNeeded = false;
+    if (!started) {
+      engine.beginHandshake();
+      started = true;
+    }
+    try {
+      while (true) {
+        switch (engine.getHandshakeStatus()) {
+          case NOT_HANDSHAKING:
+          case FINISHED:
+            return flush(network);
+          case NEED_TASK:
+            runDelegatedTasks();
+            break;
+          case NEED_WRAP:
+            if (!wrap(EMPTY_ARRAY, 0, 1, network)) return false;
+            break;
+          default:
+            if (!flush(network)) return false;
+            if (!unwrapHandshake(network)) return false;
+            break;
+        }
+      }
+    }
+    catch (SSLException ex) {
+      flushAlert(network);
+      throw ex;
+    }
+    finally {
+      releaseIdle();
+    }
+  }
+
+  /**
+   * Reads application data.
+   * @param dst buffer into which the data is to be transferred
+   * @param network network channel
+   * @return number of bytes read, possibly zero if no data can be read
+   *    without blocking, or -1 if the peer has closed the connection
+   * @throws IOException if an I/O or protocol error occurs
+   */
+  public int read(ByteBuffer dst, ByteChannel network) throws IOException {
+    return (int) read(new ByteBuffer[] { dst }, 0, 1, network);
+  }
+
+  /**
+   * Reads application data into a sequence of buffers. A record is
+   * decrypted directly into the given buffers when their total remaining
+   * space is large enough to hold it.
+   * @param dsts buffers into which the data is to be transferred
+   * @param offset offset of the first buffer to use
+   * @param length number of buffers to use
+   * @param network network channel
+   * @return number of bytes read, possibly zero if no data can be read
+   *    without blocking, or -1 if the peer has closed the connection
+   * @throws IOException if an I/O or protocol error occurs
+   */
+  public long read(ByteBuffer[] dsts, int offset, int length,
+      ByteChannel network) throws IOException {
+    networkReadNeeded = false;
+    try {
+      if (hasPendingInput()) return drain(dsts, offset, length);
+      if (inboundDone) return -1;
+      if (remaining(dsts, offset, length) == 0) return 0;
+      if ((!started || isHandshaking()) && !handshake(network)) return 0;
+      while (true) {
+        if (netIn != null && netIn.position() > 0) {
+          final SSLEngineResult result = unwrap(dsts, offset, length);
+          if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+            inboundDone = true;
+            if (isHandshaking()) {
+              handshake(network);
+            }
+            else {
+              flush(network);
+            }
+            return result.bytesProduced() > 0 ? result.bytesProduced() : -1;
+          }
+          if (result.getStatus() == SSLEngineResult.Status.OK) {
+            if (isHandshaking()) {
+              handshake(network);
+            }
+            if (result.bytesProduced() > 0) return result.bytesProduced();
+            if (hasPendingInput()) return drain(dsts, offset, length);
+            continue;
+          }
+        }
+        final int count = readNetwork(network);
+        if (count < 0) {
+          inboundDone = true;
+          closeInbound();
+          return -1;
+        }
+        if (count == 0) return 0;
+      }
+    }
+    finally {
+      releaseIdle();
+    }
+  }
+
+  /**
+   * Writes application data. The data in the given buffers is packed into
+   * as few TLS records as possible.
+   * <p>
+   * If not all of the resulting ciphertext can be written to the network
+   * without blocking, the remainder is held by the driver, and no more
+   * application data is accepted until it has been written by a subsequent
+   * write or {@link #flush(ByteChannel)}.
+   * @param srcs buffers from which data is to be taken
+   * @param offset offset of the first buffer to use
+   * @param length number of buffers to use
+   * @param network network channel
+   * @return number of bytes of application data consumed
+   * @throws IOException if an I/O or protocol error occurs
+   */
+  public long write(ByteBuffer[] srcs, int offset, int length,
+      ByteChannel network) throws IOException {
+    networkReadNeeded = false;
+    try {
+      if (engine.isOutboundDone()) {
+        throw new ClosedChannelException();
+      }
+      if (!flush(network)) return 0;
+      if ((!started || isHandshaking()) && !handshake(network)) return 0;
+      long consumed = 0;
+      while (remaining(srcs, offset, length) > 0) {
+        final long before = remaining(srcs, offset, length);
+        final boolean flushed = wrap(srcs, offset, length, network);
+        consumed += before - remaining(srcs, offset, length);
+        if (!flushed) break;
+        if (isHandshaking() && !handshake(network)) break;
+      }
+      return consumed;
+    }
+    finally {
+      releaseIdle();
+    }
+  }
+
+  /**
+   * Writes pending ciphertext to the network.
+   * @param network network channel
+   * @return {@code true} if no ciphertext remains to be written
+   * @throws IOException if an I/O error occurs
+   */
+  public boolean flush(ByteChannel network) throws IOException {
+    if (!hasPendingOutput()) return true;
+    netOut.flip();
+    try {
+      while (netOut.hasRemaining()) {
+        if (network.write(netOut) == 0) break;
+      }
+    }
+    finally {
+      netOut.compact();
+    }
+    return !hasPendingOutput();
+  }
+
+  /**
+   * Closes the outbound side of the connection, sending a
+   * {@code close_notify} alert to the peer.
+   * @param network network channel
+   * @return {@code true} if the alert was written; if {@code false},
+   *    {@link #flush(ByteChannel)} should be invoked when the channel is
+   *    writable
+   * @throws IOException if an I/O error occurs
+   */
+  public boolean close(ByteChannel network) throws IOException {
+    engine.closeOutbound();
+    return flushCloseNotify(network);
+  }
+
+  /**
+   * Returns all buffers held by this driver to the pool, discarding any
+   * data they contain. The driver must not be used afterwards.
+   */
+  public void release() {
+    pool.release(netIn);
+    pool.release(netOut);
+    pool.release(appIn);
+    netIn = null;
+    netOut = null;
+    appIn = null;
+  }
+
+  /**
+   * Gets the number of buffers currently borrowed from the pool.
+   * @return number of buffers
+   */
+  int getBufferCount() {
+    return (netIn != null ? 1 : 0) + (netOut != null ? 1 : 0)
+        + (appIn != null ? 1 : 0);
+  }
+
+  private boolean isHandshaking() {
+    final SSLEngineResult.HandshakeStatus status =
+        engine.getHandshakeStatus();
+    return status != SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING
+        && status != SSLEngineResult.HandshakeStatus.FINISHED;
+  }
+
+  private boolean flushCloseNotify(ByteChannel network) throws IOException {
+    try {
+      while (engine.getHandshakeStatus()
+          == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+        if (!wrap(EMPTY_ARRAY, 0, 1, network)) return false;
+      }
+      return flush(network);
+    }
+    finally {
+      releaseIdle();
+    }
+  }
+
+  /**
+   * Writes the alert that the engine has queued after a failure, so that
+   * the peer is told why the connection is closing rather than seeing it
+   * close without explanation. Any error that prevents the alert from
+   * being written is ignored, so that the failure itself is reported.
+   */
+  private void flushAlert(ByteChannel network) {
+    try {
+      flushCloseNotify(network);
+    }
+    catch (IOException | RuntimeException ex) {
+      assert true;  // the failure that queued the alert is reported instead
+    }
+  }
+
+  /**
+   * Wraps data into a single record and writes it to the network.
+   * @return {@code true} if all ciphertext was written
+   */
+  private boolean wrap(ByteBuffer[] srcs, int offset, int length,
+      ByteChannel network) throws IOException {
+    while (true) {
+      netOut = ensureCapacity(netOut, packetBufferSize(), false);
+      final SSLEngineResult result =
+          engine.wrap(srcs, offset, length, netOut);
+      switch (result.getStatus()) {
+        case BUFFER_OVERFLOW:
+          if (netOut.position() == 0) {
+            // the packet buffer size has grown
+            netOut = ensureCapacity(netOut, netOut.capacity() + 1, false);
+          }
+          else if (!flush(network)) {
+            return false;
+          }
+          break;
+        case CLOSED:
+          if (result.bytesProduced() == 0 && !engine.isOutboundDone()) {
+            throw new ClosedChannelException();
+          }
+          return flush(network);
+        default:
+          return flush(network);
+      }
+    }
+  }
+
+  /**
+   * Unwraps handshake data, reading from the network as needed.
+   * @return {@code false} if the handshake cannot proceed until the
+   *    network channel is readable
+   */
+  private boolean unwrapHandshake(ByteChannel network) throws IOException {
+    while (true) {
+      if (netIn != null && netIn.position() > 0) {
+        final SSLEngineResult result = unwrap(EMPTY_ARRAY, 0, 1);
+        if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+          inboundDone = true;
+          throw new SSLHandshakeException(
+              "peer closed the connection during the handshake");
+        }
+        if (result.getStatus() == SSLEngineResult.Status.OK) return true;
+      }
+      final int count = readNetwork(network);
+      if (count < 0) {
+        inboundDone = true;
+        closeInbound();
+        throw new SSLHandshakeException(
+            "peer closed the connection during the handshake");
+      }
+      if (count == 0) return false;
+    }
+  }
+
+  /**
+   * Unwraps a single record from the received ciphertext, directly into
+   * the given buffer if it is large enough, and otherwise into the pending
+   * input buffer, from which as much as possible is transferred to the
+   * given buffers.
+   */
+  private SSLEngineResult unwrap(ByteBuffer[] dsts, int offset, int length)
+      throws SSLException {
+    netIn.flip();
+    try {
+      if (!hasPendingInput()) {
+        final SSLEngineResult result =
+            engine.unwrap(netIn, dsts, offset, length);
+        if (result.getStatus()
+            != SSLEngineResult.Status.BUFFER_OVERFLOW) {
+          return result;
+        }
+      }
+      appIn = ensureCapacity(appIn, applicationBufferSize(), true);
+      appIn.compact();
+      SSLEngineResult result;
+      try {
+        result = engine.unwrap(netIn, appIn);
+      }
+      finally {
+        appIn.flip();
+      }
+      if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+        // the application buffer size has grown; retry with a larger one
+        appIn = ensureCapacity(appIn, appIn.remaining()
+            + applicationBufferSize(), true);
+        appIn.compact();
+        try {
+          result = engine.unwrap(netIn, appIn);
+        }
+        finally {
+          appIn.flip();
+        }
+      }
+      final int count = drain(dsts, offset, length);
+      return new SSLEngineResult(result.getStatus(),
+          result.getHandshakeStatus(), result.bytesConsumed(), count);
+    }
+    finally {
+      netIn.compact();
+    }
+  }
+
+  /**
+   * Reads from the network into the received ciphertext buffer.
+   * @return number of bytes read, or -1 at end of stream
+   */
+  private int readNetwork(ByteChannel network) throws IOException {
+    netIn = ensureCapacity(netIn, packetBufferSize(), false);
+    if (!netIn.hasRemaining()) {
+      netIn = ensureCapacity(netIn, netIn.capacity() + 1, false);
+    }
+    final int count = network.read(netIn);
+    networkReadNeeded = count == 0;
+    return count;
+  }
+
+  private void closeInbound() {
+    try {
+      engine.closeInbound();
+    }
+    catch (SSLException ex) {
+      assert true;  // no close_notify from the peer; treat as end of input
+    }
+  }
+
+  private int drain(ByteBuffer[] dsts, int offset, int length) {
+    if (appIn == null) return 0;
+    int total = 0;
+    for (int i = offset; i < offset + length && appIn.hasRemaining(); i++) {
+      final ByteBuffer dst = dsts[i];
+      final int count = Math.min(appIn.remaining(), dst.remaining());
+      if (count == appIn.remaining()) {
+        dst.put(appIn);
+      }
+      else {
+        final int limit = appIn.limit();
+        appIn.limit(appIn.position() + count);
+        dst.put(appIn);
+        appIn.limit(limit);
+      }
+      total += count;
+    }
+    return total;
+  }
+
+  private void runDelegatedTasks() {
+    Runnable task;
+    while ((task = engine.getDelegatedTask()) != null) {
+      task.run();
+    }
+  }
+
+  /**
+   * Ensures that a buffer has been borrowed and has the given capacity,
+   * borrowing a larger buffer (and copying the content) if necessary.
+   * @param buffer the buffer (may be {@code null})
+   * @param capacity the required capacity
+   * @param drainMode whether the content of the buffer is in
+   *    [position, limit), rather than [0, position)
+   * @return buffer whose capacity is at least {@code capacity}
+   */
+  private ByteBuffer ensureCapacity(ByteBuffer buffer, int capacity,
+      boolean drainMode) {
+    if (buffer == null) {
+      final ByteBuffer newBuffer = pool.acquire(capacity);
+      if (drainMode) {
+        newBuffer.flip();
+      }
+      return newBuffer;
+    }
+    if (buffer.capacity() >= capacity) return buffer;
+    final ByteBuffer newBuffer = pool.acquire(capacity);
+    if (!drainMode) {
+      buffer.flip();
+    }
+    newBuffer.put(buffer);
+    if (drainMode) {
+      newBuffer.flip();
+    }
+    pool.release(buffer);
+    return newBuffer;
+  }
+
+  private void releaseIdle() {
+    if (netIn != null && netIn.position() == 0) {
+      pool.release(netIn);
+      netIn = null;
+    }
+    if (netOut != null && netOut.position() == 0) {
+      pool.release(netOut);
+      netOut = null;
+    }
+    if (appIn != null && !appIn.hasRemaining()) {
+      pool.release(appIn);
+      appIn = null;
+    }
+  }
+
+  private int packetBufferSize() {
+    return engine.getSession().getPacketBufferSize();
+  }
+
+  private int applicationBufferSize() {
+    return engine.getSession().getApplicationBufferSize();
+  }
+
+  private static long remaining(ByteBuffer[] buffers, int offset,
+      int length) {
+    long remaining = 0;
+    for (int i = offset; i < offset + length; i++) {
+      remaining += buffers[i].remaining();
+    }
+    return remaining;
+  }
+
+}
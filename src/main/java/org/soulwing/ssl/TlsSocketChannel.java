@@ -0,0 +1,286 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.nio.channels.SocketChannel;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+/**
+ * A byte channel that uses TLS to protect the data transferred over a
+ * {@link SocketChannel}.
+ * <p>
+ * The channel uses an {@link SSLEngine} created by a context (typically one
+ * built by an {@link SSLContextBuilder}, so that its protocol, cipher suite,
+ * and client authentication constraints apply), driven by a
+ * {@link TlsEngineDriver}.
+ * <p>
+ * The channel has the blocking mode of the underlying socket channel. In
+ * non-blocking mode, a read or write that cannot make progress without
+ * network I/O that would block returns zero, and should be retried when the
+ * socket channel is ready; the socket channel (see {@link #getChannel()})
+ * is the one to register with a selector. Because a single TLS operation
+ * may need to read or write regardless of the operation requested, the
+ * interest to register should be determined using
+ * {@link #isNetworkReadNeeded()} and {@link #hasPendingOutput()}; and since
+ * data may already have been decrypted and held by the channel, a
+ * selector loop should check {@link #hasPendingInput()} before waiting for
+ * the socket channel to become readable.
+ * <p>
+ * The handshake is performed when data is first read or written, or it may
+ * be performed explicitly using {@link #handshake()}. A gathering write
+ * packs the data in all of the given buffers into as few TLS records as
+ * possible, and a scattering read decrypts a record directly into the
+ * given buffers whenever they have room for it.
+ * <p>
+ * A channel is not safe for concurrent use by multiple threads; callers
+ * that read and write from different threads must synchronize.
+ * <p>
+ * Example:
+ * <pre>
+ * SocketChannel socketChannel = serverSocketChannel.accept();
+ * socketChannel.configureBlocking(false);
+ * TlsSocketChannel channel =
+ *     TlsSocketChannel.newServerChannel(sslContext, socketChannel);
+ * socketChannel.register(selector, SelectionKey.OP_READ, channel);
+ * </pre>
+ *
+ * @author Carl Harris
+ */
+public class TlsSocketChannel
+    implements ByteChannel, ScatteringByteChannel, GatheringByteChannel {
+
+  private final SocketChannel channel;
+  private final TlsEngineDriver driver;
+
+  private boolean closed;
+
+  /**
+   * Constructs a new instance.
+   * @param channel the underlying socket channel
+   * @param driver driver for the engine that protects the channel
+   */
+  TlsSocketChannel(SocketChannel channel, TlsEngineDriver driver) {
+    this.channel = channel;
+    this.driver = driver;
+  }
+
+  /**
+   * Creates a channel for the client side of a connection.
+   * @param context the context that will create the engine
+   * @param channel the underlying socket channel
+   * @param peerHost host name of the server
+   * @param peerPort port of the server
+   * @return channel
+   */
+  public static TlsSocketChannel newClientChannel(SSLContext context,
+      SocketChannel channel, String peerHost, int peerPort) {
+    return new TlsSocketChannel(channel,
+        TlsEngineDriver.newClientDriver(context, peerHost, peerPort));
+  }
+
+  /**
+   * Creates a channel for the server side of a connection.
+   * @param context the context that will create the engine
+   * @param channel the underlying (typically accepted) socket channel
+   * @return channel
+   */
+  public static TlsSocketChannel newServerChannel(SSLContext context,
+      SocketChannel channel) {
+    return new TlsSocketChannel(channel,
+        TlsEngineDriver.newServerDriver(context));
+  }
+
+  /**
+   * Gets the underlying socket channel.
+   * @return socket channel
+   */
+  public SocketChannel getChannel() {
+    return channel;
+  }
+
+  /**
+   * Gets the engine that protects this channel.
+   * @return engine
+   */
+  public SSLEngine getEngine() {
+    return driver.getEngine();
+  }
+
+  /**
+   * Performs the handshake, starting it if necessary.
+   * @return {@code true} if the handshake has completed, {@code false} if
+   *    it cannot proceed until the socket channel is ready
+   * @throws IOException if an I/O error occurs or the handshake fails
+   */
+  public boolean handshake() throws IOException {
+    ensureOpen();
+    return driver.handshake(channel);
+  }
+
+  /**
+   * Tests whether the initial handshake has completed.
+   * @return {@code true} if the handshake has completed
+   */
+  public boolean isHandshakeComplete() {
+    return driver.isHandshakeComplete();
+  }
+
+  /**
+   * Tests whether the last operation could not complete until more data
+   * is read from the socket channel.
+   * @return {@code true} if the socket channel must become readable
+   */
+  public boolean isNetworkReadNeeded() {
+    return driver.isNetworkReadNeeded();
+  }
+
+  /**
+   * Tests whether data is waiting to be written to the socket channel.
+   * @return {@code true} if the socket channel must become writable
+   * @see #flush()
+   */
+  public boolean hasPendingOutput() {
+    return driver.hasPendingOutput();
+  }
+
+  /**
+   * Tests whether decrypted data is waiting to be read.
+   * @return {@code true} if a read would return data without reading from
+   *    the socket channel
+   */
+  public boolean hasPendingInput() {
+    return driver.hasPendingInput();
+  }
+
+  /**
+   * Writes pending data to the socket channel.
+   * @return {@code true} if no data remains to be written
+   * @throws IOException if an I/O error occurs
+   */
+  public boolean flush() throws IOException {
+    ensureOpen();
+    return driver.flush(channel);
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    ensureOpen();
+    return driver.read(dst, channel);
+  }
+
+  @Override
+  public long read(ByteBuffer[] dsts, int offset, int length)
+      throws IOException {
+    checkBounds(dsts, offset, length);
+    ensureOpen();
+    return driver.read(dsts, offset, length, channel);
+  }
+
+  @Override
+  public long read(ByteBuffer[] dsts) throws IOException {
+    return read(dsts, 0, dsts.length);
+  }
+
+  @Override
+  public int write(ByteBuffer src) throws IOException {
+    ensureOpen();
+    return (int) driver.write(new ByteBuffer[] { src }, 0, 1, channel);
+  }
+
+  @Override
+  public long write(ByteBuffer[] srcs, int offset, int length)
+      throws IOException {
+    checkBounds(srcs, offset, length);
+    ensureOpen();
+    return driver.write(srcs, offset, length, channel);
+  }
+
+  @Override
+  public long write(ByteBuffer[] srcs) throws IOException {
+    return write(srcs, 0, srcs.length);
+  }
+
+  /**
+   * Sends a {@code close_notify} alert to the peer, after which no more
+   * data can be written. The socket channel remains open, so that the
+   * alert can be flushed in non-blocking mode, and the peer's data can
+   * still be read until it closes its side of the connection.
+   * @return {@code true} if the alert was written; if {@code false},
+   *    {@link #flush()} should be invoked when the socket channel is
+   *    writable
+   * @throws IOException if an I/O error occurs
+   */
+  public boolean shutdownOutput() throws IOException {
+    ensureOpen();
+    return driver.close(channel);
+  }
+
+  @Override
+  public boolean isOpen() {
+    return !closed && channel.isOpen();
+  }
+
+  /**
+   * Closes this channel and the underlying socket channel. A
+   * {@code close_notify} alert is sent to the peer if it can be written
+   * without blocking; use {@link #shutdownOutput()} beforehand to be sure
+   * that the peer receives it.
+   * @throws IOException if an I/O error occurs in closing the socket
+   *    channel
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) return;
+    closed = true;
+    try {
+      if (channel.isOpen()) {
+        driver.close(channel);
+      }
+    }
+    catch (IOException ex) {
+      assert true;  // the connection is being closed anyway
+    }
+    finally {
+      driver.release();
+      channel.close();
+    }
+  }
+
+  private void ensureOpen() throws ClosedChannelException {
+    if (closed) {
+      throw new ClosedChannelException();
+    }
+  }
+
+  private static void checkBounds(ByteBuffer[] buffers, int offset,
+      int length) {
+    if (offset < 0 || length < 0 || offset > buffers.length - length) {
+      throw new IndexOutOfBoundsException();
+    }
+  }
+
+}
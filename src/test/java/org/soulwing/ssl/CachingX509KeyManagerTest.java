@@ -0,0 +1,262 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.net.Socket;
+import java.security.AlgorithmConstraints;
+import java.security.AlgorithmParameters;
+import java.security.CryptoPrimitive;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.Set;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.X509ExtendedKeyManager;
+import javax.security.auth.x500.X500Principal;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link CachingX509KeyManager}.
+ *
+ * @author Carl Harris
+ */
+public class CachingX509KeyManagerTest {
+
+  private static final String PASSWORD = "changeit";
+
+  private static final String ALIAS = "server";
+
+  private static final Principal ISSUER_A = new X500Principal("CN=a");
+
+  private static final Principal ISSUER_B = new X500Principal("CN=b");
+
+  private MockKeyManager delegate;
+
+  private long now;
+
+  private CachingX509KeyManager keyManager;
+
+  @Before
+  public void setUp() throws Exception {
+    final KeyStoreFactory factory = new KeyStoreFactory();
+    factory.setType("JKS");
+    factory.setLocation("server-credential.jks", getClass());
+    factory.setPassword(PASSWORD);
+    final KeyStore keyStore = factory.newKeyStore();
+    delegate = new MockKeyManager(
+        (PrivateKey) keyStore.getKey(ALIAS, PASSWORD.toCharArray()),
+        (X509Certificate) keyStore.getCertificate(ALIAS));
+    now = delegate.certificate.getNotBefore().getTime();
+    keyManager = new CachingX509KeyManager(delegate, null, () -> now);
+  }
+
+  @Test
+  public void testMemoizesServerAlias() throws Exception {
+    assertThat(keyManager.chooseServerAlias("RSA", null, null),
+        is(equalTo(ALIAS)));
+    assertThat(keyManager.chooseServerAlias("RSA", null, null),
+        is(equalTo(ALIAS)));
+    assertThat(keyManager.chooseEngineServerAlias("RSA", null, null),
+        is(equalTo(ALIAS)));
+    assertThat(delegate.count, is(equalTo(1)));
+
+    keyManager.chooseServerAlias("EC", null, null);
+    keyManager.chooseClientAlias(new String[] { "RSA" }, null, null);
+    assertThat(delegate.count, is(equalTo(3)));
+    assertThat(keyManager.size(), is(equalTo(2)));
+  }
+
+  @Test
+  public void testDoesNotMemoizeFailedSelection() throws Exception {
+    assertThat(keyManager.chooseServerAlias("EC", null, null),
+        is(nullValue()));
+    assertThat(keyManager.chooseServerAlias("EC", null, null),
+        is(nullValue()));
+    assertThat(delegate.count, is(equalTo(2)));
+    assertThat(keyManager.size(), is(equalTo(0)));
+  }
+
+  @Test
+  public void testMemoizesByAlgorithmConstraints() throws Exception {
+    final SSLEngine engine = SSLContext.getDefault().createSSLEngine();
+    keyManager.chooseEngineServerAlias("RSA", null, engine);
+    keyManager.chooseEngineServerAlias("RSA", null, engine);
+    assertThat(delegate.count, is(equalTo(1)));
+
+    final SSLParameters parameters = engine.getSSLParameters();
+    parameters.setAlgorithmConstraints(new AlgorithmConstraints() {
+      @Override
+      public boolean permits(Set<CryptoPrimitive> primitives,
+          String algorithm, AlgorithmParameters parameters) {
+        return true;
+      }
+
+      @Override
+      public boolean permits(Set<CryptoPrimitive> primitives, Key key) {
+        return true;
+      }
+
+      @Override
+      public boolean permits(Set<CryptoPrimitive> primitives,
+          String algorithm, Key key, AlgorithmParameters parameters) {
+        return true;
+      }
+    });
+    engine.setSSLParameters(parameters);
+    keyManager.chooseEngineServerAlias("RSA", null, engine);
+    assertThat(delegate.count, is(equalTo(2)));
+  }
+
+  @Test
+  public void testMemoizesByIssuerSet() throws Exception {
+    keyManager.chooseServerAlias("RSA",
+        new Principal[] { ISSUER_A, ISSUER_B }, null);
+    keyManager.chooseServerAlias("RSA",
+        new Principal[] { ISSUER_B, ISSUER_A }, null);
+    assertThat(delegate.count, is(equalTo(1)));
+    keyManager.chooseServerAlias("RSA", new Principal[] { ISSUER_A }, null);
+    assertThat(delegate.count, is(equalTo(2)));
+  }
+
+  @Test
+  public void testSelectionExpiresWithCertificate() throws Exception {
+    keyManager.chooseServerAlias("RSA", null, null);
+    now = delegate.certificate.getNotAfter().getTime();
+    keyManager.chooseServerAlias("RSA", null, null);
+    assertThat(delegate.count, is(equalTo(2)));
+  }
+
+  @Test
+  public void testExplicitAlias() throws Exception {
+    keyManager = new CachingX509KeyManager(delegate, ALIAS, () -> now);
+    assertThat(keyManager.chooseServerAlias("RSA", null, null),
+        is(equalTo(ALIAS)));
+    assertThat(keyManager.chooseServerAlias("EC", null, null),
+        is(nullValue()));
+    assertThat(keyManager.chooseEngineClientAlias(
+        new String[] { "EC", "RSA" }, null, null), is(equalTo(ALIAS)));
+    assertThat(delegate.count, is(equalTo(0)));
+    assertThat(keyManager.getPrivateKey(ALIAS),
+        is(equalTo(delegate.privateKey)));
+  }
+
+  @Test
+  public void testExplicitAliasOfPkixKeyManager() throws Exception {
+    delegate.prefix = "1.0.";
+    keyManager = new CachingX509KeyManager(delegate, ALIAS, () -> now);
+    final String alias = keyManager.chooseServerAlias("RSA", null, null);
+    assertThat(alias, is(equalTo("1.0." + ALIAS)));
+    assertThat(keyManager.getPrivateKey(alias),
+        is(equalTo(delegate.privateKey)));
+    assertThat(keyManager.chooseClientAlias(new String[] { "RSA" }, null,
+        null), is(equalTo(alias)));
+
+    delegate.prefix = "x.0.";
+    keyManager = new CachingX509KeyManager(delegate, ALIAS, () -> now);
+    assertThat(keyManager.chooseServerAlias("RSA", null, null),
+        is(nullValue()));
+  }
+
+  private static class MockKeyManager extends X509ExtendedKeyManager {
+
+    final PrivateKey privateKey;
+    final X509Certificate certificate;
+
+    String prefix = "";
+
+    int count;
+
+    MockKeyManager(PrivateKey privateKey, X509Certificate certificate) {
+      this.privateKey = privateKey;
+      this.certificate = certificate;
+    }
+
+    private String choose(String... keyTypes) {
+      count++;
+      for (final String keyType : keyTypes) {
+        if (keyType.equals(privateKey.getAlgorithm())) return prefix + ALIAS;
+      }
+      return null;
+    }
+
+    private String[] aliases(String keyType) {
+      return keyType.equals(privateKey.getAlgorithm()) ?
+          new String[] { prefix + ALIAS } : null;
+    }
+
+    @Override
+    public String[] getClientAliases(String keyType, Principal[] issuers) {
+      return aliases(keyType);
+    }
+
+    @Override
+    public String chooseClientAlias(String[] keyTypes, Principal[] issuers,
+        Socket socket) {
+      return choose(keyTypes);
+    }
+
+    @Override
+    public String chooseEngineClientAlias(String[] keyTypes,
+        Principal[] issuers, SSLEngine engine) {
+      return choose(keyTypes);
+    }
+
+    @Override
+    public String[] getServerAliases(String keyType, Principal[] issuers) {
+      return aliases(keyType);
+    }
+
+    @Override
+    public String chooseServerAlias(String keyType, Principal[] issuers,
+        Socket socket) {
+      return choose(keyType);
+    }
+
+    @Override
+    public String chooseEngineServerAlias(String keyType,
+        Principal[] issuers, SSLEngine engine) {
+      return choose(keyType);
+    }
+
+    @Override
+    public X509Certificate[] getCertificateChain(String alias) {
+      return (prefix + ALIAS).equals(alias) ?
+          new X509Certificate[] { certificate } : null;
+    }
+
+    @Override
+    public PrivateKey getPrivateKey(String alias) {
+      return (prefix + ALIAS).equals(alias) ? privateKey : null;
+    }
+
+  }
+
+}
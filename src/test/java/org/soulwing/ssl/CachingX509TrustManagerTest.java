@@ -0,0 +1,230 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.net.Socket;
+import java.security.KeyStore;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.X509ExtendedTrustManager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link CachingX509TrustManager}.
+ *
+ * @author Carl Harris
+ */
+public class CachingX509TrustManagerTest {
+
+  private static final String PASSWORD = "changeit";
+
+  private static final long TIME_TO_LIVE = 60000;
+
+  private final MockTrustManager delegate = new MockTrustManager();
+
+  private long now;
+
+  private CachingX509TrustManager trustManager;
+
+  private X509Certificate[] serverChain;
+
+  private X509Certificate[] clientChain;
+
+  @Before
+  public void setUp() throws Exception {
+    serverChain = chainOf("server-credential.jks");
+    clientChain = chainOf("client-credential.jks");
+    now = serverChain[0].getNotBefore().getTime();
+    trustManager = new CachingX509TrustManager(delegate, 2,
+        TIME_TO_LIVE, TimeUnit.MILLISECONDS, () -> now);
+  }
+
+  @Test
+  public void testCachesSuccessfulValidation() throws Exception {
+    trustManager.checkServerTrusted(serverChain, "RSA");
+    trustManager.checkServerTrusted(serverChain, "RSA");
+    assertThat(delegate.count, is(equalTo(1)));
+
+    trustManager.checkServerTrusted(serverChain, "EC");
+    trustManager.checkClientTrusted(serverChain, "RSA");
+    trustManager.checkServerTrusted(clientChain, "RSA");
+    assertThat(delegate.count, is(equalTo(4)));
+  }
+
+  @Test
+  public void testDoesNotCacheFailedValidation() throws Exception {
+    delegate.trusted = false;
+    assertNotTrusted(serverChain);
+    assertNotTrusted(serverChain);
+    assertThat(delegate.count, is(equalTo(2)));
+    assertThat(trustManager.size(), is(equalTo(0)));
+  }
+
+  @Test
+  public void testResultExpiresAfterTimeToLive() throws Exception {
+    trustManager.checkServerTrusted(serverChain, "RSA");
+    now += TIME_TO_LIVE - 1;
+    trustManager.checkServerTrusted(serverChain, "RSA");
+    assertThat(delegate.count, is(equalTo(1)));
+    now += 1;
+    trustManager.checkServerTrusted(serverChain, "RSA");
+    assertThat(delegate.count, is(equalTo(2)));
+  }
+
+  @Test
+  public void testResultExpiresWithCertificate() throws Exception {
+    now = serverChain[0].getNotAfter().getTime() - TIME_TO_LIVE / 2;
+    trustManager.checkServerTrusted(serverChain, "RSA");
+    now += TIME_TO_LIVE / 2;
+    trustManager.checkServerTrusted(serverChain, "RSA");
+    assertThat(delegate.count, is(equalTo(2)));
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() throws Exception {
+    trustManager.checkServerTrusted(serverChain, "RSA");
+    trustManager.checkServerTrusted(clientChain, "RSA");
+    trustManager.checkServerTrusted(serverChain, "RSA");
+    trustManager.checkServerTrusted(serverChain, "EC");
+    assertThat(trustManager.size(), is(equalTo(2)));
+    assertThat(delegate.count, is(equalTo(3)));
+
+    trustManager.checkServerTrusted(serverChain, "RSA");
+    assertThat(delegate.count, is(equalTo(3)));
+    trustManager.checkServerTrusted(clientChain, "RSA");
+    assertThat(delegate.count, is(equalTo(4)));
+  }
+
+  @Test
+  public void testInvalidateWhenTrustStoreChanges() throws Exception {
+    trustManager.checkServerTrusted(serverChain, "RSA");
+    trustManager.keyStoreChanged(null);
+    assertThat(trustManager.size(), is(equalTo(0)));
+    delegate.trusted = false;
+    assertNotTrusted(serverChain);
+  }
+
+  @Test
+  public void testEndpointIdentificationRequiresHandshakeSession()
+      throws Exception {
+    final SSLContext context = SSLContext.getInstance("TLS");
+    context.init(null, null, null);
+    final SSLEngine engine = context.createSSLEngine("server.example.com", 443);
+    trustManager.checkServerTrusted(serverChain, "RSA", engine);
+    trustManager.checkServerTrusted(serverChain, "RSA", engine);
+    assertThat(delegate.count, is(equalTo(1)));
+
+    final SSLParameters parameters = engine.getSSLParameters();
+    parameters.setEndpointIdentificationAlgorithm("HTTPS");
+    engine.setSSLParameters(parameters);
+    trustManager.checkServerTrusted(serverChain, "RSA", engine);
+    trustManager.checkServerTrusted(serverChain, "RSA", engine);
+    assertThat(delegate.count, is(equalTo(3)));
+  }
+
+  private void assertNotTrusted(X509Certificate[] chain) {
+    try {
+      trustManager.checkServerTrusted(chain, "RSA");
+      throw new AssertionError("expected CertificateException");
+    }
+    catch (CertificateException ex) {
+      assert true;
+    }
+  }
+
+  private X509Certificate[] chainOf(String resource) throws Exception {
+    final KeyStoreFactory factory = new KeyStoreFactory();
+    factory.setType("JKS");
+    factory.setLocation(resource, getClass());
+    factory.setPassword(PASSWORD);
+    final KeyStore keyStore = factory.newKeyStore();
+    final String alias = keyStore.aliases().nextElement();
+    return new X509Certificate[] {
+        (X509Certificate) keyStore.getCertificate(alias)
+    };
+  }
+
+  private static class MockTrustManager extends X509ExtendedTrustManager {
+
+    int count;
+
+    boolean trusted = true;
+
+    private void check() throws CertificateException {
+      count++;
+      if (!trusted) {
+        throw new CertificateException("not trusted");
+      }
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType,
+        Socket socket) throws CertificateException {
+      check();
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType,
+        Socket socket) throws CertificateException {
+      check();
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType,
+        SSLEngine engine) throws CertificateException {
+      check();
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType,
+        SSLEngine engine) throws CertificateException {
+      check();
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType)
+        throws CertificateException {
+      check();
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType)
+        throws CertificateException {
+      check();
+    }
+
+    @Override
+    public X509Certificate[] getAcceptedIssuers() {
+      return new X509Certificate[0];
+    }
+
+  }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+import org.junit.Test;
+import org.soulwing.ssl.SSLContextBuilder.CipherSuiteProfile;
+
+/**
+ * Tests for {@link CipherSuiteProfiles}.
+ *
+ * @author Carl Harris
+ */
+public class CipherSuiteProfilesTest {
+
+  private static final String TLS13_AES_256 = "TLS_AES_256_GCM_SHA384";
+  private static final String TLS13_AES_128 = "TLS_AES_128_GCM_SHA256";
+  private static final String TLS13_CHACHA =
+      "TLS_CHACHA20_POLY1305_SHA256";
+  private static final String ECDSA_AES_256 =
+      "TLS_ECDHE_ECDSA_WITH_AES_256_GCM_SHA384";
+  private static final String RSA_AES_128 =
+      "TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256";
+  private static final String RSA_CHACHA =
+      "TLS_ECDHE_RSA_WITH_CHACHA20_POLY1305_SHA256";
+  private static final String DHE_AES_128 =
+      "TLS_DHE_RSA_WITH_AES_128_GCM_SHA256";
+  private static final String RSA_CBC =
+      "TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA256";
+  private static final String STATIC_RSA_GCM =
+      "TLS_RSA_WITH_AES_128_GCM_SHA256";
+  private static final String SCSV = "TLS_EMPTY_RENEGOTIATION_INFO_SCSV";
+
+  private static final String[] CIPHER_SUITES = {
+      TLS13_AES_256, TLS13_AES_128, TLS13_CHACHA, STATIC_RSA_GCM, RSA_CBC,
+      DHE_AES_128, RSA_CHACHA, RSA_AES_128, ECDSA_AES_256, SCSV
+  };
+
+  @Test
+  public void testThroughputWithAes() throws Exception {
+    assertThat(CipherSuiteProfiles.order(CipherSuiteProfile.THROUGHPUT,
+        CIPHER_SUITES, true), is(arrayContaining(
+            TLS13_AES_128, RSA_AES_128, DHE_AES_128, TLS13_AES_256,
+            ECDSA_AES_256, TLS13_CHACHA, RSA_CHACHA, SCSV)));
+  }
+
+  @Test
+  public void testThroughputWithoutAes() throws Exception {
+    assertThat(CipherSuiteProfiles.order(CipherSuiteProfile.THROUGHPUT,
+        CIPHER_SUITES, false), is(arrayContaining(
+            TLS13_CHACHA, RSA_CHACHA, TLS13_AES_128, RSA_AES_128,
+            DHE_AES_128, TLS13_AES_256, ECDSA_AES_256, SCSV)));
+  }
+
+  @Test
+  public void testLowLatency() throws Exception {
+    assertThat(CipherSuiteProfiles.order(CipherSuiteProfile.LOW_LATENCY,
+        CIPHER_SUITES, true), is(arrayContaining(
+            TLS13_AES_256, TLS13_AES_128, TLS13_CHACHA, ECDSA_AES_256,
+            RSA_AES_128, RSA_CHACHA, SCSV)));
+  }
+
+  @Test
+  public void testCompat() throws Exception {
+    assertThat(CipherSuiteProfiles.order(CipherSuiteProfile.COMPAT,
+        CIPHER_SUITES, true), is(arrayContaining(
+            TLS13_AES_256, TLS13_AES_128, DHE_AES_128, RSA_AES_128,
+            ECDSA_AES_256, TLS13_CHACHA, RSA_CHACHA, RSA_CBC,
+            STATIC_RSA_GCM, SCSV)));
+  }
+
+  @Test
+  public void testComposesWithIncludedCipherSuites() throws Exception {
+    final SSLContext context = SSLContextBuilderFactory.newBuilder()
+        .includeCipherSuites(".*_256_.*", ".*_128_.*")
+        .excludeCipherSuite(".*_CHACHA20_.*")
+        .cipherSuiteProfile(CipherSuiteProfile.LOW_LATENCY, true)
+        .build();
+    final SSLEngine engine = context.createSSLEngine();
+    assertThat(engine.getSSLParameters().getUseCipherSuitesOrder(),
+        is(true));
+    final String[] cipherSuites = engine.getEnabledCipherSuites();
+    assertThat(cipherSuites[0], is(equalTo(TLS13_AES_256)));
+    assertThat(cipherSuites[1], is(equalTo(TLS13_AES_128)));
+    for (final String cipherSuite : cipherSuites) {
+      assertThat(cipherSuite.contains("_GCM_"), is(true));
+    }
+  }
+
+}
@@ -20,7 +20,9 @@ package org.soulwing.ssl;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -35,6 +37,7 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketAddress;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -49,6 +52,7 @@ import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLServerSocket;
 
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 
 /**
@@ -64,9 +68,116 @@ public class ConcreteSSLContextBuilderTest {
 
   @Test
   public void test() throws Exception {
-    SSLContext serverContext = createServerContext();
-    SSLContext clientContext = createClientContext();
+    assertExchange(createServerContext(), createClientContext());
+  }
+
+  @Test
+  public void testBuildAsync() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      Future<SSLContext> serverContext =
+          createServerBuilder().buildAsync(executor);
+      Future<SSLContext> clientContext =
+          createClientBuilder().buildAsync(executor);
+      assertExchange(serverContext.get(), clientContext.get());
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test(expected = SSLRuntimeException.class)
+  public void testBuildAsyncWhenKeyStoreCannotBeLoaded() throws Throwable {
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      SSLContextBuilderFactory.newBuilder()
+          .credential()
+            .type("JKS")
+            .location("server-credential.jks", getClass())
+            .password("not the password")
+            .end()
+          .buildAsync(executor)
+          .get();
+    }
+    catch (ExecutionException ex) {
+      throw ex.getCause();
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testBuildLazily() throws Exception {
+    assertExchange(createServerBuilder().buildLazily(),
+        createClientBuilder().buildLazily());
+  }
+
+  @Test
+  public void testPeerTrustIndex() throws Exception {
+    assertExchange(createServerBuilder().peerTrustIndex().build(),
+        createClientBuilder().peerTrustIndex().build());
+  }
+
+  @Test
+  public void testCredentialIndex() throws Exception {
+    assertExchange(createServerBuilder().credentialIndex().build(),
+        createClientBuilder().credentialIndex().build());
+  }
+
+  @Test
+  public void testCredentialAlias() throws Exception {
+    assertExchange(createServerBuilder().credentialAlias("server").build(),
+        createClientBuilder().credentialSelectionCache().build());
+  }
+
+  @Test(expected = SSLRuntimeException.class)
+  public void testBuildLazilyWhenKeyStoreCannotBeLoaded() throws Exception {
+    SSLContext context = SSLContextBuilderFactory.newBuilder()
+        .credential()
+          .type("JKS")
+          .location("server-credential.jks", getClass())
+          .password("not the password")
+          .end()
+        .buildLazily();
+    context.getServerSocketFactory();
+  }
+
+  @Test
+  public void testMetricsForSockets() throws Exception {
+    SSLMetrics metrics = new SSLMetrics();
+    assertExchange(createServerBuilder().metrics(metrics).build(),
+        createClientBuilder().metrics(metrics).build());
+
+    SSLMetrics.Snapshot snapshot = metrics.snapshot();
+    long deadline = System.currentTimeMillis() + 5000;
+    while (snapshot.getHandshakesCompleted() < 2
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+      snapshot = metrics.snapshot();
+    }
+    assertThat(snapshot.getHandshakesStarted(), is(equalTo(2L)));
+    assertThat(snapshot.getHandshakesCompleted(), is(equalTo(2L)));
+    assertThat(snapshot.getHandshakesFailed(), is(equalTo(0L)));
+    assertThat(snapshot.getBytesOut(), is(equalTo(6L)));
+    assertThat(snapshot.getBytesIn(), is(equalTo(6L)));
+  }
 
+  @Test
+  public void testServerSocketNotWrappedWithoutMetrics() throws Exception {
+    Assume.assumeFalse(SSLEventRecorder.getInstance().isHandshakeEnabled());
+    ServerSocket socket = createServerSocket(
+        createServerContext().getServerSocketFactory());
+    try {
+      assertThat(socket, is(not(instanceOf(MeteredSSLServerSocket.class))));
+    }
+    finally {
+      socket.close();
+    }
+  }
+
+  private void assertExchange(SSLContext serverContext,
+      SSLContext clientContext) throws Exception {
     ServerSocket listenerSocket = createServerSocket(
         serverContext.getServerSocketFactory());
 
@@ -91,6 +202,30 @@ public class ConcreteSSLContextBuilderTest {
     serverSocket.close();
   }
 
+  @Test
+  public void testSessionContextConfiguration() throws Exception {
+    SSLContext context = SSLContextBuilderFactory.newBuilder()
+        .serverSessionCacheSize(1000)
+        .serverSessionTimeout(3600)
+        .clientSessionCacheSize(100)
+        .clientSessionTimeout(600)
+        .build();
+
+    assertThat(context.getServerSessionContext().getSessionCacheSize(),
+        is(equalTo(1000)));
+    assertThat(context.getServerSessionContext().getSessionTimeout(),
+        is(equalTo(3600)));
+    assertThat(context.getClientSessionContext().getSessionCacheSize(),
+        is(equalTo(100)));
+    assertThat(context.getClientSessionContext().getSessionTimeout(),
+        is(equalTo(600)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeSessionCacheSize() throws Exception {
+    SSLContextBuilderFactory.newBuilder().serverSessionCacheSize(-1);
+  }
+
   static class MessageReceiver implements Callable<String> {
 
     private final Socket socket;
@@ -132,6 +267,10 @@ public class ConcreteSSLContextBuilderTest {
   }
 
   private SSLContext createClientContext() {
+    return createClientBuilder().build();
+  }
+
+  private SSLContextBuilder createClientBuilder() {
     return SSLContextBuilderFactory.newBuilder()
         .protocol("TLS")
         .credential()
@@ -143,11 +282,14 @@ public class ConcreteSSLContextBuilderTest {
           .type("JKS")
           .location("server-certificate.jks", getClass())
           .password(PASSWORD)
-          .end()
-        .build();
+          .end();
   }
 
   private SSLContext createServerContext() {
+    return createServerBuilder().build();
+  }
+
+  private SSLContextBuilder createServerBuilder() {
     return SSLContextBuilderFactory.newBuilder()
         .protocol("TLS")
         .clientAuthentication(SSLContextBuilder.ClientAuthentication.REQUIRED)
@@ -160,8 +302,7 @@ public class ConcreteSSLContextBuilderTest {
           .type("JKS")
           .location("client-certificate.jks", getClass())
           .password(PASSWORD)
-          .end()
-        .build();
+          .end();
   }
 
 
@@ -0,0 +1,343 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.KeyStore;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
+import javax.security.auth.x500.X500Principal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link CrlStore}.
+ *
+ * @author Carl Harris
+ */
+public class CrlStoreTest {
+
+  private static final String PROTOCOL = "TLSv1.2";
+
+  private static final String PASSWORD = "changeit";
+
+  private X509Certificate certificate;
+
+  private X509Certificate issuer;
+
+  private Path directory;
+
+  @Before
+  public void setUp() throws Exception {
+    certificate = (X509Certificate) loadKeyStore("ca-issued-credential.jks")
+        .getCertificate("issued");
+    issuer = (X509Certificate) loadKeyStore("ca-certificate.jks")
+        .getCertificate(loadKeyStore("ca-certificate.jks").aliases()
+            .nextElement());
+    directory = Files.createTempDirectory("crl");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    for (final Path file : Files.newDirectoryStream(directory)) {
+      Files.delete(file);
+    }
+    Files.delete(directory);
+  }
+
+  @Test
+  public void testSerialIndex() throws Exception {
+    final Random random = new Random(1);
+    final Set<BigInteger> serialNumbers = new HashSet<>();
+    while (serialNumbers.size() < 10000) {
+      final BigInteger serialNumber =
+          new BigInteger(1 + random.nextInt(160), random);
+      serialNumbers.add(random.nextInt(100) == 0 ?
+          serialNumber.negate() : serialNumber);
+    }
+    final CrlStore.SerialIndex index = new CrlStore.SerialIndex(
+        new X500Principal("CN=Test CA"), 0, 0, serialNumbers, null);
+
+    assertThat(index.size(), is(equalTo(serialNumbers.size())));
+    for (final BigInteger serialNumber : serialNumbers) {
+      assertThat(index.contains(serialNumber), is(true));
+    }
+    for (int i = 0; i < 10000; i++) {
+      final BigInteger serialNumber =
+          new BigInteger(1 + random.nextInt(168), random);
+      assertThat(index.contains(serialNumber),
+          is(serialNumbers.contains(serialNumber)));
+    }
+  }
+
+  @Test
+  public void testEmptySerialIndex() throws Exception {
+    final CrlStore.SerialIndex index = new CrlStore.SerialIndex(
+        new X500Principal("CN=Test CA"), 0, 0,
+        Collections.<BigInteger>emptySet(), null);
+    assertThat(index.contains(BigInteger.ONE), is(false));
+  }
+
+  @Test(expected = CertificateException.class)
+  public void testRevokedInFile() throws Exception {
+    final CrlStore store = newStore(resource("crl/ca-revoked.crl"));
+    store.load();
+    store.check(certificate, issuer);
+  }
+
+  @Test(expected = CertificateException.class)
+  public void testRevokedInDirectory() throws Exception {
+    final CrlStore store = newStore(resource("crl"));
+    store.load();
+    assertThat(store.size(), is(equalTo(1)));
+    store.check(certificate, issuer);
+  }
+
+  @Test
+  public void testNotRevoked() throws Exception {
+    final CrlStore store = newStore(resource("ca-other.crl"));
+    store.load();
+    store.check(certificate, issuer);
+  }
+
+  @Test
+  public void testRejectedWhenNoCrlCanBeVerified() throws Exception {
+    final CrlStore store = newStore(resource("ca-forged.crl"));
+    store.load();
+    assertUndetermined(store, certificate, issuer);
+  }
+
+  @Test(expected = CertificateException.class)
+  public void testNewerCrlWithInvalidSignatureDoesNotDisplaceValidCrl()
+      throws Exception {
+    final CrlStore store = newStore(resource("crl/ca-revoked.crl"),
+        resource("ca-forged.crl"));
+    store.load();
+    store.check(certificate, issuer);
+  }
+
+  @Test
+  public void testStaleCrlUsedByDefault() throws Exception {
+    final CrlStore store = newStore(resource("ca-stale.crl"));
+    store.load();
+    assertThat(store.getStaleIssuers(),
+        contains(new X500Principal("CN=Test CA")));
+    try {
+      store.check(certificate, issuer);
+      throw new AssertionError("expected CertificateException");
+    }
+    catch (CertificateException ex) {
+      assertThat(ex.getMessage(), containsString("revoked"));
+    }
+  }
+
+  @Test
+  public void testStaleCrlRejected() throws Exception {
+    final CrlStore store = newStore(true, resource("ca-stale.crl"));
+    store.load();
+    try {
+      store.check(certificate, issuer);
+      throw new AssertionError("expected CertificateException");
+    }
+    catch (CertificateException ex) {
+      assertThat(ex.getMessage(), containsString("stale"));
+    }
+  }
+
+  @Test
+  public void testCurrentCrlSupersedesStaleCrl() throws Exception {
+    final CrlStore store = newStore(true, resource("ca-stale.crl"),
+        resource("ca-other.crl"));
+    store.load();
+    assertThat(store.getStaleIssuers(), is(empty()));
+    store.check(certificate, issuer);
+  }
+
+  @Test
+  public void testRejectedWhenIssuerNotKnown() throws Exception {
+    final CrlStore store = newStore(resource("ca-other.crl"));
+    store.load();
+    assertUndetermined(store, certificate, null);
+    store.check(certificate, issuer);
+    assertUndetermined(store, certificate, null);
+  }
+
+  @Test
+  public void testCrlVerifiedForEachIssuerKey() throws Exception {
+    final X509Certificate otherIssuer = (X509Certificate)
+        loadKeyStore("ca-rollover-certificate.jks").getCertificate("ca");
+    assertThat(otherIssuer.getSubjectX500Principal(),
+        is(equalTo(issuer.getSubjectX500Principal())));
+    final CrlStore store = newStore(resource("crl/ca-revoked.crl"));
+    store.load();
+    assertUndetermined(store, certificate, otherIssuer);
+    assertRevoked(store, certificate, issuer);
+    assertUndetermined(store, certificate, otherIssuer);
+    assertRevoked(store, certificate, issuer);
+  }
+
+  @Test
+  public void testIncrementalReload() throws Exception {
+    copy("ca-other.crl", "other.crl");
+    Files.write(directory.resolve("README"), "not a CRL".getBytes());
+    final CrlStore store = newStore(directory.toUri().toURL());
+    store.load();
+    store.check(certificate, issuer);
+    assertThat(store.reload(), is(false));
+
+    copy("crl/ca-revoked.crl", "revoked.crl");
+    assertThat(store.reload(), is(true));
+    try {
+      store.check(certificate, issuer);
+      throw new AssertionError("expected CertificateException");
+    }
+    catch (CertificateException ex) {
+      assert true;
+    }
+
+    copy("crl/ca-revoked.crl", "revoked.crl");
+    assertThat(store.reload(), is(false));
+
+    Files.delete(directory.resolve("revoked.crl"));
+    assertThat(store.reload(), is(true));
+    store.check(certificate, issuer);
+  }
+
+  @Test
+  public void testHandshakeWithRevokedCertificate() throws Exception {
+    final SSLContext serverContext = newServerContext();
+    final SSLContext clientContext = SSLContextBuilderFactory.newBuilder()
+        .includeProtocol(PROTOCOL)
+        .peerTrust()
+          .type("JKS")
+          .location("ca-certificate.jks", getClass())
+          .password(PASSWORD)
+          .crlLocation("crl", getClass())
+          .end()
+        .build();
+    try {
+      DelegatingSSLContextSpiTest.handshake(clientContext.createSSLEngine(),
+          serverContext.createSSLEngine());
+      throw new AssertionError("expected SSLException");
+    }
+    catch (SSLException ex) {
+      assert true;
+    }
+  }
+
+  @Test
+  public void testHandshakeWithCertificateNotRevoked() throws Exception {
+    final SSLContext serverContext = newServerContext();
+    final SSLContext clientContext = SSLContextBuilderFactory.newBuilder()
+        .includeProtocol(PROTOCOL)
+        .peerTrust()
+          .type("JKS")
+          .location("ca-certificate.jks", getClass())
+          .password(PASSWORD)
+          .crlLocation("ca-other.crl", getClass())
+          .end()
+        .build();
+    DelegatingSSLContextSpiTest.handshake(clientContext.createSSLEngine(),
+        serverContext.createSSLEngine());
+  }
+
+  private SSLContext newServerContext() {
+    return SSLContextBuilderFactory.newBuilder()
+        .includeProtocol(PROTOCOL)
+        .credential()
+          .type("JKS")
+          .location("ca-issued-credential.jks", getClass())
+          .password(PASSWORD)
+          .end()
+        .build();
+  }
+
+  private static void assertRevoked(CrlStore store,
+      X509Certificate certificate, X509Certificate issuer) {
+    try {
+      store.check(certificate, issuer);
+      throw new AssertionError("expected CertificateException");
+    }
+    catch (CertificateException ex) {
+      assertThat(ex.getMessage(), containsString("revoked"));
+    }
+  }
+
+  private static void assertUndetermined(CrlStore store,
+      X509Certificate certificate, X509Certificate issuer) {
+    try {
+      store.check(certificate, issuer);
+      throw new AssertionError("expected CertificateException");
+    }
+    catch (CertificateException ex) {
+      assertThat(ex.getMessage(), containsString("cannot be determined"));
+    }
+  }
+
+  private CrlStore newStore(URL... locations) {
+    return newStore(false, locations);
+  }
+
+  private CrlStore newStore(boolean rejectStale, URL... locations) {
+    return new CrlStore(Arrays.asList(locations), 0, rejectStale);
+  }
+
+  private URL resource(String name) {
+    return getClass().getResource(name);
+  }
+
+  private void copy(String resource, String name) throws Exception {
+    final Path target = directory.resolve(name);
+    try (InputStream inputStream =
+        getClass().getResourceAsStream(resource)) {
+      Files.copy(inputStream, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private KeyStore loadKeyStore(String resource) throws Exception {
+    final KeyStoreFactory factory = new KeyStoreFactory();
+    factory.setType("JKS");
+    factory.setLocation(resource, getClass());
+    factory.setPassword(PASSWORD);
+    return factory.newKeyStore();
+  }
+
+}
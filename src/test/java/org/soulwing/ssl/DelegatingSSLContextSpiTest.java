@@ -0,0 +1,330 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.nio.ByteBuffer;
+import java.security.KeyStoreException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DelegatingSSLContextSpi}.
+ *
+ * @author Carl Harris
+ */
+public class DelegatingSSLContextSpiTest {
+
+  private static final String PROTOCOL = "TLSv1.2";
+
+  private static final String PASSWORD = "changeit";
+
+  private static final String PEER_HOST = "server.example.com";
+
+  private static final int PEER_PORT = 8443;
+
+  private static final String CIPHER_SUITE =
+      "TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256";
+
+  private SSLContext context;
+
+  @Before
+  public void setUp() throws Exception {
+    final SSLParametersConfiguration parameters =
+        new SSLParametersConfiguration();
+    parameters.includeProtocols(PROTOCOL);
+    parameters.includeCipherSuites(CIPHER_SUITE);
+    context = new SSLContextWrapper(SSLContext.getInstance("TLS"), parameters);
+    context.init(null, null, null);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCreateEngineWhenNotInitialized() throws Exception {
+    new SSLContextWrapper(SSLContext.getInstance("TLS"),
+        new SSLParametersConfiguration()).createSSLEngine();
+  }
+
+  @Test
+  public void testInitializeOnFirstUse() throws Exception {
+    final AtomicInteger count = new AtomicInteger();
+    final SSLContext context = new SSLContextWrapper(
+        SSLContext.getInstance("TLS"), new SSLParametersConfiguration(),
+        new DelegatingSSLContextSpi.Initializer() {
+          @Override
+          public void initialize(SSLContext delegate) throws Exception {
+            count.incrementAndGet();
+            delegate.init(null, null, null);
+          }
+        });
+
+    assertThat(count.get(), is(equalTo(0)));
+    context.createSSLEngine();
+    context.getSocketFactory();
+    context.getServerSessionContext();
+    assertThat(count.get(), is(equalTo(1)));
+  }
+
+  @Test
+  public void testInitializeRetriedAfterFailure() throws Exception {
+    final AtomicInteger count = new AtomicInteger();
+    final SSLContext context = new SSLContextWrapper(
+        SSLContext.getInstance("TLS"), new SSLParametersConfiguration(),
+        new DelegatingSSLContextSpi.Initializer() {
+          @Override
+          public void initialize(SSLContext delegate) throws Exception {
+            if (count.incrementAndGet() == 1) {
+              throw new KeyStoreException("not loaded");
+            }
+            delegate.init(null, null, null);
+          }
+        });
+
+    try {
+      context.getSocketFactory();
+      throw new AssertionError("expected SSLRuntimeException");
+    }
+    catch (SSLRuntimeException ex) {
+      assertThat(ex.getCause(), is(instanceOf(KeyStoreException.class)));
+    }
+    assertThat(context.getSocketFactory(), is(not(nullValue())));
+    assertThat(count.get(), is(equalTo(2)));
+  }
+
+  @Test
+  public void testCreateEngine() throws Exception {
+    final SSLEngine engine = context.createSSLEngine();
+    assertThat(engine.getEnabledProtocols(), arrayContaining(PROTOCOL));
+    assertThat(engine.getEnabledCipherSuites(), arrayContaining(CIPHER_SUITE));
+  }
+
+  @Test
+  public void testSocketFactoriesAreShared() throws Exception {
+    assertThat(context.getSocketFactory(),
+        is(sameInstance(context.getSocketFactory())));
+    assertThat(context.getServerSocketFactory(),
+        is(sameInstance(context.getServerSocketFactory())));
+  }
+
+  @Test
+  public void testCreateEngineForPeer() throws Exception {
+    final SSLEngine engine = context.createSSLEngine(PEER_HOST, PEER_PORT);
+    assertThat(engine.getPeerHost(), is(equalTo(PEER_HOST)));
+    assertThat(engine.getPeerPort(), is(equalTo(PEER_PORT)));
+    assertThat(engine.getEnabledProtocols(), arrayContaining(PROTOCOL));
+    assertThat(engine.getSSLParameters().getServerNames(),
+        contains(new SNIHostName(PEER_HOST)));
+  }
+
+  @Test
+  public void testCreateEngineForPeerKeepsCipherSuiteOrder()
+      throws Exception {
+    final SSLParametersConfiguration parameters =
+        new SSLParametersConfiguration();
+    parameters.includeProtocols(PROTOCOL);
+    parameters.setCipherSuiteProfile(
+        SSLContextBuilder.CipherSuiteProfile.THROUGHPUT, false);
+    final SSLContext context = new SSLContextWrapper(
+        SSLContext.getInstance("TLS"), parameters);
+    context.init(null, null, null);
+
+    final SSLParameters engineParameters =
+        context.createSSLEngine(PEER_HOST, PEER_PORT).getSSLParameters();
+    assertThat(engineParameters.getUseCipherSuitesOrder(), is(true));
+    assertThat(engineParameters.getServerNames(),
+        contains(new SNIHostName(PEER_HOST)));
+  }
+
+  @Test
+  public void testCreateEngineForPeerAddress() throws Exception {
+    final SSLEngine engine = context.createSSLEngine("127.0.0.1", PEER_PORT);
+    assertThat(engine.getPeerHost(), is(equalTo("127.0.0.1")));
+    assertThat(engine.getEnabledProtocols(), arrayContaining(PROTOCOL));
+  }
+
+  @Test
+  public void testClientSessionResumedForPeer() throws Exception {
+    final SSLContext serverContext = newServerBuilder().build();
+    final SSLContext clientContext = newClientBuilder().build();
+
+    final SSLSession session = handshake(
+        clientContext.createSSLEngine(PEER_HOST, PEER_PORT),
+        serverContext.createSSLEngine());
+    final SSLSession resumedSession = handshake(
+        clientContext.createSSLEngine(PEER_HOST, PEER_PORT),
+        serverContext.createSSLEngine());
+
+    assertThat(resumedSession.getId(), is(equalTo(session.getId())));
+    assertThat(resumedSession.getCreationTime(),
+        is(equalTo(session.getCreationTime())));
+  }
+
+  @Test
+  public void testMetricsForEngines() throws Exception {
+    final SSLMetrics metrics = new SSLMetrics();
+    final SSLContext serverContext =
+        newServerBuilder().metrics(metrics).build();
+    final SSLContext clientContext =
+        newClientBuilder().metrics(metrics).build();
+
+    handshake(clientContext.createSSLEngine(PEER_HOST, PEER_PORT),
+        serverContext.createSSLEngine());
+    handshake(clientContext.createSSLEngine(PEER_HOST, PEER_PORT),
+        serverContext.createSSLEngine());
+
+    final SSLMetrics.Snapshot snapshot = metrics.snapshot();
+    assertThat(snapshot.getHandshakesStarted(), is(equalTo(4L)));
+    assertThat(snapshot.getHandshakesCompleted(), is(equalTo(4L)));
+    assertThat(snapshot.getHandshakesFailed(), is(equalTo(0L)));
+    assertThat(snapshot.getFullHandshakes(), is(equalTo(2L)));
+    assertThat(snapshot.getResumedHandshakes(), is(equalTo(2L)));
+    assertThat(snapshot.getHandshakeLatency().getCount(), is(equalTo(4L)));
+    assertThat(snapshot.getProtocols().get(PROTOCOL), is(equalTo(4L)));
+  }
+
+  @Test
+  public void testMetricsForFailedEngineHandshake() throws Exception {
+    final SSLMetrics metrics = new SSLMetrics();
+    final SSLContext serverContext = newServerBuilder().build();
+    final SSLContext clientContext = SSLContextBuilderFactory.newBuilder()
+        .includeProtocol(PROTOCOL)
+        .peerTrust()
+          .type("JKS")
+          .location("client-certificate.jks", getClass())
+          .password(PASSWORD)
+          .end()
+        .metrics(metrics)
+        .build();
+
+    try {
+      handshake(clientContext.createSSLEngine(PEER_HOST, PEER_PORT),
+          serverContext.createSSLEngine());
+      throw new AssertionError("expected SSLException");
+    }
+    catch (SSLException ex) {
+      assert true;
+    }
+
+    final SSLMetrics.Snapshot snapshot = metrics.snapshot();
+    assertThat(snapshot.getHandshakesStarted(), is(equalTo(1L)));
+    assertThat(snapshot.getHandshakesCompleted(), is(equalTo(0L)));
+    assertThat(snapshot.getHandshakesFailed(), is(equalTo(1L)));
+  }
+
+  private SSLContextBuilder newServerBuilder() {
+    return SSLContextBuilderFactory.newBuilder()
+        .includeProtocol(PROTOCOL)
+        .credential()
+          .type("JKS")
+          .location("server-credential.jks", getClass())
+          .password(PASSWORD)
+          .end();
+  }
+
+  private SSLContextBuilder newClientBuilder() {
+    return SSLContextBuilderFactory.newBuilder()
+        .includeProtocol(PROTOCOL)
+        .peerTrust()
+          .type("JKS")
+          .location("server-certificate.jks", getClass())
+          .password(PASSWORD)
+          .end();
+  }
+
+  /**
+   * Performs a handshake between a client and server engine by exchanging
+   * network data in memory.
+   * @return client session
+   */
+  static SSLSession handshake(SSLEngine client, SSLEngine server)
+      throws Exception {
+    client.setUseClientMode(true);
+    server.setUseClientMode(false);
+    final ByteBuffer empty = ByteBuffer.allocate(0);
+    final ByteBuffer clientToServer = ByteBuffer.allocate(
+        client.getSession().getPacketBufferSize());
+    final ByteBuffer serverToClient = ByteBuffer.allocate(
+        server.getSession().getPacketBufferSize());
+    final ByteBuffer clientApp = ByteBuffer.allocate(
+        client.getSession().getApplicationBufferSize());
+    final ByteBuffer serverApp = ByteBuffer.allocate(
+        server.getSession().getApplicationBufferSize());
+
+    client.beginHandshake();
+    server.beginHandshake();
+    for (int i = 0; i < 100 && (!isFinished(client) || !isFinished(server));
+         i++) {
+      step(client, empty, clientToServer, serverToClient, clientApp);
+      step(server, empty, serverToClient, clientToServer, serverApp);
+    }
+    assertThat(isFinished(client) && isFinished(server), is(true));
+    assertThat(client.getSession().getId(), is(not(nullValue())));
+    return client.getSession();
+  }
+
+  private static void step(SSLEngine engine, ByteBuffer empty, ByteBuffer outbound,
+      ByteBuffer inbound, ByteBuffer app) throws Exception {
+    switch (engine.getHandshakeStatus()) {
+      case NEED_WRAP:
+        engine.wrap(empty, outbound);
+        break;
+      case NEED_UNWRAP:
+        inbound.flip();
+        final SSLEngineResult result = engine.unwrap(inbound, app);
+        inbound.compact();
+        if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+          return;
+        }
+        break;
+      case NEED_TASK:
+        Runnable task;
+        while ((task = engine.getDelegatedTask()) != null) {
+          task.run();
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  private static boolean isFinished(SSLEngine engine) {
+    final SSLEngineResult.HandshakeStatus status = engine.getHandshakeStatus();
+    return status == SSLEngineResult.HandshakeStatus.FINISHED
+        || status == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING;
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link DirectBufferPool}.
+ *
+ * @author Carl Harris
+ */
+public class DirectBufferPoolTest {
+
+  private static final int SIZE_CLASS = DirectBufferPool.SIZE_CLASS;
+
+  private final DirectBufferPool pool = new DirectBufferPool(4 * SIZE_CLASS);
+
+  @Test
+  public void testAcquireRoundsUpToSizeClass() throws Exception {
+    final ByteBuffer buffer = pool.acquire(SIZE_CLASS + 1);
+    assertThat(buffer.isDirect(), is(true));
+    assertThat(buffer.capacity(), is(equalTo(2 * SIZE_CLASS)));
+    assertThat(buffer.position(), is(equalTo(0)));
+    assertThat(buffer.limit(), is(equalTo(buffer.capacity())));
+    assertThat(pool.acquire(0).capacity(), is(equalTo(SIZE_CLASS)));
+  }
+
+  @Test
+  public void testReleasedBufferIsReused() throws Exception {
+    final ByteBuffer buffer = pool.acquire(SIZE_CLASS);
+    buffer.put((byte) 1).flip();
+    pool.release(buffer);
+    assertThat(pool.getRetainedBytes(), is(equalTo((long) SIZE_CLASS)));
+
+    final ByteBuffer reused = pool.acquire(SIZE_CLASS - 1);
+    assertThat(reused, is(sameInstance(buffer)));
+    assertThat(reused.position(), is(equalTo(0)));
+    assertThat(reused.limit(), is(equalTo(SIZE_CLASS)));
+    assertThat(pool.getRetainedBytes(), is(equalTo(0L)));
+    assertThat(pool.getAllocationCount(), is(equalTo(1L)));
+  }
+
+  @Test
+  public void testSmallerClassIsNotReused() throws Exception {
+    final ByteBuffer buffer = pool.acquire(SIZE_CLASS);
+    pool.release(buffer);
+    assertThat(pool.acquire(2 * SIZE_CLASS), is(not(sameInstance(buffer))));
+    assertThat(pool.getAllocationCount(), is(equalTo(2L)));
+  }
+
+  @Test
+  public void testRetentionIsLimited() throws Exception {
+    final ByteBuffer first = pool.acquire(3 * SIZE_CLASS);
+    final ByteBuffer second = pool.acquire(2 * SIZE_CLASS);
+    pool.release(first);
+    pool.release(second);
+    assertThat(pool.getRetainedBytes(), is(equalTo(3L * SIZE_CLASS)));
+    assertThat(pool.acquire(2 * SIZE_CLASS), is(not(sameInstance(second))));
+  }
+
+  @Test
+  public void testForeignBuffersAreNotRetained() throws Exception {
+    pool.release(ByteBuffer.allocate(SIZE_CLASS));
+    pool.release(ByteBuffer.allocateDirect(SIZE_CLASS + 1));
+    pool.release(ByteBuffer.allocateDirect(
+        (DirectBufferPool.CLASS_COUNT + 1) * SIZE_CLASS));
+    pool.release(null);
+    assertThat(pool.getRetainedBytes(), is(equalTo(0L)));
+  }
+
+}
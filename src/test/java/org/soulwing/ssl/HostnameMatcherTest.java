@@ -0,0 +1,100 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link HostnameMatcher}.
+ *
+ * @author Carl Harris
+ */
+public class HostnameMatcherTest {
+
+  @Test
+  public void testMatchesName() throws Exception {
+    assertThat(HostnameMatcher.matches("www.example.com", "www.example.com"),
+        is(true));
+    assertThat(HostnameMatcher.matches("www.example.com", "WWW.Example.COM."),
+        is(true));
+    assertThat(HostnameMatcher.matches("www.example.com", "example.com"),
+        is(false));
+  }
+
+  @Test
+  public void testMatchesWildcard() throws Exception {
+    assertThat(HostnameMatcher.matches("www.example.com", "*.example.com"),
+        is(true));
+    assertThat(HostnameMatcher.matches("example.com", "*.example.com"),
+        is(false));
+    assertThat(HostnameMatcher.matches("a.b.example.com", "*.example.com"),
+        is(false));
+    assertThat(HostnameMatcher.matches("example.com", "*.com"), is(false));
+  }
+
+  @Test
+  public void testMatchesCertificate() throws Exception {
+    final X509Certificate certificate = certificateOf(
+        "ca-issued-credential.jks");
+    assertThat(HostnameMatcher.dnsNames(certificate),
+        contains("server.example.com", "*.example.org"));
+    assertThat(HostnameMatcher.matches("Server.Example.com.", certificate),
+        is(true));
+    assertThat(HostnameMatcher.matches("www.example.org", certificate),
+        is(true));
+    assertThat(HostnameMatcher.matches("127.0.0.1", certificate), is(true));
+    assertThat(HostnameMatcher.matches("127.0.0.2", certificate), is(false));
+    assertThat(HostnameMatcher.matches("issued", certificate), is(false));
+  }
+
+  @Test
+  public void testMatchesCommonNameWithoutAlternativeNames()
+      throws Exception {
+    final X509Certificate certificate = certificateOf(
+        "server-credential.jks");
+    assertThat(HostnameMatcher.dnsNames(certificate), contains("server"));
+    assertThat(HostnameMatcher.matches("server", certificate), is(true));
+  }
+
+  @Test
+  public void testUsesMostSpecificCommonName() throws Exception {
+    final X509Certificate certificate = certificateOf(
+        "multiple-cn-certificate.jks");
+    assertThat(HostnameMatcher.dnsNames(certificate),
+        contains("specific.example.com"));
+  }
+
+  private X509Certificate certificateOf(String resource) throws Exception {
+    final KeyStoreFactory factory = new KeyStoreFactory();
+    factory.setType("JKS");
+    factory.setLocation(resource, getClass());
+    factory.setPassword("changeit");
+    final KeyStore keyStore = factory.newKeyStore();
+    return (X509Certificate) keyStore.getCertificate(
+        keyStore.aliases().nextElement());
+  }
+
+}
@@ -0,0 +1,208 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.security.KeyStore;
+import java.security.Principal;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.List;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link IndexedX509KeyManager}.
+ *
+ * @author Carl Harris
+ */
+public class IndexedX509KeyManagerTest {
+
+  private static final String PROTOCOL = "TLSv1.2";
+
+  private static final String PASSWORD = "changeit";
+
+  private static final String SERVER_ALIAS = "a-server";
+
+  private static final String ISSUED_ALIAS = "b-issued";
+
+  /** alias of an expired certificate for {@code rotate.example.com} */
+  private static final String EXPIRED_ALIAS = "a-expired";
+
+  /** alias of a valid certificate for {@code rotate.example.com} */
+  private static final String CURRENT_ALIAS = "b-current";
+
+  private KeyStore keyStore;
+
+  private IndexedX509KeyManager keyManager;
+
+  @Before
+  public void setUp() throws Exception {
+    keyStore = KeyStore.getInstance("JKS");
+    keyStore.load(null, null);
+    copyEntry("server-credential.jks", SERVER_ALIAS);
+    copyEntry("ca-issued-credential.jks", ISSUED_ALIAS);
+    keyManager = new IndexedX509KeyManager(keyStore,
+        PASSWORD.toCharArray());
+  }
+
+  @Test
+  public void testIndexesNames() throws Exception {
+    assertThat(keyManager.size(), is(equalTo(2)));
+    assertThat(aliasOf(keyManager.candidates("server")),
+        is(equalTo(SERVER_ALIAS)));
+    assertThat(aliasOf(keyManager.candidates("server.example.com")),
+        is(equalTo(ISSUED_ALIAS)));
+    assertThat(aliasOf(keyManager.candidates("www.example.org")),
+        is(equalTo(ISSUED_ALIAS)));
+    assertThat(keyManager.candidates("example.org"), is(empty()));
+    assertThat(keyManager.candidates("a.b.example.org"), is(empty()));
+  }
+
+  @Test
+  public void testChoosesDefaultWithoutSessionOrMatchingKeyType()
+      throws Exception {
+    assertThat(keyManager.chooseServerAlias("RSA", null, null),
+        is(equalTo(SERVER_ALIAS)));
+    assertThat(keyManager.chooseServerAlias("EC", null, null),
+        is(nullValue()));
+    assertThat(keyManager.getServerAliases("RSA", null),
+        is(arrayContaining(SERVER_ALIAS, ISSUED_ALIAS)));
+  }
+
+  @Test
+  public void testChoosesCredentialByIssuer() throws Exception {
+    final X509Certificate issuer =
+        keyManager.getCertificateChain(ISSUED_ALIAS)[1];
+    final Principal[] issuers = { issuer.getSubjectX500Principal() };
+    assertThat(keyManager.chooseClientAlias(new String[] { "RSA" },
+        issuers, null), is(equalTo(ISSUED_ALIAS)));
+  }
+
+  @Test
+  public void testHandshakeSelectsCredentialByServerName() throws Exception {
+    assertThat(serverNameOf(handshake("www.example.org")),
+        is(equalTo("CN=issued")));
+    assertThat(serverNameOf(handshake("server")),
+        is(equalTo("CN=server")));
+    assertThat(serverNameOf(handshake("unknown.example.net")),
+        is(equalTo("CN=server")));
+  }
+
+  @Test
+  public void testHandshakePrefersValidCertificate() throws Exception {
+    final KeyStore rotation = loadKeyStore("rotation-credential.jks");
+    final IndexedX509KeyManager keyManager = new IndexedX509KeyManager(
+        rotation, PASSWORD.toCharArray());
+    final KeyStore trustStore = KeyStore.getInstance("JKS");
+    trustStore.load(null, null);
+    trustStore.setCertificateEntry(CURRENT_ALIAS,
+        rotation.getCertificate(CURRENT_ALIAS));
+    assertThat(serverNameOf(handshake("rotate.example.com", keyManager,
+        trustStore)), is(equalTo("CN=current")));
+  }
+
+  @Test
+  public void testChoosesInvalidCertificateOnlyIfNoValidOne()
+      throws Exception {
+    final KeyStore rotation = loadKeyStore("rotation-credential.jks");
+    assertThat(new IndexedX509KeyManager(rotation, PASSWORD.toCharArray())
+        .chooseServerAlias("RSA", null, null),
+        is(equalTo(CURRENT_ALIAS)));
+    rotation.deleteEntry(CURRENT_ALIAS);
+    assertThat(new IndexedX509KeyManager(rotation, PASSWORD.toCharArray())
+        .chooseServerAlias("RSA", null, null),
+        is(equalTo(EXPIRED_ALIAS)));
+  }
+
+  private SSLSession handshake(String serverName) throws Exception {
+    return handshake(serverName, keyManager, trustStore());
+  }
+
+  private SSLSession handshake(String serverName,
+      IndexedX509KeyManager keyManager, KeyStore trustStore)
+      throws Exception {
+    final SSLContext serverContext = SSLContext.getInstance(PROTOCOL);
+    serverContext.init(new KeyManager[] { keyManager }, null, null);
+    final SSLContext clientContext = SSLContextBuilderFactory.newBuilder()
+        .includeProtocol(PROTOCOL)
+        .peerTrust(trustStore)
+        .build();
+
+    final SSLEngine client = clientContext.createSSLEngine();
+    final SSLParameters parameters = client.getSSLParameters();
+    parameters.setServerNames(Collections.singletonList(
+        new SNIHostName(serverName)));
+    client.setSSLParameters(parameters);
+    return DelegatingSSLContextSpiTest.handshake(client,
+        serverContext.createSSLEngine());
+  }
+
+  private KeyStore trustStore() throws Exception {
+    final KeyStore trustStore = KeyStore.getInstance("JKS");
+    trustStore.load(null, null);
+    trustStore.setCertificateEntry(SERVER_ALIAS,
+        keyStore.getCertificate(SERVER_ALIAS));
+    trustStore.setCertificateEntry(ISSUED_ALIAS,
+        keyStore.getCertificateChain(ISSUED_ALIAS)[1]);
+    return trustStore;
+  }
+
+  private static String serverNameOf(SSLSession session) throws Exception {
+    return ((X509Certificate) session.getPeerCertificates()[0])
+        .getSubjectX500Principal().getName();
+  }
+
+  private static String aliasOf(
+      List<IndexedX509KeyManager.Credential> credentials) {
+    assertThat(credentials.size(), is(equalTo(1)));
+    return credentials.get(0).alias;
+  }
+
+  private KeyStore loadKeyStore(String resource) {
+    final KeyStoreFactory factory = new KeyStoreFactory();
+    factory.setType("JKS");
+    factory.setLocation(resource, getClass());
+    factory.setPassword(PASSWORD);
+    return factory.newKeyStore();
+  }
+
+  private void copyEntry(String resource, String alias) throws Exception {
+    final KeyStore source = loadKeyStore(resource);
+    final String sourceAlias = source.aliases().nextElement();
+    keyStore.setKeyEntry(alias,
+        source.getKey(sourceAlias, PASSWORD.toCharArray()),
+        PASSWORD.toCharArray(), source.getCertificateChain(sourceAlias));
+  }
+
+}
@@ -0,0 +1,276 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+import java.security.AlgorithmConstraints;
+import java.security.AlgorithmParameters;
+import java.security.CryptoPrimitive;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Set;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.TrustManager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link IndexedX509TrustManager}.
+ *
+ * @author Carl Harris
+ */
+public class IndexedX509TrustManagerTest {
+
+  private static final String PROTOCOL = "TLSv1.2";
+
+  private static final String PASSWORD = "changeit";
+
+  private static final int PEER_PORT = 8443;
+
+  private X509Certificate[] issuedChain;
+
+  private X509Certificate[] serverChain;
+
+  private IndexedX509TrustManager trustManager;
+
+  @Before
+  public void setUp() throws Exception {
+    issuedChain = chainOf(loadKeyStore("ca-issued-credential.jks"));
+    serverChain = chainOf(loadKeyStore("server-credential.jks"));
+    final KeyStore trustStore = KeyStore.getInstance("JKS");
+    trustStore.load(null, null);
+    for (final String resource : Arrays.asList("ca-certificate.jks",
+        "server-certificate.jks", "keystore.jks")) {
+      final KeyStore keyStore = loadKeyStore(resource);
+      final String alias = keyStore.aliases().nextElement();
+      trustStore.setCertificateEntry(resource,
+          keyStore.getCertificate(alias));
+    }
+    trustManager = new IndexedX509TrustManager(trustStore);
+  }
+
+  @Test
+  public void testIndexesTrustedCertificates() throws Exception {
+    assertThat(trustManager.size(), is(equalTo(3)));
+    assertThat(trustManager.getAcceptedIssuers().length, is(equalTo(3)));
+  }
+
+  @Test
+  public void testTrustsChainIssuedByTrustedCertificate() throws Exception {
+    trustManager.checkServerTrusted(
+        new X509Certificate[] { issuedChain[0] }, "RSA");
+    trustManager.checkClientTrusted(issuedChain, "RSA");
+  }
+
+  @Test
+  public void testTrustsTrustedCertificate() throws Exception {
+    trustManager.checkServerTrusted(serverChain, "RSA");
+  }
+
+  @Test
+  public void testDoesNotTrustUnknownIssuer() throws Exception {
+    final IndexedX509TrustManager trustManager = new IndexedX509TrustManager(
+        loadKeyStore("server-certificate.jks"));
+    try {
+      trustManager.checkServerTrusted(issuedChain, "RSA");
+      throw new AssertionError("expected CertificateException");
+    }
+    catch (CertificateException ex) {
+      assert true;
+    }
+  }
+
+  @Test
+  public void testKeyIdentifiersMatch() throws Exception {
+    final byte[] authorityKeyIdentifier =
+        IndexedX509TrustManager.keyIdentifier(
+            issuedChain[0].getExtensionValue("2.5.29.35"), true);
+    final byte[] subjectKeyIdentifier =
+        IndexedX509TrustManager.keyIdentifier(
+            issuedChain[1].getExtensionValue("2.5.29.14"), false);
+    assertThat(authorityKeyIdentifier, is(notNullValue()));
+    assertThat(authorityKeyIdentifier, is(equalTo(subjectKeyIdentifier)));
+    assertThat(IndexedX509TrustManager.keyIdentifier(new byte[] { 4, 9 },
+        false), is(equalTo(null)));
+  }
+
+  @Test
+  public void testKeyUsageForServerAuthType() throws Exception {
+    final KeyStore keyStore = loadKeyStore("key-usage-certificate.jks");
+    final IndexedX509TrustManager trustManager =
+        new IndexedX509TrustManager(keyStore);
+    final X509Certificate[] encipherment = {
+        (X509Certificate) keyStore.getCertificate("encipherment") };
+    final X509Certificate[] signature = {
+        (X509Certificate) keyStore.getCertificate("signature") };
+
+    trustManager.checkServerTrusted(encipherment, "RSA");
+    assertNotTrusted(trustManager, encipherment, "ECDHE_RSA", true);
+    assertNotTrusted(trustManager, encipherment, "UNKNOWN", true);
+    trustManager.checkServerTrusted(signature, "ECDHE_RSA");
+    trustManager.checkServerTrusted(signature, "UNKNOWN");
+    assertNotTrusted(trustManager, signature, "RSA", true);
+  }
+
+  @Test
+  public void testKeyUsageForClient() throws Exception {
+    final KeyStore keyStore = loadKeyStore("key-usage-certificate.jks");
+    final IndexedX509TrustManager trustManager =
+        new IndexedX509TrustManager(keyStore);
+    trustManager.checkClientTrusted(new X509Certificate[] {
+        (X509Certificate) keyStore.getCertificate("signature") }, "RSA");
+    assertNotTrusted(trustManager, new X509Certificate[] {
+        (X509Certificate) keyStore.getCertificate("encipherment") },
+        "RSA", false);
+  }
+
+  @Test
+  public void testAlgorithmConstraintsOfEngine() throws Exception {
+    final X509Certificate[] chain = { issuedChain[0] };
+    final SSLEngine engine = SSLContext.getDefault().createSSLEngine();
+    trustManager.checkServerTrusted(chain, "ECDHE_RSA", engine);
+
+    final SSLParameters parameters = engine.getSSLParameters();
+    parameters.setAlgorithmConstraints(
+        new DisallowedAlgorithm(chain[0].getSigAlgName()));
+    engine.setSSLParameters(parameters);
+    try {
+      trustManager.checkServerTrusted(chain, "ECDHE_RSA", engine);
+      throw new AssertionError("expected CertificateException");
+    }
+    catch (CertificateException ex) {
+      assert true;
+    }
+  }
+
+  @Test
+  public void testHandshakeWithEndpointIdentification() throws Exception {
+    handshake("server.example.com");
+    handshake("www.example.org");
+  }
+
+  @Test
+  public void testHandshakeWithTls13() throws Exception {
+    handshake("server.example.com", "TLSv1.3");
+  }
+
+  @Test(expected = SSLException.class)
+  public void testHandshakeWhenServerNameDoesNotMatch() throws Exception {
+    handshake("other.example.com");
+  }
+
+  private void handshake(String host) throws Exception {
+    handshake(host, PROTOCOL);
+  }
+
+  private void handshake(String host, String protocol) throws Exception {
+    final SSLContext serverContext = SSLContextBuilderFactory.newBuilder()
+        .includeProtocol(protocol)
+        .credential()
+          .type("JKS")
+          .location("ca-issued-credential.jks", getClass())
+          .password(PASSWORD)
+          .end()
+        .build();
+    final SSLContext clientContext = SSLContext.getInstance(protocol);
+    clientContext.init(null, new TrustManager[] { trustManager }, null);
+
+    final SSLEngine client = clientContext.createSSLEngine(host, PEER_PORT);
+    final SSLParameters parameters = client.getSSLParameters();
+    parameters.setEndpointIdentificationAlgorithm("HTTPS");
+    client.setSSLParameters(parameters);
+    DelegatingSSLContextSpiTest.handshake(client,
+        serverContext.createSSLEngine());
+  }
+
+  private static void assertNotTrusted(IndexedX509TrustManager trustManager,
+      X509Certificate[] chain, String authType, boolean server) {
+    try {
+      if (server) {
+        trustManager.checkServerTrusted(chain, authType);
+      }
+      else {
+        trustManager.checkClientTrusted(chain, authType);
+      }
+      throw new AssertionError("expected CertificateException");
+    }
+    catch (CertificateException ex) {
+      assert true;
+    }
+  }
+
+  private KeyStore loadKeyStore(String resource) throws Exception {
+    final KeyStoreFactory factory = new KeyStoreFactory();
+    factory.setType("JKS");
+    factory.setLocation(resource, getClass());
+    factory.setPassword(PASSWORD);
+    return factory.newKeyStore();
+  }
+
+  private static X509Certificate[] chainOf(KeyStore keyStore)
+      throws Exception {
+    final Certificate[] chain =
+        keyStore.getCertificateChain(keyStore.aliases().nextElement());
+    return Arrays.copyOf(chain, chain.length, X509Certificate[].class);
+  }
+
+  /**
+   * Algorithm constraints that permit every algorithm except one.
+   */
+  private static class DisallowedAlgorithm implements AlgorithmConstraints {
+
+    private final String algorithm;
+
+    DisallowedAlgorithm(String algorithm) {
+      this.algorithm = algorithm;
+    }
+
+    @Override
+    public boolean permits(Set<CryptoPrimitive> primitives, String algorithm,
+        AlgorithmParameters parameters) {
+      return !this.algorithm.equalsIgnoreCase(algorithm);
+    }
+
+    @Override
+    public boolean permits(Set<CryptoPrimitive> primitives, Key key) {
+      return true;
+    }
+
+    @Override
+    public boolean permits(Set<CryptoPrimitive> primitives, String algorithm,
+        Key key, AlgorithmParameters parameters) {
+      return permits(primitives, algorithm, parameters);
+    }
+
+  }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.net.ssl.SSLContext;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link JfrEventRecorder}.
+ *
+ * @author Carl Harris
+ */
+public class JfrEventRecorderTest {
+
+  private static final String PASSWORD = "changeit";
+
+  private static final String PROTOCOL = "TLSv1.2";
+
+  private Recording recording;
+
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    Assume.assumeTrue(SSLEventRecorder.getInstance().isAvailable());
+    recording = new Recording();
+    recording.enable(JfrEventRecorder.ContextBuildEvent.class);
+    recording.enable(JfrEventRecorder.KeyStoreLoadEvent.class);
+    recording.enable(JfrEventRecorder.HandshakeEvent.class);
+    recording.start();
+    file = File.createTempFile("events", ".jfr");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (recording != null) {
+      recording.close();
+    }
+    if (file != null) {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testEvents() throws Exception {
+    final SSLContext serverContext = SSLContextBuilderFactory.newBuilder()
+        .includeProtocol(PROTOCOL)
+        .credential()
+          .type("JKS")
+          .location("server-credential.jks", getClass())
+          .password(PASSWORD)
+          .end()
+        .build();
+    final SSLContext clientContext = SSLContextBuilderFactory.newBuilder()
+        .includeProtocol(PROTOCOL)
+        .peerTrust()
+          .type("JKS")
+          .location("server-certificate.jks", getClass())
+          .password(PASSWORD)
+          .end()
+        .build();
+    DelegatingSSLContextSpiTest.handshake(
+        clientContext.createSSLEngine("server.example.com", 443),
+        serverContext.createSSLEngine());
+
+    final List<RecordedEvent> events = stop();
+    final List<String> names = new ArrayList<>();
+    for (final RecordedEvent event : events) {
+      names.add(event.getEventType().getName());
+    }
+    assertThat(names, hasItems("org.soulwing.ssl.ContextBuild",
+        "org.soulwing.ssl.KeyStoreLoad", "org.soulwing.ssl.Handshake"));
+
+    for (final RecordedEvent event : events) {
+      switch (event.getEventType().getName()) {
+        case "org.soulwing.ssl.KeyStoreLoad":
+          assertThat(event.getString("type"), is(equalTo("JKS")));
+          assertThat(event.getInt("entryCount"), is(equalTo(1)));
+          assertThat(event.getLong("size") > 0, is(true));
+          break;
+        case "org.soulwing.ssl.Handshake":
+          assertThat(event.getString("protocol"), is(equalTo(PROTOCOL)));
+          assertThat(event.getBoolean("success"), is(true));
+          break;
+        case "org.soulwing.ssl.ContextBuild":
+          assertThat(event.getString("mode"), is(equalTo("eager")));
+          assertThat(event.getBoolean("success"), is(true));
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  private List<RecordedEvent> stop() throws Exception {
+    recording.stop();
+    recording.dump(file.toPath());
+    return RecordingFile.readAllEvents(file.toPath());
+  }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link LatencyHistogram}.
+ *
+ * @author Carl Harris
+ */
+public class LatencyHistogramTest {
+
+  private final LatencyHistogram histogram = new LatencyHistogram();
+
+  @Test
+  public void testEmpty() throws Exception {
+    final SSLMetrics.Latency latency = histogram.snapshot();
+    assertThat(latency.getCount(), is(equalTo(0L)));
+    assertThat(latency.getMin(), is(equalTo(0L)));
+    assertThat(latency.getMax(), is(equalTo(0L)));
+    assertThat(latency.getValueAtPercentile(99), is(equalTo(0L)));
+  }
+
+  @Test
+  public void testSmallValuesAreExact() throws Exception {
+    for (int i = 1; i <= 50; i++) {
+      histogram.record(i);
+    }
+    final SSLMetrics.Latency latency = histogram.snapshot();
+    assertThat(latency.getCount(), is(equalTo(50L)));
+    assertThat(latency.getMin(), is(equalTo(1L)));
+    assertThat(latency.getMax(), is(equalTo(50L)));
+    assertThat(latency.getMean(), is(equalTo(25.5)));
+    assertThat(latency.getValueAtPercentile(50), is(equalTo(25L)));
+    assertThat(latency.getValueAtPercentile(100), is(equalTo(50L)));
+  }
+
+  @Test
+  public void testLargeValuesHaveBoundedError() throws Exception {
+    for (long i = 1; i <= 100000; i++) {
+      histogram.record(i * 1000);
+    }
+    final SSLMetrics.Latency latency = histogram.snapshot();
+    assertWithinError(latency.getValueAtPercentile(50), 50000000L);
+    assertWithinError(latency.getValueAtPercentile(90), 90000000L);
+    assertWithinError(latency.getValueAtPercentile(99.9), 99900000L);
+    assertThat(latency.getMax(), is(equalTo(100000000L)));
+  }
+
+  @Test
+  public void testIndexAndHighestValueAreConsistent() throws Exception {
+    for (long value = 0; value < 1L << 20; value++) {
+      final int index = LatencyHistogram.indexOf(value);
+      assertThat(value,
+          is(lessThanOrEqualTo(LatencyHistogram.highestValueAt(index))));
+      if (index > 0) {
+        assertThat(LatencyHistogram.highestValueAt(index - 1) < value,
+            is(true));
+      }
+    }
+    assertThat(LatencyHistogram.highestValueAt(
+        LatencyHistogram.indexOf(Long.MAX_VALUE)), is(equalTo(Long.MAX_VALUE)));
+  }
+
+  private static void assertWithinError(long actual, long expected) {
+    final double error = Math.abs(actual - expected) / (double) expected;
+    assertThat(error <= 1.0 / LatencyHistogram.SUB_BUCKETS, is(true));
+  }
+
+}
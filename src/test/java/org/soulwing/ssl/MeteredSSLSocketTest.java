@@ -0,0 +1,208 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.StandardSocketOptions;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.HandshakeCompletedEvent;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSocket;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link MeteredSSLSocket} and {@link MeteredSSLServerSocket}.
+ *
+ * @author Carl Harris
+ */
+public class MeteredSSLSocketTest {
+
+  private static final String PASSWORD = "changeit";
+
+  @Test
+  public void testServerSocketOptionsForwarded() throws Exception {
+    final SSLContext context = SSLContext.getDefault();
+    final RecordingServerSocketFactory factory =
+        new RecordingServerSocketFactory(context.getServerSocketFactory());
+    final ServerSocket socket = new SSLServerSocketFactoryWrapper(factory,
+        context.getDefaultSSLParameters(), new SSLMetrics())
+        .createServerSocket(0);
+    try {
+      assertThat(socket, is(instanceOf(MeteredSSLServerSocket.class)));
+      final boolean reuse =
+          !factory.socket.getOption(StandardSocketOptions.SO_REUSEADDR);
+      socket.setOption(StandardSocketOptions.SO_REUSEADDR, reuse);
+      assertThat(factory.socket.getOption(StandardSocketOptions.SO_REUSEADDR),
+          is(equalTo(reuse)));
+      assertThat(socket.getOption(StandardSocketOptions.SO_REUSEADDR),
+          is(equalTo(reuse)));
+      assertThat(socket.supportedOptions(),
+          is(equalTo(factory.socket.supportedOptions())));
+    }
+    finally {
+      socket.close();
+    }
+  }
+
+  @Test
+  public void testSocketOptionsForwarded() throws Exception {
+    final SSLSocket delegate = (SSLSocket)
+        SSLContext.getDefault().getSocketFactory().createSocket();
+    final SSLSocket socket = new MeteredSSLSocket(delegate,
+        HandshakeObserver.create(new SSLMetrics()));
+    try {
+      final boolean noDelay =
+          !delegate.getOption(StandardSocketOptions.TCP_NODELAY);
+      socket.setOption(StandardSocketOptions.TCP_NODELAY, noDelay);
+      assertThat(delegate.getOption(StandardSocketOptions.TCP_NODELAY),
+          is(equalTo(noDelay)));
+      assertThat(socket.getOption(StandardSocketOptions.TCP_NODELAY),
+          is(equalTo(noDelay)));
+      assertThat(socket.supportedOptions(),
+          is(equalTo(delegate.supportedOptions())));
+    }
+    finally {
+      socket.close();
+    }
+  }
+
+  @Test
+  public void testHandshakeCompletedEventNamesWrapper() throws Exception {
+    final SSLMetrics metrics = new SSLMetrics();
+    final SSLContext serverContext = SSLContextBuilderFactory.newBuilder()
+        .credential()
+          .type("JKS")
+          .location("server-credential.jks", getClass())
+          .password(PASSWORD)
+          .end()
+        .metrics(metrics)
+        .build();
+    final SSLContext clientContext = SSLContextBuilderFactory.newBuilder()
+        .peerTrust()
+          .type("JKS")
+          .location("server-certificate.jks", getClass())
+          .password(PASSWORD)
+          .end()
+        .metrics(metrics)
+        .build();
+
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    final ServerSocket listener = serverContext.getServerSocketFactory()
+        .createServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    try {
+      final Future<Void> server = executor.submit(() -> {
+        try (SSLSocket socket = (SSLSocket) listener.accept()) {
+          socket.startHandshake();
+          socket.getInputStream().read();
+        }
+        catch (IOException ex) {
+          assert true;  // client closed without close_notify
+        }
+        return null;
+      });
+
+      final BlockingQueue<HandshakeCompletedEvent> events =
+          new LinkedBlockingQueue<>();
+      try (SSLSocket socket = (SSLSocket) clientContext.getSocketFactory()
+          .createSocket(InetAddress.getLoopbackAddress(),
+              listener.getLocalPort())) {
+        assertThat(socket, is(instanceOf(MeteredSSLSocket.class)));
+        socket.addHandshakeCompletedListener(events::add);
+        socket.startHandshake();
+        final HandshakeCompletedEvent event = events.poll(5, TimeUnit.SECONDS);
+        assertThat(event, is(notNullValue()));
+        assertThat(event.getSocket(), is(sameInstance(socket)));
+        assertThat(event.getSession(),
+            is(sameInstance(socket.getSession())));
+      }
+      server.get(5, TimeUnit.SECONDS);
+    }
+    finally {
+      listener.close();
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * A server socket factory that remembers the last socket it created.
+   */
+  private static class RecordingServerSocketFactory
+      extends SSLServerSocketFactory {
+
+    private final SSLServerSocketFactory delegate;
+
+    private SSLServerSocket socket;
+
+    RecordingServerSocketFactory(SSLServerSocketFactory delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public String[] getDefaultCipherSuites() {
+      return delegate.getDefaultCipherSuites();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites() {
+      return delegate.getSupportedCipherSuites();
+    }
+
+    @Override
+    public ServerSocket createServerSocket(int port) throws IOException {
+      return record(delegate.createServerSocket(port));
+    }
+
+    @Override
+    public ServerSocket createServerSocket(int port, int backlog)
+        throws IOException {
+      return record(delegate.createServerSocket(port, backlog));
+    }
+
+    @Override
+    public ServerSocket createServerSocket(int port, int backlog,
+        InetAddress address) throws IOException {
+      return record(delegate.createServerSocket(port, backlog, address));
+    }
+
+    private ServerSocket record(ServerSocket socket) {
+      this.socket = (SSLServerSocket) socket;
+      return socket;
+    }
+
+  }
+
+}
@@ -0,0 +1,217 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.text.SimpleDateFormat;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A stand-in OCSP responder that answers requests on the loopback interface
+ * with responses signed by a certification authority.
+ *
+ * @author Carl Harris
+ */
+class OcspResponder implements AutoCloseable {
+
+  /** content of the object identifier {@code id-pkix-ocsp-basic} */
+  private static final byte[] ID_PKIX_OCSP_BASIC = {
+      0x2b, 0x06, 0x01, 0x05, 0x05, 0x07, 0x30, 0x01, 0x01
+  };
+
+  /** encoded algorithm identifier for SHA-256 with RSA */
+  private static final byte[] SHA256_WITH_RSA = {
+      0x30, 0x0d, 0x06, 0x09, 0x2a, (byte) 0x86, 0x48, (byte) 0x86,
+      (byte) 0xf7, 0x0d, 0x01, 0x01, 0x0b, 0x05, 0x00
+  };
+
+  private final X509Certificate issuer;
+  private final PrivateKey issuerKey;
+  private final HttpServer server;
+
+  private final Set<BigInteger> revoked = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger requestCount = new AtomicInteger();
+
+  private volatile long lifetime = 60000;
+  private volatile long delay;
+
+  OcspResponder(X509Certificate issuer, PrivateKey issuerKey)
+      throws IOException {
+    this.issuer = issuer;
+    this.issuerKey = issuerKey;
+    this.server = HttpServer.create(
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    this.server.createContext("/", this::handle);
+    this.server.start();
+  }
+
+  public URI getUri() {
+    return URI.create("http://" + InetAddress.getLoopbackAddress()
+        .getHostAddress() + ":" + server.getAddress().getPort() + "/");
+  }
+
+  /**
+   * Specifies the time after which responses are to be updated.
+   * @param lifetime lifetime in milliseconds
+   */
+  public void setLifetime(long lifetime) {
+    this.lifetime = lifetime;
+  }
+
+  /**
+   * Specifies a delay before each response is sent.
+   * @param delay delay in milliseconds
+   */
+  public void setDelay(long delay) {
+    this.delay = delay;
+  }
+
+  public void revoke(BigInteger serialNumber) {
+    revoked.add(serialNumber);
+  }
+
+  public int getRequestCount() {
+    return requestCount.get();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    requestCount.incrementAndGet();
+    try {
+      final byte[] response = newResponse(readRequest(exchange));
+      Thread.sleep(delay);
+      exchange.getResponseHeaders().add("Content-Type",
+          "application/ocsp-response");
+      exchange.sendResponseHeaders(200, response.length);
+      try (OutputStream outputStream = exchange.getResponseBody()) {
+        outputStream.write(response);
+      }
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    catch (GeneralSecurityException | RuntimeException ex) {
+      exchange.sendResponseHeaders(500, -1);
+    }
+    finally {
+      exchange.close();
+    }
+  }
+
+  private byte[] newResponse(byte[] request)
+      throws GeneralSecurityException {
+    final Der.Reader tbsRequest = new Der.Reader(new Der.Reader(
+        new Der.Reader(request).read(Der.SEQUENCE)).read(Der.SEQUENCE));
+    final Der.Reader singleRequest = new Der.Reader(new Der.Reader(
+        tbsRequest.read(Der.SEQUENCE)).read(Der.SEQUENCE));
+    final byte[] certId = singleRequest.readEncoded(Der.SEQUENCE);
+    final Der.Reader certIdReader =
+        new Der.Reader(new Der.Reader(certId).read(Der.SEQUENCE));
+    certIdReader.skip();
+    certIdReader.skip();
+    certIdReader.skip();
+    final BigInteger serialNumber =
+        new BigInteger(certIdReader.read(Der.INTEGER));
+
+    final long now = System.currentTimeMillis();
+    final byte[] status = revoked.contains(serialNumber) ?
+        Der.encode(Der.contextTag(1, true), time(now - 60000)) :
+        Der.encode(Der.contextTag(0, false));
+    final byte[] singleResponse = Der.encode(Der.SEQUENCE, certId, status,
+        time(now - 1000),
+        Der.encode(Der.contextTag(0, true), time(now + lifetime)));
+    final byte[] responseData = Der.encode(Der.SEQUENCE,
+        Der.encode(Der.contextTag(1, true),
+            issuer.getSubjectX500Principal().getEncoded()),
+        time(now),
+        Der.encode(Der.SEQUENCE, singleResponse));
+
+    final Signature signature = Signature.getInstance("SHA256withRSA");
+    signature.initSign(issuerKey);
+    signature.update(responseData);
+    final byte[] basicResponse = Der.encode(Der.SEQUENCE, responseData,
+        SHA256_WITH_RSA,
+        Der.encode(Der.BIT_STRING, new byte[1], signature.sign()));
+
+    return Der.encode(Der.SEQUENCE,
+        Der.encode(Der.ENUMERATED, new byte[1]),
+        Der.encode(Der.contextTag(0, true),
+            Der.encode(Der.SEQUENCE,
+                Der.encode(Der.OBJECT_IDENTIFIER, ID_PKIX_OCSP_BASIC),
+                Der.encode(Der.OCTET_STRING, basicResponse))));
+  }
+
+  private static byte[] time(long millis) {
+    final SimpleDateFormat format =
+        new SimpleDateFormat("yyyyMMddHHmmss'Z'", Locale.ENGLISH);
+    format.setTimeZone(TimeZone.getTimeZone("UTC"));
+    return Der.encode(Der.GENERALIZED_TIME,
+        format.format(new Date(millis)).getBytes());
+  }
+
+  /**
+   * Reads a request, which may be sent using either POST, or GET with the
+   * encoded request in the path (as the JDK does for small requests).
+   */
+  private static byte[] readRequest(HttpExchange exchange)
+      throws IOException {
+    if ("GET".equals(exchange.getRequestMethod())) {
+      final String path = exchange.getRequestURI().getRawPath();
+      return Base64.getDecoder().decode(URLDecoder.decode(
+          path.substring(path.lastIndexOf('/') + 1), "UTF-8"));
+    }
+    return readAll(exchange.getRequestBody());
+  }
+
+  private static byte[] readAll(InputStream inputStream) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final byte[] buf = new byte[1024];
+    int count;
+    while ((count = inputStream.read(buf)) != -1) {
+      out.write(buf, 0, count);
+    }
+    return out.toByteArray();
+  }
+
+}
@@ -0,0 +1,238 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.notNullValue;
+
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link OcspResponseCache} and {@link OcspX509TrustManager}.
+ *
+ * @author Carl Harris
+ */
+public class OcspResponseCacheTest {
+
+  private static final String PROTOCOL = "TLSv1.2";
+
+  private static final String PASSWORD = "changeit";
+
+  private static final long TIMEOUT = 5000;
+
+  private X509Certificate certificate;
+
+  private X509Certificate issuer;
+
+  private OcspResponder responder;
+
+  private OcspResponseCache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    final KeyStore issued = loadKeyStore("ca-issued-credential.jks");
+    certificate = (X509Certificate) issued.getCertificate("issued");
+    final KeyStore ca = loadKeyStore("ca-credential.jks");
+    issuer = (X509Certificate) ca.getCertificate("ca");
+    responder = new OcspResponder(issuer,
+        (PrivateKey) ca.getKey("ca", PASSWORD.toCharArray()));
+    cache = new OcspResponseCache(
+        new OcspClient(responder.getUri(), 1000), 10);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    responder.close();
+  }
+
+  @Test
+  public void testFetchesStatusInBackground() throws Exception {
+    assertThat(cache.getStatus(certificate, issuer),
+        is(equalTo(OcspResponseCache.Status.UNKNOWN)));
+    assertThat(awaitStatus(), is(equalTo(OcspResponseCache.Status.GOOD)));
+    assertThat(responder.getRequestCount(), is(equalTo(1)));
+    assertThat(cache.size(), is(equalTo(1)));
+  }
+
+  @Test
+  public void testRevokedStatus() throws Exception {
+    responder.revoke(certificate.getSerialNumber());
+    cache.getStatus(certificate, issuer);
+    assertThat(awaitStatus(),
+        is(equalTo(OcspResponseCache.Status.REVOKED)));
+    assertThat(cache.getRevocation(certificate), is(notNullValue()));
+  }
+
+  @Test
+  public void testRevokedStatusIsPermanent() throws Exception {
+    final AtomicLong offset = new AtomicLong();
+    final ScheduledExecutorService executor =
+        Executors.newSingleThreadScheduledExecutor();
+    try {
+      cache = new OcspResponseCache(
+          new OcspClient(responder.getUri(), 1000), 10, executor, 100,
+          () -> System.currentTimeMillis() + offset.get());
+      responder.setLifetime(1000);
+      responder.revoke(certificate.getSerialNumber());
+      cache.getStatus(certificate, issuer);
+      assertThat(awaitStatus(),
+          is(equalTo(OcspResponseCache.Status.REVOKED)));
+      responder.close();
+
+      offset.set(TimeUnit.HOURS.toMillis(1));
+      assertThat(cache.getStatus(certificate, issuer),
+          is(equalTo(OcspResponseCache.Status.REVOKED)));
+      Thread.sleep(500);
+      assertThat(cache.getStatus(certificate, issuer),
+          is(equalTo(OcspResponseCache.Status.REVOKED)));
+      assertThat(cache.getRevocation(certificate), is(notNullValue()));
+      assertThat(responder.getRequestCount(), is(equalTo(1)));
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testPrefetchesBeforeNextUpdate() throws Exception {
+    responder.setLifetime(2000);
+    cache.getStatus(certificate, issuer);
+    awaitStatus();
+    final long deadline = System.currentTimeMillis() + TIMEOUT;
+    while (responder.getRequestCount() < 2
+        && System.currentTimeMillis() < deadline) {
+      assertThat(cache.getStatus(certificate, issuer),
+          is(equalTo(OcspResponseCache.Status.GOOD)));
+      Thread.sleep(50);
+    }
+    assertThat(responder.getRequestCount(), is(greaterThanOrEqualTo(2)));
+  }
+
+  @Test
+  public void testSoftFailsWhenResponderIsSlow() throws Exception {
+    responder.setDelay(2000);
+    final OcspX509TrustManager trustManager = new OcspX509TrustManager(
+        new IndexedX509TrustManager(loadKeyStore("ca-certificate.jks")),
+        cache, loadKeyStore("ca-certificate.jks"));
+    final long start = System.nanoTime();
+    trustManager.checkServerTrusted(
+        new X509Certificate[] { certificate }, "RSA");
+    assertThat(System.nanoTime() - start,
+        is(lessThan(TimeUnit.MILLISECONDS.toNanos(500))));
+    Thread.sleep(1500);
+    assertThat(cache.getStatus(certificate, issuer),
+        is(equalTo(OcspResponseCache.Status.UNKNOWN)));
+  }
+
+  @Test
+  public void testTrustManagerRejectsRevokedCertificate() throws Exception {
+    responder.revoke(certificate.getSerialNumber());
+    final OcspX509TrustManager trustManager = new OcspX509TrustManager(
+        new IndexedX509TrustManager(loadKeyStore("ca-certificate.jks")),
+        cache, loadKeyStore("ca-certificate.jks"));
+    trustManager.checkServerTrusted(
+        new X509Certificate[] { certificate }, "RSA");
+    awaitStatus();
+    try {
+      trustManager.checkServerTrusted(
+          new X509Certificate[] { certificate }, "RSA");
+      throw new AssertionError("expected CertificateException");
+    }
+    catch (CertificateException ex) {
+      assert true;
+    }
+  }
+
+  @Test
+  public void testHandshakeFailsOnceRevocationIsKnown() throws Exception {
+    responder.revoke(certificate.getSerialNumber());
+    final SSLContext serverContext = SSLContextBuilderFactory.newBuilder()
+        .includeProtocol(PROTOCOL)
+        .credential()
+          .type("JKS")
+          .location("ca-issued-credential.jks", getClass())
+          .password(PASSWORD)
+          .end()
+        .build();
+    final SSLContext clientContext = SSLContextBuilderFactory.newBuilder()
+        .includeProtocol(PROTOCOL)
+        .peerTrust()
+          .type("JKS")
+          .location("ca-certificate.jks", getClass())
+          .password(PASSWORD)
+          .end()
+        .ocspRevocationCheck(10, 1, TimeUnit.SECONDS)
+        .ocspResponder(responder.getUri())
+        .build();
+
+    // the first handshake succeeds, since the status is not yet known
+    DelegatingSSLContextSpiTest.handshake(clientContext.createSSLEngine(),
+        serverContext.createSSLEngine());
+    final long deadline = System.currentTimeMillis() + TIMEOUT;
+    while (System.currentTimeMillis() < deadline) {
+      try {
+        DelegatingSSLContextSpiTest.handshake(
+            clientContext.createSSLEngine(), serverContext.createSSLEngine());
+        Thread.sleep(50);
+      }
+      catch (SSLException ex) {
+        return;
+      }
+    }
+    throw new AssertionError("expected handshake to fail");
+  }
+
+  private OcspResponseCache.Status awaitStatus() throws Exception {
+    final long deadline = System.currentTimeMillis() + TIMEOUT;
+    OcspResponseCache.Status status = cache.getStatus(certificate, issuer);
+    while (status == OcspResponseCache.Status.UNKNOWN
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+      status = cache.getStatus(certificate, issuer);
+    }
+    return status;
+  }
+
+  private KeyStore loadKeyStore(String resource) throws Exception {
+    final KeyStoreFactory factory = new KeyStoreFactory();
+    factory.setType("JKS");
+    factory.setLocation(resource, getClass());
+    factory.setPassword(PASSWORD);
+    return factory.newKeyStore();
+  }
+
+}
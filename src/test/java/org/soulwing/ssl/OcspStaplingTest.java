@@ -0,0 +1,188 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.ExtendedSSLSession;
+import javax.net.ssl.SSLContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link OcspStapling}.
+ *
+ * @author Carl Harris
+ */
+public class OcspStaplingTest {
+
+  private static final String PROTOCOL = "TLSv1.2";
+
+  private static final String PASSWORD = "changeit";
+
+  private static final String[] PROPERTIES = {
+      OcspStapling.ENABLE,
+      OcspStapling.CACHE_SIZE,
+      OcspStapling.CACHE_LIFETIME,
+      OcspStapling.RESPONSE_TIMEOUT,
+      OcspStapling.RESPONDER_URI,
+      OcspStapling.RESPONDER_OVERRIDE
+  };
+
+  private final Map<String, String> savedProperties = new HashMap<>();
+
+  private OcspResponder responder;
+
+  @Before
+  public void setUp() throws Exception {
+    for (final String property : PROPERTIES) {
+      savedProperties.put(property, System.getProperty(property));
+    }
+    final KeyStore ca = loadKeyStore("ca-credential.jks");
+    responder = new OcspResponder(
+        (X509Certificate) ca.getCertificate("ca"),
+        (PrivateKey) ca.getKey("ca", PASSWORD.toCharArray()));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    responder.close();
+    for (final String property : PROPERTIES) {
+      final String value = savedProperties.get(property);
+      if (value != null) {
+        System.setProperty(property, value);
+      }
+      else {
+        System.clearProperty(property);
+      }
+    }
+  }
+
+  @Test
+  public void testApply() throws Exception {
+    try (OcspStapling.AppliedProperties properties =
+        new OcspStapling(10, 60, 500, responder.getUri()).apply()) {
+      assertThat(System.getProperty(OcspStapling.ENABLE),
+          is(equalTo("true")));
+      assertThat(System.getProperty(OcspStapling.CACHE_SIZE),
+          is(equalTo("10")));
+      assertThat(System.getProperty(OcspStapling.CACHE_LIFETIME),
+          is(equalTo("60")));
+      assertThat(System.getProperty(OcspStapling.RESPONSE_TIMEOUT),
+          is(equalTo("500")));
+      assertThat(System.getProperty(OcspStapling.RESPONDER_URI),
+          is(equalTo(responder.getUri().toString())));
+      assertThat(System.getProperty(OcspStapling.RESPONDER_OVERRIDE),
+          is(equalTo("true")));
+    }
+    assertPropertiesRestored();
+  }
+
+  @Test
+  public void testApplyKeepsUnspecifiedProperties() throws Exception {
+    System.setProperty(OcspStapling.CACHE_SIZE, "256");
+    System.setProperty(OcspStapling.RESPONSE_TIMEOUT, "1234");
+    System.setProperty(OcspStapling.RESPONDER_URI, "http://ocsp.example.com");
+    System.setProperty(OcspStapling.RESPONDER_OVERRIDE, "true");
+    try (OcspStapling.AppliedProperties properties =
+        new OcspStapling(10, 60, 0, null).apply()) {
+      assertThat(System.getProperty(OcspStapling.CACHE_SIZE),
+          is(equalTo("10")));
+      assertThat(System.getProperty(OcspStapling.RESPONSE_TIMEOUT),
+          is(equalTo("1234")));
+      assertThat(System.getProperty(OcspStapling.RESPONDER_URI),
+          is(equalTo("http://ocsp.example.com")));
+      assertThat(System.getProperty(OcspStapling.RESPONDER_OVERRIDE),
+          is(equalTo("true")));
+    }
+    assertThat(System.getProperty(OcspStapling.CACHE_SIZE),
+        is(equalTo("256")));
+    assertThat(System.getProperty(OcspStapling.RESPONSE_TIMEOUT),
+        is(equalTo("1234")));
+  }
+
+  @Test
+  public void testHostNames() throws Exception {
+    assertThat(OcspStapling.hostNames(
+        loadKeyStore("ca-issued-credential.jks")),
+        contains("server.example.com"));
+  }
+
+  @Test
+  public void testStaplesPrefetchedWhenBuilt() throws Exception {
+    final SSLContext serverContext = SSLContextBuilderFactory.newBuilder()
+        .includeProtocol(PROTOCOL)
+        .credential()
+          .type("JKS")
+          .location("ca-issued-credential.jks", getClass())
+          .password(PASSWORD)
+          .end()
+        .ocspStapling(10, 1, TimeUnit.HOURS)
+        .ocspStaplingTimeout(2, TimeUnit.SECONDS)
+        .ocspResponder(responder.getUri())
+        .build();
+    assertThat(responder.getRequestCount(), is(equalTo(1)));
+    assertPropertiesRestored();
+
+    final SSLContext clientContext = SSLContextBuilderFactory.newBuilder()
+        .includeProtocol(PROTOCOL)
+        .peerTrust()
+          .type("JKS")
+          .location("ca-certificate.jks", getClass())
+          .password(PASSWORD)
+          .end()
+        .build();
+    final ExtendedSSLSession session = (ExtendedSSLSession)
+        DelegatingSSLContextSpiTest.handshake(
+            clientContext.createSSLEngine(), serverContext.createSSLEngine());
+
+    assertThat(session.getStatusResponses(), is(not(empty())));
+    assertThat(responder.getRequestCount(), is(equalTo(1)));
+  }
+
+  private void assertPropertiesRestored() {
+    for (final String property : PROPERTIES) {
+      assertThat(System.getProperty(property),
+          is(equalTo(savedProperties.get(property))));
+    }
+  }
+
+  private KeyStore loadKeyStore(String resource) throws Exception {
+    final KeyStoreFactory factory = new KeyStoreFactory();
+    factory.setType("JKS");
+    factory.setLocation(resource, getClass());
+    factory.setPassword(PASSWORD);
+    return factory.newKeyStore();
+  }
+
+}
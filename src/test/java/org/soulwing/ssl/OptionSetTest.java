@@ -21,6 +21,8 @@ package org.soulwing.ssl;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 
 import org.junit.Test;
 
@@ -74,4 +76,68 @@ public class OptionSetTest {
         new String[0]), is(equalTo(new String[] { "A" })));
   }
 
+  @Test
+  public void testIncludeOptionsInPreferenceOrder() throws Exception {
+    optionSet.includeOptions("C", "A.*", "B");
+    assertThat(optionSet.enabledOptions(new String[] { "A", "B", "C", "AB" },
+        new String[0]), is(equalTo(new String[] { "C", "A", "AB", "B" })));
+  }
+
+  @Test
+  public void testIncludeOptionMatchingSeveralPatterns() throws Exception {
+    optionSet.includeOptions("[AB]", "A.*");
+    assertThat(optionSet.enabledOptions(new String[] { "AB", "B", "A" },
+        new String[0]), is(equalTo(new String[] { "B", "A", "AB" })));
+  }
+
+  @Test
+  public void testExcludeOptionPrefixPattern() throws Exception {
+    optionSet.excludeOptions("TLS_RSA_.*", "SSL_.*");
+    assertThat(optionSet.enabledOptions(
+        new String[] { "TLS_RSA_X", "TLS_ECDHE_X", "SSL_X", "TLS_RSA" },
+        new String[0]),
+        is(equalTo(new String[] { "TLS_ECDHE_X", "TLS_RSA" })));
+  }
+
+  @Test
+  public void testExcludeOptionPatternsWithBackreferences() throws Exception {
+    optionSet.excludeOptions("(A)X", "(B)\\1", "(?<c>C)\\k<c>");
+    assertThat(optionSet.enabledOptions(
+        new String[] { "AX", "BB", "CC", "D" }, new String[0]),
+        is(equalTo(new String[] { "D" })));
+  }
+
+  @Test
+  public void testExcludeOptionPatternsWithSameGroupName() throws Exception {
+    optionSet.excludeOptions("(?<x>A)X", "(?<x>B)Y");
+    assertThat(optionSet.enabledOptions(
+        new String[] { "AX", "BY", "D" }, new String[0]),
+        is(equalTo(new String[] { "D" })));
+  }
+
+  @Test
+  public void testEnabledOptionsWhenResolvedAgain() throws Exception {
+    final String[] supported = new String[] { "A", "B" };
+    final String[] defaults = new String[0];
+    optionSet.excludeOptions("B");
+    final String[] enabled = optionSet.enabledOptions(supported, defaults);
+    enabled[0] = "X";
+    assertThat(optionSet.enabledOptions(supported, defaults),
+        is(equalTo(new String[] { "A" })));
+    assertThat(optionSet.enabledOptions(supported, defaults),
+        is(not(sameInstance(enabled))));
+  }
+
+  @Test
+  public void testEnabledOptionsAfterModification() throws Exception {
+    final String[] supported = new String[] { "A", "B", "C" };
+    final String[] defaults = new String[0];
+    optionSet.excludeOptions("B");
+    assertThat(optionSet.enabledOptions(supported, defaults),
+        is(equalTo(new String[] { "A", "C" })));
+    optionSet.excludeOptions("C");
+    assertThat(optionSet.enabledOptions(supported, defaults),
+        is(equalTo(new String[] { "A" })));
+  }
+
 }
@@ -0,0 +1,129 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.KeyStore;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ReloadingX509TrustManager}.
+ *
+ * @author Carl Harris
+ */
+public class ReloadingX509TrustManagerTest {
+
+  private static final String PASSWORD = "changeit";
+
+  private static final long TIMEOUT = 10000;
+
+  private Path directory;
+
+  private Path trustStoreFile;
+
+  private KeyStoreMonitor monitor;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = Files.createTempDirectory("truststore");
+    trustStoreFile = directory.resolve("trust.jks");
+    replaceTrustStore("server-certificate.jks");
+    final KeyStoreFactory factory = new KeyStoreFactory();
+    factory.setType("JKS");
+    factory.setLocation(trustStoreFile.toUri());
+    factory.setPassword(PASSWORD);
+    monitor = new KeyStoreMonitor(factory, 50, TimeUnit.MILLISECONDS);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    monitor.stop();
+    Files.deleteIfExists(trustStoreFile);
+    Files.deleteIfExists(directory);
+  }
+
+  @Test
+  public void testReloadWhenTrustStoreChanges() throws Exception {
+    final ReloadingX509TrustManager trustManager =
+        new ReloadingX509TrustManager(monitor);
+    final X509Certificate[] serverChain = chainOf("server-credential.jks");
+    final X509Certificate[] clientChain = chainOf("client-credential.jks");
+
+    trustManager.checkServerTrusted(serverChain, "RSA");
+    assertNotTrusted(trustManager, clientChain);
+
+    replaceTrustStore("client-certificate.jks");
+
+    final long deadline = System.currentTimeMillis() + TIMEOUT;
+    while (true) {
+      try {
+        trustManager.checkClientTrusted(clientChain, "RSA");
+        break;
+      }
+      catch (CertificateException ex) {
+        if (System.currentTimeMillis() > deadline) throw ex;
+        Thread.sleep(25);
+      }
+    }
+
+    assertNotTrusted(trustManager, serverChain);
+  }
+
+  private void assertNotTrusted(ReloadingX509TrustManager trustManager,
+      X509Certificate[] chain) {
+    try {
+      trustManager.checkClientTrusted(chain, "RSA");
+      throw new AssertionError("chain should not be trusted");
+    }
+    catch (CertificateException ex) {
+      assert true;  // expected
+    }
+  }
+
+  private X509Certificate[] chainOf(String resource) throws Exception {
+    final KeyStoreFactory factory = new KeyStoreFactory();
+    factory.setType("JKS");
+    factory.setLocation(resource, getClass());
+    factory.setPassword(PASSWORD);
+    final KeyStore keyStore = factory.newKeyStore();
+    final String alias = keyStore.aliases().nextElement();
+    return new X509Certificate[] {
+        (X509Certificate) keyStore.getCertificate(alias)
+    };
+  }
+
+  private void replaceTrustStore(String resource) throws Exception {
+    final Path tempFile = Files.createTempFile(directory, "trust", ".tmp");
+    try (InputStream inputStream = getClass().getResourceAsStream(resource)) {
+      Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+    Files.move(tempFile, trustStoreFile, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+}
@@ -19,12 +19,19 @@
 package org.soulwing.ssl;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Random;
 
 import org.junit.After;
 import org.junit.Test;
@@ -100,4 +107,45 @@ public class ResourceAccessorTest {
     String uri = "DOES_NOT_EXIST";
     ResourceAccessor.getResourceAsStream(uri);
   }
+
+  @Test
+  public void testGetResourceAsStreamFromDirectory() throws Exception {
+    Properties properties = new Properties();
+    inputStream = ResourceAccessor.getResourceAsStream(
+        Constants.TEST_PROPERTIES, getClass());
+    properties.load(inputStream);
+    assertThat(properties.getProperty(Constants.TEST_NAME),
+        is(equalTo(Constants.TEST_VALUE)));
+  }
+
+  @Test
+  public void testGetResourceAsStreamFromLargeFile() throws Exception {
+    byte[] content = new byte[ResourceAccessor.MAP_THRESHOLD + 1];
+    new Random().nextBytes(content);
+    Path file = Files.createTempFile("resource", ".bin");
+    try {
+      Files.write(file, content);
+      inputStream = ResourceAccessor.getResourceAsStream(file.toUri().toURL());
+      assertThat(inputStream, is(instanceOf(ByteBufferInputStream.class)));
+      assertThat(readAll(inputStream), is(equalTo(content)));
+      assertThat(ResourceAccessor.getResourceAsBytes(file.toUri().toURL()),
+          is(equalTo(content)));
+    }
+    finally {
+      inputStream.close();
+      inputStream = null;
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private static byte[] readAll(InputStream inputStream) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    byte[] buf = new byte[1000];
+    int numRead;
+    while ((numRead = inputStream.read(buf)) != -1) {
+      outputStream.write(buf, 0, numRead);
+    }
+    return outputStream.toByteArray();
+  }
+
 }
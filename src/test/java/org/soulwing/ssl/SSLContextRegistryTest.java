@@ -0,0 +1,178 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.net.ssl.SSLContext;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link SSLContextRegistry}.
+ *
+ * @author Carl Harris
+ */
+public class SSLContextRegistryTest {
+
+  private static final String PASSWORD = "changeit";
+
+  private final SSLContextRegistry registry = new SSLContextRegistry();
+
+  @Test
+  public void testRegisterSharesEquivalentContexts() throws Exception {
+    SSLContextRegistry.Registration r1 =
+        registry.register("first", newServerBuilder());
+    SSLContextRegistry.Registration r2 =
+        registry.register("second", newServerBuilder());
+    assertThat(r1.getContext(), is(sameInstance(r2.getContext())));
+    assertThat(r2.getName(), is(equalTo("second")));
+    assertThat(registry.size(), is(equalTo(1)));
+    assertThat(registry.get("first"), is(sameInstance(r1.getContext())));
+    assertThat(registry.get("second"), is(sameInstance(r1.getContext())));
+    r1.close();
+    r2.close();
+  }
+
+  @Test
+  public void testRegisterDistinguishesConfigurations() throws Exception {
+    SSLContextRegistry.Registration r1 =
+        registry.register("server", newServerBuilder());
+    SSLContextRegistry.Registration r2 =
+        registry.register("other", newServerBuilder()
+            .clientAuthentication(
+                SSLContextBuilder.ClientAuthentication.REQUIRED));
+    SSLContextRegistry.Registration r3 =
+        registry.register("client", newBuilder("client-credential.jks"));
+    assertThat(r1.getContext(), is(not(sameInstance(r2.getContext()))));
+    assertThat(r1.getContext(), is(not(sameInstance(r3.getContext()))));
+    assertThat(registry.size(), is(equalTo(3)));
+    r1.close();
+    r2.close();
+    r3.close();
+  }
+
+  @Test
+  public void testRegisterDistinguishesSecureRandomInstances()
+      throws Exception {
+    final SecureRandom random = new SecureRandom();
+    SSLContextRegistry.Registration r1 =
+        registry.register("first", newServerBuilder().secureRandom(random));
+    SSLContextRegistry.Registration r2 =
+        registry.register("second", newServerBuilder().secureRandom(random));
+    SSLContextRegistry.Registration r3 =
+        registry.register("third", newServerBuilder()
+            .secureRandom(new SecureRandom()));
+    assertThat(r1.getContext(), is(sameInstance(r2.getContext())));
+    assertThat(r1.getContext(), is(not(sameInstance(r3.getContext()))));
+    r1.close();
+    r2.close();
+    r3.close();
+  }
+
+  @Test
+  public void testIdentitiesAreUnique() throws Exception {
+    final Object object = new Object();
+    final Set<Long> identities = new HashSet<>();
+    for (int i = 0; i < 100000; i++) {
+      assertThat(identities.add(Fingerprint.identityOf(new Object())),
+          is(true));
+    }
+    assertThat(Fingerprint.identityOf(object),
+        is(equalTo(Fingerprint.identityOf(object))));
+  }
+
+  @Test(expected = SSLRuntimeException.class)
+  public void testRegisterNameWithDifferentConfiguration() throws Exception {
+    SSLContextRegistry.Registration registration =
+        registry.register("server", newServerBuilder());
+    try {
+      registry.register("server", newBuilder("client-credential.jks"));
+    }
+    finally {
+      registration.close();
+    }
+  }
+
+  @Test
+  public void testEvictWhenLastRegistrationClosed() throws Exception {
+    SSLContextRegistry.Registration r1 =
+        registry.register("server", newServerBuilder());
+    SSLContextRegistry.Registration r2 =
+        registry.register("server", newServerBuilder());
+    SSLContext context = r1.getContext();
+
+    r1.close();
+    r1.close();
+    assertThat(registry.get("server"), is(sameInstance(context)));
+    assertThat(registry.size(), is(equalTo(1)));
+
+    r2.close();
+    assertThat(registry.get("server"), is(nullValue()));
+    assertThat(registry.size(), is(equalTo(0)));
+
+    SSLContextRegistry.Registration r3 =
+        registry.register("server", newServerBuilder());
+    assertThat(r3.getContext(), is(not(sameInstance(context))));
+    r3.close();
+  }
+
+  @Test
+  public void testRegisterFailureIsNotRetained() throws Exception {
+    try {
+      registry.register("bad", SSLContextBuilderFactory.newBuilder()
+          .protocol("NO-SUCH-PROTOCOL"));
+    }
+    catch (SSLRuntimeException ex) {
+      assertThat(registry.size(), is(equalTo(0)));
+      assertThat(registry.get("bad"), is(nullValue()));
+      return;
+    }
+    throw new AssertionError("expected SSLRuntimeException");
+  }
+
+  private SSLContextBuilder newServerBuilder() {
+    return newBuilder("server-credential.jks");
+  }
+
+  private SSLContextBuilder newBuilder(String credential) {
+    return SSLContextBuilderFactory.newBuilder()
+        .protocol("TLS")
+        .credential()
+          .type("JKS")
+          .location(credential, getClass())
+          .password(PASSWORD)
+          .end()
+        .peerTrust()
+          .type("JKS")
+          .location("client-certificate.jks", getClass())
+          .password(PASSWORD)
+          .end();
+  }
+
+}
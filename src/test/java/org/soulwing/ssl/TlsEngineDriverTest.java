@@ -0,0 +1,331 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.Pipe;
+import java.util.Random;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLHandshakeException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link TlsEngineDriver}.
+ *
+ * @author Carl Harris
+ */
+public class TlsEngineDriverTest {
+
+  private static final String PROTOCOL = "TLSv1.2";
+
+  private static final String PASSWORD = "changeit";
+
+  private static final String PEER_HOST = "server.example.com";
+
+  private static final int PEER_PORT = 8443;
+
+  private static final int MAX_ROUNDS = 10000;
+
+  private final DirectBufferPool pool =
+      new DirectBufferPool(DirectBufferPool.DEFAULT_MAX_RETAINED);
+
+  private Link clientLink;
+  private Link serverLink;
+  private TlsEngineDriver client;
+  private TlsEngineDriver server;
+
+  @Before
+  public void setUp() throws Exception {
+    final SSLContext serverContext = SSLContextBuilderFactory.newBuilder()
+        .includeProtocol(PROTOCOL)
+        .credential()
+          .type("JKS")
+          .location("ca-issued-credential.jks", getClass())
+          .password(PASSWORD)
+          .end()
+        .build();
+
+    final SSLContext clientContext = SSLContextBuilderFactory.newBuilder()
+        .includeProtocol(PROTOCOL)
+        .peerTrust()
+          .type("JKS")
+          .location("ca-certificate.jks", getClass())
+          .password(PASSWORD)
+          .end()
+        .build();
+
+    final Pipe up = Pipe.open();
+    final Pipe down = Pipe.open();
+    clientLink = new Link(down.source(), up.sink());
+    serverLink = new Link(up.source(), down.sink());
+
+    final SSLEngine clientEngine =
+        clientContext.createSSLEngine(PEER_HOST, PEER_PORT);
+    clientEngine.setUseClientMode(true);
+    client = new TlsEngineDriver(clientEngine, pool);
+
+    final SSLEngine serverEngine = serverContext.createSSLEngine();
+    serverEngine.setUseClientMode(false);
+    server = new TlsEngineDriver(serverEngine, pool);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    client.release();
+    server.release();
+    clientLink.close();
+    serverLink.close();
+  }
+
+  @Test
+  public void testHandshake() throws Exception {
+    handshake();
+    assertThat(client.isHandshakeComplete(), is(true));
+    assertThat(server.isHandshakeComplete(), is(true));
+    assertThat(client.getEngine().getSession().getProtocol(),
+        is(equalTo(PROTOCOL)));
+  }
+
+  @Test
+  public void testBuffersReturnedWhenIdle() throws Exception {
+    handshake();
+    assertThat(client.getBufferCount(), is(equalTo(0)));
+    assertThat(server.getBufferCount(), is(equalTo(0)));
+    assertThat(pool.getRetainedBytes(), is(greaterThan(0L)));
+
+    final long allocations = pool.getAllocationCount();
+    transfer(client, server, randomBytes(1000), 1000);
+    assertThat(client.getBufferCount(), is(equalTo(0)));
+    assertThat(server.getBufferCount(), is(equalTo(0)));
+    assertThat(pool.getAllocationCount(), is(equalTo(allocations)));
+  }
+
+  @Test
+  public void testGatheringWriteProducesOneRecord() throws Exception {
+    handshake();
+    final byte[] data = randomBytes(300);
+
+    long written = clientLink.written;
+    client.write(new ByteBuffer[] { ByteBuffer.wrap(data) }, 0, 1,
+        clientLink);
+    final long single = clientLink.written - written;
+    assertThat(read(server, data.length), is(equalTo(data)));
+
+    written = clientLink.written;
+    final long count = client.write(new ByteBuffer[] {
+        ByteBuffer.wrap(data, 0, 100),
+        ByteBuffer.wrap(data, 100, 150),
+        ByteBuffer.wrap(data, 250, 50) }, 0, 3, clientLink);
+    assertThat(count, is(equalTo((long) data.length)));
+    assertThat(clientLink.written - written, is(equalTo(single)));
+    assertThat(read(server, data.length), is(equalTo(data)));
+  }
+
+  @Test
+  public void testLargeTransferIntoSmallBuffer() throws Exception {
+    handshake();
+    final byte[] data = randomBytes(1024 * 1024);
+    assertThat(transfer(client, server, data, 1000), is(equalTo(data)));
+    assertThat(transfer(server, client, data, 100000), is(equalTo(data)));
+  }
+
+  @Test
+  public void testReadAfterClose() throws Exception {
+    handshake();
+    assertThat(client.close(clientLink), is(true));
+    final ByteBuffer dst = ByteBuffer.allocate(100);
+    int rounds = 0;
+    int count;
+    while ((count = server.read(dst, serverLink)) == 0) {
+      assertThat(++rounds, is(lessThan(MAX_ROUNDS)));
+    }
+    assertThat(count, is(equalTo(-1)));
+    assertThat(server.read(dst, serverLink), is(equalTo(-1)));
+  }
+
+  @Test
+  public void testReadAtEndOfStream() throws Exception {
+    handshake();
+    clientLink.close();
+    assertThat(server.read(ByteBuffer.allocate(100), serverLink),
+        is(equalTo(-1)));
+  }
+
+  @Test(expected = SSLHandshakeException.class)
+  public void testEndOfStreamDuringHandshake() throws Exception {
+    client.handshake(clientLink);
+    clientLink.close();
+    int rounds = 0;
+    while (!server.handshake(serverLink)) {
+      assertThat(++rounds, is(lessThan(MAX_ROUNDS)));
+    }
+  }
+
+  @Test
+  public void testAlertSentWhenHandshakeFails() throws Exception {
+    final SSLContext clientContext = SSLContextBuilderFactory.newBuilder()
+        .includeProtocol(PROTOCOL)
+        .peerTrust()
+          .type("JKS")
+          .location("server-certificate.jks", getClass())
+          .password(PASSWORD)
+          .end()
+        .build();
+    final SSLEngine clientEngine =
+        clientContext.createSSLEngine(PEER_HOST, PEER_PORT);
+    clientEngine.setUseClientMode(true);
+    client.release();
+    client = new TlsEngineDriver(clientEngine, pool);
+
+    int rounds = 0;
+    boolean clientFailed = false;
+    SSLHandshakeException serverFailure = null;
+    while (serverFailure == null) {
+      assertThat(++rounds, is(lessThan(MAX_ROUNDS)));
+      if (!clientFailed) {
+        try {
+          client.handshake(clientLink);
+        }
+        catch (SSLHandshakeException ex) {
+          clientFailed = true;
+          clientLink.close();
+        }
+      }
+      try {
+        server.handshake(serverLink);
+      }
+      catch (SSLHandshakeException ex) {
+        serverFailure = ex;
+      }
+    }
+    assertThat(clientFailed, is(true));
+    assertThat(serverFailure.getMessage(), containsString("fatal alert"));
+  }
+
+  private void handshake() throws IOException {
+    int rounds = 0;
+    boolean clientDone = false;
+    boolean serverDone = false;
+    while (!clientDone || !serverDone) {
+      assertThat(++rounds, is(lessThan(MAX_ROUNDS)));
+      clientDone = client.handshake(clientLink);
+      serverDone = server.handshake(serverLink);
+    }
+  }
+
+  private byte[] transfer(TlsEngineDriver sender, TlsEngineDriver receiver,
+      byte[] data, int readSize) throws IOException {
+    final Link senderLink = sender == client ? clientLink : serverLink;
+    final Link receiverLink = sender == client ? serverLink : clientLink;
+    final ByteBuffer src = ByteBuffer.wrap(data);
+    final ByteBuffer received = ByteBuffer.allocate(data.length);
+    final ByteBuffer dst = ByteBuffer.allocate(readSize);
+    int rounds = 0;
+    while (received.hasRemaining()) {
+      assertThat(++rounds, is(lessThan(MAX_ROUNDS)));
+      if (src.hasRemaining()) {
+        sender.write(new ByteBuffer[] { src }, 0, 1, senderLink);
+      }
+      else {
+        sender.flush(senderLink);
+      }
+      dst.clear();
+      if (receiver.read(dst, receiverLink) > 0) {
+        dst.flip();
+        received.put(dst);
+      }
+    }
+    return received.array();
+  }
+
+  private byte[] read(TlsEngineDriver receiver, int length)
+      throws IOException {
+    final Link link = receiver == client ? clientLink : serverLink;
+    final ByteBuffer dst = ByteBuffer.allocate(length);
+    int rounds = 0;
+    while (dst.hasRemaining()) {
+      assertThat(++rounds, is(lessThan(MAX_ROUNDS)));
+      receiver.read(dst, link);
+    }
+    return dst.array();
+  }
+
+  private static byte[] randomBytes(int length) {
+    final byte[] data = new byte[length];
+    new Random(length).nextBytes(data);
+    return data;
+  }
+
+  /**
+   * A non-blocking byte channel composed of the ends of two pipes.
+   */
+  private static class Link implements ByteChannel {
+
+    private final Pipe.SourceChannel source;
+    private final Pipe.SinkChannel sink;
+
+    private long written;
+
+    Link(Pipe.SourceChannel source, Pipe.SinkChannel sink)
+        throws IOException {
+      this.source = source;
+      this.sink = sink;
+      source.configureBlocking(false);
+      sink.configureBlocking(false);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+      return source.read(dst);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      final int count = sink.write(src);
+      written += count;
+      return count;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return sink.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      sink.close();
+    }
+
+  }
+
+}
@@ -0,0 +1,242 @@
+/*
+ * File created on Oct 18, 2026
+ *
+ * Copyright (c) 2016 Carl Harris, Jr
+ * and others as noted
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.soulwing.ssl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link TlsSocketChannel}.
+ *
+ * @author Carl Harris
+ */
+public class TlsSocketChannelTest {
+
+  private static final String PROTOCOL = "TLSv1.2";
+
+  private static final String PASSWORD = "changeit";
+
+  private static final String PEER_HOST = "server.example.com";
+
+  private static final int MAX_ROUNDS = 10000;
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  private SSLContext serverContext;
+  private SSLContext clientContext;
+  private ServerSocketChannel serverSocketChannel;
+  private TlsSocketChannel client;
+  private TlsSocketChannel server;
+
+  @Before
+  public void setUp() throws Exception {
+    serverContext = SSLContextBuilderFactory.newBuilder()
+        .includeProtocol(PROTOCOL)
+        .credential()
+          .type("JKS")
+          .location("ca-issued-credential.jks", getClass())
+          .password(PASSWORD)
+          .end()
+        .build();
+
+    clientContext = SSLContextBuilderFactory.newBuilder()
+        .includeProtocol(PROTOCOL)
+        .peerTrust()
+          .type("JKS")
+          .location("ca-certificate.jks", getClass())
+          .password(PASSWORD)
+          .end()
+        .build();
+
+    serverSocketChannel = ServerSocketChannel.open();
+    serverSocketChannel.bind(
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    executor.shutdownNow();
+    if (client != null) client.close();
+    if (server != null) server.close();
+    serverSocketChannel.close();
+  }
+
+  @Test
+  public void testNonBlockingHandshake() throws Exception {
+    connect(false);
+    handshake();
+    assertThat(client.isHandshakeComplete(), is(true));
+    assertThat(server.isHandshakeComplete(), is(true));
+    assertThat(server.getEngine().getSession().getProtocol(),
+        is(equalTo(PROTOCOL)));
+  }
+
+  @Test
+  public void testNonBlockingReadWithoutData() throws Exception {
+    connect(false);
+    handshake();
+    assertThat(server.read(ByteBuffer.allocate(100)), is(equalTo(0)));
+    assertThat(server.isNetworkReadNeeded(), is(true));
+  }
+
+  @Test
+  public void testGatheringWriteAndScatteringRead() throws Exception {
+    connect(false);
+    final byte[] data = randomBytes(3000);
+    final ByteBuffer[] srcs = {
+        ByteBuffer.wrap(data, 0, 1000),
+        ByteBuffer.wrap(data, 1000, 1500),
+        ByteBuffer.wrap(data, 2500, 500) };
+    long written = 0;
+    int rounds = 0;
+    while (written < data.length) {
+      assertThat(++rounds, is(lessThan(MAX_ROUNDS)));
+      written += client.write(srcs);
+      server.handshake();
+    }
+    client.flush();
+
+    final ByteBuffer first = ByteBuffer.allocate(2000);
+    final ByteBuffer second = ByteBuffer.allocate(1000);
+    final ByteBuffer[] dsts = { first, second };
+    long read = 0;
+    rounds = 0;
+    try (Selector selector = Selector.open()) {
+      server.getChannel().register(selector, SelectionKey.OP_READ);
+      while (read < data.length) {
+        assertThat(++rounds, is(lessThan(MAX_ROUNDS)));
+        if (!server.hasPendingInput()) {
+          selector.select(1000);
+          selector.selectedKeys().clear();
+        }
+        read += server.read(dsts);
+      }
+    }
+    final ByteBuffer received = ByteBuffer.allocate(data.length);
+    first.flip();
+    second.flip();
+    received.put(first).put(second);
+    assertThat(received.array(), is(equalTo(data)));
+  }
+
+  @Test
+  public void testBlockingExchange() throws Exception {
+    connect(true);
+    final byte[] data = randomBytes(100000);
+    final Future<byte[]> echoed = executor.submit(new Callable<byte[]>() {
+      @Override
+      public byte[] call() throws Exception {
+        final ByteBuffer buffer = ByteBuffer.allocate(data.length);
+        while (buffer.hasRemaining()) {
+          if (server.read(buffer) < 0) break;
+        }
+        buffer.flip();
+        server.write(buffer);
+        return buffer.array();
+      }
+    });
+
+    assertThat(client.write(ByteBuffer.wrap(data)), is(equalTo(data.length)));
+    final ByteBuffer buffer = ByteBuffer.allocate(data.length);
+    while (buffer.hasRemaining()) {
+      assertThat(client.read(buffer), is(greaterThan(0)));
+    }
+    assertThat(echoed.get(10, TimeUnit.SECONDS), is(equalTo(data)));
+    assertThat(buffer.array(), is(equalTo(data)));
+  }
+
+  @Test
+  public void testReadAfterPeerShutdown() throws Exception {
+    connect(true);
+    final Future<Integer> result = executor.submit(new Callable<Integer>() {
+      @Override
+      public Integer call() throws Exception {
+        return server.read(ByteBuffer.allocate(100));
+      }
+    });
+    assertThat(client.handshake(), is(true));
+    assertThat(client.shutdownOutput(), is(true));
+    assertThat(result.get(10, TimeUnit.SECONDS), is(equalTo(-1)));
+    assertThat(client.isOpen(), is(true));
+  }
+
+  @Test(expected = ClosedChannelException.class)
+  public void testReadAfterClose() throws Exception {
+    connect(false);
+    client.close();
+    assertThat(client.isOpen(), is(false));
+    assertThat(client.getChannel().isOpen(), is(false));
+    client.read(ByteBuffer.allocate(100));
+  }
+
+  private void connect(boolean blocking) throws IOException {
+    final SocketChannel clientChannel =
+        SocketChannel.open(serverSocketChannel.getLocalAddress());
+    final SocketChannel serverChannel = serverSocketChannel.accept();
+    clientChannel.configureBlocking(blocking);
+    serverChannel.configureBlocking(blocking);
+    client = TlsSocketChannel.newClientChannel(clientContext, clientChannel,
+        PEER_HOST, serverSocketChannel.socket().getLocalPort());
+    server = TlsSocketChannel.newServerChannel(serverContext, serverChannel);
+  }
+
+  private void handshake() throws IOException, InterruptedException {
+    int rounds = 0;
+    boolean clientDone = false;
+    boolean serverDone = false;
+    while (!clientDone || !serverDone) {
+      assertThat(++rounds, is(lessThan(MAX_ROUNDS)));
+      clientDone = client.handshake();
+      serverDone = server.handshake();
+      Thread.sleep(1);
+    }
+  }
+
+  private static byte[] randomBytes(int length) {
+    final byte[] data = new byte[length];
+    new Random(length).nextBytes(data);
+    return data;
+  }
+
+}